@@ -0,0 +1,17 @@
+#version 330
+
+in vec2 pass_textureCoords;
+
+out vec4 fragColor;
+
+uniform sampler2D tex;
+uniform sampler2D emphasis;
+uniform sampler2D palette;
+
+void main() {
+    ivec2 size = textureSize(tex, 0);
+    ivec2 pixel = min(ivec2(pass_textureCoords * vec2(size)), size - 1);
+    int index = int(texelFetch(tex, pixel, 0).r * 255.0 + 0.5);
+    int bits = int(texelFetch(emphasis, ivec2(pixel.y, 0), 0).r * 255.0 + 0.5);
+    fragColor = texelFetch(palette, ivec2(index & 0x3F, bits & 0x07), 0);
+}
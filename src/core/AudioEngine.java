@@ -5,6 +5,7 @@ import gui.lwjgui.windows.APUViewer;
 import gui.lwjgui.windows.AudioOutput;
 import gui.lwjgui.windows.AudioSettings;
 import net.beadsproject.beads.core.AudioContext;
+import net.beadsproject.beads.core.UGen;
 import net.beadsproject.beads.core.io.JavaSoundAudioIO;
 import net.beadsproject.beads.ugens.Function;
 import net.beadsproject.beads.ugens.WaveShaper;
@@ -13,14 +14,46 @@ import utils.Dialogs;
 import javax.sound.sampled.AudioSystem;
 import javax.sound.sampled.Mixer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.locks.LockSupport;
 
+/**
+ * This class connects the emulator to the audio output
+ * the emulation runs on its own thread, paced on real time, and pushes its samples to a SampleRing
+ * the audio output drains the ring one buffer at a time, so a late emulation chunk doesn't stall it
+ * the drift between the two clocks is absorbed by slightly adjusting the rate at which the NES produces samples
+ */
 public class AudioEngine {
 
-    private final AudioContext ac;
+    //Number of samples the ring can hold, and minimum fill level the rate control tries to keep (about 23ms at 44.1kHz)
+    private static final int RING_CAPACITY = 8192;
+    private static final int MIN_TARGET_FILL = 1024;
+    //Bounds and default of the number of samples computed by each call of the audio output
+    public static final int MIN_BUFFER_SIZE = 64;
+    public static final int MAX_BUFFER_SIZE = 2048;
+    public static final int DEFAULT_BUFFER_SIZE = 512;
+    //Maximum correction applied to the sample rate when the ring is empty or twice the target fill
+    private static final double MAX_RATE_DELTA = 0.005;
+    //Number of CPU cycles emulated between two pacing checks (about a quarter of a frame)
+    private static final int CHUNK_CYCLES = 7447;
+    private static final long CHUNK_DURATION = (long) (CHUNK_CYCLES * 1e9 / (5369318.0 / 3));
+    //When the emulation is further behind real time than this, the reference is reset instead of catching up
+    private static final long MAX_LAG = 100_000_000L;
+
+    private AudioContext ac;
     private final JavaSoundAudioIO jsaIO;
     private final List<AudioOutput> validOutputs;
+    private final NEmuSContext emulator_context;
+    private final SampleRing ring;
     private AudioOutput selectedOutput;
+    private Thread emulation_thread;
+    private volatile boolean emulation_thread_running = false;
+
+    private volatile double sample_rate_ratio = 1.0;
+    private volatile int buffer_size = DEFAULT_BUFFER_SIZE;
+    private volatile int target_fill = MIN_TARGET_FILL;
+    private boolean buffering = true;
 
     public AudioEngine(NEmuSContext emulatorContext) {
         jsaIO = new JavaSoundAudioIO();
@@ -33,20 +66,116 @@ public class AudioEngine {
         selectIO(validOutputs.get(0));
         AudioSettings.linkSoundIO(this);
 
-        ac = new AudioContext(jsaIO);
+        emulator_context = emulatorContext;
+        ring = new SampleRing(RING_CAPACITY);
+        createContext();
         emulatorContext.nes.setSampleFreq((int) ac.getSampleRate());
-        Function audioProcessor = new Function(new WaveShaper(ac)) {
-            public float calculate() {
-                if (emulatorContext.emulation_running) {
-                    boolean sample_ready = false;
-                    while (!sample_ready)
-                        sample_ready = emulatorContext.nes.clock(APUViewer.hasInstance());
-                }
-                return emulatorContext.emulation_running ? (float) emulatorContext.nes.final_audio_sample : 0;
+        ac.start();
+
+        startEmulationThread();
+    }
+
+    /**
+     * Create the audio context and the UGen filling its output buffers from the ring
+     */
+    private void createContext() {
+        ac = new AudioContext(jsaIO, buffer_size);
+        UGen audioProcessor = new UGen(ac, 1) {
+            @Override
+            public void calculateBuffer() {
+                render(bufOut[0], 0, bufferSize);
             }
         };
         ac.out.addInput(audioProcessor);
-        ac.start();
+    }
+
+    /**
+     * Fill a block of the output with the next samples to play, called by the audio output
+     * after an underrun, the ring is refilled up to the target fill before playing again
+     *
+     * @param out    the array to write the samples to
+     * @param offset the index of the first sample to write
+     * @param frames the number of samples to write
+     */
+    private void render(float[] out, int offset, int frames) {
+        if (!emulator_context.emulation_running) {
+            Arrays.fill(out, offset, offset + frames, 0);
+            return;
+        }
+        if (buffering) {
+            if (ring.size() < target_fill) {
+                Arrays.fill(out, offset, offset + frames, 0);
+                return;
+            }
+            buffering = false;
+        }
+        if (ring.read(out, offset, frames) < frames)
+            buffering = true;
+    }
+
+    /**
+     * Start the emulation thread if it isn't running
+     */
+    private void startEmulationThread() {
+        if (emulation_thread != null)
+            return;
+        emulation_thread_running = true;
+        emulation_thread = new Thread(this::runEmulation, "Emulation");
+        emulation_thread.setDaemon(true);
+        emulation_thread.start();
+    }
+
+    /**
+     * Stop the emulation thread and wait for it to finish the chunk being emulated
+     */
+    private void stopEmulationThread() {
+        if (emulation_thread == null)
+            return;
+        emulation_thread_running = false;
+        //The thread may be parked until its next deadline, we wake it up
+        emulation_thread.interrupt();
+        try {
+            emulation_thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        emulation_thread = null;
+    }
+
+    /**
+     * The loop of the emulation thread
+     * run the NES chunk by chunk at real time speed, and push the generated samples to the ring
+     * until stopEmulationThread() is called
+     */
+    private void runEmulation() {
+        NES nes = emulator_context.nes;
+        long deadline = System.nanoTime();
+        double fill = 0;
+        while (emulation_thread_running) {
+            //If the emulation is paused, or if the audio output is stalled, we wait instead of filling the ring
+            if (!emulator_context.emulation_running || ring.size() > ring.capacity() * 3 / 4) {
+                LockSupport.parkNanos(1_000_000);
+                deadline = System.nanoTime();
+                continue;
+            }
+            //We produce slightly more samples when the ring is emptying, and slightly less when it is filling up
+            //the fill level is smoothed over a few chunks, as it oscillates with the size of the audio blocks
+            fill += (ring.size() - fill) / 8;
+            double error = (target_fill - fill) / target_fill;
+            sample_rate_ratio = 1 + MAX_RATE_DELTA * Math.max(-1, Math.min(1, error));
+            synchronized (nes) {
+                nes.setSampleRateRatio(sample_rate_ratio);
+                nes.enableAPUVisualUpdate(APUViewer.hasInstance());
+                int count = nes.runCycles(CHUNK_CYCLES);
+                ring.write(nes.getAudioSamples(), count);
+            }
+            deadline += CHUNK_DURATION;
+            long wait = deadline - System.nanoTime();
+            if (wait > 0)
+                LockSupport.parkNanos(wait);
+            else if (wait < -MAX_LAG)
+                deadline = System.nanoTime();
+        }
     }
 
     private void verifyValidOutputs() {
@@ -91,6 +220,86 @@ public class AudioEngine {
         ac.stop();
     }
 
+    /**
+     * Stop the emulation thread and the audio output, called when the emulator is closed
+     */
+    public void shutdown() {
+        stopEmulationThread();
+        ac.stop();
+    }
+
+    /**
+     * Set the number of samples computed by each call of the audio output
+     * larger buffers cost less CPU time but add latency, the audio context is recreated
+     *
+     * @param bufferSize the size of the output buffers, clamped between MIN_BUFFER_SIZE and MAX_BUFFER_SIZE
+     */
+    public void setBufferSize(int bufferSize) {
+        buffer_size = Math.max(MIN_BUFFER_SIZE, Math.min(MAX_BUFFER_SIZE, bufferSize));
+        //The ring must hold at least two output buffers to absorb the size of the reads
+        target_fill = Math.max(MIN_TARGET_FILL, 2 * buffer_size);
+        //The emulation thread is stopped while the audio context is rebuilt
+        stopEmulationThread();
+        ac.stop();
+        createContext();
+        ac.start();
+        startEmulationThread();
+    }
+
+    /**
+     * Return the number of samples computed by each call of the audio output
+     *
+     * @return the size of the output buffers
+     */
+    public int getBufferSize() {
+        return buffer_size;
+    }
+
+    /**
+     * Return the number of samples waiting to be played
+     *
+     * @return the current fill level of the sample ring
+     */
+    public int getBufferFill() {
+        return ring.size();
+    }
+
+    /**
+     * Return the number of samples the sample ring can hold
+     *
+     * @return the capacity of the sample ring
+     */
+    public int getBufferCapacity() {
+        return ring.capacity();
+    }
+
+    /**
+     * Return the number of times the ring didn't hold enough samples to fill an output buffer
+     *
+     * @return the number of underruns
+     */
+    public long getUnderrunCount() {
+        return ring.getUnderrunCount();
+    }
+
+    /**
+     * Return the number of samples dropped because the ring was full
+     *
+     * @return the number of overruns
+     */
+    public long getOverrunCount() {
+        return ring.getOverrunCount();
+    }
+
+    /**
+     * Return the current correction applied to the sample rate by the rate control
+     *
+     * @return the ratio between the produced and the nominal sample rate
+     */
+    public double getSampleRateRatio() {
+        return sample_rate_ratio;
+    }
+
     public AudioOutput getSelectedOutput() {
         return selectedOutput;
     }
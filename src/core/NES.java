@@ -2,9 +2,11 @@ package core;
 
 import core.apu.APU_2A03;
 import core.cartridge.Cartridge;
+import core.cartridge.mappers.Mapper;
 import core.cpu.CPU_6502;
 import core.ppu.PPU_2C02;
-import utils.IntegerWrapper;
+
+import java.util.Arrays;
 
 /**
  * This class represent the Bus of the NES
@@ -13,11 +15,15 @@ import utils.IntegerWrapper;
 public class NES {
 
     private static final long SAVE_INTERVAL = 20000;
+    //Number of CPU cycles before trying again to skip an idle loop polling a PPU Status Register that can change at any time
+    private static final int IDLE_RETRY_CYCLES = 64;
 
     public final int[] controller;
     public double final_audio_sample = 0.0;
 
     private final byte[] ram;
+    private final PageTable cpu_pages;
+    private final Scheduler scheduler;
     private final CPU_6502 cpu;
     private final PPU_2C02 ppu;
     private final APU_2A03 apu;
@@ -25,17 +31,25 @@ public class NES {
 
     private long next_save = 0;
     private long system_ticks = 0;
+    private long ppu_ticks = 0;
+    private long next_idle_skip = 0;
+    private boolean ppu_catch_up = false;
     private Cartridge cartridge;
     private int dma_page = 0x00;
     private int dma_addr = 0x00;
     private int dma_data = 0x00;
     private boolean dma_transfer = false;
     private boolean dma_dummy = true;
+    private boolean dma_bulk = false;
     private double audio_time = 0.0;
     private double time_per_NES_cycle = 0.0;
     private double time_per_system_sample = 0.0;
+    private int sample_rate = 0;
     private boolean sound_rendering = true;
     private int dummy_cycle_left = 0;
+    private double[] audio_samples = new double[2048];
+    private int audio_sample_count = 0;
+    private boolean update_apu_visual = false;
 
 
     /**
@@ -45,8 +59,14 @@ public class NES {
         ram = new byte[2048];
         for (int i = 0; i < 2048; i++)
             ram[i] = 0x0000;
+        //The RAM is mirrored 4 times over the 0x0000 - 0x1FFF range
+        cpu_pages = new PageTable(256, 8);
+        for (int addr = 0x0000; addr <= 0x1FFF; addr += 0x0800)
+            cpu_pages.map(addr, 0x0800, ram, 0, true);
+        scheduler = new Scheduler();
         cpu = new CPU_6502();
         ppu = new PPU_2C02();
+        ppu.connectScheduler(scheduler);
         apu = new APU_2A03(this);
         controller = new int[2];
         controller_state = new int[2];
@@ -54,8 +74,21 @@ public class NES {
     }
 
     public void setSampleFreq(int sampleRate) {
+        sample_rate = sampleRate;
         time_per_system_sample = 1.0 / (double) sampleRate;
         time_per_NES_cycle = 1.0 / 5369318.0;
+        apu.setSampleRate(sampleRate);
+    }
+
+    /**
+     * Slightly speed up or slow down the production of audio samples relative to the emulated time
+     * used to keep an audio buffer at a stable fill level when the emulation and the audio device clocks drift apart
+     *
+     * @param ratio the ratio between the produced and the nominal sample rate, within 1% of 1.0
+     */
+    public void setSampleRateRatio(double ratio) {
+        time_per_system_sample = 1.0 / (sample_rate * ratio);
+        apu.adjustSampleRate(sample_rate * ratio);
     }
 
     /**
@@ -76,10 +109,58 @@ public class NES {
         return ppu;
     }
 
+    /**
+     * Return the PageTable of the CPU Address space
+     *
+     * @return the CPU PageTable
+     */
+    public PageTable getCpuPages() {
+        return cpu_pages;
+    }
+
+    /**
+     * Return the Scheduler of timed hardware events
+     *
+     * @return the Scheduler
+     */
+    public Scheduler getScheduler() {
+        return scheduler;
+    }
+
     public APU_2A03 getApu() {
         return apu;
     }
 
+    /**
+     * Return the number of PPU ticks (master clock) executed since the startup
+     *
+     * @return the current tick
+     */
+    public long getSystemTicks() {
+        return system_ticks;
+    }
+
+    /**
+     * Enable or disable the lazy synchronisation of the PPU
+     * when enabled, the PPU runs behind the CPU and only catches up when its state can be observed
+     * (register access, OAM DMA, Mapper register, and the scheduled NMI, Mapper scanline notification and end of frame)
+     * when disabled, the PPU is clocked in lockstep with the CPU
+     *
+     * @param enabled should the PPU catch up lazily
+     */
+    public void setPPUCatchUp(boolean enabled) {
+        ppu_catch_up = enabled;
+    }
+
+    /**
+     * Return whether or not the PPU is synchronised lazily
+     *
+     * @return is the PPU catching up lazily
+     */
+    public boolean isPPUCatchUpEnabled() {
+        return ppu_catch_up;
+    }
+
     /**
      * Write a value to the CPU Addressable range
      *
@@ -89,8 +170,19 @@ public class NES {
     public void cpuWrite(int addr, int data) {
         data &= 0xFF;
         addr &= 0xFFFF;
-        //If the Cartridge is interested we write the value and directly return
-        if (!cartridge.cpuWrite(addr, data)) {
+        //If the page is backed by writable memory (RAM, Cartridge RAM) we directly write to it
+        if (cpu_pages.write(addr, data))
+            return;
+        //A write to the PPU, the DMA or the Cartridge (CHR Banks, mirroring, IRQ) can be seen by the PPU, so it must first catch up
+        if ((addr >= 0x2000 && addr <= 0x3FFF) || addr == 0x4014 || addr >= 0x4020)
+            syncPPU(system_ticks + 1);
+        //A write to the Cartridge can switch CHR Banks or mirroring, so the PPU must first catch up with the current scanline
+        if (addr >= 0x4020)
+            ppu.syncScanline();
+        //If the Cartridge is interested we write the value and drop the Instructions the CPU may have decoded there
+        if (cartridge.cpuWrite(addr, data)) {
+            cpu.invalidateDecoded(addr);
+        } else {
             if (addr <= 0x1FFF) { //Write to RAM (8Kb addressable, mirror in 4 2Kb chunks)
                 ram[addr & 0x07FF] = (byte) data;
             } else if (addr <= 0x3FFF) { //Write PPU Register (8 values mirrored over the range)
@@ -101,10 +193,24 @@ public class NES {
                 dma_page = data;
                 dma_addr = 0;
                 dma_transfer = true;
+                //If the page is backed by memory (RAM, PRG ROM, Cartridge RAM), reading it has no side effect
+                //so it is copied at once and the transfer only stalls the CPU
+                byte[] page = cpu_pages.getMemory(dma_page << 8);
+                dma_bulk = page != null;
+                if (dma_bulk)
+                    ppu.writeOAM(page, cpu_pages.getOffset(dma_page << 8));
+                //The transfer starts after a dummy cycle (two if the next cycle is a read cycle) and lasts 512 cycles
+                long start = system_ticks + 3;
+                if ((start & 1) == 0)
+                    start += 3;
+                scheduler.schedule(Scheduler.DMA_END, start + 3 * 512);
             } else if (addr == 0x4016) { //When trying to write to controller register, we snapshot the current controller state
                 controller_state[data & 0x1] = controller[data & 0x1];
             }
         }
+        //Enabling the rendering starts the scanline notifications of the Mapper
+        if (addr >= 0x2000 && addr <= 0x3FFF && scheduler.getDeadline(Scheduler.MAPPER_IRQ) == Scheduler.NONE)
+            scheduleScanlineCounter();
     }
 
     /**
@@ -116,23 +222,30 @@ public class NES {
      */
     public int cpuRead(int addr, boolean readOnly) {
         addr &= 0xFFFF;
-        //The wrapper that will contain the Cartridge data if read from it
-        IntegerWrapper data = new IntegerWrapper();
+        //If the page is backed by memory (RAM, PRG ROM, Cartridge RAM) we directly read from it
+        int data = cpu_pages.read(addr);
+        if (data != PageTable.UNMAPPED)
+            return data;
+        //A read from the PPU or the Cartridge registers can depend on the state of the PPU, so it must first catch up
+        if (!readOnly && addr >= 0x2000 && (addr <= 0x3FFF || addr >= 0x4020))
+            syncPPU(system_ticks + 1);
         //If the Cartridge is interested we return the value
-        if (!cartridge.cpuRead(addr, data)) {
+        data = cartridge.cpuRead(addr);
+        if (data == Mapper.UNMAPPED) {
+            data = 0x00;
             if (addr <= 0x1FFF) //Read from RAM (8Kb addressable, mirror in 4 2Kb chunks)
-                data.value = ram[addr & 0x07FF];
+                data = ram[addr & 0x07FF];
             else if (addr <= 0x3FFF)  //Read PPU Register (8 values mirrored over the range)
-                data.value = ppu.cpuRead(addr & 0x0007, readOnly);
+                data = ppu.cpuRead(addr & 0x0007, readOnly);
             else if (addr == 0x4015)
-                data.value = apu.cpuRead(addr, readOnly);
+                data = apu.cpuRead(addr, readOnly);
             else if (addr >= 0x4016 && addr <= 0x4017 && !readOnly) { //Read the controllers
                 //Controller read is Serial, when read from, the value is shifted left
-                data.value = ((controller_state[addr & 0x0001] & 0x80) > 0) ? 0x1 : 0x0;
+                data = ((controller_state[addr & 0x0001] & 0x80) > 0) ? 0x1 : 0x0;
                 controller_state[addr & 0x0001] <<= 1;
             }
         }
-        return data.value & 0xFF;
+        return data & 0xFF;
     }
 
     /**
@@ -142,6 +255,7 @@ public class NES {
      */
     public void insertCartridge(Cartridge cart) {
         this.cartridge = cart;
+        cartridge.connectCPU(cpu_pages);
         ppu.connectCartridge(cartridge);
     }
 
@@ -153,11 +267,15 @@ public class NES {
         ppu.reset();
         cartridge.reset();
         system_ticks = 0;
+        ppu_ticks = 0;
+        next_idle_skip = 0;
         dma_page = 0x00;
         dma_addr = 0x00;
         dma_data = 0x00;
         dma_dummy = true;
         dma_transfer = false;
+        dma_bulk = false;
+        scheduleEvents();
     }
 
     /**
@@ -169,6 +287,33 @@ public class NES {
         ppu.reset();
         cartridge.reset();
         system_ticks = 0;
+        ppu_ticks = 0;
+        next_idle_skip = 0;
+        scheduleEvents();
+    }
+
+    /**
+     * Predict the next events of the components from their current state
+     * called when the time is reset, the previous deadlines being meaningless
+     */
+    private void scheduleEvents() {
+        scheduler.reset();
+        scheduler.schedule(Scheduler.NMI, ppu_ticks + ppu.getDotsUntilVerticalBlank());
+        scheduler.schedule(Scheduler.FRAME_END, ppu_ticks + ppu.getDotsUntilFrameEnd());
+        scheduleScanlineCounter();
+        //The APU hasn't been clocked yet for the current CPU cycle
+        apu.scheduleIrq(system_ticks);
+    }
+
+    /**
+     * Schedule the next scanline notified to the Mapper, if the Mapper has a scanline counter and the rendering is enabled
+     */
+    private void scheduleScanlineCounter() {
+        int dots = ppu.getDotsUntilScanlineCounter();
+        if (dots >= 0)
+            scheduler.schedule(Scheduler.MAPPER_IRQ, ppu_ticks + dots);
+        else
+            scheduler.cancel(Scheduler.MAPPER_IRQ);
     }
 
     /**
@@ -177,52 +322,262 @@ public class NES {
      * the CPU is clocked one every 3 times
      */
     public boolean clock(boolean update_apu_visual) {
-        //The PPU and APU are clocked every tick
-        ppu.clock();
-        apu.clock(sound_rendering, time_per_NES_cycle);
-        //The CPU clock is 3 time slower than the PPU clock, so it is clocked every 3 ticks
+        //The PPU is clocked every tick, after catching up if it was running behind
+        syncPPU(system_ticks + 1);
+        //The CPU clock is 3 time slower than the PPU clock, so it is clocked every 3 ticks, along with the APU
         if (system_ticks % 3 == 0) {
-            //If a Direct Memory Access is occurring
-            if (dma_transfer) {
-                if (dma_dummy) { //Wait for the write clock cycle (DMA chip busy)
-                    //When at the write cycle, the DMA chip is ready and wait the next cycle to start transferring
-                    if (system_ticks % 2 == 1)
-                        dma_dummy = false;
-                } else { //If the transfer is occurring
-                    if (system_ticks % 2 == 0) //On even cycles, we read from the selected CPU Memory Page
-                        dma_data = cpuRead(dma_page << 8 | dma_addr, false);
-                    else { //On odd cycles, we write the read data to the PPU Memory (OAM Memory)
-                        //One Object Attribute is represented as 4 8bit values [0x(x)FF (attr)FF  (tileId)FF (y)FF]
-                        //We select which attribute is actually being written by taking the 2 lsb of the current DMA Address
-                        //We select the OAM Entry index using the 5 lsb of the current DMA Address
-                        switch ((dma_addr) & 0x03) {
-                            case 0x0:
-                                ppu.getOams()[dma_addr >> 2].setY(dma_data);
-                            case 0x1:
-                                ppu.getOams()[dma_addr >> 2].setId(dma_data);
-                            case 0x2:
-                                ppu.getOams()[dma_addr >> 2].setAttribute(dma_data);
-                            case 0x3:
-                                ppu.getOams()[dma_addr >> 2].setX(dma_data);
-                        }
-                        //The DMA address is automatically incremented
-                        dma_addr++;
-                        dma_addr &= 0xFF;
-                        //At the end of the page (aka 512 cycles) the DMA transfer is complete and the CPU can start again
-                        if (dma_addr == 0x00) {
-                            dma_transfer = false;
-                            dma_dummy = true;
-                        }
-                    }
-                }
-                //If no Direct Memory Access is occurring, the CPU is clocked
-            } else if (dummy_cycle_left == 0)
-                cpu.clock();
+            apu.clockCycle(sound_rendering, time_per_NES_cycle);
+            cpuCycle();
+        } else {
+            apu.clockTick();
+        }
+
+        boolean audioSampleReady = sampleAudio(update_apu_visual);
+
+        //If an interrupt has been raised, we propagate it to the CPU
+        if (system_ticks >= scheduler.getNextDeadline())
+            dispatchEvents();
+
+        //If a frame has been completed and it is time to save the Cartridge, we trigger that event
+        if (ppu.frame_complete)
+            checkSave();
+        system_ticks++;
+
+        return audioSampleReady;
+    }
+
+    /**
+     * Run the console for a number of CPU cycles
+     * Each CPU cycle is computed at once with its 3 PPU ticks, which is much faster than calling clock() for each tick
+     * The audio samples are stored and can be retrieved using getAudioSamples()
+     *
+     * @param cycles the number of CPU cycles to run
+     * @return the number of audio samples generated
+     */
+    public int runCycles(int cycles) {
+        return run(cycles, false);
+    }
+
+    /**
+     * Run the console until the PPU has completed a frame
+     * The audio samples are stored and can be retrieved using getAudioSamples()
+     *
+     * @return the number of audio samples generated
+     */
+    public int runFrame() {
+        return run(Integer.MAX_VALUE, true);
+    }
+
+    /**
+     * Run the console CPU cycle by CPU cycle
+     * the CPU runs uninterrupted until the cycle holding the earliest deadline of the Scheduler,
+     * only this cycle is run tick by tick to dispatch the events at their exact tick
+     *
+     * @param cycles     the maximum number of CPU cycles to run
+     * @param untilFrame should the run stop when a frame is completed
+     * @return the number of audio samples generated
+     */
+    private int run(int cycles, boolean untilFrame) {
+        audio_sample_count = 0;
+        //If we are in the middle of a CPU cycle, we finish it tick by tick
+        while (system_ticks % 3 != 0) {
+            if (clock(update_apu_visual))
+                storeSample();
+        }
+        long end = system_ticks + 3L * cycles;
+        //The end of the frame is an event, so the frame can only be completed by the cycle holding a deadline
+        while (system_ticks < end && !(untilFrame && ppu.frame_complete)) {
+            while (system_ticks < end && system_ticks + 2 < scheduler.getNextDeadline()) {
+                //An idle loop can't be left before the deadline, the CPU jumps to it
+                if (cpu.isReplayingIdleLoop() && system_ticks >= next_idle_skip && skipIdleLoop(end))
+                    continue;
+                runCycle();
+            }
+            if (system_ticks < end)
+                runCycle();
+        }
+        //The PPU is left up to date, so its state can be inspected
+        syncPPU(system_ticks);
+        checkSave();
+        return audio_sample_count;
+    }
+
+    /**
+     * Fast forward the idle loop replayed by the CPU until the earliest deadline, or until the polled PPU Status Register can change
+     * the skipped cycles are counted by the CPU, the PPU catches up with them at once and the APU runs them cycle by cycle to produce the same samples
+     *
+     * @param end the tick where the current run stops
+     * @return have cycles been skipped
+     */
+    private boolean skipIdleLoop(long end) {
+        //During a DMA or a DMC fetch, the CPU doesn't run all the cycles of the loop
+        if (dma_transfer || dummy_cycle_left > 0 || apu.isDMCFetching())
+            return false;
+        long limit = Math.min(end, scheduler.getNextDeadline());
+        if (cpu.isIdleLoopPollingPPU()) {
+            syncPPU(system_ticks);
+            long change = ppu_ticks + ppu.getDotsUntilStatusChange();
+            //If the Status Register can change at any time, the loop is replayed cycle by cycle until it can't
+            if (change <= system_ticks + 2) {
+                next_idle_skip = system_ticks + 3 * IDLE_RETRY_CYCLES;
+                return false;
+            }
+            limit = Math.min(limit, change);
+        }
+        int cycles = cpu.skipIdleCycles((int) Math.min((limit - system_ticks) / 3, Integer.MAX_VALUE));
+        if (cycles == 0)
+            return false;
+        //Nothing can observe the PPU during these cycles, it runs them at once
+        if (!ppu_catch_up) {
+            ppu.clock(3 * cycles);
+            ppu_ticks += 3L * cycles;
+        }
+        for (int i = 0; i < cycles; i++) {
+            apu.clockCycle(sound_rendering, time_per_NES_cycle);
+            if (sampleAudio(update_apu_visual))
+                storeSample();
+            for (int tick = 1; tick < 3; tick++) {
+                apu.clockTick();
+                if (sampleAudio(update_apu_visual))
+                    storeSample();
+            }
+        }
+        system_ticks += 3L * cycles;
+        return true;
+    }
+
+    /**
+     * Run one CPU cycle and its 3 PPU ticks
+     * the PPU is either clocked at every tick (lockstep) or left behind until its state can be observed (catch up)
+     * the events are only looked at if the earliest deadline falls into the cycle, once the CPU has been clocked as it can raise one
+     */
+    private void runCycle() {
+        //First tick, the CPU and APU are clocked
+        if (!ppu_catch_up) {
+            ppu.clock();
+            ppu_ticks++;
+        }
+        apu.clockCycle(sound_rendering, time_per_NES_cycle);
+        cpuCycle();
+        if (sampleAudio(update_apu_visual))
+            storeSample();
+        boolean checked = system_ticks + 2 >= scheduler.getNextDeadline();
+        if (checked && system_ticks >= scheduler.getNextDeadline())
+            dispatchEvents();
+        system_ticks++;
+        //Second and third ticks, only the PPU is doing real work
+        for (int tick = 1; tick < 3; tick++) {
+            if (!ppu_catch_up) {
+                ppu.clock();
+                ppu_ticks++;
+            }
+            apu.clockTick();
+            if (sampleAudio(update_apu_visual))
+                storeSample();
+            if (checked && system_ticks >= scheduler.getNextDeadline())
+                dispatchEvents();
+            system_ticks++;
+        }
+    }
+
+    /**
+     * Make the PPU catch up with the current tick
+     * must be called before inspecting the state of the PPU without accessing its registers
+     */
+    public void catchUpPPU() {
+        syncPPU(system_ticks + 1);
+    }
+
+    /**
+     * Make the PPU catch up with the rest of the console, by running its late dots at once
+     *
+     * @param ticks the number of ticks the PPU must have executed since the startup
+     */
+    private void syncPPU(long ticks) {
+        if (ppu_ticks < ticks) {
+            ppu.clock((int) (ticks - ppu_ticks));
+            ppu_ticks = ticks;
+        }
+    }
+
+    /**
+     * Handle the events that have reached their deadline, by order of priority, and schedule the next ones
+     * the deadlines of the PPU can be underestimated (skipped dot of the odd frames), in which case the event hasn't occurred yet and is scheduled again
+     */
+    private void dispatchEvents() {
+        //The PPU must have reached the current tick for its events to have occurred
+        syncPPU(system_ticks + 1);
+        //If the PPU triggers an Non Maskable Interrupt, it is propagated to the CPU (Vertical Blank)
+        if (scheduler.isDue(Scheduler.NMI, system_ticks)) {
+            if (ppu.nmi())
+                cpu.nmi();
+            scheduler.schedule(Scheduler.NMI, ppu_ticks + ppu.getDotsUntilVerticalBlank());
+        }
+        //The APU IRQ line stays asserted until acknowledged, so the event is kept as long as it is
+        if (scheduler.isDue(Scheduler.APU_IRQ, system_ticks)) {
+            if (apu.irq())
+                cpu.irq();
             else
-                dummy_cycle_left--;
+                apu.scheduleIrq(system_ticks - system_ticks % 3 + 3);
+        }
+        //If the Cartridge needs to trigger an IRQ after the scanline notification, we propagate it
+        if (scheduler.isDue(Scheduler.MAPPER_IRQ, system_ticks)) {
+            Mapper mapper = cartridge.getMapper();
+            if (mapper.irqState()) {
+                mapper.irqClear();
+                cpu.irq();
+            }
+            scheduleScanlineCounter();
+        }
+        //At the end of the OAM DMA transfer the CPU can start again
+        if (scheduler.isDue(Scheduler.DMA_END, system_ticks)) {
+            scheduler.cancel(Scheduler.DMA_END);
+            dma_transfer = false;
+            dma_dummy = true;
         }
+        //The completed frame is seen by the run loop, the PPU only had to catch up
+        if (scheduler.isDue(Scheduler.FRAME_END, system_ticks))
+            scheduler.schedule(Scheduler.FRAME_END, ppu_ticks + ppu.getDotsUntilFrameEnd());
+    }
 
-        boolean audioSampleReady = false;
+    /**
+     * Compute one CPU cycle, a Direct Memory Access cycle or a dummy cycle
+     */
+    private void cpuCycle() {
+        //If a Direct Memory Access is occurring, the CPU is stalled until the end of the transfer (DMA_END event)
+        if (dma_transfer) {
+            //If the page has already been copied at once, the CPU only waits
+            if (dma_bulk)
+                return;
+            if (dma_dummy) { //Wait for the write clock cycle (DMA chip busy)
+                //When at the write cycle, the DMA chip is ready and wait the next cycle to start transferring
+                if ((system_ticks & 1) == 1)
+                    dma_dummy = false;
+            } else { //If the transfer is occurring
+                if ((system_ticks & 1) == 0) { //On even cycles, we read from the selected CPU Memory Page
+                    dma_data = cpuRead(dma_page << 8 | dma_addr, false);
+                } else { //On odd cycles, we write the read data to the PPU Memory (OAM Memory)
+                    syncPPU(system_ticks + 1);
+                    ppu.writeOAM(dma_addr, dma_data);
+                    //The DMA address is automatically incremented
+                    dma_addr++;
+                    dma_addr &= 0xFF;
+                }
+            }
+            //If no Direct Memory Access is occurring, the CPU is clocked
+        } else if (dummy_cycle_left == 0)
+            cpu.clock();
+        else
+            dummy_cycle_left--;
+    }
+
+    /**
+     * Advance the audio time by one tick and compute a sample if it is time to
+     *
+     * @param update_apu_visual should the APU visualizer be updated
+     * @return has an audio sample been computed
+     */
+    private boolean sampleAudio(boolean update_apu_visual) {
         audio_time += time_per_NES_cycle;
         //We verify if it is time to calculate an audio sample
         if (audio_time >= time_per_system_sample) {
@@ -232,28 +587,56 @@ public class NES {
                 final_audio_sample = apu.getSample(update_apu_visual);
             else
                 final_audio_sample = 0;
-            audioSampleReady = true;
+            return true;
         }
+        return false;
+    }
 
-        //If the PPU triggers an Non Maskable Interrupt, it is propagated to the CPU (Vertical Blank)
-        if (ppu.nmi())
-            cpu.nmi();
-        //If the APU or Cartridge need to trigger an IRQ, we propagate it
-        if (apu.irq())
-            cpu.irq();
-        if (cartridge.getMapper().irqState()) {
-            cartridge.getMapper().irqClear();
-            cpu.irq();
-        }
+    /**
+     * Append the last computed audio sample to the sample buffer
+     */
+    private void storeSample() {
+        if (audio_sample_count == audio_samples.length)
+            audio_samples = Arrays.copyOf(audio_samples, audio_samples.length * 2);
+        audio_samples[audio_sample_count++] = final_audio_sample;
+    }
 
-        //If it is time to save the Cartridge, we trigger that event
+    /**
+     * Save the Cartridge if it is time to
+     */
+    private void checkSave() {
         if (System.currentTimeMillis() >= next_save) {
             cartridge.save();
             next_save = System.currentTimeMillis() + SAVE_INTERVAL;
         }
-        system_ticks++;
+    }
 
-        return audioSampleReady;
+    /**
+     * Return the audio samples generated by the last call to runCycles() or runFrame()
+     * Only the first getAudioSampleCount() samples are valid
+     *
+     * @return the audio sample buffer
+     */
+    public double[] getAudioSamples() {
+        return audio_samples;
+    }
+
+    /**
+     * Return the number of audio samples generated by the last call to runCycles() or runFrame()
+     *
+     * @return the number of generated samples
+     */
+    public int getAudioSampleCount() {
+        return audio_sample_count;
+    }
+
+    /**
+     * Enable or disable the update of the APU visualizer by runCycles() and runFrame()
+     *
+     * @param enabled should the APU visualizer be updated
+     */
+    public void enableAPUVisualUpdate(boolean enabled) {
+        update_apu_visual = enabled;
     }
 
     /**
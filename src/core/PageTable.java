@@ -0,0 +1,123 @@
+package core;
+
+/**
+ * This class represent a paged view of an address space
+ * each page points to a backing array and an offset in it,
+ * pages without backing memory must be decoded by the owner of the table (I/O registers, Mapper registers ...)
+ */
+public class PageTable {
+
+    public static final int UNMAPPED = -1;
+
+    private final int page_shift;
+    private final int page_size;
+    private final byte[][] memory;
+    private final int[] offset;
+    private final boolean[] writable;
+
+    /**
+     * Create a new empty PageTable
+     *
+     * @param nbPages   the number of pages in the address space
+     * @param pageShift the size of a page as a power of 2
+     */
+    public PageTable(int nbPages, int pageShift) {
+        page_shift = pageShift;
+        page_size = 1 << pageShift;
+        memory = new byte[nbPages][];
+        offset = new int[nbPages];
+        writable = new boolean[nbPages];
+    }
+
+    /**
+     * Map a range of the address space to a backing array
+     *
+     * @param addr     the first address of the range, must be aligned on a page
+     * @param size     the size of the range, must be a multiple of the page size
+     * @param backing  the array containing the data
+     * @param start    the index of the range's first byte in the array
+     * @param canWrite can the range be written to directly
+     */
+    public void map(int addr, int size, byte[] backing, int start, boolean canWrite) {
+        for (int i = 0; i < size; i += page_size) {
+            int page = (addr + i) >> page_shift;
+            memory[page] = backing;
+            //The offset is stored relative to the page address, a lookup is then a single addition
+            offset[page] = start + i - (addr + i);
+            writable[page] = canWrite;
+        }
+    }
+
+    /**
+     * Remove the backing memory of a range of the address space
+     *
+     * @param addr the first address of the range, must be aligned on a page
+     * @param size the size of the range, must be a multiple of the page size
+     */
+    public void unmap(int addr, int size) {
+        for (int i = 0; i < size; i += page_size) {
+            int page = (addr + i) >> page_shift;
+            memory[page] = null;
+            offset[page] = 0;
+            writable[page] = false;
+        }
+    }
+
+    /**
+     * Read a value from the backing memory
+     *
+     * @param addr the address to read from
+     * @return the read value or UNMAPPED if the page has no backing memory
+     */
+    public int read(int addr) {
+        byte[] backing = memory[addr >> page_shift];
+        if (backing == null)
+            return UNMAPPED;
+        return backing[offset[addr >> page_shift] + addr] & 0xFF;
+    }
+
+    /**
+     * Write a value to the backing memory if the page is writable
+     *
+     * @param addr the address to write to
+     * @param data the data to write
+     * @return was the value written
+     */
+    public boolean write(int addr, int data) {
+        int page = addr >> page_shift;
+        if (!writable[page])
+            return false;
+        memory[page][offset[page] + addr] = (byte) data;
+        return true;
+    }
+
+    /**
+     * Return whether or not the page containing an address can be written directly
+     *
+     * @param addr the address
+     * @return is the page backed by writable memory
+     */
+    public boolean isWritable(int addr) {
+        return writable[addr >> page_shift];
+    }
+
+    /**
+     * Return the backing array of the page containing an address
+     *
+     * @param addr the address
+     * @return the backing array, null if not present
+     */
+    public byte[] getMemory(int addr) {
+        return memory[addr >> page_shift];
+    }
+
+    /**
+     * Return the index in the backing array of an address
+     *
+     * @param addr the address
+     * @return the index of the address in its backing array
+     */
+    public int getOffset(int addr) {
+        return offset[addr >> page_shift] + addr;
+    }
+}
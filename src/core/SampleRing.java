@@ -0,0 +1,117 @@
+package core;
+
+import java.util.Arrays;
+
+/**
+ * This class represent a lock-free ring buffer of audio samples
+ * it must be written by a single thread (the emulation) and read by a single thread (the audio output)
+ * each side only writes its own position, the other one being read through a volatile field
+ */
+public class SampleRing {
+
+    private final float[] buffer;
+    private final int mask;
+
+    private volatile long write_position = 0;
+    private volatile long read_position = 0;
+    private volatile long underruns = 0;
+    private volatile long overruns = 0;
+
+    private float last_sample = 0;
+
+    /**
+     * Create a new SampleRing
+     *
+     * @param capacity the number of samples the ring can hold, rounded up to a power of 2
+     */
+    public SampleRing(int capacity) {
+        buffer = new float[Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1];
+        mask = buffer.length - 1;
+    }
+
+    /**
+     * Append samples to the ring, must only be called by the producer thread
+     * the samples that don't fit are dropped and counted as overruns
+     *
+     * @param samples the samples to append
+     * @param count   the number of samples to append
+     * @return the number of samples actually appended
+     */
+    public int write(double[] samples, int count) {
+        long write = write_position;
+        int free = buffer.length - (int) (write - read_position);
+        if (count > free) {
+            overruns += count - free;
+            count = free;
+        }
+        for (int i = 0; i < count; i++)
+            buffer[(int) (write + i) & mask] = (float) samples[i];
+        //The samples are only visible to the consumer once the position is published
+        write_position = write + count;
+        return count;
+    }
+
+    /**
+     * Take a block of samples from the ring, must only be called by the consumer thread
+     * if the ring doesn't hold enough samples, the rest of the block repeats the last sample and one underrun is counted
+     *
+     * @param out    the array to write the samples to
+     * @param offset the index of the first sample to write
+     * @param count  the number of samples to write
+     * @return the number of samples actually taken from the ring
+     */
+    public int read(float[] out, int offset, int count) {
+        long read = read_position;
+        int available = (int) Math.min(write_position - read, count);
+        int start = (int) read & mask;
+        //The block may wrap around the end of the buffer
+        int first = Math.min(available, buffer.length - start);
+        System.arraycopy(buffer, start, out, offset, first);
+        System.arraycopy(buffer, 0, out, offset + first, available - first);
+        if (available > 0)
+            last_sample = out[offset + available - 1];
+        read_position = read + available;
+        if (available < count) {
+            underruns++;
+            Arrays.fill(out, offset + available, offset + count, last_sample);
+        }
+        return available;
+    }
+
+    /**
+     * Return the number of samples currently in the ring
+     *
+     * @return the number of samples waiting to be read
+     */
+    public int size() {
+        return (int) (write_position - read_position);
+    }
+
+    /**
+     * Return the number of samples the ring can hold
+     *
+     * @return the capacity of the ring
+     */
+    public int capacity() {
+        return buffer.length;
+    }
+
+    /**
+     * Return the number of reads the ring couldn't fully serve, each short read counting as one underrun
+     * whatever the number of missing samples
+     *
+     * @return the number of underruns since the creation of the ring
+     */
+    public long getUnderrunCount() {
+        return underruns;
+    }
+
+    /**
+     * Return the number of samples dropped because the ring was full
+     *
+     * @return the number of overruns since the creation of the ring
+     */
+    public long getOverrunCount() {
+        return overruns;
+    }
+}
@@ -0,0 +1,117 @@
+package core;
+
+/**
+ * This class represent a scheduler of timed hardware events
+ * each event has a fixed slot holding its deadline in PPU ticks (master clock),
+ * the slots are ordered by priority, the console only has to look at the events when the earliest deadline is reached
+ * the components register the predicted time of their next event, or raise it when it can't be predicted
+ */
+public class Scheduler {
+
+    public static final int NMI = 0;
+    public static final int APU_IRQ = 1;
+    public static final int MAPPER_IRQ = 2;
+    public static final int DMA_END = 3;
+    public static final int FRAME_END = 4;
+    public static final int NB_EVENTS = 5;
+
+    public static final long NONE = Long.MAX_VALUE;
+
+    private final long[] deadlines;
+    private long next_deadline = NONE;
+
+    /**
+     * Create a new Scheduler without any pending event
+     */
+    public Scheduler() {
+        deadlines = new long[NB_EVENTS];
+        reset();
+    }
+
+    /**
+     * Schedule an event, replacing its previous deadline
+     *
+     * @param event     the event slot
+     * @param timestamp the deadline of the event in PPU ticks
+     */
+    public void schedule(int event, long timestamp) {
+        deadlines[event] = timestamp;
+        if (timestamp < next_deadline)
+            next_deadline = timestamp;
+        else
+            updateNextDeadline();
+    }
+
+    /**
+     * Schedule an event as soon as possible
+     * Used by components signaling something that just happened
+     *
+     * @param event the event slot
+     */
+    public void raise(int event) {
+        deadlines[event] = 0;
+        next_deadline = 0;
+    }
+
+    /**
+     * Remove an event from the Scheduler
+     *
+     * @param event the event slot
+     */
+    public void cancel(int event) {
+        if (deadlines[event] != NONE) {
+            deadlines[event] = NONE;
+            updateNextDeadline();
+        }
+    }
+
+    /**
+     * Return whether or not an event has reached its deadline
+     *
+     * @param event the event slot
+     * @param now   the current time in PPU ticks
+     * @return is the event due
+     */
+    public boolean isDue(int event, long now) {
+        return deadlines[event] <= now;
+    }
+
+    /**
+     * Return the deadline of an event
+     *
+     * @param event the event slot
+     * @return the deadline of the event in PPU ticks, NONE if it isn't pending
+     */
+    public long getDeadline(int event) {
+        return deadlines[event];
+    }
+
+    /**
+     * Return the earliest deadline of all events
+     *
+     * @return the earliest deadline in PPU ticks, NONE if no event is pending
+     */
+    public long getNextDeadline() {
+        return next_deadline;
+    }
+
+    /**
+     * Remove all pending events
+     */
+    public void reset() {
+        for (int i = 0; i < NB_EVENTS; i++)
+            deadlines[i] = NONE;
+        next_deadline = NONE;
+    }
+
+    /**
+     * Recompute the earliest deadline
+     */
+    private void updateNextDeadline() {
+        long next = NONE;
+        for (long deadline : deadlines)
+            if (deadline < next)
+                next = deadline;
+        next_deadline = next;
+    }
+}
@@ -1,27 +1,39 @@
 package core.apu;
 
 import core.NES;
+import core.Scheduler;
 import core.apu.channels.DMCChannel;
 import core.apu.channels.NoiseChannel;
 import core.apu.channels.PulseChannel;
 import core.apu.channels.TriangleChannel;
 import utils.AudioSampleCollection;
 
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
-
 /**
  * This class represent the APU of the NES
  * it handle everything sound related
  */
 public class APU_2A03 {
 
-    private static final int VISUALIZER_SAMPLE_SIZE = 256;
+    public static final int VISUALIZER_SAMPLE_SIZE = 256;
     private static final double CLOCK_TIME = .333333333 / 1789773.0;
+    private static final double CPU_CLOCK_RATE = 5369318.0 / 3;
+    //Number of CPU cycles between two integrations of the blip buffer
+    private static final int BLIP_FRAME_CLOCKS = 2048;
 
     private static double volume = 1;
     private static int skip_audio_sample = 2;
 
+    //Output of the non-linear mixer indexed by pulse_1 + pulse_2 and by 3 * triangle + 2 * noise + dmc
+    private static final double[] pulse_table = new double[31];
+    private static final double[] tnd_table = new double[203];
+
+    static {
+        for (int i = 1; i < pulse_table.length; i++)
+            pulse_table[i] = 95.52 / (8128.0 / i + 100);
+        for (int i = 1; i < tnd_table.length; i++)
+            tnd_table[i] = 163.67 / (24329.0 / i + 100);
+    }
+
     public static final int[] length_table = {10, 254, 20, 2, 40, 4, 80, 6, 160, 8, 60, 10, 14, 12, 26, 14, 12, 16, 24, 18, 48, 20, 96, 22, 192, 24, 72, 26, 16, 28, 32, 30};
 
     private final PulseChannel pulse_1;
@@ -29,9 +41,13 @@ public class APU_2A03 {
     private final TriangleChannel triangle;
     private final NoiseChannel noise;
     private final DMCChannel dmc;
-    private final Queue<AudioSampleCollection> audio_visualizer_queue;
+    private final AudioSampleCollection[] visualizer_samples;
+    private final NES nes;
+    private final Scheduler scheduler;
+    private final BlipBuffer blip;
+    private final Resampler resampler;
 
-    private int clock_counter = 0;
+    private boolean apu_cycle = false;
     private double total_time = 0.0;
     private int frame_counter = 0;
     private int cycle_remaining_since_4017_write = -1;
@@ -40,7 +56,7 @@ public class APU_2A03 {
     private boolean flag_IRQ_inhibit = false;
     private boolean flag_5_step_mode = false;
 
-    private boolean raw_audio = false;
+    private SynthesisMode synthesis_mode = SynthesisMode.HARMONICS;
     private boolean pulse_1_rendered = true;
     private boolean pulse_2_rendered = true;
     private boolean noise_rendered = true;
@@ -49,8 +65,22 @@ public class APU_2A03 {
     private boolean linear_out = false;
 
     private int cycles_until_visualizer_sample = 0;
+    private volatile int visualizer_head = 0;
+    private volatile int visualizer_count = 0;
     private int audio_sample_until_skip = 0;
 
+    private float[] blip_samples = new float[0];
+    private int blip_read = 0;
+    private int blip_count = 0;
+    private int blip_clock = 0;
+    private int blip_level = 0;
+    private double blip_amplitude = 0;
+    private float blip_last_sample = 0;
+
+    private int resampler_level = 0;
+    private double resampler_amplitude = 0;
+    private double resampler_first_half = 0;
+
     /**
      * Create a new instance of an APU
      */
@@ -60,7 +90,38 @@ public class APU_2A03 {
         triangle = new TriangleChannel();
         noise = new NoiseChannel();
         dmc = new DMCChannel(nes);
-        audio_visualizer_queue = new ConcurrentLinkedQueue<>();
+        this.nes = nes;
+        scheduler = nes.getScheduler();
+        visualizer_samples = new AudioSampleCollection[VISUALIZER_SAMPLE_SIZE];
+        for (int i = 0; i < VISUALIZER_SAMPLE_SIZE; i++)
+            visualizer_samples[i] = new AudioSampleCollection();
+        blip = new BlipBuffer(BLIP_FRAME_CLOCKS);
+        resampler = new Resampler();
+    }
+
+    /**
+     * Set the rate at which the samples are requested, used by the band-limited synthesis and the resampler
+     *
+     * @param sampleRate the number of samples per second
+     */
+    public void setSampleRate(int sampleRate) {
+        blip.setRates(CPU_CLOCK_RATE, sampleRate);
+        //We can queue up to 2 integrated blocks
+        blip_samples = new float[2 * ((int) Math.ceil(BLIP_FRAME_CLOCKS * sampleRate / CPU_CLOCK_RATE) + 1)];
+        resetBlip();
+        resampler.setRates(CPU_CLOCK_RATE / 2, sampleRate);
+        resetResampler();
+    }
+
+    /**
+     * Slightly adjust the rate at which the samples are requested, without discarding the pending ones
+     * used to follow a sample rate correction applied by the NES
+     *
+     * @param sampleRate the adjusted number of samples per second, within 1% of the rate passed to setSampleRate()
+     */
+    public void adjustSampleRate(double sampleRate) {
+        blip.setRates(CPU_CLOCK_RATE, sampleRate);
+        resampler.adjustOutputRate(sampleRate);
     }
 
     /**
@@ -92,41 +153,222 @@ public class APU_2A03 {
      */
     public double getSample(boolean update_visual) {
         double sample;
-        double p1 = pulse_1_rendered ? pulse_1.sample * 15 : 0;
-        double p2 = pulse_2_rendered ? pulse_2.sample * 15 : 0;
-        double t = triangle_rendered ? triangle.sample * 15 : 0;
-        double n = noise_rendered ? noise.sample * 15 : 0;
-        double d = dmc_rendered ? dmc.output * 128 : 0;
+        if (synthesis_mode == SynthesisMode.BLIP) {
+            //If the emulation is ahead of the integrated blocks, we hold the last sample
+            if (blip_read < blip_count)
+                blip_last_sample = blip_samples[blip_read++];
+            if (update_visual)
+                updateVisualizer(blip_level, blip_amplitude);
+            return blip_last_sample * 2 * volume;
+        } else if (synthesis_mode == SynthesisMode.SINC) {
+            float resampled = resampler.read();
+            if (update_visual)
+                updateVisualizer(resampler_level, resampler_amplitude);
+            return resampled * 2 * volume;
+        } else if (synthesis_mode == SynthesisMode.RAW) {
+            int level = getLevels();
+            sample = mix(level);
+            if (update_visual)
+                updateVisualizer(level, sample);
+        } else {
+            double p1 = pulse_1_rendered ? pulse_1.sample * 15 : 0;
+            double p2 = pulse_2_rendered ? pulse_2.sample * 15 : 0;
+            double t = triangle_rendered ? triangle.sample * 15 : 0;
+            double n = noise_rendered ? noise.sample * 15 : 0;
+            double d = dmc_rendered ? dmc.output * 128 : 0;
+            sample = mix(p1, p2, t, n, d);
+            if (update_visual)
+                updateVisualizer(pulse_1_rendered ? pulse_1.sample : 0, pulse_2_rendered ? pulse_2.sample : 0, triangle_rendered ? triangle.sample : 0, noise_rendered ? noise.sample : 0, dmc_rendered ? dmc.output : 0, sample);
+        }
+        return sample * 2 * volume;
+    }
+
+    /**
+     * Return the DAC levels of the rendered channels packed in an int
+     * [dddddddnnnnttttp2p2p2p2p1p1p1p1] (pulse 1, pulse 2, triangle and noise on 4 bits, dmc on 7 bits)
+     *
+     * @return the packed levels of the channels
+     */
+    private int getLevels() {
+        int p1 = pulse_1_rendered ? pulse_1.getLevel() : 0;
+        int p2 = pulse_2_rendered ? pulse_2.getLevel() : 0;
+        int t = triangle_rendered ? triangle.getLevel() : 0;
+        int n = noise_rendered ? noise.getLevel() : 0;
+        int d = dmc_rendered ? dmc.getLevel() : 0;
+        return p1 | (p2 << 4) | (t << 8) | (n << 12) | (d << 16);
+    }
+
+    /**
+     * Compute the output of the mixer from the packed DAC levels of the channels
+     *
+     * @param level the packed levels as returned by getLevels()
+     * @return the output of the mixer
+     */
+    private double mix(int level) {
+        int p = (level & 0x0F) + ((level >> 4) & 0x0F);
+        int t = (level >> 8) & 0x0F;
+        int n = (level >> 12) & 0x0F;
+        int d = level >> 16;
+        if (linear_out)
+            return (0.00752 * p + 0.00851 * t + 0.00494 * n + 0.00335 * d) * 1.5;
+        return pulse_table[p] + tnd_table[3 * t + 2 * n + d];
+    }
+
+    /**
+     * Compute the output of the mixer from the smoothed outputs of the channels
+     * the tables are linearly interpolated between two DAC levels
+     *
+     * @param p1 the output of the first pulse channel (0-15)
+     * @param p2 the output of the second pulse channel (0-15)
+     * @param t  the output of the triangle channel (0-15)
+     * @param n  the output of the noise channel (0-15)
+     * @param d  the output of the DMC channel (0-127)
+     * @return the output of the mixer
+     */
+    private double mix(double p1, double p2, double t, double n, double d) {
         if (linear_out)
-            sample = (0.00752 * (p1 + p2) + 0.00851 * t + 0.00494 * n + 0.00335 * d) * 1.5;
-        else {
-            double pulse = (p1 + p2 == 0) ? 0 : 95.88 / ((8128.0 / (p1 + p2)) + 100);
-            double tnd = (t == 0 && n == 0 && d == 0) ? 0 : 159.79 / (1.0 / (t / 8227.0 + n / 12241.0 + d / 22638.0) + 100);
-            sample = pulse + tnd;
+            return (0.00752 * (p1 + p2) + 0.00851 * t + 0.00494 * n + 0.00335 * d) * 1.5;
+        return lookup(pulse_table, p1 + p2) + lookup(tnd_table, 3 * t + 2 * n + d);
+    }
+
+    /**
+     * Read a mixer table at a fractional index
+     *
+     * @param table the table to read
+     * @param index the index, clamped to the bounds of the table
+     * @return the linearly interpolated value
+     */
+    private static double lookup(double[] table, double index) {
+        if (index <= 0)
+            return 0;
+        int i = (int) index;
+        if (i >= table.length - 1)
+            return table[table.length - 1];
+        return table[i] + (table[i + 1] - table[i]) * (index - i);
+    }
+
+    /**
+     * Push the packed DAC levels of the channels to the visualizer, scaled like the smoothed outputs
+     *
+     * @param level the packed levels as returned by getLevels()
+     * @param mixer the output of the mixer
+     */
+    private void updateVisualizer(int level, double mixer) {
+        updateVisualizer((level & 0x0F) / 30.0, ((level >> 4) & 0x0F) / 30.0, ((level >> 8) & 0x0F) / 30.0, ((level >> 12) & 0x0F) / 30.0, (level >> 16) / 192.0, mixer);
+    }
+
+    /**
+     * Push the current state of the channels to the visualizer, at the visualizer sampling rate
+     * the samples are written over the oldest ones, nothing is allocated
+     *
+     * @param p1    the sample of the first pulse channel
+     * @param p2    the sample of the second pulse channel
+     * @param t     the sample of the triangle channel
+     * @param n     the sample of the noise channel
+     * @param d     the sample of the DMC channel
+     * @param mixer the output of the mixer
+     */
+    private void updateVisualizer(double p1, double p2, double t, double n, double d, double mixer) {
+        if (cycles_until_visualizer_sample == 0) {
+            AudioSampleCollection sampleCollection = visualizer_samples[visualizer_head];
+            sampleCollection.pulse1 = p1;
+            sampleCollection.pulse2 = p2;
+            sampleCollection.triangle = t;
+            sampleCollection.noise = n;
+            sampleCollection.dmc = d;
+            sampleCollection.mixer = mixer * 1.5;
+            visualizer_head = (visualizer_head + 1) & (VISUALIZER_SAMPLE_SIZE - 1);
+            if (visualizer_count < VISUALIZER_SAMPLE_SIZE)
+                visualizer_count++;
+
+            cycles_until_visualizer_sample = 1280 / VISUALIZER_SAMPLE_SIZE;
+        }
+        cycles_until_visualizer_sample--;
+    }
+
+    /**
+     * Add the change of the mixer output since the last CPU cycle to the blip buffer
+     * and integrate a new block of samples when the current blip frame is over
+     */
+    private void updateBlip() {
+        //The levels are packed to detect a change without recomputing the mixer
+        int level = getLevels();
+        if (level != blip_level) {
+            blip_level = level;
+            double amplitude = mix(level);
+            blip.addDelta(blip_clock, (float) (amplitude - blip_amplitude));
+            blip_amplitude = amplitude;
         }
-        if (update_visual) {
-            if (cycles_until_visualizer_sample == 0) {
-                if (audio_visualizer_queue.size() >= VISUALIZER_SAMPLE_SIZE)
-                    audio_visualizer_queue.poll();
-
-                AudioSampleCollection sampleCollection = new AudioSampleCollection();
-                sampleCollection.pulse1 = pulse_1_rendered ? pulse_1.sample : 0;
-                sampleCollection.pulse2 = pulse_2_rendered ? pulse_2.sample : 0;
-                sampleCollection.triangle = triangle_rendered ? triangle.sample : 0;
-                sampleCollection.noise = noise_rendered ? noise.sample : 0;
-                sampleCollection.dmc = dmc_rendered ? dmc.output : 0;
-                sampleCollection.mixer = sample * 1.5;
-                audio_visualizer_queue.offer(sampleCollection);
-
-                cycles_until_visualizer_sample = 1280 / VISUALIZER_SAMPLE_SIZE;
+        blip_clock++;
+        if (blip_clock == BLIP_FRAME_CLOCKS) {
+            blip.endFrame(blip_clock);
+            blip_clock = 0;
+            //We drop the oldest samples if the new block doesn't fit in the queue
+            int pending = blip_count - blip_read;
+            int overflow = pending + blip.samplesAvailable() - blip_samples.length;
+            if (overflow > 0) {
+                blip_read += overflow;
+                pending -= overflow;
             }
-            cycles_until_visualizer_sample--;
+            System.arraycopy(blip_samples, blip_read, blip_samples, 0, pending);
+            blip_read = 0;
+            blip_count = pending + blip.readSamples(blip_samples, pending, blip_samples.length - pending);
         }
-        return sample * 2 * volume;
     }
 
-    public Queue<AudioSampleCollection> getAudioVisualizerQueue() {
-        return audio_visualizer_queue;
+    /**
+     * Push the output of the mixer to the resampler, called every CPU cycle
+     * the two CPU cycles of an APU cycle are averaged, so the resampler runs at the APU rate
+     */
+    private void updateResampler() {
+        //The levels are packed to detect a change without recomputing the mixer
+        int level = getLevels();
+        if (level != resampler_level) {
+            resampler_level = level;
+            resampler_amplitude = mix(level);
+        }
+        if (apu_cycle)
+            resampler.push((float) ((resampler_first_half + resampler_amplitude) / 2));
+        else
+            resampler_first_half = resampler_amplitude;
+    }
+
+    /**
+     * Discard the pending resampled samples and restart the resampling from silence
+     */
+    private void resetResampler() {
+        resampler.clear();
+        resampler_level = 0;
+        resampler_amplitude = 0;
+        resampler_first_half = 0;
+    }
+
+    /**
+     * Discard the pending band-limited samples and restart the synthesis from silence
+     */
+    private void resetBlip() {
+        blip.clear();
+        blip_read = 0;
+        blip_count = 0;
+        blip_clock = 0;
+        blip_level = 0;
+        blip_amplitude = 0;
+        blip_last_sample = 0;
+    }
+
+    /**
+     * Copy the latest samples of the visualizer, from the oldest to the newest
+     * can be called from any thread, a sample may be torn if it is written while being copied
+     *
+     * @param samples the array to copy the samples into, its entries must not be null
+     * @return the number of samples copied
+     */
+    public int getAudioVisualizerSamples(AudioSampleCollection[] samples) {
+        int head = visualizer_head;
+        int count = Math.min(visualizer_count, samples.length);
+        for (int i = 0; i < count; i++)
+            samples[i].copy(visualizer_samples[(head - count + i) & (VISUALIZER_SAMPLE_SIZE - 1)]);
+        return count;
     }
 
     /**
@@ -266,6 +508,9 @@ public class APU_2A03 {
                 flag_IRQ_inhibit = (data & 0x40) == 0x40;
                 if (flag_IRQ_inhibit) frame_IRQ = false;
                 cycle_remaining_since_4017_write = 4;
+                //The write happens during a CPU cycle the APU has already been clocked for
+                long ticks = nes.getSystemTicks();
+                scheduleIrq(ticks - ticks % 3 + 3);
                 if (flag_5_step_mode) {
                     pulse_1.clockLengthCounter();
                     pulse_1.clockEnvelope();
@@ -309,86 +554,195 @@ public class APU_2A03 {
     }
 
     /**
-     * A system clock of the APU, sampling can be deactivated for better performance
-     * but there will be no sound
+     * Compute one CPU cycle of the APU, called on the first PPU tick of the CPU cycle
+     * the Triangle and DMC channels are clocked every CPU cycle, the rest every APU cycle (every 2 CPU cycles)
      * when sampling is disabled we only update what is susceptible to be read (the length counters)
      *
      * @param enable_sampling if sampling is enabled
+     * @param timePerClock    the duration of a PPU tick in seconds
      */
-    public void clock(boolean enable_sampling, double timePerClock) {
+    public void clockCycle(boolean enable_sampling, double timePerClock) {
         boolean quarter_frame = false;
         boolean half_frame = false;
+        //The band-limited synthesis and the resampler need the exact output of the channels at every cycle
+        boolean exact = synthesis_mode == SynthesisMode.BLIP || synthesis_mode == SynthesisMode.SINC;
 
         total_time += CLOCK_TIME;
-        if (clock_counter % 3 == 0) {
-            dmc.clock();
-            if (enable_sampling)
-                triangle.computeSample(timePerClock / 3, raw_audio);
-            if (clock_counter % 6 == 0) {
-                //A write to 0x4017 will cause the frame counter to be reset after 4 CPU cycles (2 APU cycles)
-                if (cycle_remaining_since_4017_write == 0) {
+        dmc.clock();
+        //The end of a DMC sample isn't predicted, the IRQ is signaled when it happens
+        if (dmc.hasInterruptTriggered())
+            scheduler.raise(Scheduler.APU_IRQ);
+        if (enable_sampling) {
+            if (exact) {
+                triangle.clockTimer();
+                noise.clockTimer();
+                dmc.computeSample();
+            } else
+                triangle.computeSample(timePerClock / 3, synthesis_mode == SynthesisMode.RAW);
+        }
+        //The APU cycle happens every other CPU cycle
+        apu_cycle = !apu_cycle;
+        if (apu_cycle) {
+            //A write to 0x4017 will cause the frame counter to be reset after 4 CPU cycles (2 APU cycles)
+            if (cycle_remaining_since_4017_write == 0) {
+                frame_counter = 0;
+                cycle_remaining_since_4017_write = -1;
+            }
+            if (cycle_remaining_since_4017_write >= 0)
+                cycle_remaining_since_4017_write -= 2;
+
+            frame_counter++;
+            if (flag_5_step_mode) {
+                quarter_frame = frame_counter == 3729 || frame_counter == 7457 || frame_counter == 11186 || frame_counter == 18641;
+                half_frame = frame_counter == 7457 || frame_counter == 18641;
+                if (frame_counter == 18641)
                     frame_counter = 0;
-                    cycle_remaining_since_4017_write = -1;
-                }
-                if (cycle_remaining_since_4017_write >= 0)
-                    cycle_remaining_since_4017_write -= 2;
-
-                frame_counter++;
-                if (flag_5_step_mode) {
-                    quarter_frame = frame_counter == 3729 || frame_counter == 7457 || frame_counter == 11186 || frame_counter == 18641;
-                    half_frame = frame_counter == 7457 || frame_counter == 18641;
-                    if (frame_counter == 18641)
-                        frame_counter = 0;
-                } else {
-                    quarter_frame = frame_counter == 3729 || frame_counter == 7457 || frame_counter == 11186 || frame_counter == 14916;
-                    half_frame = frame_counter == 7457 || frame_counter == 14916;
-                    if (frame_counter == 14916) {
-                        frame_counter = 0;
-                        if (!flag_IRQ_inhibit)
-                            frame_IRQ = true;
-                    }
-                }
-                if (quarter_frame) {
-                    triangle.clockLinearCounter();
-                    if (enable_sampling) {
-                        pulse_1.clockEnvelope();
-                        pulse_2.clockEnvelope();
-                        noise.clockEnvelope();
-                    }
-                }
-                if (half_frame) {
-                    pulse_1.clockLengthCounter();
-                    pulse_2.clockLengthCounter();
-                    triangle.clockLengthCounter();
-                    noise.clockLengthCounter();
-                    pulse_1.clockSweeper(0);
-                    pulse_2.clockSweeper(1);
+            } else {
+                quarter_frame = frame_counter == 3729 || frame_counter == 7457 || frame_counter == 11186 || frame_counter == 14916;
+                half_frame = frame_counter == 7457 || frame_counter == 14916;
+                //The frame IRQ has been scheduled for this cycle by scheduleIrq()
+                if (frame_counter == 14916) {
+                    frame_counter = 0;
+                    if (!flag_IRQ_inhibit)
+                        frame_IRQ = true;
                 }
+            }
+            if (quarter_frame) {
+                triangle.clockLinearCounter();
                 if (enable_sampling) {
-                    if (audio_sample_until_skip >= skip_audio_sample) {
-                        pulse_1.computeSample(total_time, raw_audio);
-                        pulse_2.computeSample(total_time, raw_audio);
-                        noise.computeSample();
-                        dmc.computeSample();
-                        audio_sample_until_skip = 0;
-                    }
-                    audio_sample_until_skip++;
+                    pulse_1.clockEnvelope();
+                    pulse_2.clockEnvelope();
+                    noise.clockEnvelope();
                 }
             }
+            if (half_frame) {
+                pulse_1.clockLengthCounter();
+                pulse_2.clockLengthCounter();
+                triangle.clockLengthCounter();
+                noise.clockLengthCounter();
+                pulse_1.clockSweeper(0);
+                pulse_2.clockSweeper(1);
+            }
+            if (enable_sampling && exact) {
+                pulse_1.clockTimer();
+                pulse_2.clockTimer();
+            } else if (enable_sampling) {
+                if (audio_sample_until_skip >= skip_audio_sample) {
+                    pulse_1.computeSample(total_time, synthesis_mode == SynthesisMode.RAW);
+                    pulse_2.computeSample(total_time, synthesis_mode == SynthesisMode.RAW);
+                    noise.computeSample();
+                    dmc.computeSample();
+                    audio_sample_until_skip = 0;
+                }
+                audio_sample_until_skip++;
+            }
         }
         pulse_1.trackSweeper();
         pulse_2.trackSweeper();
+        if (enable_sampling && synthesis_mode == SynthesisMode.BLIP)
+            updateBlip();
+        else if (enable_sampling && synthesis_mode == SynthesisMode.SINC)
+            updateResampler();
+    }
 
-        clock_counter++;
+    /**
+     * Compute one of the two PPU ticks following a CPU cycle
+     * only the sweepers are tracked, to see the writes of the CPU
+     */
+    public void clockTick() {
+        total_time += CLOCK_TIME;
+        pulse_1.trackSweeper();
+        pulse_2.trackSweeper();
     }
 
     /**
      * Enable or Disable RAW Audio mode
+     * disabling it goes back to the harmonics synthesis
      *
      * @param raw should RAW Audio be triggered or not
      */
     public void enabledRawMode(boolean raw) {
-        raw_audio = raw;
+        setSynthesisMode(raw ? SynthesisMode.RAW : SynthesisMode.HARMONICS);
+    }
+
+    /**
+     * Set the way the channels are turned into audio samples
+     *
+     * @param mode the SynthesisMode to use
+     */
+    public void setSynthesisMode(SynthesisMode mode) {
+        if (mode == SynthesisMode.BLIP && synthesis_mode != SynthesisMode.BLIP)
+            resetBlip();
+        if (mode == SynthesisMode.SINC && synthesis_mode != SynthesisMode.SINC)
+            resetResampler();
+        synthesis_mode = mode;
+    }
+
+    /**
+     * Return the way the channels are turned into audio samples
+     *
+     * @return the current SynthesisMode
+     */
+    public SynthesisMode getSynthesisMode() {
+        return synthesis_mode;
+    }
+
+    /**
+     * Set the quality tier of the resampler used by the SINC synthesis mode
+     *
+     * @param quality the ResamplerQuality to use
+     */
+    public void setResamplerQuality(ResamplerQuality quality) {
+        resampler.setQuality(quality);
+        resetResampler();
+    }
+
+    /**
+     * Return the quality tier of the resampler used by the SINC synthesis mode
+     *
+     * @return the current ResamplerQuality
+     */
+    public ResamplerQuality getResamplerQuality() {
+        return resampler.getQuality();
+    }
+
+    /**
+     * Register the deadline of the next APU IRQ into the Scheduler
+     * while the IRQ line is asserted the event is kept due, otherwise the next frame counter IRQ is predicted
+     *
+     * @param nextCycle the tick of the next call to clockCycle()
+     */
+    public void scheduleIrq(long nextCycle) {
+        if (irq()) {
+            scheduler.raise(Scheduler.APU_IRQ);
+            return;
+        }
+        int steps = getStepsUntilFrameIrq();
+        if (steps <= 0) {
+            scheduler.cancel(Scheduler.APU_IRQ);
+            return;
+        }
+        //The APU cycles happen every other CPU cycle, the next one being on the next CPU cycle if the last one wasn't
+        int cycles = (apu_cycle ? 1 : 0) + 2 * (steps - 1);
+        scheduler.schedule(Scheduler.APU_IRQ, nextCycle + 3L * cycles);
+    }
+
+    /**
+     * Return the number of APU cycles before the frame counter triggers its IRQ, counting the one triggering it
+     *
+     * @return the number of APU cycles until the frame IRQ, 0 if it can't occur (5 step mode or IRQ inhibited)
+     */
+    private int getStepsUntilFrameIrq() {
+        if (flag_5_step_mode || flag_IRQ_inhibit)
+            return 0;
+        if (cycle_remaining_since_4017_write >= 0) {
+            //The frame counter is reset on the APU cycle following the delay, the counter runs until then
+            int delay = cycle_remaining_since_4017_write / 2;
+            if (frame_counter < 14916 && frame_counter + delay >= 14916)
+                return 14916 - frame_counter;
+            return delay + 14916;
+        }
+        return 14916 - frame_counter;
     }
 
     /**
@@ -401,13 +755,22 @@ public class APU_2A03 {
         return frame_IRQ || dmc.hasInterruptTriggered();
     }
 
+    /**
+     * Return whether or not the DMC channel is fetching samples, which halts the CPU
+     *
+     * @return does the DMC channel have bytes left to fetch
+     */
+    public boolean isDMCFetching() {
+        return dmc.hasBytesLeft();
+    }
+
     /**
      * Return whether or not RAW audio is enabled
      *
      * @return is RAW audio rendering enabled
      */
     public boolean isRAWAudioEnabled() {
-        return raw_audio;
+        return synthesis_mode == SynthesisMode.RAW;
     }
 
     /**
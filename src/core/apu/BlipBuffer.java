@@ -0,0 +1,154 @@
+package core.apu;
+
+import java.util.Arrays;
+
+/**
+ * This class represent a band-limited step buffer (blip buffer)
+ * the amplitude changes are added at the clock they happen, each one being spread over the neighbouring samples
+ * as a windowed sinc impulse, the buffer is then integrated once per block to get the output samples
+ * the times are stored as 32.32 fixed point sample positions
+ */
+public class BlipBuffer {
+
+    private static final int TIME_BITS = 32;
+    private static final int PHASE_BITS = 5;
+    private static final int PHASE_COUNT = 1 << PHASE_BITS;
+    private static final int KERNEL_WIDTH = 16;
+    //Cutoff frequency of the impulses as a fraction of the sample rate (0.5 being the Nyquist frequency)
+    private static final double CUTOFF = 0.45;
+    //Coefficient of the DC blocking filter applied while integrating
+    private static final float HIGH_PASS = 1 / 512f;
+
+    private static final float[][] kernel = computeKernel();
+
+    private final int max_clocks;
+
+    private float[] buffer;
+    private long factor = 0;
+    private long next_factor = 0;
+    private long offset = 0;
+    private float integrator = 0;
+
+    /**
+     * Create a new BlipBuffer
+     *
+     * @param max_clocks the maximum number of clocks between two calls to endFrame()
+     */
+    public BlipBuffer(int max_clocks) {
+        this.max_clocks = max_clocks;
+        buffer = new float[KERNEL_WIDTH];
+    }
+
+    /**
+     * Compute the band-limited impulses for each sub-sample phase
+     * each impulse is a Blackman windowed sinc, normalized so that a step always ends at its full height
+     *
+     * @return the impulses indexed by phase
+     */
+    private static float[][] computeKernel() {
+        float[][] kernel = new float[PHASE_COUNT][KERNEL_WIDTH];
+        double window_length = KERNEL_WIDTH + 2;
+        for (int phase = 0; phase < PHASE_COUNT; phase++) {
+            double sum = 0;
+            double[] impulse = new double[KERNEL_WIDTH];
+            for (int i = 0; i < KERNEL_WIDTH; i++) {
+                //Distance in samples between the tap and the step, centered in the kernel
+                double t = i - KERNEL_WIDTH / 2.0 - (double) phase / PHASE_COUNT;
+                double x = 2 * CUTOFF * t;
+                double sinc = x == 0 ? 1 : Math.sin(Math.PI * x) / (Math.PI * x);
+                double window = 0.42 + 0.5 * Math.cos(2 * Math.PI * t / window_length) + 0.08 * Math.cos(4 * Math.PI * t / window_length);
+                impulse[i] = sinc * window;
+                sum += impulse[i];
+            }
+            for (int i = 0; i < KERNEL_WIDTH; i++)
+                kernel[phase][i] = (float) (impulse[i] / sum);
+        }
+        return kernel;
+    }
+
+    /**
+     * Set the clock rate of the timestamps and the output sample rate
+     * the new rates are used from the next frame, or immediately after a call to clear()
+     * the pending samples are kept, so the rates can be adjusted while playing
+     *
+     * @param clock_rate  the number of clocks per second
+     * @param sample_rate the number of output samples per second
+     */
+    public void setRates(double clock_rate, double sample_rate) {
+        next_factor = (long) Math.ceil(sample_rate / clock_rate * (1L << TIME_BITS));
+        int size = (int) ((max_clocks * Math.max(factor, next_factor)) >>> TIME_BITS) + 1 + KERNEL_WIDTH;
+        if (size > buffer.length)
+            buffer = Arrays.copyOf(buffer, size);
+    }
+
+    /**
+     * Discard all the pending samples and reset the integrator
+     */
+    public void clear() {
+        Arrays.fill(buffer, 0);
+        factor = next_factor;
+        offset = 0;
+        integrator = 0;
+    }
+
+    /**
+     * Add an amplitude change at a given clock of the current frame
+     *
+     * @param clock the clock of the change, relative to the start of the frame
+     * @param delta the amplitude change
+     */
+    public void addDelta(int clock, float delta) {
+        long time = offset + clock * factor;
+        int pos = (int) (time >>> TIME_BITS);
+        float[] impulse = kernel[(int) (time >>> (TIME_BITS - PHASE_BITS)) & (PHASE_COUNT - 1)];
+        for (int i = 0; i < KERNEL_WIDTH; i++)
+            buffer[pos + i] += delta * impulse[i];
+    }
+
+    /**
+     * End the current frame, the samples before its end become available
+     * the next frame starts right after it
+     *
+     * @param clocks the duration of the frame in clocks, at most max_clocks
+     */
+    public void endFrame(int clocks) {
+        offset += clocks * factor;
+        factor = next_factor;
+    }
+
+    /**
+     * Return the number of samples that can be read
+     *
+     * @return the number of available samples
+     */
+    public int samplesAvailable() {
+        return (int) (offset >>> TIME_BITS);
+    }
+
+    /**
+     * Integrate and remove up to count samples from the buffer
+     *
+     * @param out    the array to write the samples to
+     * @param start  the index of the first sample to write in out
+     * @param count  the maximum number of samples to read
+     * @return the number of samples read
+     */
+    public int readSamples(float[] out, int start, int count) {
+        int available = samplesAvailable();
+        if (count > available)
+            count = available;
+        float sum = integrator;
+        for (int i = 0; i < count; i++) {
+            sum += buffer[i];
+            out[start + i] = sum;
+            sum -= sum * HIGH_PASS;
+        }
+        integrator = sum;
+        //We move the remaining samples and the pending impulses to the start of the buffer
+        int remaining = available - count + KERNEL_WIDTH;
+        System.arraycopy(buffer, count, buffer, 0, remaining);
+        Arrays.fill(buffer, remaining, remaining + count, 0);
+        offset -= (long) count << TIME_BITS;
+        return count;
+    }
+}
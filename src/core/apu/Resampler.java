@@ -0,0 +1,216 @@
+package core.apu;
+
+import java.util.Arrays;
+
+/**
+ * This class represent a polyphase windowed-sinc resampler, used to decimate the output of the APU to the output sample rate
+ * the input samples are pushed one by one at their native rate, each output sample is then computed as the dot product
+ * of the latest input samples with the filter phase matching its position between two input samples
+ * the positions are stored as 32.32 fixed point input sample positions
+ * the dot product uses the Vector API when the jdk.incubator.vector module is present (--add-modules jdk.incubator.vector)
+ * and falls back to a scalar loop otherwise
+ */
+public class Resampler {
+
+    private static final int TIME_BITS = 32;
+    private static final long ONE = 1L << TIME_BITS;
+    //Number of output samples waiting to be read, the oldest ones are dropped beyond that
+    private static final int OUTPUT_SIZE = 64;
+    private static final boolean VECTORIZED = isVectorApiAvailable();
+
+    private final float[] output = new float[OUTPUT_SIZE];
+
+    private ResamplerQuality quality = ResamplerQuality.MEDIUM;
+    private double input_rate = 1;
+    private double output_rate = 1;
+    private float[][] phases = new float[1][4];
+    private int phase_bits = 0;
+    private int taps = 4;
+    private float[] history = new float[8];
+    private int history_pos = 0;
+    private long step = ONE;
+    private long time = 0;
+    private int output_read = 0;
+    private int output_write = 0;
+    private float last_sample = 0;
+
+    /**
+     * Set the rate of the input samples and the output sample rate
+     * the filter is recomputed for the new ratio and the pending samples are discarded
+     *
+     * @param inputRate  the number of input samples per second
+     * @param outputRate the number of output samples per second, lower than the input rate
+     */
+    public void setRates(double inputRate, double outputRate) {
+        input_rate = inputRate;
+        output_rate = outputRate;
+        computePhases();
+        clear();
+    }
+
+    /**
+     * Slightly adjust the output sample rate, without recomputing the filter nor discarding the pending samples
+     *
+     * @param outputRate the adjusted number of output samples per second, within 1% of the rate passed to setRates()
+     */
+    public void adjustOutputRate(double outputRate) {
+        step = (long) (input_rate / outputRate * ONE);
+    }
+
+    /**
+     * Set the quality tier of the filter, the pending samples are discarded
+     *
+     * @param quality the ResamplerQuality to use
+     */
+    public void setQuality(ResamplerQuality quality) {
+        this.quality = quality;
+        computePhases();
+        clear();
+    }
+
+    /**
+     * Return the quality tier of the filter
+     *
+     * @return the current ResamplerQuality
+     */
+    public ResamplerQuality getQuality() {
+        return quality;
+    }
+
+    /**
+     * Compute the filter phases for the current rates and quality
+     * each phase is a Blackman windowed sinc, normalized so that a constant input keeps its level
+     * the number of taps is a multiple of 4 to match the unrolled scalar dot product
+     */
+    private void computePhases() {
+        int width = switch (quality) {
+            case LOW -> 8;
+            case MEDIUM -> 16;
+            case HIGH -> 32;
+        };
+        phase_bits = switch (quality) {
+            case LOW -> 5;
+            case MEDIUM -> 6;
+            case HIGH -> 7;
+        };
+        double cutoff = switch (quality) {
+            case LOW -> 0.40;
+            case MEDIUM, HIGH -> 0.45;
+        };
+        double ratio = input_rate / output_rate;
+        //Cutoff frequency as a fraction of the input rate
+        double fc = cutoff / ratio;
+        int phase_count = 1 << phase_bits;
+        int tap_count = ((int) Math.ceil(width * ratio) + 3) & ~3;
+        float[][] table = new float[phase_count][tap_count];
+        for (int phase = 0; phase < phase_count; phase++) {
+            double sum = 0;
+            double[] impulse = new double[tap_count];
+            for (int i = 0; i < tap_count; i++) {
+                //Distance in input samples between the tap and the output sample, centered in the filter
+                double t = i - (tap_count / 2 - 1) - (double) phase / phase_count;
+                double x = 2 * fc * t;
+                double sinc = x == 0 ? 1 : Math.sin(Math.PI * x) / (Math.PI * x);
+                double window = 0.42 + 0.5 * Math.cos(2 * Math.PI * t / tap_count) + 0.08 * Math.cos(4 * Math.PI * t / tap_count);
+                impulse[i] = sinc * window;
+                sum += impulse[i];
+            }
+            for (int i = 0; i < tap_count; i++)
+                table[phase][i] = (float) (impulse[i] / sum);
+        }
+        phases = table;
+        taps = tap_count;
+        history = new float[2 * tap_count];
+        step = (long) (ratio * ONE);
+    }
+
+    /**
+     * Discard the pending samples and restart from silence
+     */
+    public void clear() {
+        Arrays.fill(history, 0);
+        history_pos = 0;
+        time = 0;
+        output_read = 0;
+        output_write = 0;
+        last_sample = 0;
+    }
+
+    /**
+     * Push an input sample, and compute the output samples falling before it
+     *
+     * @param sample the input sample
+     */
+    public void push(float sample) {
+        //The history is stored twice, so the latest taps input samples are always contiguous
+        history[history_pos] = sample;
+        history[history_pos + taps] = sample;
+        if (++history_pos == taps)
+            history_pos = 0;
+        while (time < ONE) {
+            float[] phase = phases[(int) (time >>> (TIME_BITS - phase_bits))];
+            if (output_write - output_read == OUTPUT_SIZE)
+                output_read++;
+            output[output_write++ & (OUTPUT_SIZE - 1)] = convolve(phase);
+            time += step;
+        }
+        time -= ONE;
+    }
+
+    /**
+     * Compute the dot product of a filter phase with the latest input samples
+     * without the Vector API, the sum is split over 4 independent accumulators so the multiplications can be pipelined
+     *
+     * @param phase the coefficients of the filter phase
+     * @return the filtered sample
+     */
+    private float convolve(float[] phase) {
+        float[] h = history;
+        int start = history_pos;
+        if (VECTORIZED)
+            return VectorResampler.convolve(h, start, phase, taps);
+        float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        for (int i = 0; i < taps; i += 4) {
+            s0 += h[start + i] * phase[i];
+            s1 += h[start + i + 1] * phase[i + 1];
+            s2 += h[start + i + 2] * phase[i + 2];
+            s3 += h[start + i + 3] * phase[i + 3];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * Return whether or not the dot product is vectorized
+     *
+     * @return is the Vector API used
+     */
+    public static boolean isVectorized() {
+        return VECTORIZED;
+    }
+
+    /**
+     * Check if the Vector API can be used
+     * the module is optional, if it's not present loading the vectorized dot product fails and we use the scalar loop
+     *
+     * @return is the Vector API available and efficient on this platform
+     */
+    private static boolean isVectorApiAvailable() {
+        try {
+            return VectorResampler.isSupported();
+        } catch (LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * Take the oldest output sample
+     * if none is available, the last one is repeated
+     *
+     * @return the next output sample
+     */
+    public float read() {
+        if (output_read != output_write)
+            last_sample = output[output_read++ & (OUTPUT_SIZE - 1)];
+        return last_sample;
+    }
+}
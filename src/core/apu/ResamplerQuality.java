@@ -0,0 +1,13 @@
+package core.apu;
+
+/**
+ * Represent the quality tiers of the polyphase resampler, trading CPU time for a sharper filter
+ * LOW    : 8 output samples wide filter, 32 phases, cutoff at 40% of the output rate
+ * MEDIUM : 16 output samples wide filter, 64 phases, cutoff at 45% of the output rate
+ * HIGH   : 32 output samples wide filter, 128 phases, cutoff at 45% of the output rate
+ */
+public enum ResamplerQuality {
+    LOW,
+    MEDIUM,
+    HIGH,
+}
@@ -0,0 +1,15 @@
+package core.apu;
+
+/**
+ * Represent the possible ways the APU channels are turned into audio samples
+ * HARMONICS : the pulse waves are approximated by a sum of harmonics, the other channels are smoothed
+ * RAW       : the channels are sampled as is, without any smoothing
+ * BLIP      : every amplitude change is added as a band-limited step at the CPU cycle it happens
+ * SINC      : the mixer output is computed every APU cycle and decimated by a polyphase windowed-sinc resampler
+ */
+public enum SynthesisMode {
+    HARMONICS,
+    RAW,
+    BLIP,
+    SINC,
+}
@@ -0,0 +1,46 @@
+package core.apu;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * This class is the vectorized dot product of Resampler
+ * it must only be loaded through Resampler, which falls back to a scalar loop if the Vector API isn't available
+ */
+class VectorResampler {
+
+    private static final VectorSpecies<Float> FLOATS = FloatVector.SPECIES_PREFERRED;
+
+    /**
+     * Return whether or not the vectorized dot product is worth using
+     *
+     * @return can a vector hold at least 4 floats
+     */
+    static boolean isSupported() {
+        return FLOATS.length() >= 4;
+    }
+
+    /**
+     * Compute the dot product of a filter phase with the input samples
+     * the products are accumulated lane by lane, the lanes being summed once at the end
+     *
+     * @param history the input samples
+     * @param start   the index of the oldest input sample to use
+     * @param phase   the coefficients of the filter phase
+     * @param taps    the number of coefficients
+     * @return the filtered sample
+     */
+    static float convolve(float[] history, int start, float[] phase, int taps) {
+        FloatVector sum = FloatVector.zero(FLOATS);
+        int bound = FLOATS.loopBound(taps);
+        int i = 0;
+        for (; i < bound; i += FLOATS.length())
+            sum = sum.add(FloatVector.fromArray(FLOATS, history, start + i).mul(FloatVector.fromArray(FLOATS, phase, i)));
+        float result = sum.reduceLanes(VectorOperators.ADD);
+        //The last taps if their number isn't a multiple of the vector length
+        for (; i < taps; i++)
+            result += history[start + i] * phase[i];
+        return result;
+    }
+}
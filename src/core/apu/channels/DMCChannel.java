@@ -137,6 +137,15 @@ public class DMCChannel {
         output = (output + (outputUnit.output / 64.0)) / 4;
     }
 
+    /**
+     * Return the current value of the DAC, as seen by the mixer
+     *
+     * @return the output level between 0 and 127
+     */
+    public int getLevel() {
+        return outputUnit.output;
+    }
+
     /**
      * Pull the IRQ line low
      */
@@ -94,6 +94,32 @@ public class NoiseChannel {
             sample = 0;
     }
 
+    /**
+     * Clock the timer of the channel for one CPU cycle, used by the band-limited synthesis
+     * the reload values being expressed in CPU cycles, the shift register is clocked every reload CPU cycles
+     */
+    public void clockTimer() {
+        if (sequencer.timer <= 0) {
+            sequencer.timer = sequencer.reload - 1;
+            int s = sequencer.sequence;
+            int feedback = (s ^ (s >> (mode ? 6 : 1))) & 0x01;
+            sequencer.sequence = (feedback << 14) | ((s & 0x7FFF) >> 1);
+        } else
+            sequencer.timer--;
+    }
+
+    /**
+     * Return the current output level of the channel, as seen by the mixer
+     * the channel is muted when the bit 0 of the shift register is set
+     *
+     * @return the output level between 0 and 15
+     */
+    public int getLevel() {
+        if (!enabled || length_counter.counter == 0 || (sequencer.sequence & 0x01) != 0)
+            return 0;
+        return envelope.output;
+    }
+
     /**
      * Enable/Disable the channel
      *
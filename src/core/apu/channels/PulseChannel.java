@@ -127,6 +127,30 @@ public class PulseChannel {
             sample = 0;
     }
 
+    /**
+     * Clock the timer of the channel for one APU cycle, used by the band-limited synthesis
+     * the sequencer moves to its next step every (reload + 1) APU cycles
+     */
+    public void clockTimer() {
+        if (sequencer.timer <= 0) {
+            sequencer.timer = sequencer.reload;
+            sequencer.sequence = ((sequencer.sequence & 0x01) << 7) | ((sequencer.sequence & 0xFE) >> 1);
+            sequencer.output = sequencer.sequence & 0x01;
+        } else
+            sequencer.timer--;
+    }
+
+    /**
+     * Return the current output level of the channel, as seen by the mixer
+     *
+     * @return the output level between 0 and 15
+     */
+    public int getLevel() {
+        if (!enabled || length_counter.counter == 0 || sweeper.muted || sequencer.reload < 8)
+            return 0;
+        return sequencer.output * envelope.output;
+    }
+
     /**
      * Enable/Disable the channel
      *
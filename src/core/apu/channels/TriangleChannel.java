@@ -133,6 +133,32 @@ public class TriangleChannel {
             last_period = 0;
     }
 
+    /**
+     * Clock the timer of the channel for one CPU cycle, used by the band-limited synthesis
+     * the sequencer moves to its next step every (reload + 1) CPU cycles while both counters are non zero,
+     * ultrasonic periods (reload < 2) are ignored to avoid popping, the output is held instead
+     */
+    public void clockTimer() {
+        if (sequencer.timer <= 0) {
+            sequencer.timer = sequencer.reload;
+            if (length_counter.counter > 0 && linear_counter.counter > 0 && sequencer.reload >= 2) {
+                sequencer.sequenceIndex = (sequencer.sequenceIndex + 1) & 0x1F;
+                sequencer.output = sequencer.sequence[sequencer.sequenceIndex];
+            }
+        } else
+            sequencer.timer--;
+    }
+
+    /**
+     * Return the current output level of the channel, as seen by the mixer
+     * when the channel is silenced, the sequencer holds its last step
+     *
+     * @return the output level between 0 and 15
+     */
+    public int getLevel() {
+        return sequencer.output;
+    }
+
     /**
      * Enable/Disable the channel
      *
@@ -1,5 +1,6 @@
 package core.cartridge;
 
+import core.PageTable;
 import core.cartridge.mappers.*;
 import core.ppu.Mirror;
 import exceptions.InvalidFileException;
@@ -7,7 +8,6 @@ import exceptions.UnsupportedMapperException;
 import javafx.application.Platform;
 import utils.Dialogs;
 import utils.FileReader;
-import utils.IntegerWrapper;
 
 import javax.swing.*;
 import java.io.EOFException;
@@ -31,6 +31,10 @@ public class Cartridge {
     private final Mapper mapper;
     private final Mirror mirror;
 
+    private PageTable ppu_pages;
+    private byte[] vram;
+    private Mirror nametable_layout;
+
     /**
      * Create a Cartridge and load a ROM into the emulator
      *
@@ -47,7 +51,10 @@ public class Cartridge {
 
         //Extract the Mapper ID and Mirroring mode
         int mapperId = ((header.flag_7 >> 4) << 4) | (header.flag_6 >> 4);
-        mirror = (header.flag_6 & 0x01) == 0x01 ? Mirror.VERTICAL : Mirror.HORIZONTAL;
+        if ((header.flag_6 & 0x08) == 0x08)
+            mirror = Mirror.FOUR_SCREEN;
+        else
+            mirror = (header.flag_6 & 0x01) == 0x01 ? Mirror.VERTICAL : Mirror.HORIZONTAL;
 
         //Discard padding if necessary
         if ((header.flag_6 & 0x04) == 0x04)
@@ -95,17 +102,16 @@ public class Cartridge {
      * Will read a value from Program Memory if the Mapper allow it
      *
      * @param addr the address to read from
-     * @param data the Wrapper where to store the read data
-     * @return was the data searched in the Cartridge
+     * @return the read data or Mapper.UNMAPPED if the address isn't handled by the Cartridge
      */
-    public boolean cpuRead(int addr, IntegerWrapper data) {
-        IntegerWrapper mapped = new IntegerWrapper();
-        if (mapper.cpuMapRead(addr, mapped, data)) {
-            if (mapped.value == -1) return true;
-            data.value = prg_memory[mapped.value] & 0xFF;
-            return true;
-        }
-        return false;
+    public int cpuRead(int addr) {
+        int mapped = mapper.cpuMapRead(addr);
+        if (mapped == Mapper.UNMAPPED)
+            return Mapper.UNMAPPED;
+        //The data has been read from the Mapper's RAM
+        if ((mapped & Mapper.INTERNAL_RAM) != 0)
+            return mapped & 0xFF;
+        return prg_memory[mapped] & 0xFF;
     }
 
     /**
@@ -117,67 +123,96 @@ public class Cartridge {
      * @return was the data for the Cartridge
      */
     public boolean cpuWrite(int addr, int data) {
-        IntegerWrapper mapped = new IntegerWrapper();
-        if (mapper.cpuMapWrite(addr, mapped, data)) {
-            if (mapped.value == -1) return true;
-            prg_memory[mapped.value] = (byte) data;
-            return true;
-        }
-        return false;
+        int mapped = mapper.cpuMapWrite(addr, data);
+        if (mapped == Mapper.UNMAPPED)
+            return false;
+        if (mapped != Mapper.HANDLED)
+            prg_memory[mapped] = (byte) data;
+        //A Mapper register may have changed the mirroring mode
+        if (mapped == Mapper.HANDLED && nametable_layout != getMirror())
+            remapNametables();
+        return true;
     }
 
     /**
-     * Will read a value from Character Memory if the Mapper allow it
+     * Return the mirroring mode of the Game
      *
-     * @param addr the address to read from
-     * @param data the Wrapper where to store the read data
-     * @return was the data searched in the Cartridge
+     * @return the game's mirroring mode
+     */
+    public Mirror getMirror() {
+        //The extra VRAM of a four screen Cartridge can't be switched by the Mapper
+        if (mirror == Mirror.FOUR_SCREEN)
+            return mirror;
+        Mirror mirroring_mode = mapper.mirror();
+        if (mirroring_mode == Mirror.HARDWARE)
+            return mirror;
+        return mirroring_mode;
+    }
+
+    /**
+     * Reset the Mapper if it has processing capabilities
      */
-    public boolean ppuRead(int addr, IntegerWrapper data) {
-        addr &= 0xFFFF;
-        IntegerWrapper mapped = new IntegerWrapper();
-        if (mapper.ppuMapRead(addr, mapped, data)) {
-            data.value = chr_memory[mapped.value] & 0xFF;
-            return true;
+    public void reset() {
+        if (mapper != null) {
+            mapper.reset();
+            mapper.remapCPU();
+            mapper.remapPPU();
+            remapNametables();
         }
-        return false;
     }
 
     /**
-     * Will write the data into Character Memory if the Mapper allows it
-     * and return whether or not the data was for the Cartridge
+     * Link the Cartridge to the CPU PageTable
+     * the Program Memory and Cartridge RAM will then be directly accessed by the Bus
      *
-     * @param addr the address to write
-     * @param data the data to write
-     * @return was the data for the Cartridge
+     * @param cpuPages the PageTable of the CPU Address space
      */
-    public boolean ppuWrite(int addr, int data) {
-        IntegerWrapper mapped = new IntegerWrapper();
-        if (mapper.ppuMapWrite(addr, mapped, data)) {
-            chr_memory[mapped.value] = (byte) data;
-            return true;
-        }
-        return false;
+    public void connectCPU(PageTable cpuPages) {
+        mapper.connectCPU(cpuPages, prg_memory);
     }
 
     /**
-     * Return the mirroring mode of the Game
+     * Link the Cartridge to the PPU PageTable
+     * the Character Memory and the nametables will then be directly accessed by the PPU
      *
-     * @return the game's mirroring mode
+     * @param ppuPages the PageTable of the PPU Address space
+     * @param vram     the nametable memory of the PPU (4 1Kb nametables, the last 2 are only used by four screen Cartridges)
      */
-    public Mirror getMirror() {
-        Mirror mirroring_mode = mapper.mirror();
-        if (mirroring_mode == Mirror.HARDWARE)
-            return mirror;
-        return mirroring_mode;
+    public void connectPPU(PageTable ppuPages, byte[] vram) {
+        this.ppu_pages = ppuPages;
+        this.vram = vram;
+        mapper.connectPPU(ppuPages, chr_memory);
+        remapNametables();
     }
 
     /**
-     * Reset the Mapper if it has processing capabilities
+     * Map the 4 nametables of the PPU Address space (0x2000 - 0x2FFF, mirrored at 0x3000 - 0x3EFF)
+     * to the nametable memory according to the current mirroring mode
      */
-    public void reset() {
-        if (mapper != null)
-            mapper.reset();
+    private void remapNametables() {
+        if (ppu_pages == null)
+            return;
+        nametable_layout = getMirror();
+        for (int nametable = 0; nametable < 4; nametable++) {
+            int bank = switch (nametable_layout) {
+                case VERTICAL -> nametable & 0x1;
+                case ONE_SCREEN_LOW -> 0;
+                case ONE_SCREEN_HIGH -> 1;
+                case FOUR_SCREEN -> nametable;
+                default -> nametable >> 1;
+            };
+            ppu_pages.map(0x2000 + nametable * 0x400, 0x400, vram, bank * 0x400, true);
+            ppu_pages.map(0x3000 + nametable * 0x400, 0x400, vram, bank * 0x400, true);
+        }
+    }
+
+    /**
+     * Return the Character Memory of the Cartridge (CHR ROM, or CHR RAM if the Cartridge has no CHR ROM)
+     *
+     * @return the Character Memory
+     */
+    public byte[] getCHRMemory() {
+        return chr_memory;
     }
 
     /**
@@ -1,16 +1,34 @@
 package core.cartridge.mappers;
 
+import core.PageTable;
 import core.ppu.Mirror;
-import utils.IntegerWrapper;
 
 /**
  * This class is an abstraction of the Mapper circuit present on the Cartridge
  */
 public abstract class Mapper {
 
+    /**
+     * Returned when the Mapper doesn't handle the address
+     */
+    public static final int UNMAPPED = -1;
+    /**
+     * Returned when the access has been handled by the Mapper itself (register write, ignored ROM write)
+     */
+    public static final int HANDLED = -2;
+    /**
+     * Flag set when the data has been read from the Mapper's internal RAM, the 8 lsb then contain the data
+     */
+    public static final int INTERNAL_RAM = 0x40000000;
+
     final int nb_PRG_banks;
     final int nb_CHR_banks;
 
+    private PageTable cpu_pages;
+    private byte[] prg_memory;
+    private PageTable ppu_pages;
+    private byte[] chr_memory;
+
     /**
      * Create a new instance of Mapper
      *
@@ -22,47 +40,108 @@ public abstract class Mapper {
         this.nb_CHR_banks = nCHRBanks;
     }
 
+    /**
+     * Connect the Mapper to the CPU PageTable and to the Program Memory
+     * the Mapper will then update the table every time its banks are switched
+     *
+     * @param cpuPages  the PageTable of the CPU Address space
+     * @param prgMemory the Program Memory of the Cartridge
+     */
+    public void connectCPU(PageTable cpuPages, byte[] prgMemory) {
+        cpu_pages = cpuPages;
+        prg_memory = prgMemory;
+        remapCPU();
+    }
+
+    /**
+     * Update the CPU PageTable according to the current state of the Mapper
+     * Every page of the Cartridge range is mapped using cpuMapRead, the Cartridge RAM
+     * is expected to be mapped at 0x6000 - 0x7FFF as the first 8Kb of the internal RAM
+     * Must be called every time the selected PRG Banks change
+     */
+    public void remapCPU() {
+        if (cpu_pages == null)
+            return;
+        //Page 0x40 is shared with the APU and I/O Registers, it stays decoded by the Bus
+        for (int addr = 0x4100; addr <= 0xFF00; addr += 0x100) {
+            int mapped = cpuMapRead(addr);
+            if (mapped == UNMAPPED)
+                cpu_pages.unmap(addr, 0x100);
+            else if ((mapped & INTERNAL_RAM) != 0)
+                cpu_pages.map(addr, 0x100, getRAM(), addr & 0x1FFF, true);
+            else
+                cpu_pages.map(addr, 0x100, prg_memory, mapped, false);
+        }
+    }
+
+    /**
+     * Connect the Mapper to the PPU PageTable and to the Character Memory
+     * the Mapper will then update the table every time its banks are switched
+     *
+     * @param ppuPages  the PageTable of the PPU Address space
+     * @param chrMemory the Character Memory of the Cartridge
+     */
+    public void connectPPU(PageTable ppuPages, byte[] chrMemory) {
+        ppu_pages = ppuPages;
+        chr_memory = chrMemory;
+        remapPPU();
+    }
+
+    /**
+     * Update the pattern tables of the PPU PageTable according to the current state of the Mapper
+     * Every 1Kb page of the 0x0000 - 0x1FFF range is mapped using ppuMapRead,
+     * a page is writable only if ppuMapWrite maps it (Character RAM)
+     * Must be called every time the selected CHR Banks change
+     */
+    public void remapPPU() {
+        if (ppu_pages == null)
+            return;
+        for (int addr = 0x0000; addr <= 0x1C00; addr += 0x400) {
+            int mapped = ppuMapRead(addr);
+            if (mapped == UNMAPPED)
+                ppu_pages.unmap(addr, 0x400);
+            else
+                ppu_pages.map(addr, 0x400, chr_memory, mapped, ppuMapWrite(addr, 0x00) >= 0);
+        }
+    }
+
     /**
      * Map an Address the CPU want to read from to a Program Memory Address
      * if the Cartridge need to map it
      *
-     * @param addr   the CPU Address to map
-     * @param mapped the Wrapper where to store the Mapped Address
-     * @return Whether or not the Address was mapped
+     * @param addr the CPU Address to map
+     * @return the mapped Program Memory Address, the data OR'ed with INTERNAL_RAM if read from the Mapper's RAM, or UNMAPPED
      */
-    public abstract boolean cpuMapRead(int addr, IntegerWrapper mapped, IntegerWrapper data);
+    public abstract int cpuMapRead(int addr);
 
     /**
      * Map an Address the CPU want to write to to a Program Memory Address
      * if the Cartridge need to map it
      *
-     * @param addr   the CPU Address to map
-     * @param mapped the Wrapper where to store the Mapped Address
-     * @param data   the data to write
-     * @return Whether or not the Address was mapped
+     * @param addr the CPU Address to map
+     * @param data the data to write
+     * @return the mapped Program Memory Address, HANDLED if the Mapper consumed the write, or UNMAPPED
      */
-    public abstract boolean cpuMapWrite(int addr, IntegerWrapper mapped, int data);
+    public abstract int cpuMapWrite(int addr, int data);
 
     /**
      * Map an Address the PPU want to read from to a Character Memory Address
      * if the Cartridge need to map it
      *
-     * @param addr   the PPU Address to map
-     * @param mapped the Wrapper where to store the Mapped Address
-     * @return Whether or not the Address was mapped
+     * @param addr the PPU Address to map
+     * @return the mapped Character Memory Address or UNMAPPED
      */
-    public abstract boolean ppuMapRead(int addr, IntegerWrapper mapped, IntegerWrapper data);
+    public abstract int ppuMapRead(int addr);
 
     /**
      * Map an Address the PPU want to write to to a Character Memory Address
      * if the Cartridge need to map it
      *
-     * @param addr   the PPU Address to map
-     * @param mapped the Wrapper where to store the Mapped Address
-     * @param data   the data to write
-     * @return Whether or not the Address was mapped
+     * @param addr the PPU Address to map
+     * @param data the data to write
+     * @return the mapped Character Memory Address, HANDLED if the Mapper consumed the write, or UNMAPPED
      */
-    public abstract boolean ppuMapWrite(int addr, IntegerWrapper mapped, int data);
+    public abstract int ppuMapWrite(int addr, int data);
 
     /**
      * Interrogate the Mapper circuit for the mirroring mode
@@ -93,6 +172,16 @@ public abstract class Mapper {
      */
     public void notifyScanline() {}
 
+    /**
+     * Return whether or not the Mapper counts the scanlines notified by the PPU
+     * if so, the PPU can't run behind the CPU past a scanline notification
+     *
+     * @return does the Mapper count the scanlines, false if not overridden
+     */
+    public boolean hasScanlineCounter() {
+        return false;
+    }
+
     /**
      * Update the latch if the mapper has some
      * used in Mapper 009
@@ -101,6 +190,16 @@ public abstract class Mapper {
      */
     public void updateLatch(int addr) {}
 
+    /**
+     * Return whether or not the Mapper has a latch updated by the PPU reads
+     * if so, the CHR Banks can change in the middle of a scanline and every read must happen at its exact dot
+     *
+     * @return does the Mapper has a latch, false if not overridden
+     */
+    public boolean hasLatch() {
+        return false;
+    }
+
     /**
      * Reset the Mapper if it has processing capabilities
      */
@@ -1,7 +1,5 @@
 package core.cartridge.mappers;
 
-import utils.IntegerWrapper;
-
 /**
  * This class implements the iNES Mapper 000 (NROM)
  */
@@ -20,70 +18,54 @@ public class Mapper000 extends Mapper {
     /**
      * No mapping occur, the address is directly returned
      *
-     * @param addr   the CPU Address to map
-     * @param mapped the Wrapper where to store the Mapped Address
-     * @param data   if there is data to be read, it will be written there
-     * @return Whether or not the Address was mapped
+     * @param addr the CPU Address to map
+     * @return the mapped Program Memory Address or UNMAPPED
      */
     @Override
-    public boolean cpuMapRead(int addr, IntegerWrapper mapped, IntegerWrapper data) {
-        if (addr >= 0x8000) {
-            mapped.value = addr & (nb_PRG_banks > 1 ? 0x7FFF : 0x3FFF);
-            return true;
-        }
-        return false;
+    public int cpuMapRead(int addr) {
+        if (addr >= 0x8000)
+            return addr & (nb_PRG_banks > 1 ? 0x7FFF : 0x3FFF);
+        return UNMAPPED;
     }
 
     /**
      * No mapping occur, the address is directly returned
      *
-     * @param addr   the CPU Address to map
-     * @param mapped the Wrapper where to store the Mapped Address
-     * @param data   the data to write
-     * @return Whether or not the Address was mapped
+     * @param addr the CPU Address to map
+     * @param data the data to write
+     * @return the mapped Program Memory Address or UNMAPPED
      */
     @Override
-    public boolean cpuMapWrite(int addr, IntegerWrapper mapped, int data) {
-        if (addr >= 0x8000) {
-            mapped.value = addr & (nb_PRG_banks > 1 ? 0x7FFF : 0x3FFF);
-            return true;
-        }
-        return false;
+    public int cpuMapWrite(int addr, int data) {
+        if (addr >= 0x8000)
+            return addr & (nb_PRG_banks > 1 ? 0x7FFF : 0x3FFF);
+        return UNMAPPED;
     }
 
     /**
      * No mapping occur, the address is directly returned
      *
-     * @param addr   the PPU Address to map
-     * @param mapped the Wrapper where to store the Mapped Address
-     * @param data   if there is data to be read, it will be written there
-     * @return Whether or not the Address was mapped
+     * @param addr the PPU Address to map
+     * @return the mapped Character Memory Address or UNMAPPED
      */
     @Override
-    public boolean ppuMapRead(int addr, IntegerWrapper mapped, IntegerWrapper data) {
-        if (addr <= 0x1FFF) {
-            mapped.value = addr;
-            return true;
-        }
-        return false;
+    public int ppuMapRead(int addr) {
+        if (addr <= 0x1FFF)
+            return addr;
+        return UNMAPPED;
     }
 
     /**
      * The PPU never write, for Mapper 000 the Character Memory is ROM
      *
-     * @param addr   the PPU Address to map
-     * @param mapped the Wrapper where to store the Mapped Address
-     * @param data   the data to write
-     * @return Whether or not the Address was mapped
+     * @param addr the PPU Address to map
+     * @param data the data to write
+     * @return the mapped Character Memory Address or UNMAPPED
      */
     @Override
-    public boolean ppuMapWrite(int addr, IntegerWrapper mapped, int data) {
-        if (addr <= 0x1FFF) {
-            if (nb_CHR_banks == 0) {
-                mapped.value = addr;
-                return true;
-            }
-        }
-        return false;
+    public int ppuMapWrite(int addr, int data) {
+        if (addr <= 0x1FFF && nb_CHR_banks == 0)
+            return addr;
+        return UNMAPPED;
     }
 }
@@ -3,7 +3,6 @@ package core.cartridge.mappers;
 import core.ppu.Mirror;
 import exceptions.InvalidFileException;
 import utils.FileReader;
-import utils.IntegerWrapper;
 
 import java.io.EOFException;
 
@@ -52,52 +51,41 @@ public class Mapper001 extends Mapper {
      * 0x6000 - 0x7FFF : Cartridge RAM
      * 0x8000 - 0xFFFF : The selected 32Kb (or 2 16Kb) PRG Bank(s)
      *
-     * @param addr   the PPU Address to map
-     * @param mapped the Wrapper where to store the Mapped Address
-     * @param data   if there is data to be read, it will be written there
-     * @return Whether or not the Address was mapped
+     * @param addr the CPU Address to map
+     * @return the mapped Program Memory Address, the RAM data OR'ed with INTERNAL_RAM, or UNMAPPED
      */
     @Override
-    public boolean cpuMapRead(int addr, IntegerWrapper mapped, IntegerWrapper data) {
+    public int cpuMapRead(int addr) {
         //The CPU try to read from internal RAM
-        if (addr >= 0x6000 && addr <= 0x7FFF) {
-            mapped.value = -1;
-            data.value = internal_ram[addr & 0x1FFF] & 0xFF;
-            return true;
-        }
+        if (addr >= 0x6000 && addr <= 0x7FFF)
+            return INTERNAL_RAM | (internal_ram[addr & 0x1FFF] & 0xFF);
         //The CPU load from PRG Memory
         if (addr >= 0x8000) {
             //We select the right Bank by reading the control register
             if ((control_register & 0b01000) == 0b01000) {
-                if (addr <= 0xBFFF) {
-                    mapped.value = (selected_PRG_bank_low_16K * 0x4000) + (addr & 0x3FFF);
-                    return true;
-                }
-                mapped.value = (selected_PRG_bank_high_16K * 0x4000) + (addr & 0x3FFF);
-            } else {
-                mapped.value = (selected_PRG_bank_32K * 0x8000) + (addr & 0x7FFF);
+                if (addr <= 0xBFFF)
+                    return (selected_PRG_bank_low_16K * 0x4000) + (addr & 0x3FFF);
+                return (selected_PRG_bank_high_16K * 0x4000) + (addr & 0x3FFF);
             }
-            return true;
+            return (selected_PRG_bank_32K * 0x8000) + (addr & 0x7FFF);
         }
-        return false;
+        return UNMAPPED;
     }
 
     /**
      * Map the provided address from CPU space to the Cartridge Memory space if relevant
      * Here the address is never mapped, a write only change the Mapper state
      *
-     * @param addr   the PPU Address to map
-     * @param mapped the Wrapper where to store the Mapped Address
-     * @param data   the data to write
-     * @return Whether or not the Address was mapped
+     * @param addr the CPU Address to map
+     * @param data the data to write
+     * @return HANDLED if the write targeted the RAM or the Mapper registers, UNMAPPED otherwise
      */
     @Override
-    public boolean cpuMapWrite(int addr, IntegerWrapper mapped, int data) {
+    public int cpuMapWrite(int addr, int data) {
         //The CPU try to write to internal RAM
         if (addr >= 0x6000 && addr <= 0x7FFF) {
-            mapped.value = -1;
             internal_ram[addr & 0x1FFF] = (byte) data;
-            return true;
+            return HANDLED;
         }
         //The CPU try to configure the Mapper circuit
         if (addr >= 0x8000) {
@@ -106,6 +94,8 @@ public class Mapper001 extends Mapper {
                 load_register = 0x00;
                 load_register_count = 0;
                 control_register = control_register | 0x0C;
+                remapCPU();
+                remapPPU();
             } else { //Otherwise we load the msb in BIT 4 and shift the register
                 load_register >>= 1;
                 load_register |= ((data & 0x01) << 4);
@@ -150,62 +140,55 @@ public class Mapper001 extends Mapper {
                     //The shift register is cleared
                     load_register = 0x00;
                     load_register_count = 0;
+                    remapCPU();
+                    remapPPU();
                 }
             }
+            return HANDLED;
         }
-        return false;
+        return UNMAPPED;
     }
 
     /**
      * The address is mapped as follows
      * 0x0000 - 0x1FFF : The selected 8Kb (or 2 4Kb) CHR Bank(s)
      *
-     * @param addr   the PPU Address to map
-     * @param mapped the Wrapper where to store the Mapped Address
-     * @param data   if there is data to be read, it will be written there
-     * @return Whether or not the Address was mapped
+     * @param addr the PPU Address to map
+     * @return the mapped Character Memory Address or UNMAPPED
      */
     @Override
-    public boolean ppuMapRead(int addr, IntegerWrapper mapped, IntegerWrapper data) {
+    public int ppuMapRead(int addr) {
         if (addr <= 0x1FFF) {
             //If their is not banks we simply return the provided address
-            if (nb_CHR_banks == 0) {
-                mapped.value = addr;
-            } else {
-                //We select the right Bank by reading the control register
-                if ((control_register & 0b10000) == 0b10000) {
-                    if (addr <= 0x0FFF) {
-                        mapped.value = (selected_CHR_bank_low_4K * 0x1000) + (addr & 0x0FFF);
-                        return true;
-                    }
-                    mapped.value = (selected_CHR_bank_high_4K * 0x1000) + (addr & 0x0FFF);
-                } else {
-                    mapped.value = (selected_CHR_bank_8K * 0x2000) + (addr & 0x1FFF);
-                }
+            if (nb_CHR_banks == 0)
+                return addr;
+            //We select the right Bank by reading the control register
+            if ((control_register & 0b10000) == 0b10000) {
+                if (addr <= 0x0FFF)
+                    return (selected_CHR_bank_low_4K * 0x1000) + (addr & 0x0FFF);
+                return (selected_CHR_bank_high_4K * 0x1000) + (addr & 0x0FFF);
             }
-            return true;
+            return (selected_CHR_bank_8K * 0x2000) + (addr & 0x1FFF);
         }
-        return false;
+        return UNMAPPED;
     }
 
     /**
      * The PPU never write, for Mapper 001 the Character Memory is ROM
      *
-     * @param addr   the PPU Address to map
-     * @param mapped the Wrapper where to store the Mapped Address
-     * @param data   the data to write
-     * @return Whether or not the Address was mapped
+     * @param addr the PPU Address to map
+     * @param data the data to write
+     * @return the mapped Character Memory Address if CHR RAM, HANDLED if CHR ROM, UNMAPPED otherwise
      */
     @Override
-    public boolean ppuMapWrite(int addr, IntegerWrapper mapped, int data) {
+    public int ppuMapWrite(int addr, int data) {
         if (addr <= 0x1FFF) {
-            if (nb_CHR_banks == 0) {
-                mapped.value = addr;
-                return true;
-            }
-            return true;
+            if (nb_CHR_banks == 0)
+                return addr;
+            //Writes to CHR ROM are ignored
+            return HANDLED;
         }
-        return false;
+        return UNMAPPED;
     }
 
     /**
@@ -1,7 +1,5 @@
 package core.cartridge.mappers;
 
-import utils.IntegerWrapper;
-
 /**
  * This class implements the iNES Mapper 002 (UxROM)
  */
@@ -25,74 +23,60 @@ public class Mapper002 extends Mapper {
      * The Mapper map the lower 16Kb to the Bank selected by the PRGBankLow Register
      * and the upper 16Kb to the last PRG Bank
      *
-     * @param addr   the CPU Address to map
-     * @param mapped the Wrapper where to store the Mapped Address
-     * @param data   if there is data to be read, it will be written there
-     * @return Whether or not the Address was mapped
+     * @param addr the CPU Address to map
+     * @return the mapped Program Memory Address or UNMAPPED
      */
     @Override
-    public boolean cpuMapRead(int addr, IntegerWrapper mapped, IntegerWrapper data) {
-        if (addr >= 0x8000 && addr <= 0xBFFF) {
-            mapped.value = (selected_PRG_bank_low * 0x4000) + (addr & 0x3FFF);
-            return true;
-        }
-        if (addr >= 0xC000) {
-            mapped.value = (selected_PRG_bank_high * 0x4000) + (addr & 0x3FFF);
-            return true;
-        }
-        return false;
+    public int cpuMapRead(int addr) {
+        if (addr >= 0x8000 && addr <= 0xBFFF)
+            return (selected_PRG_bank_low * 0x4000) + (addr & 0x3FFF);
+        if (addr >= 0xC000)
+            return (selected_PRG_bank_high * 0x4000) + (addr & 0x3FFF);
+        return UNMAPPED;
     }
 
     /**
      * If the address is in the upper 16Kb, the data is written to the Mapper Register
      *
-     * @param addr   the CPU Address to map
-     * @param mapped the Wrapper where to store the Mapped Address
-     * @param data   the data to write
-     * @return Whether or not the Address was mapped
+     * @param addr the CPU Address to map
+     * @param data the data to write
+     * @return HANDLED if the Mapper Register was written, UNMAPPED otherwise
      */
     @Override
-    public boolean cpuMapWrite(int addr, IntegerWrapper mapped, int data) {
+    public int cpuMapWrite(int addr, int data) {
         if (addr >= 0x8000) {
             selected_PRG_bank_low = data & 0x0F;
+            remapCPU();
+            return HANDLED;
         }
-        return false;
+        return UNMAPPED;
     }
 
     /**
      * No mapping occur, the address is directly returned
      *
-     * @param addr   the PPU Address to map
-     * @param mapped the Wrapper where to store the Mapped Address
-     * @param data   if there is data to be read, it will be written there
-     * @return Whether or not the Address was mapped
+     * @param addr the PPU Address to map
+     * @return the mapped Character Memory Address or UNMAPPED
      */
     @Override
-    public boolean ppuMapRead(int addr, IntegerWrapper mapped, IntegerWrapper data) {
-        if (addr <= 0x1FFF) {
-            mapped.value = addr;
-            return true;
-        }
-        return false;
+    public int ppuMapRead(int addr) {
+        if (addr <= 0x1FFF)
+            return addr;
+        return UNMAPPED;
     }
 
     /**
      * The PPU never write, for Mapper 002 the Character Memory is ROM
      *
-     * @param addr   the PPU Address to map
-     * @param mapped the Wrapper where to store the Mapped Address
-     * @param data   the data to write
-     * @return Whether or not the Address was mapped
+     * @param addr the PPU Address to map
+     * @param data the data to write
+     * @return the mapped Character Memory Address or UNMAPPED
      */
     @Override
-    public boolean ppuMapWrite(int addr, IntegerWrapper mapped, int data) {
-        if (addr <= 0x1FFF) {
-            if (nb_CHR_banks == 0) {
-                mapped.value = addr;
-                return true;
-            }
-        }
-        return false;
+    public int ppuMapWrite(int addr, int data) {
+        if (addr <= 0x1FFF && nb_CHR_banks == 0)
+            return addr;
+        return UNMAPPED;
     }
 
     /**
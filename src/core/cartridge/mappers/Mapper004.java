@@ -3,7 +3,6 @@ package core.cartridge.mappers;
 import core.ppu.Mirror;
 import exceptions.InvalidFileException;
 import utils.FileReader;
-import utils.IntegerWrapper;
 
 import java.io.EOFException;
 
@@ -54,55 +53,34 @@ public class Mapper004 extends Mapper {
     /**
      * Map the provided address from CPU space to the Cartridge Memory space if relevant
      *
-     * @param addr   the PPU Address to map
-     * @param mapped the Wrapper where to store the Mapped Address
-     * @param data   if there is data to be read, it will be written there
-     * @return Whether or not the Address was mapped
+     * @param addr the CPU Address to map
+     * @return the mapped Program Memory Address, the RAM data OR'ed with INTERNAL_RAM, or UNMAPPED
      */
     @Override
-    public boolean cpuMapRead(int addr, IntegerWrapper mapped, IntegerWrapper data) {
+    public int cpuMapRead(int addr) {
         //The CPU try to read from internal RAM
-        if (addr >= 0x6000 && addr <= 0x7FFF) {
-            mapped.value = -1;
-            data.value = internal_ram[addr & 0x1FFF] & 0xFF;
-            return true;
-        }
-        //Otherwise we select the appropriate PRG bank using the provided address
-        if (addr >= 0x8000 && addr <= 0x9FFF) {
-            mapped.value = prg_banks[0] + (addr & 0x1FFF);
-            return true;
-        }
-        if (addr >= 0xA000 && addr <= 0xBFFF) {
-            mapped.value = prg_banks[1] + (addr & 0x1FFF);
-            return true;
-        }
-        if (addr >= 0xC000 && addr <= 0xDFFF) {
-            mapped.value = prg_banks[2] + (addr & 0x1FFF);
-            return true;
-        }
-        if (addr >= 0xE000) {
-            mapped.value = prg_banks[3] + (addr & 0x1FFF);
-            return true;
-        }
-        return false;
+        if (addr >= 0x6000 && addr <= 0x7FFF)
+            return INTERNAL_RAM | (internal_ram[addr & 0x1FFF] & 0xFF);
+        //Otherwise we select the appropriate 8Kb PRG bank using the provided address
+        if (addr >= 0x8000)
+            return prg_banks[(addr >> 13) & 0x03] + (addr & 0x1FFF);
+        return UNMAPPED;
     }
 
     /**
      * Map the provided address from CPU space to the Cartridge Memory space if relevant
      * Here the address is never mapped, a write only change the Mapper state
      *
-     * @param addr   the PPU Address to map
-     * @param mapped the Wrapper where to store the Mapped Address
-     * @param data   the data to write
-     * @return Whether or not the Address was mapped
+     * @param addr the CPU Address to map
+     * @param data the data to write
+     * @return HANDLED if the write targeted the RAM or the Mapper registers, UNMAPPED otherwise
      */
     @Override
-    public boolean cpuMapWrite(int addr, IntegerWrapper mapped, int data) {
+    public int cpuMapWrite(int addr, int data) {
         //The CPU try to write to internal RAM
         if (addr >= 0x6000 && addr <= 0x7FFF) {
-            mapped.value = -1;
             internal_ram[addr & 0x1FFF] = (byte) data;
-            return true;
+            return HANDLED;
         }
 
         //The CPU try to configure the Mapper circuit
@@ -144,8 +122,10 @@ public class Mapper004 extends Mapper {
                 }
                 prg_banks[1] = (register[7] & 0x3F) * 0x2000;
                 prg_banks[3] = (nb_PRG_banks * 2 - 1) * 0x2000;
+                remapCPU();
+                remapPPU();
             }
-            return false;
+            return HANDLED;
         }
 
         //The CPU try to set the mirroring mode
@@ -156,7 +136,7 @@ public class Mapper004 extends Mapper {
                 else
                     mirror = Mirror.VERTICAL;
             }
-            return false;
+            return HANDLED;
         }
 
         //The CPU try to set the scanline that should trigger an IRQ
@@ -165,7 +145,7 @@ public class Mapper004 extends Mapper {
                 irq_reload = data;
             else
                 irq_counter = 0;
-            return false;
+            return HANDLED;
         }
 
         //The CPU try to activate/deactivate the IRQ triggering
@@ -176,61 +156,35 @@ public class Mapper004 extends Mapper {
             } else {
                 flag_IRQ_enabled = true;
             }
-            return false;
+            return HANDLED;
         }
-        return false;
+        return UNMAPPED;
     }
 
     /**
      * Map the provided address from PPU space to the Cartridge Memory space if relevant
      *
-     * @param addr   the PPU Address to map
-     * @param mapped the Wrapper where to store the Mapped Address
-     * @param data   if there is data to be read, it will be written there
-     * @return Whether or not the Address was mapped
+     * @param addr the PPU Address to map
+     * @return the mapped Character Memory Address or UNMAPPED
      */
     @Override
-    public boolean ppuMapRead(int addr, IntegerWrapper mapped, IntegerWrapper data) {
-        //We select the appropriate CHR bank using the provided address
-        if (addr <= 0x03FF) {
-            mapped.value = chr_banks[0] + (addr & 0x03FF);
-            return true;
-        } else if (addr <= 0x07FF) {
-            mapped.value = chr_banks[1] + (addr & 0x03FF);
-            return true;
-        } else if (addr <= 0x0BFF) {
-            mapped.value = chr_banks[2] + (addr & 0x03FF);
-            return true;
-        } else if (addr <= 0x0FFF) {
-            mapped.value = chr_banks[3] + (addr & 0x03FF);
-            return true;
-        } else if (addr <= 0x13FF) {
-            mapped.value = chr_banks[4] + (addr & 0x03FF);
-            return true;
-        } else if (addr <= 0x17FF) {
-            mapped.value = chr_banks[5] + (addr & 0x03FF);
-            return true;
-        } else if (addr <= 0x1BFF) {
-            mapped.value = chr_banks[6] + (addr & 0x03FF);
-            return true;
-        } else if (addr <= 0x1FFF) {
-            mapped.value = chr_banks[7] + (addr & 0x03FF);
-            return true;
-        }
-        return false;
+    public int ppuMapRead(int addr) {
+        //We select the appropriate 1Kb CHR bank using the provided address
+        if (addr <= 0x1FFF)
+            return chr_banks[addr >> 10] + (addr & 0x03FF);
+        return UNMAPPED;
     }
 
     /**
      * The PPU never write, for Mapper 004 the Character Memory is ROM
      *
-     * @param addr   the PPU Address to map
-     * @param mapped the Wrapper where to store the Mapped Address
-     * @param data   the data to write
-     * @return Whether or not the Address was mapped
+     * @param addr the PPU Address to map
+     * @param data the data to write
+     * @return always UNMAPPED
      */
     @Override
-    public boolean ppuMapWrite(int addr, IntegerWrapper mapped, int data) {
-        return false;
+    public int ppuMapWrite(int addr, int data) {
+        return UNMAPPED;
     }
 
     /**
@@ -262,6 +216,16 @@ public class Mapper004 extends Mapper {
         flag_IRQ_active = false;
     }
 
+    /**
+     * The IRQ of the Mapper is clocked by the scanlines
+     *
+     * @return always true
+     */
+    @Override
+    public boolean hasScanlineCounter() {
+        return true;
+    }
+
     /**
      * Notify the Mapper that one scanline has occurred
      */
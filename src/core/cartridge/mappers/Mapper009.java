@@ -3,7 +3,6 @@ package core.cartridge.mappers;
 import core.ppu.Mirror;
 import exceptions.InvalidFileException;
 import utils.FileReader;
-import utils.IntegerWrapper;
 
 import java.io.EOFException;
 
@@ -50,69 +49,64 @@ public class Mapper009 extends Mapper {
      * 0x8000 - 0x9FFF : The selected 8Kb PRG Bank
      * 0xA000 - 0xFFFF : The last 3 PRG Banks of the Cartridge
      *
-     * @param addr   the CPU Address to map
-     * @param mapped the Wrapper where to store the Mapped Address
-     * @param data   if there is data to be read, it will be written there
-     * @return Whether or not the Address was mapped
+     * @param addr the CPU Address to map
+     * @return the mapped Program Memory Address, the RAM data OR'ed with INTERNAL_RAM, or UNMAPPED
      */
     @Override
-    public boolean cpuMapRead(int addr, IntegerWrapper mapped, IntegerWrapper data) {
+    public int cpuMapRead(int addr) {
         //The CPU try to read from internal RAM
-        if (addr >= 0x6000 && addr <= 0x7FFF) {
-            mapped.value = -1;
-            data.value = internal_ram[addr & 0x1FFF] & 0xFF;
-            return true;
-        }
+        if (addr >= 0x6000 && addr <= 0x7FFF)
+            return INTERNAL_RAM | (internal_ram[addr & 0x1FFF] & 0xFF);
         //The CPU load from PRG Memory
-        if (addr >= 0x8000 && addr <= 0x9FFF) {
-            mapped.value = (selected_PRG_bank * 0x2000) + (addr & 0x1FFF);
-            return true;
-        }
-        if (addr >= 0xA000 && addr <= 0xFFFF) {
-            mapped.value = 0x10000 | addr;
-            return true;
-        }
-        return false;
+        if (addr >= 0x8000 && addr <= 0x9FFF)
+            return (selected_PRG_bank * 0x2000) + (addr & 0x1FFF);
+        //The last 3 8Kb Banks are fixed to the end of the PRG Memory
+        if (addr >= 0xA000 && addr <= 0xFFFF)
+            return (nb_PRG_banks * 0x4000 - 0x6000) + (addr - 0xA000);
+        return UNMAPPED;
     }
 
     /**
      * No mapping occur, the address is directly returned
      * But the Mapper's state is updated
      *
-     * @param addr   the CPU Address to map
-     * @param mapped the Wrapper where to store the Mapped Address
-     * @param data   the data to write
-     * @return Whether or not the Address was mapped
+     * @param addr the CPU Address to map
+     * @param data the data to write
+     * @return HANDLED if the write targeted the RAM or the Mapper registers, UNMAPPED otherwise
      */
     @Override
-    public boolean cpuMapWrite(int addr, IntegerWrapper mapped, int data) {
+    public int cpuMapWrite(int addr, int data) {
         if (addr >= 0x6000 && addr <= 0x7FFF) { // Cartridge RAM
-            mapped.value = -1;
             internal_ram[addr & 0x1FFF] = (byte) data;
-            return true;
+            return HANDLED;
         } else if (addr >= 0xA000 && addr <= 0xAFFF) {
             selected_PRG_bank = data & 0x0F;
-            return true;
+            remapCPU();
+            return HANDLED;
         } else if (addr >= 0xB000 && addr <= 0xBFFF) {
             selected_CHR_bank_l0_FD = data & 0x1F;
-            return true;
+            remapPPU();
+            return HANDLED;
         } else if (addr >= 0xC000 && addr <= 0xCFFF) {
             selected_CHR_bank_l0_FE = data & 0x1F;
-            return true;
+            remapPPU();
+            return HANDLED;
         } else if (addr >= 0xD000 && addr <= 0xDFFF) {
             selected_CHR_bank_l1_FD = data & 0x1F;
-            return true;
+            remapPPU();
+            return HANDLED;
         } else if (addr >= 0xE000 && addr <= 0xEFFF) {
             selected_CHR_bank_l1_FE = data & 0x1F;
-            return true;
+            remapPPU();
+            return HANDLED;
         } else if (addr >= 0xF000 && addr <= 0xFFFF) {
             switch (data & 0x01) {
                 case 0 -> mirroring_mode = Mirror.VERTICAL;
                 case 1 -> mirroring_mode = Mirror.HORIZONTAL;
             }
-            return true;
+            return HANDLED;
         }
-        return false;
+        return UNMAPPED;
     }
 
     /**
@@ -120,50 +114,37 @@ public class Mapper009 extends Mapper {
      * 0x0000 - 0x0FFF : CHR Bank selected according to latch 0
      * 0x1000 - 0x1FFF : CHR Bank selected according to latch 1
      *
-     * @param addr   the PPU Address to map
-     * @param mapped the Wrapper where to store the Mapped Address
-     * @param data   if there is data to be read, it will be written there
-     * @return Whether or not the Address was mapped
+     * @param addr the PPU Address to map
+     * @return the mapped Character Memory Address or UNMAPPED
      */
     @Override
-    public boolean ppuMapRead(int addr, IntegerWrapper mapped, IntegerWrapper data) {
+    public int ppuMapRead(int addr) {
         if (addr <= 0x0FFF) {
-            if (latch_0 == 0xFD) {
-                mapped.value = (selected_CHR_bank_l0_FD * 0x1000) + (addr & 0x0FFF);
-                return true;
-            } else if (latch_0 == 0xFE) {
-                mapped.value = (selected_CHR_bank_l0_FE * 0x1000) + (addr & 0x0FFF);
-                return true;
-            }
+            if (latch_0 == 0xFD)
+                return (selected_CHR_bank_l0_FD * 0x1000) + (addr & 0x0FFF);
+            if (latch_0 == 0xFE)
+                return (selected_CHR_bank_l0_FE * 0x1000) + (addr & 0x0FFF);
         } else if (addr <= 0x1FFF) {
-            if (latch_1 == 0xFD) {
-                mapped.value = (selected_CHR_bank_l1_FD * 0x1000) + (addr & 0x0FFF);
-                return true;
-            } else if (latch_1 == 0xFE) {
-                mapped.value = (selected_CHR_bank_l1_FE * 0x1000) + (addr & 0x0FFF);
-                return true;
-            }
+            if (latch_1 == 0xFD)
+                return (selected_CHR_bank_l1_FD * 0x1000) + (addr & 0x0FFF);
+            if (latch_1 == 0xFE)
+                return (selected_CHR_bank_l1_FE * 0x1000) + (addr & 0x0FFF);
         }
-        return false;
+        return UNMAPPED;
     }
 
     /**
      * The PPU never write, for Mapper 009 the Character Memory is ROM
      *
-     * @param addr   the PPU Address to map
-     * @param mapped the Wrapper where to store the Mapped Address
-     * @param data   the data to write
-     * @return Whether or not the Address was mapped
+     * @param addr the PPU Address to map
+     * @param data the data to write
+     * @return the mapped Character Memory Address or UNMAPPED
      */
     @Override
-    public boolean ppuMapWrite(int addr, IntegerWrapper mapped, int data) {
-        if (addr <= 0x1FFF) {
-            if (nb_CHR_banks == 0) {
-                mapped.value = addr;
-                return true;
-            }
-        }
-        return false;
+    public int ppuMapWrite(int addr, int data) {
+        if (addr <= 0x1FFF && nb_CHR_banks == 0)
+            return addr;
+        return UNMAPPED;
     }
 
     /**
@@ -173,6 +154,8 @@ public class Mapper009 extends Mapper {
      */
     @Override
     public void updateLatch(int addr) {
+        int latch_0_old = latch_0;
+        int latch_1_old = latch_1;
         if (addr == 0x0FD8)
             latch_0 = 0xFD;
         else if (addr == 0x0FE8)
@@ -181,6 +164,19 @@ public class Mapper009 extends Mapper {
             latch_1 = 0xFD;
         else if (addr >= 0x1FE8 && addr <= 0x1FEF)
             latch_1 = 0xFE;
+        //The latches select the CHR Banks, the PageTable is only updated when one of them flips
+        if (latch_0 != latch_0_old || latch_1 != latch_1_old)
+            remapPPU();
+    }
+
+    /**
+     * Return whether or not the Mapper has a latch updated by the PPU reads
+     *
+     * @return true, the CHR Banks are selected by the latches
+     */
+    @Override
+    public boolean hasLatch() {
+        return true;
     }
 
     /**
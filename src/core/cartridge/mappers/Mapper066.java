@@ -1,7 +1,5 @@
 package core.cartridge.mappers;
 
-import utils.IntegerWrapper;
-
 /**
  * This class implements the iNES Mapper 066 (GxROM)
  */
@@ -25,18 +23,14 @@ public class Mapper066 extends Mapper {
      * The Mapper map the lower 16Kb to the Bank selected by the PRGBankLow Register
      * and the upper 16Kb to the last PRG Bank
      *
-     * @param addr   the CPU Address to map
-     * @param mapped the Wrapper where to store the Mapped Address
-     * @param data   if there is data to be read, it will be written there
-     * @return Whether or not the Address was mapped
+     * @param addr the CPU Address to map
+     * @return the mapped Program Memory Address or UNMAPPED
      */
     @Override
-    public boolean cpuMapRead(int addr, IntegerWrapper mapped, IntegerWrapper data) {
-        if (addr >= 0x8000) {
-            mapped.value = (selected_PRG_bank * 0x8000) + (addr & 0x7FFF);
-            return true;
-        }
-        return false;
+    public int cpuMapRead(int addr) {
+        if (addr >= 0x8000)
+            return (selected_PRG_bank * 0x8000) + (addr & 0x7FFF);
+        return UNMAPPED;
     }
 
     /**
@@ -44,49 +38,46 @@ public class Mapper066 extends Mapper {
      * if the Cartridge need to map it
      * if the address is in the upper 16Kb, the data is written to the Mapper Register
      *
-     * @param addr   the CPU Address to map
-     * @param mapped the Wrapper where to store the Mapped Address
-     * @param data   the data to write
-     * @return Whether or not the Address was mapped
+     * @param addr the CPU Address to map
+     * @param data the data to write
+     * @return HANDLED if the Mapper Register was written, UNMAPPED otherwise
      */
     @Override
-    public boolean cpuMapWrite(int addr, IntegerWrapper mapped, int data) {
+    public int cpuMapWrite(int addr, int data) {
         if (addr >= 0x8000) {
             selected_PRG_bank = (data & 0x30) >> 4;
             selected_CHR_bank = data & 0x03;
+            remapCPU();
+            remapPPU();
+            return HANDLED;
         }
-        return false;
+        return UNMAPPED;
     }
 
     /**
      * Map an Address the PPU want to read from to a Character Memory Address
      * if the Cartridge need to map it
      *
-     * @param addr   the PPU Address to map
-     * @param mapped the Wrapper where to store the Mapped Address
-     * @param data   if there is data to be read, it will be written there
-     * @return Whether or not the Address was mapped
+     * @param addr the PPU Address to map
+     * @return the mapped Character Memory Address or UNMAPPED
      */
     @Override
-    public boolean ppuMapRead(int addr, IntegerWrapper mapped, IntegerWrapper data) {
-        if (addr <= 0x1FFF) {
-            mapped.value = selected_CHR_bank * 0x2000 + addr;
-            return true;
-        }
-        return false;
+    public int ppuMapRead(int addr) {
+        if (addr <= 0x1FFF)
+            return selected_CHR_bank * 0x2000 + addr;
+        return UNMAPPED;
     }
 
     /**
      * The PPU never write, for Mapper 066 the Character Memory is ROM
      *
-     * @param addr   the PPU Address to map
-     * @param mapped the Wrapper where to store the Mapped Address
-     * @param data   the data to write
-     * @return Whether or not the Address was mapped
+     * @param addr the PPU Address to map
+     * @param data the data to write
+     * @return always UNMAPPED
      */
     @Override
-    public boolean ppuMapWrite(int addr, IntegerWrapper mapped, int data) {
-        return false;
+    public int ppuMapWrite(int addr, int data) {
+        return UNMAPPED;
     }
 
 
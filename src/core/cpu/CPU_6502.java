@@ -1,6 +1,7 @@
 package core.cpu;
 
 import core.NES;
+import core.PageTable;
 import utils.IntegerWrapper;
 
 import java.util.*;
@@ -10,284 +11,313 @@ import java.util.*;
  */
 public class CPU_6502 {
 
-    private final List<Instruction> opcodes;
+    private static final int DECODED = 0x1000000;
+    private static final int IDLE_LOOP_SIZE = 8;
+    private static final int IDLE_LOOP_DISTANCE = 0x20;
+    private static final int NO_READ = -2;
+
+    private final Instruction[] opcodes;
     private NES nes;
     private int accumulator = 0x00;
     private int x_register = 0x00;
     private int y_register = 0x00;
     private int stack_pointer = 0x00;
     private int status = 0x00;
+    private int zero_result = 0x01;
+    private int negative_result = 0x00;
+    private boolean carry = false;
+    private boolean overflow = false;
+    private boolean lazy_flags = true;
     private int program_counter = 0x0000;
     private int tmp = 0x0000;
     private int fetched = 0x00;
     private int opcode = 0x00;
+    private int operand = 0x0000;
+    private Instruction instruction;
+    private byte[] decoded_memory;
+    private int[] decoded;
     private int cycles = 0x00;
     private int addr_abs = 0x0000;
     private int addr_rel = 0x00;
     private long cpu_clock = 0L;
     private boolean halted;
 
+    private final int[] idle_pc = new int[IDLE_LOOP_SIZE];
+    private final int[] idle_opcode = new int[IDLE_LOOP_SIZE];
+    private final int[] idle_cycles = new int[IDLE_LOOP_SIZE];
+    private final int[] idle_next = new int[IDLE_LOOP_SIZE];
+    private final int[] idle_read = new int[IDLE_LOOP_SIZE];
+    private final int[] idle_value = new int[IDLE_LOOP_SIZE];
+    private final int[][] idle_registers = new int[IDLE_LOOP_SIZE + 1][5];
+    private int idle_length = 0;
+    private int idle_start = -1;
+    private int idle_end = -1;
+    private int idle_step = 0;
+    private boolean idle_recording = false;
+    private boolean idle_active = false;
+    private long skipped_cycles = 0L;
+
     /**
      * Create a new CPU and populate the opcode list
      */
     public CPU_6502() {
-        opcodes = new ArrayList<>();
-        opcodes.add(new Instruction(OPCode.BRK, AddressingMode.IMM, opcodes.size(), 7, this));
-        opcodes.add(new Instruction(OPCode.ORA, AddressingMode.IZX, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.HLT, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.ASO, AddressingMode.IZX, opcodes.size(), 8, this));
-        opcodes.add(new Instruction(OPCode.SKB, AddressingMode.IMP, opcodes.size(), 3, this));
-        opcodes.add(new Instruction(OPCode.ORA, AddressingMode.ZP0, opcodes.size(), 3, this));
-        opcodes.add(new Instruction(OPCode.ASL, AddressingMode.ZP0, opcodes.size(), 5, this));
-        opcodes.add(new Instruction(OPCode.ASO, AddressingMode.ZP0, opcodes.size(), 5, this));
-        opcodes.add(new Instruction(OPCode.PHP, AddressingMode.IMP, opcodes.size(), 3, this));
-        opcodes.add(new Instruction(OPCode.ORA, AddressingMode.IMM, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.ASL, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.ANC, AddressingMode.IMM, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.SKW, AddressingMode.IMP, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.ORA, AddressingMode.ABS, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.ASL, AddressingMode.ABS, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.ASO, AddressingMode.ABS, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.BPL, AddressingMode.REL, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.ORA, AddressingMode.IZY, opcodes.size(), 5, this));
-        opcodes.add(new Instruction(OPCode.HLT, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.ASO, AddressingMode.IZY, opcodes.size(), 8, this));
-        opcodes.add(new Instruction(OPCode.SKB, AddressingMode.IMP, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.ORA, AddressingMode.ZPX, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.ASL, AddressingMode.ZPX, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.ASO, AddressingMode.ZPX, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.CLC, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.ORA, AddressingMode.ABY, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.NOP, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.ASO, AddressingMode.ABY, opcodes.size(), 7, this));
-        opcodes.add(new Instruction(OPCode.SKW, AddressingMode.IMP, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.ORA, AddressingMode.ABX, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.ASL, AddressingMode.ABX, opcodes.size(), 7, this));
-        opcodes.add(new Instruction(OPCode.ASO, AddressingMode.ABX, opcodes.size(), 7, this));
-        opcodes.add(new Instruction(OPCode.JSR, AddressingMode.ABS, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.AND, AddressingMode.IZX, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.HLT, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.RLA, AddressingMode.IZX, opcodes.size(), 8, this));
-        opcodes.add(new Instruction(OPCode.BIT, AddressingMode.ZP0, opcodes.size(), 3, this));
-        opcodes.add(new Instruction(OPCode.AND, AddressingMode.ZP0, opcodes.size(), 3, this));
-        opcodes.add(new Instruction(OPCode.ROL, AddressingMode.ZP0, opcodes.size(), 5, this));
-        opcodes.add(new Instruction(OPCode.RLA, AddressingMode.ZP0, opcodes.size(), 5, this));
-        opcodes.add(new Instruction(OPCode.PLP, AddressingMode.IMP, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.AND, AddressingMode.IMM, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.ROL, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.ANC, AddressingMode.IMM, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.BIT, AddressingMode.ABS, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.AND, AddressingMode.ABS, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.ROL, AddressingMode.ABS, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.RLA, AddressingMode.ABS, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.BMI, AddressingMode.REL, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.AND, AddressingMode.IZY, opcodes.size(), 5, this));
-        opcodes.add(new Instruction(OPCode.HLT, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.RLA, AddressingMode.IZY, opcodes.size(), 8, this));
-        opcodes.add(new Instruction(OPCode.SKB, AddressingMode.IMP, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.AND, AddressingMode.ZPX, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.ROL, AddressingMode.ZPX, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.RLA, AddressingMode.ZPX, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.SEC, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.AND, AddressingMode.ABY, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.NOP, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.RLA, AddressingMode.ABY, opcodes.size(), 7, this));
-        opcodes.add(new Instruction(OPCode.SKW, AddressingMode.IMP, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.AND, AddressingMode.ABX, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.ROL, AddressingMode.ABX, opcodes.size(), 7, this));
-        opcodes.add(new Instruction(OPCode.RLA, AddressingMode.ABX, opcodes.size(), 7, this));
-        opcodes.add(new Instruction(OPCode.RTI, AddressingMode.IMP, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.EOR, AddressingMode.IZX, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.HLT, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.LSE, AddressingMode.IZX, opcodes.size(), 8, this));
-        opcodes.add(new Instruction(OPCode.SKB, AddressingMode.IMP, opcodes.size(), 3, this));
-        opcodes.add(new Instruction(OPCode.EOR, AddressingMode.ZP0, opcodes.size(), 3, this));
-        opcodes.add(new Instruction(OPCode.LSR, AddressingMode.ZP0, opcodes.size(), 5, this));
-        opcodes.add(new Instruction(OPCode.LSE, AddressingMode.ZP0, opcodes.size(), 5, this));
-        opcodes.add(new Instruction(OPCode.PHA, AddressingMode.IMP, opcodes.size(), 3, this));
-        opcodes.add(new Instruction(OPCode.EOR, AddressingMode.IMM, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.LSR, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.ALR, AddressingMode.IMM, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.JMP, AddressingMode.ABS, opcodes.size(), 3, this));
-        opcodes.add(new Instruction(OPCode.EOR, AddressingMode.ABS, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.LSR, AddressingMode.ABS, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.LSE, AddressingMode.ABS, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.BVC, AddressingMode.REL, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.EOR, AddressingMode.IZY, opcodes.size(), 5, this));
-        opcodes.add(new Instruction(OPCode.HLT, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.LSE, AddressingMode.IZY, opcodes.size(), 8, this));
-        opcodes.add(new Instruction(OPCode.SKB, AddressingMode.IMP, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.EOR, AddressingMode.ZPX, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.LSR, AddressingMode.ZPX, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.LSE, AddressingMode.ZPX, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.CLI, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.EOR, AddressingMode.ABY, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.NOP, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.LSE, AddressingMode.ABY, opcodes.size(), 7, this));
-        opcodes.add(new Instruction(OPCode.SKW, AddressingMode.IMP, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.EOR, AddressingMode.ABX, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.LSR, AddressingMode.ABX, opcodes.size(), 7, this));
-        opcodes.add(new Instruction(OPCode.LSE, AddressingMode.ABX, opcodes.size(), 7, this));
-        opcodes.add(new Instruction(OPCode.RTS, AddressingMode.IMP, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.ADC, AddressingMode.IZX, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.HLT, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.RRA, AddressingMode.IZX, opcodes.size(), 8, this));
-        opcodes.add(new Instruction(OPCode.SKB, AddressingMode.IMP, opcodes.size(), 3, this));
-        opcodes.add(new Instruction(OPCode.ADC, AddressingMode.ZP0, opcodes.size(), 3, this));
-        opcodes.add(new Instruction(OPCode.ROR, AddressingMode.ZP0, opcodes.size(), 5, this));
-        opcodes.add(new Instruction(OPCode.RRA, AddressingMode.ZP0, opcodes.size(), 5, this));
-        opcodes.add(new Instruction(OPCode.PLA, AddressingMode.IMP, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.ADC, AddressingMode.IMM, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.ROR, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.ARR, AddressingMode.IMM, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.JMP, AddressingMode.IND, opcodes.size(), 5, this));
-        opcodes.add(new Instruction(OPCode.ADC, AddressingMode.ABS, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.ROR, AddressingMode.ABS, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.RRA, AddressingMode.ABS, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.BVS, AddressingMode.REL, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.ADC, AddressingMode.IZY, opcodes.size(), 5, this));
-        opcodes.add(new Instruction(OPCode.HLT, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.RRA, AddressingMode.IZY, opcodes.size(), 8, this));
-        opcodes.add(new Instruction(OPCode.SKB, AddressingMode.IMP, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.ADC, AddressingMode.ZPX, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.ROR, AddressingMode.ZPX, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.RRA, AddressingMode.ZPX, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.SEI, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.ADC, AddressingMode.ABY, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.NOP, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.RRA, AddressingMode.ABY, opcodes.size(), 7, this));
-        opcodes.add(new Instruction(OPCode.SKW, AddressingMode.IMP, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.ADC, AddressingMode.ABX, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.ROR, AddressingMode.ABX, opcodes.size(), 7, this));
-        opcodes.add(new Instruction(OPCode.RRA, AddressingMode.ABX, opcodes.size(), 7, this));
-        opcodes.add(new Instruction(OPCode.SKB, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.STA, AddressingMode.IZX, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.SKB, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.AXS, AddressingMode.IZX, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.STY, AddressingMode.ZP0, opcodes.size(), 3, this));
-        opcodes.add(new Instruction(OPCode.STA, AddressingMode.ZP0, opcodes.size(), 3, this));
-        opcodes.add(new Instruction(OPCode.STX, AddressingMode.ZP0, opcodes.size(), 3, this));
-        opcodes.add(new Instruction(OPCode.AXS, AddressingMode.ZP0, opcodes.size(), 3, this));
-        opcodes.add(new Instruction(OPCode.DEY, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.SKB, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.TXA, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.XAA, AddressingMode.IMM, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.STY, AddressingMode.ABS, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.STA, AddressingMode.ABS, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.STX, AddressingMode.ABS, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.AXS, AddressingMode.ABS, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.BCC, AddressingMode.REL, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.STA, AddressingMode.IZY, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.HLT, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.AXA, AddressingMode.IZY, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.STY, AddressingMode.ZPX, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.STA, AddressingMode.ZPX, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.STX, AddressingMode.ZPY, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.AXS, AddressingMode.ZPY, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.TYA, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.STA, AddressingMode.ABY, opcodes.size(), 5, this));
-        opcodes.add(new Instruction(OPCode.TXS, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.TAS, AddressingMode.ABY, opcodes.size(), 5, this));
-        opcodes.add(new Instruction(OPCode.SAY, AddressingMode.ABX, opcodes.size(), 5, this));
-        opcodes.add(new Instruction(OPCode.STA, AddressingMode.ABX, opcodes.size(), 5, this));
-        opcodes.add(new Instruction(OPCode.XAS, AddressingMode.ABY, opcodes.size(), 5, this));
-        opcodes.add(new Instruction(OPCode.AXA, AddressingMode.ABY, opcodes.size(), 5, this));
-        opcodes.add(new Instruction(OPCode.LDY, AddressingMode.IMM, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.LDA, AddressingMode.IZX, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.LDX, AddressingMode.IMM, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.LAX, AddressingMode.IZX, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.LDY, AddressingMode.ZP0, opcodes.size(), 3, this));
-        opcodes.add(new Instruction(OPCode.LDA, AddressingMode.ZP0, opcodes.size(), 3, this));
-        opcodes.add(new Instruction(OPCode.LDX, AddressingMode.ZP0, opcodes.size(), 3, this));
-        opcodes.add(new Instruction(OPCode.LAX, AddressingMode.ZP0, opcodes.size(), 3, this));
-        opcodes.add(new Instruction(OPCode.TAY, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.LDA, AddressingMode.IMM, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.TAX, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.OAL, AddressingMode.IMM, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.LDY, AddressingMode.ABS, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.LDA, AddressingMode.ABS, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.LDX, AddressingMode.ABS, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.LAX, AddressingMode.ABS, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.BCS, AddressingMode.REL, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.LDA, AddressingMode.IZY, opcodes.size(), 5, this));
-        opcodes.add(new Instruction(OPCode.HLT, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.LAX, AddressingMode.IZY, opcodes.size(), 5, this));
-        opcodes.add(new Instruction(OPCode.LDY, AddressingMode.ZPX, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.LDA, AddressingMode.ZPX, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.LDX, AddressingMode.ZPY, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.LAX, AddressingMode.ZPY, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.CLV, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.LDA, AddressingMode.ABY, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.TSX, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.LAS, AddressingMode.ABY, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.LDY, AddressingMode.ABX, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.LDA, AddressingMode.ABX, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.LDX, AddressingMode.ABY, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.LAX, AddressingMode.ABY, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.CPY, AddressingMode.IMM, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.CMP, AddressingMode.IZX, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.SKB, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.DCM, AddressingMode.IZX, opcodes.size(), 8, this));
-        opcodes.add(new Instruction(OPCode.CPY, AddressingMode.ZP0, opcodes.size(), 3, this));
-        opcodes.add(new Instruction(OPCode.CMP, AddressingMode.ZP0, opcodes.size(), 3, this));
-        opcodes.add(new Instruction(OPCode.DEC, AddressingMode.ZP0, opcodes.size(), 5, this));
-        opcodes.add(new Instruction(OPCode.DCM, AddressingMode.ZP0, opcodes.size(), 5, this));
-        opcodes.add(new Instruction(OPCode.INY, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.CMP, AddressingMode.IMM, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.DEX, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.SAX, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.CPY, AddressingMode.ABS, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.CMP, AddressingMode.ABS, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.DEC, AddressingMode.ABS, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.DCM, AddressingMode.ABS, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.BNE, AddressingMode.REL, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.CMP, AddressingMode.IZY, opcodes.size(), 5, this));
-        opcodes.add(new Instruction(OPCode.HLT, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.DCM, AddressingMode.IZY, opcodes.size(), 8, this));
-        opcodes.add(new Instruction(OPCode.SKB, AddressingMode.IMP, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.CMP, AddressingMode.ZPX, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.DEC, AddressingMode.ZPX, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.DCM, AddressingMode.ZPX, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.CLD, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.CMP, AddressingMode.ABY, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.NOP, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.DCM, AddressingMode.ABY, opcodes.size(), 7, this));
-        opcodes.add(new Instruction(OPCode.SKW, AddressingMode.IMP, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.CMP, AddressingMode.ABX, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.DEC, AddressingMode.ABX, opcodes.size(), 7, this));
-        opcodes.add(new Instruction(OPCode.DCM, AddressingMode.ABX, opcodes.size(), 7, this));
-        opcodes.add(new Instruction(OPCode.CPX, AddressingMode.IMM, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.SBC, AddressingMode.IZX, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.SKB, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.INS, AddressingMode.IZX, opcodes.size(), 8, this));
-        opcodes.add(new Instruction(OPCode.CPX, AddressingMode.ZP0, opcodes.size(), 3, this));
-        opcodes.add(new Instruction(OPCode.SBC, AddressingMode.ZP0, opcodes.size(), 3, this));
-        opcodes.add(new Instruction(OPCode.INC, AddressingMode.ZP0, opcodes.size(), 5, this));
-        opcodes.add(new Instruction(OPCode.INS, AddressingMode.ZP0, opcodes.size(), 5, this));
-        opcodes.add(new Instruction(OPCode.INX, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.SBC, AddressingMode.IMM, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.NOP, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.SBC, AddressingMode.IMM, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.CPX, AddressingMode.ABS, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.SBC, AddressingMode.ABS, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.INC, AddressingMode.ABS, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.INS, AddressingMode.ABS, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.BEQ, AddressingMode.REL, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.SBC, AddressingMode.IZY, opcodes.size(), 5, this));
-        opcodes.add(new Instruction(OPCode.HLT, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.INS, AddressingMode.IZY, opcodes.size(), 8, this));
-        opcodes.add(new Instruction(OPCode.SKB, AddressingMode.IMP, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.SBC, AddressingMode.ZPX, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.INC, AddressingMode.ZPX, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.INS, AddressingMode.ZPX, opcodes.size(), 6, this));
-        opcodes.add(new Instruction(OPCode.SED, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.SBC, AddressingMode.ABY, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.NOP, AddressingMode.IMP, opcodes.size(), 2, this));
-        opcodes.add(new Instruction(OPCode.INS, AddressingMode.ABY, opcodes.size(), 7, this));
-        opcodes.add(new Instruction(OPCode.SKW, AddressingMode.IMP, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.SBC, AddressingMode.ABX, opcodes.size(), 4, this));
-        opcodes.add(new Instruction(OPCode.INC, AddressingMode.ABX, opcodes.size(), 7, this));
-        opcodes.add(new Instruction(OPCode.INS, AddressingMode.ABX, opcodes.size(), 7, this));
+        opcodes = new Instruction[256];
+        opcodes[0x00] = new Instruction(OPCode.BRK, AddressingMode.IMM, 0x00, 7);
+        opcodes[0x01] = new Instruction(OPCode.ORA, AddressingMode.IZX, 0x01, 6);
+        opcodes[0x02] = new Instruction(OPCode.HLT, AddressingMode.IMP, 0x02, 2);
+        opcodes[0x03] = new Instruction(OPCode.ASO, AddressingMode.IZX, 0x03, 8);
+        opcodes[0x04] = new Instruction(OPCode.SKB, AddressingMode.IMP, 0x04, 3);
+        opcodes[0x05] = new Instruction(OPCode.ORA, AddressingMode.ZP0, 0x05, 3);
+        opcodes[0x06] = new Instruction(OPCode.ASL, AddressingMode.ZP0, 0x06, 5);
+        opcodes[0x07] = new Instruction(OPCode.ASO, AddressingMode.ZP0, 0x07, 5);
+        opcodes[0x08] = new Instruction(OPCode.PHP, AddressingMode.IMP, 0x08, 3);
+        opcodes[0x09] = new Instruction(OPCode.ORA, AddressingMode.IMM, 0x09, 2);
+        opcodes[0x0A] = new Instruction(OPCode.ASL, AddressingMode.IMP, 0x0A, 2);
+        opcodes[0x0B] = new Instruction(OPCode.ANC, AddressingMode.IMM, 0x0B, 2);
+        opcodes[0x0C] = new Instruction(OPCode.SKW, AddressingMode.IMP, 0x0C, 4);
+        opcodes[0x0D] = new Instruction(OPCode.ORA, AddressingMode.ABS, 0x0D, 4);
+        opcodes[0x0E] = new Instruction(OPCode.ASL, AddressingMode.ABS, 0x0E, 6);
+        opcodes[0x0F] = new Instruction(OPCode.ASO, AddressingMode.ABS, 0x0F, 6);
+        opcodes[0x10] = new Instruction(OPCode.BPL, AddressingMode.REL, 0x10, 2);
+        opcodes[0x11] = new Instruction(OPCode.ORA, AddressingMode.IZY, 0x11, 5);
+        opcodes[0x12] = new Instruction(OPCode.HLT, AddressingMode.IMP, 0x12, 2);
+        opcodes[0x13] = new Instruction(OPCode.ASO, AddressingMode.IZY, 0x13, 8);
+        opcodes[0x14] = new Instruction(OPCode.SKB, AddressingMode.IMP, 0x14, 4);
+        opcodes[0x15] = new Instruction(OPCode.ORA, AddressingMode.ZPX, 0x15, 4);
+        opcodes[0x16] = new Instruction(OPCode.ASL, AddressingMode.ZPX, 0x16, 6);
+        opcodes[0x17] = new Instruction(OPCode.ASO, AddressingMode.ZPX, 0x17, 6);
+        opcodes[0x18] = new Instruction(OPCode.CLC, AddressingMode.IMP, 0x18, 2);
+        opcodes[0x19] = new Instruction(OPCode.ORA, AddressingMode.ABY, 0x19, 4);
+        opcodes[0x1A] = new Instruction(OPCode.NOP, AddressingMode.IMP, 0x1A, 2);
+        opcodes[0x1B] = new Instruction(OPCode.ASO, AddressingMode.ABY, 0x1B, 7);
+        opcodes[0x1C] = new Instruction(OPCode.SKW, AddressingMode.IMP, 0x1C, 4);
+        opcodes[0x1D] = new Instruction(OPCode.ORA, AddressingMode.ABX, 0x1D, 4);
+        opcodes[0x1E] = new Instruction(OPCode.ASL, AddressingMode.ABX, 0x1E, 7);
+        opcodes[0x1F] = new Instruction(OPCode.ASO, AddressingMode.ABX, 0x1F, 7);
+        opcodes[0x20] = new Instruction(OPCode.JSR, AddressingMode.ABS, 0x20, 6);
+        opcodes[0x21] = new Instruction(OPCode.AND, AddressingMode.IZX, 0x21, 6);
+        opcodes[0x22] = new Instruction(OPCode.HLT, AddressingMode.IMP, 0x22, 2);
+        opcodes[0x23] = new Instruction(OPCode.RLA, AddressingMode.IZX, 0x23, 8);
+        opcodes[0x24] = new Instruction(OPCode.BIT, AddressingMode.ZP0, 0x24, 3);
+        opcodes[0x25] = new Instruction(OPCode.AND, AddressingMode.ZP0, 0x25, 3);
+        opcodes[0x26] = new Instruction(OPCode.ROL, AddressingMode.ZP0, 0x26, 5);
+        opcodes[0x27] = new Instruction(OPCode.RLA, AddressingMode.ZP0, 0x27, 5);
+        opcodes[0x28] = new Instruction(OPCode.PLP, AddressingMode.IMP, 0x28, 4);
+        opcodes[0x29] = new Instruction(OPCode.AND, AddressingMode.IMM, 0x29, 2);
+        opcodes[0x2A] = new Instruction(OPCode.ROL, AddressingMode.IMP, 0x2A, 2);
+        opcodes[0x2B] = new Instruction(OPCode.ANC, AddressingMode.IMM, 0x2B, 2);
+        opcodes[0x2C] = new Instruction(OPCode.BIT, AddressingMode.ABS, 0x2C, 4);
+        opcodes[0x2D] = new Instruction(OPCode.AND, AddressingMode.ABS, 0x2D, 4);
+        opcodes[0x2E] = new Instruction(OPCode.ROL, AddressingMode.ABS, 0x2E, 6);
+        opcodes[0x2F] = new Instruction(OPCode.RLA, AddressingMode.ABS, 0x2F, 6);
+        opcodes[0x30] = new Instruction(OPCode.BMI, AddressingMode.REL, 0x30, 2);
+        opcodes[0x31] = new Instruction(OPCode.AND, AddressingMode.IZY, 0x31, 5);
+        opcodes[0x32] = new Instruction(OPCode.HLT, AddressingMode.IMP, 0x32, 2);
+        opcodes[0x33] = new Instruction(OPCode.RLA, AddressingMode.IZY, 0x33, 8);
+        opcodes[0x34] = new Instruction(OPCode.SKB, AddressingMode.IMP, 0x34, 4);
+        opcodes[0x35] = new Instruction(OPCode.AND, AddressingMode.ZPX, 0x35, 4);
+        opcodes[0x36] = new Instruction(OPCode.ROL, AddressingMode.ZPX, 0x36, 6);
+        opcodes[0x37] = new Instruction(OPCode.RLA, AddressingMode.ZPX, 0x37, 6);
+        opcodes[0x38] = new Instruction(OPCode.SEC, AddressingMode.IMP, 0x38, 2);
+        opcodes[0x39] = new Instruction(OPCode.AND, AddressingMode.ABY, 0x39, 4);
+        opcodes[0x3A] = new Instruction(OPCode.NOP, AddressingMode.IMP, 0x3A, 2);
+        opcodes[0x3B] = new Instruction(OPCode.RLA, AddressingMode.ABY, 0x3B, 7);
+        opcodes[0x3C] = new Instruction(OPCode.SKW, AddressingMode.IMP, 0x3C, 4);
+        opcodes[0x3D] = new Instruction(OPCode.AND, AddressingMode.ABX, 0x3D, 4);
+        opcodes[0x3E] = new Instruction(OPCode.ROL, AddressingMode.ABX, 0x3E, 7);
+        opcodes[0x3F] = new Instruction(OPCode.RLA, AddressingMode.ABX, 0x3F, 7);
+        opcodes[0x40] = new Instruction(OPCode.RTI, AddressingMode.IMP, 0x40, 6);
+        opcodes[0x41] = new Instruction(OPCode.EOR, AddressingMode.IZX, 0x41, 6);
+        opcodes[0x42] = new Instruction(OPCode.HLT, AddressingMode.IMP, 0x42, 2);
+        opcodes[0x43] = new Instruction(OPCode.LSE, AddressingMode.IZX, 0x43, 8);
+        opcodes[0x44] = new Instruction(OPCode.SKB, AddressingMode.IMP, 0x44, 3);
+        opcodes[0x45] = new Instruction(OPCode.EOR, AddressingMode.ZP0, 0x45, 3);
+        opcodes[0x46] = new Instruction(OPCode.LSR, AddressingMode.ZP0, 0x46, 5);
+        opcodes[0x47] = new Instruction(OPCode.LSE, AddressingMode.ZP0, 0x47, 5);
+        opcodes[0x48] = new Instruction(OPCode.PHA, AddressingMode.IMP, 0x48, 3);
+        opcodes[0x49] = new Instruction(OPCode.EOR, AddressingMode.IMM, 0x49, 2);
+        opcodes[0x4A] = new Instruction(OPCode.LSR, AddressingMode.IMP, 0x4A, 2);
+        opcodes[0x4B] = new Instruction(OPCode.ALR, AddressingMode.IMM, 0x4B, 2);
+        opcodes[0x4C] = new Instruction(OPCode.JMP, AddressingMode.ABS, 0x4C, 3);
+        opcodes[0x4D] = new Instruction(OPCode.EOR, AddressingMode.ABS, 0x4D, 4);
+        opcodes[0x4E] = new Instruction(OPCode.LSR, AddressingMode.ABS, 0x4E, 6);
+        opcodes[0x4F] = new Instruction(OPCode.LSE, AddressingMode.ABS, 0x4F, 6);
+        opcodes[0x50] = new Instruction(OPCode.BVC, AddressingMode.REL, 0x50, 2);
+        opcodes[0x51] = new Instruction(OPCode.EOR, AddressingMode.IZY, 0x51, 5);
+        opcodes[0x52] = new Instruction(OPCode.HLT, AddressingMode.IMP, 0x52, 2);
+        opcodes[0x53] = new Instruction(OPCode.LSE, AddressingMode.IZY, 0x53, 8);
+        opcodes[0x54] = new Instruction(OPCode.SKB, AddressingMode.IMP, 0x54, 4);
+        opcodes[0x55] = new Instruction(OPCode.EOR, AddressingMode.ZPX, 0x55, 4);
+        opcodes[0x56] = new Instruction(OPCode.LSR, AddressingMode.ZPX, 0x56, 6);
+        opcodes[0x57] = new Instruction(OPCode.LSE, AddressingMode.ZPX, 0x57, 6);
+        opcodes[0x58] = new Instruction(OPCode.CLI, AddressingMode.IMP, 0x58, 2);
+        opcodes[0x59] = new Instruction(OPCode.EOR, AddressingMode.ABY, 0x59, 4);
+        opcodes[0x5A] = new Instruction(OPCode.NOP, AddressingMode.IMP, 0x5A, 2);
+        opcodes[0x5B] = new Instruction(OPCode.LSE, AddressingMode.ABY, 0x5B, 7);
+        opcodes[0x5C] = new Instruction(OPCode.SKW, AddressingMode.IMP, 0x5C, 4);
+        opcodes[0x5D] = new Instruction(OPCode.EOR, AddressingMode.ABX, 0x5D, 4);
+        opcodes[0x5E] = new Instruction(OPCode.LSR, AddressingMode.ABX, 0x5E, 7);
+        opcodes[0x5F] = new Instruction(OPCode.LSE, AddressingMode.ABX, 0x5F, 7);
+        opcodes[0x60] = new Instruction(OPCode.RTS, AddressingMode.IMP, 0x60, 6);
+        opcodes[0x61] = new Instruction(OPCode.ADC, AddressingMode.IZX, 0x61, 6);
+        opcodes[0x62] = new Instruction(OPCode.HLT, AddressingMode.IMP, 0x62, 2);
+        opcodes[0x63] = new Instruction(OPCode.RRA, AddressingMode.IZX, 0x63, 8);
+        opcodes[0x64] = new Instruction(OPCode.SKB, AddressingMode.IMP, 0x64, 3);
+        opcodes[0x65] = new Instruction(OPCode.ADC, AddressingMode.ZP0, 0x65, 3);
+        opcodes[0x66] = new Instruction(OPCode.ROR, AddressingMode.ZP0, 0x66, 5);
+        opcodes[0x67] = new Instruction(OPCode.RRA, AddressingMode.ZP0, 0x67, 5);
+        opcodes[0x68] = new Instruction(OPCode.PLA, AddressingMode.IMP, 0x68, 4);
+        opcodes[0x69] = new Instruction(OPCode.ADC, AddressingMode.IMM, 0x69, 2);
+        opcodes[0x6A] = new Instruction(OPCode.ROR, AddressingMode.IMP, 0x6A, 2);
+        opcodes[0x6B] = new Instruction(OPCode.ARR, AddressingMode.IMM, 0x6B, 2);
+        opcodes[0x6C] = new Instruction(OPCode.JMP, AddressingMode.IND, 0x6C, 5);
+        opcodes[0x6D] = new Instruction(OPCode.ADC, AddressingMode.ABS, 0x6D, 4);
+        opcodes[0x6E] = new Instruction(OPCode.ROR, AddressingMode.ABS, 0x6E, 6);
+        opcodes[0x6F] = new Instruction(OPCode.RRA, AddressingMode.ABS, 0x6F, 6);
+        opcodes[0x70] = new Instruction(OPCode.BVS, AddressingMode.REL, 0x70, 2);
+        opcodes[0x71] = new Instruction(OPCode.ADC, AddressingMode.IZY, 0x71, 5);
+        opcodes[0x72] = new Instruction(OPCode.HLT, AddressingMode.IMP, 0x72, 2);
+        opcodes[0x73] = new Instruction(OPCode.RRA, AddressingMode.IZY, 0x73, 8);
+        opcodes[0x74] = new Instruction(OPCode.SKB, AddressingMode.IMP, 0x74, 4);
+        opcodes[0x75] = new Instruction(OPCode.ADC, AddressingMode.ZPX, 0x75, 4);
+        opcodes[0x76] = new Instruction(OPCode.ROR, AddressingMode.ZPX, 0x76, 6);
+        opcodes[0x77] = new Instruction(OPCode.RRA, AddressingMode.ZPX, 0x77, 6);
+        opcodes[0x78] = new Instruction(OPCode.SEI, AddressingMode.IMP, 0x78, 2);
+        opcodes[0x79] = new Instruction(OPCode.ADC, AddressingMode.ABY, 0x79, 4);
+        opcodes[0x7A] = new Instruction(OPCode.NOP, AddressingMode.IMP, 0x7A, 2);
+        opcodes[0x7B] = new Instruction(OPCode.RRA, AddressingMode.ABY, 0x7B, 7);
+        opcodes[0x7C] = new Instruction(OPCode.SKW, AddressingMode.IMP, 0x7C, 4);
+        opcodes[0x7D] = new Instruction(OPCode.ADC, AddressingMode.ABX, 0x7D, 4);
+        opcodes[0x7E] = new Instruction(OPCode.ROR, AddressingMode.ABX, 0x7E, 7);
+        opcodes[0x7F] = new Instruction(OPCode.RRA, AddressingMode.ABX, 0x7F, 7);
+        opcodes[0x80] = new Instruction(OPCode.SKB, AddressingMode.IMP, 0x80, 2);
+        opcodes[0x81] = new Instruction(OPCode.STA, AddressingMode.IZX, 0x81, 6);
+        opcodes[0x82] = new Instruction(OPCode.SKB, AddressingMode.IMP, 0x82, 2);
+        opcodes[0x83] = new Instruction(OPCode.AXS, AddressingMode.IZX, 0x83, 6);
+        opcodes[0x84] = new Instruction(OPCode.STY, AddressingMode.ZP0, 0x84, 3);
+        opcodes[0x85] = new Instruction(OPCode.STA, AddressingMode.ZP0, 0x85, 3);
+        opcodes[0x86] = new Instruction(OPCode.STX, AddressingMode.ZP0, 0x86, 3);
+        opcodes[0x87] = new Instruction(OPCode.AXS, AddressingMode.ZP0, 0x87, 3);
+        opcodes[0x88] = new Instruction(OPCode.DEY, AddressingMode.IMP, 0x88, 2);
+        opcodes[0x89] = new Instruction(OPCode.SKB, AddressingMode.IMP, 0x89, 2);
+        opcodes[0x8A] = new Instruction(OPCode.TXA, AddressingMode.IMP, 0x8A, 2);
+        opcodes[0x8B] = new Instruction(OPCode.XAA, AddressingMode.IMM, 0x8B, 2);
+        opcodes[0x8C] = new Instruction(OPCode.STY, AddressingMode.ABS, 0x8C, 4);
+        opcodes[0x8D] = new Instruction(OPCode.STA, AddressingMode.ABS, 0x8D, 4);
+        opcodes[0x8E] = new Instruction(OPCode.STX, AddressingMode.ABS, 0x8E, 4);
+        opcodes[0x8F] = new Instruction(OPCode.AXS, AddressingMode.ABS, 0x8F, 4);
+        opcodes[0x90] = new Instruction(OPCode.BCC, AddressingMode.REL, 0x90, 2);
+        opcodes[0x91] = new Instruction(OPCode.STA, AddressingMode.IZY, 0x91, 6);
+        opcodes[0x92] = new Instruction(OPCode.HLT, AddressingMode.IMP, 0x92, 2);
+        opcodes[0x93] = new Instruction(OPCode.AXA, AddressingMode.IZY, 0x93, 6);
+        opcodes[0x94] = new Instruction(OPCode.STY, AddressingMode.ZPX, 0x94, 4);
+        opcodes[0x95] = new Instruction(OPCode.STA, AddressingMode.ZPX, 0x95, 4);
+        opcodes[0x96] = new Instruction(OPCode.STX, AddressingMode.ZPY, 0x96, 4);
+        opcodes[0x97] = new Instruction(OPCode.AXS, AddressingMode.ZPY, 0x97, 4);
+        opcodes[0x98] = new Instruction(OPCode.TYA, AddressingMode.IMP, 0x98, 2);
+        opcodes[0x99] = new Instruction(OPCode.STA, AddressingMode.ABY, 0x99, 5);
+        opcodes[0x9A] = new Instruction(OPCode.TXS, AddressingMode.IMP, 0x9A, 2);
+        opcodes[0x9B] = new Instruction(OPCode.TAS, AddressingMode.ABY, 0x9B, 5);
+        opcodes[0x9C] = new Instruction(OPCode.SAY, AddressingMode.ABX, 0x9C, 5);
+        opcodes[0x9D] = new Instruction(OPCode.STA, AddressingMode.ABX, 0x9D, 5);
+        opcodes[0x9E] = new Instruction(OPCode.XAS, AddressingMode.ABY, 0x9E, 5);
+        opcodes[0x9F] = new Instruction(OPCode.AXA, AddressingMode.ABY, 0x9F, 5);
+        opcodes[0xA0] = new Instruction(OPCode.LDY, AddressingMode.IMM, 0xA0, 2);
+        opcodes[0xA1] = new Instruction(OPCode.LDA, AddressingMode.IZX, 0xA1, 6);
+        opcodes[0xA2] = new Instruction(OPCode.LDX, AddressingMode.IMM, 0xA2, 2);
+        opcodes[0xA3] = new Instruction(OPCode.LAX, AddressingMode.IZX, 0xA3, 6);
+        opcodes[0xA4] = new Instruction(OPCode.LDY, AddressingMode.ZP0, 0xA4, 3);
+        opcodes[0xA5] = new Instruction(OPCode.LDA, AddressingMode.ZP0, 0xA5, 3);
+        opcodes[0xA6] = new Instruction(OPCode.LDX, AddressingMode.ZP0, 0xA6, 3);
+        opcodes[0xA7] = new Instruction(OPCode.LAX, AddressingMode.ZP0, 0xA7, 3);
+        opcodes[0xA8] = new Instruction(OPCode.TAY, AddressingMode.IMP, 0xA8, 2);
+        opcodes[0xA9] = new Instruction(OPCode.LDA, AddressingMode.IMM, 0xA9, 2);
+        opcodes[0xAA] = new Instruction(OPCode.TAX, AddressingMode.IMP, 0xAA, 2);
+        opcodes[0xAB] = new Instruction(OPCode.OAL, AddressingMode.IMM, 0xAB, 2);
+        opcodes[0xAC] = new Instruction(OPCode.LDY, AddressingMode.ABS, 0xAC, 4);
+        opcodes[0xAD] = new Instruction(OPCode.LDA, AddressingMode.ABS, 0xAD, 4);
+        opcodes[0xAE] = new Instruction(OPCode.LDX, AddressingMode.ABS, 0xAE, 4);
+        opcodes[0xAF] = new Instruction(OPCode.LAX, AddressingMode.ABS, 0xAF, 4);
+        opcodes[0xB0] = new Instruction(OPCode.BCS, AddressingMode.REL, 0xB0, 2);
+        opcodes[0xB1] = new Instruction(OPCode.LDA, AddressingMode.IZY, 0xB1, 5);
+        opcodes[0xB2] = new Instruction(OPCode.HLT, AddressingMode.IMP, 0xB2, 2);
+        opcodes[0xB3] = new Instruction(OPCode.LAX, AddressingMode.IZY, 0xB3, 5);
+        opcodes[0xB4] = new Instruction(OPCode.LDY, AddressingMode.ZPX, 0xB4, 4);
+        opcodes[0xB5] = new Instruction(OPCode.LDA, AddressingMode.ZPX, 0xB5, 4);
+        opcodes[0xB6] = new Instruction(OPCode.LDX, AddressingMode.ZPY, 0xB6, 4);
+        opcodes[0xB7] = new Instruction(OPCode.LAX, AddressingMode.ZPY, 0xB7, 4);
+        opcodes[0xB8] = new Instruction(OPCode.CLV, AddressingMode.IMP, 0xB8, 2);
+        opcodes[0xB9] = new Instruction(OPCode.LDA, AddressingMode.ABY, 0xB9, 4);
+        opcodes[0xBA] = new Instruction(OPCode.TSX, AddressingMode.IMP, 0xBA, 2);
+        opcodes[0xBB] = new Instruction(OPCode.LAS, AddressingMode.ABY, 0xBB, 4);
+        opcodes[0xBC] = new Instruction(OPCode.LDY, AddressingMode.ABX, 0xBC, 4);
+        opcodes[0xBD] = new Instruction(OPCode.LDA, AddressingMode.ABX, 0xBD, 4);
+        opcodes[0xBE] = new Instruction(OPCode.LDX, AddressingMode.ABY, 0xBE, 4);
+        opcodes[0xBF] = new Instruction(OPCode.LAX, AddressingMode.ABY, 0xBF, 4);
+        opcodes[0xC0] = new Instruction(OPCode.CPY, AddressingMode.IMM, 0xC0, 2);
+        opcodes[0xC1] = new Instruction(OPCode.CMP, AddressingMode.IZX, 0xC1, 6);
+        opcodes[0xC2] = new Instruction(OPCode.SKB, AddressingMode.IMP, 0xC2, 2);
+        opcodes[0xC3] = new Instruction(OPCode.DCM, AddressingMode.IZX, 0xC3, 8);
+        opcodes[0xC4] = new Instruction(OPCode.CPY, AddressingMode.ZP0, 0xC4, 3);
+        opcodes[0xC5] = new Instruction(OPCode.CMP, AddressingMode.ZP0, 0xC5, 3);
+        opcodes[0xC6] = new Instruction(OPCode.DEC, AddressingMode.ZP0, 0xC6, 5);
+        opcodes[0xC7] = new Instruction(OPCode.DCM, AddressingMode.ZP0, 0xC7, 5);
+        opcodes[0xC8] = new Instruction(OPCode.INY, AddressingMode.IMP, 0xC8, 2);
+        opcodes[0xC9] = new Instruction(OPCode.CMP, AddressingMode.IMM, 0xC9, 2);
+        opcodes[0xCA] = new Instruction(OPCode.DEX, AddressingMode.IMP, 0xCA, 2);
+        opcodes[0xCB] = new Instruction(OPCode.SAX, AddressingMode.IMP, 0xCB, 2);
+        opcodes[0xCC] = new Instruction(OPCode.CPY, AddressingMode.ABS, 0xCC, 4);
+        opcodes[0xCD] = new Instruction(OPCode.CMP, AddressingMode.ABS, 0xCD, 4);
+        opcodes[0xCE] = new Instruction(OPCode.DEC, AddressingMode.ABS, 0xCE, 6);
+        opcodes[0xCF] = new Instruction(OPCode.DCM, AddressingMode.ABS, 0xCF, 6);
+        opcodes[0xD0] = new Instruction(OPCode.BNE, AddressingMode.REL, 0xD0, 2);
+        opcodes[0xD1] = new Instruction(OPCode.CMP, AddressingMode.IZY, 0xD1, 5);
+        opcodes[0xD2] = new Instruction(OPCode.HLT, AddressingMode.IMP, 0xD2, 2);
+        opcodes[0xD3] = new Instruction(OPCode.DCM, AddressingMode.IZY, 0xD3, 8);
+        opcodes[0xD4] = new Instruction(OPCode.SKB, AddressingMode.IMP, 0xD4, 4);
+        opcodes[0xD5] = new Instruction(OPCode.CMP, AddressingMode.ZPX, 0xD5, 4);
+        opcodes[0xD6] = new Instruction(OPCode.DEC, AddressingMode.ZPX, 0xD6, 6);
+        opcodes[0xD7] = new Instruction(OPCode.DCM, AddressingMode.ZPX, 0xD7, 6);
+        opcodes[0xD8] = new Instruction(OPCode.CLD, AddressingMode.IMP, 0xD8, 2);
+        opcodes[0xD9] = new Instruction(OPCode.CMP, AddressingMode.ABY, 0xD9, 4);
+        opcodes[0xDA] = new Instruction(OPCode.NOP, AddressingMode.IMP, 0xDA, 2);
+        opcodes[0xDB] = new Instruction(OPCode.DCM, AddressingMode.ABY, 0xDB, 7);
+        opcodes[0xDC] = new Instruction(OPCode.SKW, AddressingMode.IMP, 0xDC, 4);
+        opcodes[0xDD] = new Instruction(OPCode.CMP, AddressingMode.ABX, 0xDD, 4);
+        opcodes[0xDE] = new Instruction(OPCode.DEC, AddressingMode.ABX, 0xDE, 7);
+        opcodes[0xDF] = new Instruction(OPCode.DCM, AddressingMode.ABX, 0xDF, 7);
+        opcodes[0xE0] = new Instruction(OPCode.CPX, AddressingMode.IMM, 0xE0, 2);
+        opcodes[0xE1] = new Instruction(OPCode.SBC, AddressingMode.IZX, 0xE1, 6);
+        opcodes[0xE2] = new Instruction(OPCode.SKB, AddressingMode.IMP, 0xE2, 2);
+        opcodes[0xE3] = new Instruction(OPCode.INS, AddressingMode.IZX, 0xE3, 8);
+        opcodes[0xE4] = new Instruction(OPCode.CPX, AddressingMode.ZP0, 0xE4, 3);
+        opcodes[0xE5] = new Instruction(OPCode.SBC, AddressingMode.ZP0, 0xE5, 3);
+        opcodes[0xE6] = new Instruction(OPCode.INC, AddressingMode.ZP0, 0xE6, 5);
+        opcodes[0xE7] = new Instruction(OPCode.INS, AddressingMode.ZP0, 0xE7, 5);
+        opcodes[0xE8] = new Instruction(OPCode.INX, AddressingMode.IMP, 0xE8, 2);
+        opcodes[0xE9] = new Instruction(OPCode.SBC, AddressingMode.IMM, 0xE9, 2);
+        opcodes[0xEA] = new Instruction(OPCode.NOP, AddressingMode.IMP, 0xEA, 2);
+        opcodes[0xEB] = new Instruction(OPCode.SBC, AddressingMode.IMM, 0xEB, 2);
+        opcodes[0xEC] = new Instruction(OPCode.CPX, AddressingMode.ABS, 0xEC, 4);
+        opcodes[0xED] = new Instruction(OPCode.SBC, AddressingMode.ABS, 0xED, 4);
+        opcodes[0xEE] = new Instruction(OPCode.INC, AddressingMode.ABS, 0xEE, 6);
+        opcodes[0xEF] = new Instruction(OPCode.INS, AddressingMode.ABS, 0xEF, 6);
+        opcodes[0xF0] = new Instruction(OPCode.BEQ, AddressingMode.REL, 0xF0, 2);
+        opcodes[0xF1] = new Instruction(OPCode.SBC, AddressingMode.IZY, 0xF1, 5);
+        opcodes[0xF2] = new Instruction(OPCode.HLT, AddressingMode.IMP, 0xF2, 2);
+        opcodes[0xF3] = new Instruction(OPCode.INS, AddressingMode.IZY, 0xF3, 8);
+        opcodes[0xF4] = new Instruction(OPCode.SKB, AddressingMode.IMP, 0xF4, 4);
+        opcodes[0xF5] = new Instruction(OPCode.SBC, AddressingMode.ZPX, 0xF5, 4);
+        opcodes[0xF6] = new Instruction(OPCode.INC, AddressingMode.ZPX, 0xF6, 6);
+        opcodes[0xF7] = new Instruction(OPCode.INS, AddressingMode.ZPX, 0xF7, 6);
+        opcodes[0xF8] = new Instruction(OPCode.SED, AddressingMode.IMP, 0xF8, 2);
+        opcodes[0xF9] = new Instruction(OPCode.SBC, AddressingMode.ABY, 0xF9, 4);
+        opcodes[0xFA] = new Instruction(OPCode.NOP, AddressingMode.IMP, 0xFA, 2);
+        opcodes[0xFB] = new Instruction(OPCode.INS, AddressingMode.ABY, 0xFB, 7);
+        opcodes[0xFC] = new Instruction(OPCode.SKW, AddressingMode.IMP, 0xFC, 4);
+        opcodes[0xFD] = new Instruction(OPCode.SBC, AddressingMode.ABX, 0xFD, 4);
+        opcodes[0xFE] = new Instruction(OPCode.INC, AddressingMode.ABX, 0xFE, 7);
+        opcodes[0xFF] = new Instruction(OPCode.INS, AddressingMode.ABX, 0xFF, 7);
     }
 
     /**
@@ -320,12 +350,21 @@ public class CPU_6502 {
 
     /**
      * Get a Flag value
+     * With the lazy Flags, the N, Z, C and V Flags are evaluated from the last ALU result
      *
      * @param flag the Flag to get
      * @return is the Flag set to 1
      */
     private boolean getFlag(Flags flag) {
-        return (status & flag.value) == flag.value;
+        if (!lazy_flags)
+            return (status & flag.value) == flag.value;
+        return switch (flag) {
+            case C -> carry;
+            case Z -> (zero_result & 0xFF) == 0x00;
+            case V -> overflow;
+            case N -> (negative_result & 0x80) == 0x80;
+            default -> (status & flag.value) == flag.value;
+        };
     }
 
     /**
@@ -335,12 +374,130 @@ public class CPU_6502 {
      * @param value should the Flag be set 1
      */
     private void setFlag(Flags flag, boolean value) {
+        if (lazy_flags) {
+            switch (flag) {
+                case C -> carry = value;
+                case Z -> zero_result = value ? 0x00 : 0x01;
+                case V -> overflow = value;
+                case N -> negative_result = value ? 0x80 : 0x00;
+                default -> setStatusBit(flag, value);
+            }
+        } else {
+            setStatusBit(flag, value);
+        }
+    }
+
+    /**
+     * Set a bit of the Status Register to 0 or 1
+     *
+     * @param flag  the Flag of the bit to set
+     * @param value should the bit be set to 1
+     */
+    private void setStatusBit(Flags flag, boolean value) {
         if (value)
             status |= flag.value;
         else
             status &= ~flag.value;
     }
 
+    /**
+     * Return the C Flag
+     *
+     * @return is the C Flag set to 1
+     */
+    private boolean getCarry() {
+        return lazy_flags ? carry : (status & Flags.C.value) == Flags.C.value;
+    }
+
+    /**
+     * Set the C Flag
+     *
+     * @param value should the C Flag be set to 1
+     */
+    private void setCarry(boolean value) {
+        if (lazy_flags)
+            carry = value;
+        else
+            setStatusBit(Flags.C, value);
+    }
+
+    /**
+     * Return the V Flag
+     *
+     * @return is the V Flag set to 1
+     */
+    private boolean getOverflow() {
+        return lazy_flags ? overflow : (status & Flags.V.value) == Flags.V.value;
+    }
+
+    /**
+     * Set the V Flag
+     *
+     * @param value should the V Flag be set to 1
+     */
+    private void setOverflow(boolean value) {
+        if (lazy_flags)
+            overflow = value;
+        else
+            setStatusBit(Flags.V, value);
+    }
+
+    /**
+     * Set the Z and N Flags from a result
+     * With the lazy Flags, they are only evaluated when observed
+     *
+     * @param result the result of the last operation
+     */
+    private void setZN(int result) {
+        setZN(result, result);
+    }
+
+    /**
+     * Set the Z Flag from a value and the N Flag from another one
+     * With the lazy Flags, they are only evaluated when observed
+     *
+     * @param zero     the value deciding the Z Flag
+     * @param negative the value deciding the N Flag
+     */
+    private void setZN(int zero, int negative) {
+        if (lazy_flags) {
+            zero_result = zero;
+            negative_result = negative;
+        } else {
+            setStatusBit(Flags.Z, (zero & 0xFF) == 0x00);
+            setStatusBit(Flags.N, (negative & 0x80) == 0x80);
+        }
+    }
+
+    /**
+     * Return the Status Register with the N, Z, C and V Flags evaluated
+     *
+     * @return the Status Register as an 8bit value
+     */
+    private int packStatus() {
+        if (!lazy_flags)
+            return status & 0xFF;
+        int packed = status & ~(Flags.N.value | Flags.Z.value | Flags.C.value | Flags.V.value);
+        if (carry) packed |= Flags.C.value;
+        if ((zero_result & 0xFF) == 0x00) packed |= Flags.Z.value;
+        if (overflow) packed |= Flags.V.value;
+        if ((negative_result & 0x80) == 0x80) packed |= Flags.N.value;
+        return packed & 0xFF;
+    }
+
+    /**
+     * Load the Status Register and the N, Z, C and V Flags from an 8bit value
+     *
+     * @param value the value to load
+     */
+    private void unpackStatus(int value) {
+        status = value & 0xFF;
+        carry = (value & Flags.C.value) == Flags.C.value;
+        zero_result = (value & Flags.Z.value) == Flags.Z.value ? 0x00 : 0x01;
+        overflow = (value & Flags.V.value) == Flags.V.value;
+        negative_result = value & Flags.N.value;
+    }
+
     // =========================================== Addressing Modes ===========================================
 
     /**
@@ -365,8 +522,7 @@ public class CPU_6502 {
      * @return 0 No extra cycle required
      */
     int zp0() {
-        addr_abs = read(program_counter++);
-        program_counter &= 0xFFFF;
+        addr_abs = operand;
 
         return 0;
     }
@@ -383,9 +539,8 @@ public class CPU_6502 {
      * @return 0 No extra cycle required
      */
     int zpy() {
-        addr_abs = read(program_counter++) + y_register;
+        addr_abs = operand + y_register;
         addr_abs &= 0x00FF;
-        program_counter &= 0xFFFF;
 
         return 0;
     }
@@ -397,12 +552,7 @@ public class CPU_6502 {
      * @return 0 No extra cycle required
      */
     int abs() {
-        int low = read(program_counter++);
-        program_counter &= 0xFFFF;
-        int high = read(program_counter++);
-        program_counter &= 0xFFFF;
-
-        addr_abs = (high << 8) | low;
+        addr_abs = operand;
 
         return 0;
     }
@@ -415,15 +565,12 @@ public class CPU_6502 {
      * @return 1 if a page Boundary is crossed when adding Y Register, 0 otherwise
      */
     int aby() {
-        int low = read(program_counter++);
-        program_counter &= 0xFFFF;
-        int high = read(program_counter++);
-        program_counter &= 0xFFFF;
+        int high = operand & 0xFF00;
 
-        addr_abs = (high << 8 | low) + y_register;
+        addr_abs = operand + y_register;
         addr_abs &= 0xFFFF;
 
-        if ((addr_abs & 0xFF00) != (high << 8)) return 1;
+        if ((addr_abs & 0xFF00) != high) return 1;
         return 0;
     }
 
@@ -442,11 +589,8 @@ public class CPU_6502 {
      * @return 0 No extra cycle required
      */
     int izx() {
-        int ptr = read(program_counter++);
-        program_counter &= 0xFFFF;
-
-        int low = read((ptr + (x_register & 0xFF) & 0xFFFF) & 0x00FF);
-        int high = read(((ptr + (x_register & 0xFF) + 1) & 0xFFFF) & 0x00FF);
+        int low = read((operand + (x_register & 0xFF) & 0xFFFF) & 0x00FF);
+        int high = read(((operand + (x_register & 0xFF) + 1) & 0xFFFF) & 0x00FF);
 
         addr_abs = (high << 8) | low;
 
@@ -456,13 +600,13 @@ public class CPU_6502 {
     /**
      * Immediate Addressing
      * The value following the OPCode is the value searched
-     * the effective address is then the Program Counter
+     * it has already been read with the Instruction, so the effective address is only kept for reference
      *
      * @return 0 No extra cycle required
      */
     int imm() {
-        addr_abs = program_counter++;
-        program_counter &= 0xFFFF;
+        addr_abs = (program_counter - 1) & 0xFFFF;
+        fetched = operand;
 
         return 0;
     }
@@ -479,9 +623,8 @@ public class CPU_6502 {
      * @return 0 No extra cycle required
      */
     int zpx() {
-        addr_abs = read(program_counter++) + x_register;
+        addr_abs = operand + x_register;
         addr_abs &= 0x00FF;
-        program_counter &= 0xFFFF;
 
         return 0;
     }
@@ -494,8 +637,7 @@ public class CPU_6502 {
      * @return 0 No extra cycle required
      */
     int rel() {
-        addr_rel = read(program_counter++);
-        program_counter &= 0xFFFF;
+        addr_rel = operand;
 
         if ((addr_rel & 0x80) == 0x80) addr_rel |= 0xFFFFFF00;
 
@@ -510,18 +652,16 @@ public class CPU_6502 {
      * @return 1 if a page boundary is crossed when adding X Register, 0 otherwise
      */
     int abx() {
-        int low = read(program_counter++);
-        program_counter &= 0xFFFF;
-        int high = read(program_counter++);
-        program_counter &= 0xFFFF;
+        int low = operand & 0xFF;
+        int high = operand & 0xFF00;
 
-        addr_abs = ((high << 8) | low) + x_register;
+        addr_abs = operand + x_register;
         addr_abs &= 0xFFFF;
 
         //Dummy read
-        if (low + x_register > 0xFF || opcodes.get(opcode).assembly == OPCode.ROL)
-            read(((high << 8) & 0xFF00) | (addr_abs & 0xFF));
-        if ((addr_abs & 0xFF00) != (high << 8)) return 1;
+        if (low + x_register > 0xFF || instruction.dummy_read)
+            read(high | (addr_abs & 0xFF));
+        if ((addr_abs & 0xFF00) != high) return 1;
 
         return 0;
     }
@@ -546,12 +686,8 @@ public class CPU_6502 {
      * @return 0 No extra cycle required (because no page boundary cross can occur)
      */
     int ind() {
-        int low = read(program_counter++);
-        program_counter &= 0xFFFF;
-        int high = read(program_counter++);
-        program_counter &= 0xFFFF;
-
-        int ptr = (high << 8) | low;
+        int low = operand & 0xFF;
+        int ptr = operand;
 
         if (low == 0xFF) addr_abs = (read(ptr & 0xFF00) << 8) | read(ptr); //Page boundary bug
         else addr_abs = (read(ptr + 1) << 8) | read(ptr);
@@ -575,11 +711,8 @@ public class CPU_6502 {
      * @return 1 If when adding Y we cross a page boundary 0 otherwise
      */
     int izy() {
-        int ptr = read(program_counter++);
-        program_counter &= 0xFFFF;
-
-        int low = read(ptr);
-        int high = read((ptr + 1) & 0x00FF);
+        int low = read(operand);
+        int high = read((operand + 1) & 0x00FF);
 
         addr_abs = (high << 8) | low;
         addr_abs += y_register;
@@ -610,12 +743,11 @@ public class CPU_6502 {
      */
     int adc() {
         fetch();
-        tmp = (accumulator + fetched + (getFlag(Flags.C) ? 0x1 : 0x0)) & 0x01FF;
+        tmp = (accumulator + fetched + (getCarry() ? 0x1 : 0x0)) & 0x01FF;
 
-        setFlag(Flags.V, ((tmp ^ accumulator) & (tmp ^ fetched) & 0x80) == 0x80);
-        setFlag(Flags.C, tmp > 0xFF);
-        setFlag(Flags.Z, (tmp & 0xFF) == 0);
-        setFlag(Flags.N, (tmp & 0x80) == 0x80);
+        setOverflow(((tmp ^ accumulator) & (tmp ^ fetched) & 0x80) == 0x80);
+        setCarry(tmp > 0xFF);
+        setZN(tmp);
 
         accumulator = tmp & 0x00FF;
 
@@ -635,8 +767,7 @@ public class CPU_6502 {
         accumulator = accumulator & fetched;
         accumulator &= 0xFF;
 
-        setFlag(Flags.Z, accumulator == 0x00);
-        setFlag(Flags.N, (accumulator & 0x80) != 0x00);
+        setZN(accumulator);
 
         return 1;
     }
@@ -653,11 +784,10 @@ public class CPU_6502 {
         fetch();
         tmp = fetched << 1;
 
-        setFlag(Flags.C, (tmp & 0xFF00) > 0);
-        setFlag(Flags.Z, (tmp & 0xFF) == 0x00);
-        setFlag(Flags.N, (tmp & 0x80) == 0x80);
+        setCarry((tmp & 0xFF00) > 0);
+        setZN(tmp);
 
-        if (opcodes.get(opcode).addr_mode == AddressingMode.IMP) accumulator = tmp & 0xFF;
+        if (instruction.implied) accumulator = tmp & 0xFF;
         else write(addr_abs, tmp & 0xFF);
 
         return 0;
@@ -670,7 +800,7 @@ public class CPU_6502 {
      * @return 0 No extra cycle required
      */
     int bcc() {
-        if (!getFlag(Flags.C)) {
+        if (!getCarry()) {
             cycles++;
             addr_abs = program_counter + addr_rel;
             addr_abs &= 0xFFFF;
@@ -688,7 +818,7 @@ public class CPU_6502 {
      * @return 0 No extra cycle required
      */
     int bcs() {
-        if (getFlag(Flags.C)) {
+        if (getCarry()) {
             cycles++;
             addr_abs = program_counter + addr_rel;
             addr_abs &= 0xFFFF;
@@ -729,9 +859,8 @@ public class CPU_6502 {
         fetch();
         tmp = (accumulator & fetched);
 
-        setFlag(Flags.Z, (tmp & 0xFF) == 0x0000);
-        setFlag(Flags.N, (fetched & 0x80) == 0x80);
-        setFlag(Flags.V, (fetched & 0x40) == 0x40);
+        setZN(tmp, fetched);
+        setOverflow((fetched & 0x40) == 0x40);
 
         return 0;
     }
@@ -802,7 +931,7 @@ public class CPU_6502 {
         read((program_counter - 1) & 0xFFFF);
         pushStack((program_counter >> 8) & 0xFF);
         pushStack(program_counter & 0xFF);
-        pushStack((status | Flags.B.value) & 0xFF);
+        pushStack(packStatus() | Flags.B.value);
         program_counter = irqVector();
 
         setFlag(Flags.I, true);
@@ -817,7 +946,7 @@ public class CPU_6502 {
      * @return 0 No extra cycle required
      */
     int bvc() {
-        if (!getFlag(Flags.V)) {
+        if (!getOverflow()) {
             cycles++;
             addr_abs = program_counter + addr_rel;
             addr_abs &= 0xFFFF;
@@ -835,7 +964,7 @@ public class CPU_6502 {
      * @return 0 No extra cycle required
      */
     int bvs() {
-        if (getFlag(Flags.V)) {
+        if (getOverflow()) {
             cycles++;
             addr_abs = program_counter + addr_rel;
             addr_abs &= 0xFFFF;
@@ -853,7 +982,7 @@ public class CPU_6502 {
      * @return 0 No extra cycle required
      */
     int clc() {
-        setFlag(Flags.C, false);
+        setCarry(false);
         return 0;
     }
 
@@ -886,7 +1015,7 @@ public class CPU_6502 {
      * @return 0 No extra cycle required
      */
     int clv() {
-        setFlag(Flags.V, false);
+        setOverflow(false);
         return 0;
     }
 
@@ -902,9 +1031,8 @@ public class CPU_6502 {
         fetch();
         tmp = accumulator - fetched;
 
-        setFlag(Flags.C, accumulator >= fetched);
-        setFlag(Flags.Z, (tmp & 0xFF) == 0x00);
-        setFlag(Flags.N, (tmp & 0x80) == 0x80);
+        setCarry(accumulator >= fetched);
+        setZN(tmp);
 
         return 1;
     }
@@ -921,9 +1049,8 @@ public class CPU_6502 {
         fetch();
         tmp = x_register - fetched;
 
-        setFlag(Flags.C, x_register >= fetched);
-        setFlag(Flags.Z, (tmp & 0xFF) == 0x00);
-        setFlag(Flags.N, (tmp & 0x80) == 0x80);
+        setCarry(x_register >= fetched);
+        setZN(tmp);
 
         return 0;
     }
@@ -940,9 +1067,8 @@ public class CPU_6502 {
         fetch();
         tmp = y_register - fetched;
 
-        setFlag(Flags.C, y_register >= fetched);
-        setFlag(Flags.Z, (tmp & 0xFF) == 0x00);
-        setFlag(Flags.N, (tmp & 0x80) == 0x80);
+        setCarry(y_register >= fetched);
+        setZN(tmp);
 
         return 0;
     }
@@ -960,8 +1086,7 @@ public class CPU_6502 {
         tmp = (fetched - 1) & 0xFF;
         write(addr_abs, tmp);
 
-        setFlag(Flags.Z, (tmp & 0xFF) == 0x00);
-        setFlag(Flags.N, (tmp & 0x80) == 0x80);
+        setZN(tmp);
 
         return 0;
     }
@@ -978,8 +1103,7 @@ public class CPU_6502 {
         x_register--;
         x_register &= 0xFF;
 
-        setFlag(Flags.Z, (x_register & 0xFF) == 0x00);
-        setFlag(Flags.N, (x_register & 0x80) == 0x80);
+        setZN(x_register);
 
         return 0;
     }
@@ -996,8 +1120,7 @@ public class CPU_6502 {
         y_register--;
         y_register &= 0xFF;
 
-        setFlag(Flags.Z, (y_register & 0xFF) == 0x00);
-        setFlag(Flags.N, (y_register & 0x80) == 0x80);
+        setZN(y_register);
 
         return 0;
     }
@@ -1014,8 +1137,7 @@ public class CPU_6502 {
         fetch();
         accumulator = (accumulator ^ fetched) & 0x00FF;
 
-        setFlag(Flags.Z, (accumulator & 0xFF) == 0x00);
-        setFlag(Flags.N, (accumulator & 0x80) == 0x80);
+        setZN(accumulator);
 
         return 1;
     }
@@ -1033,8 +1155,7 @@ public class CPU_6502 {
         tmp = (fetched + 1) & 0xFF;
         write(addr_abs, tmp);
 
-        setFlag(Flags.Z, (tmp & 0xFF) == 0x00);
-        setFlag(Flags.N, (tmp & 0x80) == 0x80);
+        setZN(tmp);
 
         return 0;
     }
@@ -1051,8 +1172,7 @@ public class CPU_6502 {
         x_register++;
         x_register &= 0xFF;
 
-        setFlag(Flags.Z, (x_register & 0xFF) == 0x00);
-        setFlag(Flags.N, (x_register & 0x80) == 0x80);
+        setZN(x_register);
 
         return 0;
     }
@@ -1069,8 +1189,7 @@ public class CPU_6502 {
         y_register++;
         y_register &= 0xFF;
 
-        setFlag(Flags.Z, (y_register & 0xFF) == 0x00);
-        setFlag(Flags.N, (y_register & 0x80) == 0x80);
+        setZN(y_register);
 
         return 0;
     }
@@ -1115,8 +1234,7 @@ public class CPU_6502 {
         fetch();
         accumulator = fetched & 0xFF;
 
-        setFlag(Flags.Z, (accumulator & 0xFF) == 0x00);
-        setFlag(Flags.N, (accumulator & 0x80) == 0x80);
+        setZN(accumulator);
 
         return 1;
     }
@@ -1132,8 +1250,7 @@ public class CPU_6502 {
         fetch();
         x_register = fetched & 0xFF;
 
-        setFlag(Flags.Z, (x_register & 0xFF) == 0x00);
-        setFlag(Flags.N, (x_register & 0x80) == 0x80);
+        setZN(x_register);
 
         return 1;
     }
@@ -1149,8 +1266,7 @@ public class CPU_6502 {
         fetch();
         y_register = fetched & 0xFF;
 
-        setFlag(Flags.Z, (y_register & 0xFF) == 0x00);
-        setFlag(Flags.N, (y_register & 0x80) == 0x80);
+        setZN(y_register);
 
         return 1;
     }
@@ -1164,13 +1280,12 @@ public class CPU_6502 {
      */
     int lsr() {
         fetch();
-        setFlag(Flags.C, (fetched & 0x01) == 0x01);
+        setCarry((fetched & 0x01) == 0x01);
         tmp = (fetched >> 1);
 
-        setFlag(Flags.Z, (tmp & 0xFF) == 0x00);
-        setFlag(Flags.N, (tmp & 0x80) == 0x80);
+        setZN(tmp);
 
-        if (opcodes.get(opcode).addr_mode == AddressingMode.IMP) accumulator = tmp & 0xFF;
+        if (instruction.implied) accumulator = tmp & 0xFF;
         else write(addr_abs, tmp & 0xFF);
 
         return 0;
@@ -1200,8 +1315,7 @@ public class CPU_6502 {
         fetch();
         accumulator = (accumulator | fetched) & 0xFF;
 
-        setFlag(Flags.Z, accumulator == 0x00);
-        setFlag(Flags.N, (accumulator & 0x80) == 0x80);
+        setZN(accumulator);
 
         return 1;
     }
@@ -1225,7 +1339,7 @@ public class CPU_6502 {
      * @return 0 No extra cycle required
      */
     int php() {
-        pushStack((status | Flags.U.value | Flags.B.value) & 0xFF);
+        pushStack(packStatus() | Flags.U.value | Flags.B.value);
 
         setFlag(Flags.B, false);
         setFlag(Flags.U, false);
@@ -1243,8 +1357,7 @@ public class CPU_6502 {
     int pla() {
         accumulator = popStack();
 
-        setFlag(Flags.Z, accumulator == 0x00);
-        setFlag(Flags.N, (accumulator & 0x80) == 0x80);
+        setZN(accumulator);
 
         return 0;
     }
@@ -1257,7 +1370,7 @@ public class CPU_6502 {
      * @return 0 No extra cycle required
      */
     int plp() {
-        status = popStack();
+        unpackStatus(popStack());
 
         setFlag(Flags.U, true);
 
@@ -1275,13 +1388,12 @@ public class CPU_6502 {
      */
     int rol() {
         fetch();
-        tmp = (getFlag(Flags.C) ? 1 : 0) | (fetched << 1);
+        tmp = (getCarry() ? 1 : 0) | (fetched << 1);
 
-        setFlag(Flags.C, (tmp & 0xFF00) != 0x0000);
-        setFlag(Flags.Z, (tmp & 0xFF) == 0x00);
-        setFlag(Flags.N, (tmp & 0x80) == 0x80);
+        setCarry((tmp & 0xFF00) != 0x0000);
+        setZN(tmp);
 
-        if (opcodes.get(opcode).addr_mode == AddressingMode.IMP) accumulator = tmp & 0xFF;
+        if (instruction.implied) accumulator = tmp & 0xFF;
         else write(addr_abs, tmp & 0xFF);
 
         return 0;
@@ -1298,13 +1410,12 @@ public class CPU_6502 {
      */
     int ror() {
         fetch();
-        tmp = ((getFlag(Flags.C) ? 1 << 7 : 0) | fetched >> 1);
+        tmp = ((getCarry() ? 1 << 7 : 0) | fetched >> 1);
 
-        setFlag(Flags.C, (fetched & 0x01) == 0x01);
-        setFlag(Flags.Z, (tmp & 0xFF) == 0x00);
-        setFlag(Flags.N, (tmp & 0x80) == 0x80);
+        setCarry((fetched & 0x01) == 0x01);
+        setZN(tmp);
 
-        if (opcodes.get(opcode).addr_mode == AddressingMode.IMP) accumulator = tmp & 0xFF;
+        if (instruction.implied) accumulator = tmp & 0xFF;
         else write(addr_abs, tmp & 0xFF);
 
         return 0;
@@ -1321,7 +1432,7 @@ public class CPU_6502 {
     int rti() {
         //Dummy read
         read(program_counter);
-        status = popStack();
+        unpackStatus(popStack());
         program_counter = popStack();
         program_counter |= popStack() << 8;
         program_counter &= 0xFFFF;
@@ -1361,12 +1472,11 @@ public class CPU_6502 {
     int sbc() {
         fetch();
         int complement = (fetched ^ 0xFF);
-        tmp = ((accumulator + complement + (getFlag(Flags.C) ? 0x1 : 0x0)) & 0x01FF);
+        tmp = ((accumulator + complement + (getCarry() ? 0x1 : 0x0)) & 0x01FF);
 
-        setFlag(Flags.C, tmp > 0xFF);
-        setFlag(Flags.Z, (tmp & 0xFF) == 0);
-        setFlag(Flags.N, (tmp & 0x80) == 0x80);
-        setFlag(Flags.V, ((tmp ^ accumulator) & (tmp ^ complement) & 0x80) == 0x80);
+        setCarry(tmp > 0xFF);
+        setZN(tmp);
+        setOverflow(((tmp ^ accumulator) & (tmp ^ complement) & 0x80) == 0x80);
 
         accumulator = (tmp & 0xFF);
 
@@ -1380,7 +1490,7 @@ public class CPU_6502 {
      * @return 0 No extra cycle required
      */
     int sec() {
-        setFlag(Flags.C, true);
+        setCarry(true);
         return 0;
     }
 
@@ -1450,8 +1560,7 @@ public class CPU_6502 {
         x_register = accumulator;
         x_register &= 0xFF;
 
-        setFlag(Flags.Z, x_register == 0x00);
-        setFlag(Flags.N, (x_register & 0x80) == 0x80);
+        setZN(x_register);
 
         return 0;
     }
@@ -1467,8 +1576,7 @@ public class CPU_6502 {
         y_register = accumulator;
         y_register &= 0xFF;
 
-        setFlag(Flags.Z, y_register == 0x00);
-        setFlag(Flags.N, (y_register & 0x80) == 0x80);
+        setZN(y_register);
 
         return 0;
     }
@@ -1484,8 +1592,7 @@ public class CPU_6502 {
         x_register = stack_pointer;
         x_register &= 0xFF;
 
-        setFlag(Flags.Z, x_register == 0x00);
-        setFlag(Flags.N, (x_register & 0x80) == 0x80);
+        setZN(x_register);
 
         return 0;
     }
@@ -1501,8 +1608,7 @@ public class CPU_6502 {
         accumulator = x_register;
         accumulator &= 0xFF;
 
-        setFlag(Flags.Z, accumulator == 0x00);
-        setFlag(Flags.N, (accumulator & 0x80) == 0x80);
+        setZN(accumulator);
 
         return 0;
     }
@@ -1531,8 +1637,7 @@ public class CPU_6502 {
         accumulator = y_register;
         accumulator &= 0xFF;
 
-        setFlag(Flags.Z, accumulator == 0x00);
-        setFlag(Flags.N, (accumulator & 0x80) == 0x80);
+        setZN(accumulator);
 
         return 0;
     }
@@ -1595,9 +1700,8 @@ public class CPU_6502 {
         and();
         tmp = (accumulator >> 1);
 
-        setFlag(Flags.C, (accumulator & 0x01) == 0x01);
-        setFlag(Flags.Z, (tmp & 0xFF) == 0x00);
-        setFlag(Flags.N, (tmp & 0x80) == 0x80);
+        setCarry((accumulator & 0x01) == 0x01);
+        setZN(tmp);
 
         accumulator = tmp & 0xFF;
         return 0;
@@ -1606,11 +1710,10 @@ public class CPU_6502 {
     int arr() {
         and();
         fetch();
-        tmp = ((getFlag(Flags.C) ? 1 << 7 : 0) | accumulator >> 1);
+        tmp = ((getCarry() ? 1 << 7 : 0) | accumulator >> 1);
 
-        setFlag(Flags.C, (accumulator & 0x01) == 0x01);
-        setFlag(Flags.Z, (tmp & 0xFF) == 0x00);
-        setFlag(Flags.N, (tmp & 0x80) == 0x80);
+        setCarry((accumulator & 0x01) == 0x01);
+        setZN(tmp);
 
         accumulator = tmp & 0xFF;
 
@@ -1627,8 +1730,7 @@ public class CPU_6502 {
     int oal() {
         accumulator = (accumulator | read(0x00EE)) & 0xFF;
 
-        setFlag(Flags.Z, accumulator == 0x00);
-        setFlag(Flags.N, (accumulator & 0x80) == 0x80);
+        setZN(accumulator);
 
         and();
         tax();
@@ -1640,10 +1742,9 @@ public class CPU_6502 {
         fetch();
         tmp = (accumulator & x_register) & 0xFF;
 
-        setFlag(Flags.C, tmp >= fetched);
+        setCarry(tmp >= fetched);
         tmp -= fetched;
-        setFlag(Flags.Z, (tmp & 0xFF) == 0x00);
-        setFlag(Flags.N, (tmp & 0x80) == 0x80);
+        setZN(tmp);
 
         x_register = tmp & 0xFF;
 
@@ -1710,9 +1811,8 @@ public class CPU_6502 {
         fetch();
         accumulator = (accumulator & fetched) & 0xFF;
 
-        setFlag(Flags.Z, accumulator == 0x00);
-        setFlag(Flags.N, (accumulator & 0x80) != 0x00);
-        setFlag(Flags.C, (accumulator & 0x80) != 0x00);
+        setZN(accumulator);
+        setCarry((accumulator & 0x80) != 0x00);
 
         return 0;
     }
@@ -1721,13 +1821,331 @@ public class CPU_6502 {
         fetch();
         accumulator = (fetched & stack_pointer);
 
-        setFlag(Flags.Z, accumulator == 0x00);
-        setFlag(Flags.N, (accumulator & 0x80) != 0x00);
+        setZN(accumulator);
 
         return 0;
     }
 
 
+    // ========================================================= Dispatch Methods ======================================================== //
+
+    /**
+     * Compute the effective address of the current Instruction
+     *
+     * @param mode the addressing mode of the Instruction
+     * @return 1 if the addressing mode may require an extra cycle (page boundary crossed), 0 otherwise
+     */
+    private int address(AddressingMode mode) {
+        return switch (mode) {
+            case IMP -> imp();
+            case IMM -> imm();
+            case ZP0 -> zp0();
+            case ZPX -> zpx();
+            case ZPY -> zpy();
+            case IZX -> izx();
+            case IZY -> izy();
+            case ABS -> abs();
+            case ABX -> abx();
+            case ABY -> aby();
+            case IND -> ind();
+            case REL -> rel();
+        };
+    }
+
+    /**
+     * Execute the operation of the current Instruction
+     *
+     * @param operation the operation to execute
+     */
+    private void execute(OPCode operation) {
+        switch (operation) {
+            case ADC -> adc();
+            case AND -> and();
+            case ASL -> asl();
+            case BCC -> bcc();
+            case BCS -> bcs();
+            case BEQ -> beq();
+            case BIT -> bit();
+            case BMI -> bmi();
+            case BNE -> bne();
+            case BPL -> bpl();
+            case BRK -> brk();
+            case BVC -> bvc();
+            case BVS -> bvs();
+            case CLC -> clc();
+            case CLD -> cld();
+            case CLI -> cli();
+            case CLV -> clv();
+            case CMP -> cmp();
+            case CPX -> cpx();
+            case CPY -> cpy();
+            case DEC -> dec();
+            case DEX -> dex();
+            case DEY -> dey();
+            case EOR -> eor();
+            case INC -> inc();
+            case INX -> inx();
+            case INY -> iny();
+            case JMP -> jmp();
+            case JSR -> jsr();
+            case LDA -> lda();
+            case LDX -> ldx();
+            case LDY -> ldy();
+            case LSR -> lsr();
+            case NOP -> nop();
+            case ORA -> ora();
+            case PHA -> pha();
+            case PHP -> php();
+            case PLA -> pla();
+            case PLP -> plp();
+            case ROL -> rol();
+            case ROR -> ror();
+            case RTI -> rti();
+            case RTS -> rts();
+            case SBC -> sbc();
+            case SEC -> sec();
+            case SED -> sed();
+            case SEI -> sei();
+            case STA -> sta();
+            case STX -> stx();
+            case STY -> sty();
+            case TAX -> tax();
+            case TAY -> tay();
+            case TSX -> tsx();
+            case TXA -> txa();
+            case TXS -> txs();
+            case TYA -> tya();
+            case ASO -> aso();
+            case RLA -> rla();
+            case LSE -> lse();
+            case RRA -> rra();
+            case AXS -> axs();
+            case LAX -> lax();
+            case DCM -> dcm();
+            case INS -> ins();
+            case ALR -> alr();
+            case ARR -> arr();
+            case XAA -> xaa();
+            case OAL -> oal();
+            case SAX -> sax();
+            case SKB -> skb();
+            case SKW -> skw();
+            case HLT -> hlt();
+            case TAS -> tas();
+            case SAY -> say();
+            case XAS -> xas();
+            case AXA -> axa();
+            case ANC -> anc();
+            case LAS -> las();
+            default -> {}
+        }
+    }
+
+    // ======================================================== Idle Loop Methods ======================================================== //
+
+    /**
+     * Record the Instruction that has just been executed to detect polling loops
+     * A polling loop is a short backward branch whose body only reads RAM, ROM or the PPU Status Register
+     * and leaves the registers in the same state after each iteration,
+     * the iterations are then identical as long as the read values don't change
+     *
+     * @param pc          the address of the executed Instruction
+     * @param pageCrossed has the addressing mode crossed a page
+     */
+    private void observeIdleLoop(int pc, int pageCrossed) {
+        if (idle_recording) {
+            int read = idleRead(pageCrossed);
+            //The Instruction must be in the loop body, not have any side effect and the body must be short
+            if (pc < idle_start || pc > idle_end || idle_length == IDLE_LOOP_SIZE || read == PageTable.UNMAPPED) {
+                idle_recording = false;
+            } else {
+                idle_pc[idle_length] = pc;
+                idle_opcode[idle_length] = opcode;
+                idle_cycles[idle_length] = cycles;
+                idle_next[idle_length] = program_counter;
+                idle_read[idle_length] = read;
+                idle_value[idle_length] = fetched;
+                saveRegisters(idle_registers[idle_length + 1]);
+                idle_length++;
+            }
+        }
+        //If the Instruction closes a loop (taken backward branch or jump)
+        boolean jump = instruction.assembly == OPCode.JMP && instruction.addr_mode == AddressingMode.ABS;
+        boolean branch = instruction.addr_mode == AddressingMode.REL && program_counter != ((pc + instruction.length) & 0xFFFF);
+        if ((jump || branch) && program_counter <= pc && pc - program_counter <= IDLE_LOOP_DISTANCE) {
+            int[] start = idle_registers[0];
+            //If a whole iteration has been recorded and left the registers unchanged, the next iterations can be replayed
+            if (idle_recording && idle_start == program_counter && idle_length > 0 && accumulator == start[0] && x_register == start[1]
+                    && y_register == start[2] && packStatus() == start[3] && stack_pointer == start[4]) {
+                idle_recording = false;
+                idle_active = true;
+                idle_step = 0;
+            } else {
+                //Otherwise we start recording an iteration of this loop
+                idle_recording = true;
+                idle_start = program_counter;
+                idle_end = pc;
+                idle_length = 0;
+                saveRegisters(start);
+            }
+        }
+    }
+
+    /**
+     * Return the address that has to be watched to replay the current Instruction
+     *
+     * @param pageCrossed has the addressing mode crossed a page
+     * @return NO_READ if the result can't change, the address of the PPU Status Register if it has to be checked, UNMAPPED if the Instruction can't be replayed
+     */
+    private int idleRead(int pageCrossed) {
+        //The Instruction must only read memory or work on the registers
+        boolean reads = switch (instruction.assembly) {
+            case LDA, LDX, LDY, BIT, CMP, CPX, CPY, AND, ORA, EOR, ADC, SBC -> true;
+            default -> false;
+        };
+        boolean pure = switch (instruction.assembly) {
+            case BCC, BCS, BEQ, BMI, BNE, BPL, BVC, BVS, JMP, NOP, CLC, SEC, CLV, TAX, TAY, TXA, TYA, TSX, INX, INY, DEX, DEY -> true;
+            default -> reads;
+        };
+        if (!pure)
+            return PageTable.UNMAPPED;
+        //Only the Implied, Relative and Absolute jump don't touch the memory
+        if (!reads)
+            return instruction.implied || instruction.addr_mode == AddressingMode.REL || (instruction.assembly == OPCode.JMP && instruction.addr_mode == AddressingMode.ABS) ? NO_READ : PageTable.UNMAPPED;
+        if (instruction.addr_mode == AddressingMode.IMM)
+            return NO_READ;
+        boolean replayable = switch (instruction.addr_mode) {
+            case ZP0, ZPX, ZPY, ABS, ABY -> true;
+            //A dummy read may occur outside the polled address
+            case ABX -> pageCrossed == 0;
+            default -> false;
+        };
+        if (!replayable)
+            return PageTable.UNMAPPED;
+        //Memory can only be modified by the CPU, which is busy polling
+        if (nes.getCpuPages().getMemory(addr_abs) != null)
+            return NO_READ;
+        //The PPU Status Register changes on its own (Vertical Blank, Sprite 0 Hit, Sprite Overflow)
+        if (addr_abs >= 0x2000 && addr_abs <= 0x3FFF && (addr_abs & 0x0007) == 0x0002)
+            return addr_abs;
+        return PageTable.UNMAPPED;
+    }
+
+    /**
+     * Replay the next Instruction of the detected idle loop without executing it
+     * The Instruction is replayed only if the watched value hasn't changed,
+     * otherwise the loop is left and the Instruction is executed normally
+     *
+     * @return has the Instruction been replayed
+     */
+    private boolean replayIdleLoop() {
+        if (program_counter != idle_pc[idle_step]) {
+            idle_active = false;
+            return false;
+        }
+        //The status flags are the only meaningful bits, the other ones come from the PPU data buffer which can only change when read by the CPU
+        int read = idle_read[idle_step];
+        if (read != NO_READ) {
+            //The PPU may be running behind, it must catch up before its Status Register is polled
+            nes.catchUpPPU();
+            if ((nes.cpuRead(read, true) & 0xE0) != (idle_value[idle_step] & 0xE0)) {
+                idle_active = false;
+                return false;
+            }
+        }
+        replayIdleStep();
+        return true;
+    }
+
+    /**
+     * Restore the state of the CPU after the next Instruction of the idle loop, as recorded
+     */
+    private void replayIdleStep() {
+        int[] registers = idle_registers[idle_step + 1];
+        accumulator = registers[0];
+        x_register = registers[1];
+        y_register = registers[2];
+        unpackStatus(registers[3]);
+        stack_pointer = registers[4];
+        opcode = idle_opcode[idle_step];
+        instruction = opcodes[opcode];
+        program_counter = idle_next[idle_step];
+        cycles = idle_cycles[idle_step];
+        idle_step = (idle_step + 1) % idle_length;
+    }
+
+    /**
+     * Return whether or not the CPU is replaying an idle loop
+     *
+     * @return is an idle loop being replayed
+     */
+    public boolean isReplayingIdleLoop() {
+        return idle_active && !halted;
+    }
+
+    /**
+     * Return whether or not the replayed idle loop polls the PPU Status Register
+     *
+     * @return does the idle loop read the PPU Status Register
+     */
+    public boolean isIdleLoopPollingPPU() {
+        for (int step = 0; step < idle_length; step++)
+            if (idle_read[step] != NO_READ)
+                return true;
+        return false;
+    }
+
+    /**
+     * Skip a number of cycles of the replayed idle loop at once, leaving the CPU in the state it would have reached by replaying them
+     * the caller must ensure that no interrupt can occur and that the polled PPU Status Register can't change during these cycles
+     *
+     * @param count the number of cycles to skip
+     * @return the number of skipped cycles, 0 if the loop would have been left
+     */
+    public int skipIdleCycles(int count) {
+        if (!isReplayingIdleLoop() || count <= 0 || program_counter != idle_pc[idle_step])
+            return 0;
+        //If a polled value differs from the recorded iteration, the loop is about to be left
+        for (int step = 0; step < idle_length; step++)
+            if (idle_read[step] != NO_READ && (nes.cpuRead(idle_read[step], true) & 0xE0) != (idle_value[step] & 0xE0))
+                return 0;
+        int iteration = 0;
+        for (int step = 0; step < idle_length; step++)
+            iteration += idle_cycles[step];
+        //We first finish the current Instruction
+        int left = count - Math.min(count, Math.max(cycles, 0));
+        cycles = Math.max(cycles, 0) - (count - left);
+        while (left > 0) {
+            //At the start of the loop, the whole iterations leave the CPU in the same state
+            if (idle_step == 0 && left >= iteration) {
+                int iterations = left / iteration;
+                skipped_cycles += (long) iterations * iteration;
+                left -= iterations * iteration;
+            } else {
+                replayIdleStep();
+                skipped_cycles += cycles;
+                int used = Math.min(left, cycles);
+                cycles -= used;
+                left -= used;
+            }
+        }
+        cpu_clock += count;
+        return count;
+    }
+
+    /**
+     * Copy the registers of the CPU into an array
+     *
+     * @param registers the array to fill (A, X, Y, Status, Stack Pointer)
+     */
+    private void saveRegisters(int[] registers) {
+        registers[0] = accumulator;
+        registers[1] = x_register;
+        registers[2] = y_register;
+        registers[3] = packStatus();
+        registers[4] = stack_pointer;
+    }
+
     // ========================================================= Utility Methods ========================================================= //
 
     /**
@@ -1736,24 +2154,25 @@ public class CPU_6502 {
     public void clock() {
         if (!halted) {
             //If the CPU has finished the last Instruction
-            if (cycles <= 0) {
-
-                //Fetch the Operation Code
-                opcode = read(program_counter);
+            if (cycles <= 0 && idle_active && replayIdleLoop()) {
+                //We are in an idle loop whose outcome can't have changed, the Instruction is skipped
+                skipped_cycles += cycles;
+            } else if (cycles <= 0) {
+                //Fetch and decode the Instruction
+                int pc = program_counter;
+                decode();
                 setFlag(Flags.U, true);
-                //Increment the Program Counter
-                program_counter++;
-                program_counter &= 0xFFFF;
-                //Get the Instruction
-                Instruction instr = opcodes.get(opcode);
                 //Set the required number of cycle for this instruction
-                cycles = instr.cycles;
+                cycles = instruction.cycles;
                 //Execute the Instruction (Fetch data + treatment)
-                int additional_cycle_1 = instr.addrmode();
-                int additional_cycle_2 = instr.operate();
+                int page_crossed = address(instruction.addr_mode);
+                execute(instruction.assembly);
                 //If the Instruction is susceptible of requiring an extra cycle and the addressing mode require one, the the Instruction require an extra cycle
-                cycles += (additional_cycle_1 & additional_cycle_2);
+                if (instruction.page_penalty)
+                    cycles += page_crossed;
                 setFlag(Flags.U, true);
+                //We look for polling loops
+                observeIdleLoop(pc, page_crossed);
             }
             //Decrement the remaining busy cycle index
             cpu_clock++;
@@ -1770,6 +2189,8 @@ public class CPU_6502 {
         status |= Flags.I.value;
 
         program_counter = resetVector();
+        idle_active = false;
+        idle_recording = false;
 
         addr_rel = 0x0000;
         addr_abs = 0x0000;
@@ -1784,9 +2205,11 @@ public class CPU_6502 {
         x_register = 0x00;
         y_register = 0x00;
         stack_pointer = 0xFD;
-        status = Flags.I.value | Flags.B.value | Flags.U.value;
+        unpackStatus(Flags.I.value | Flags.B.value | Flags.U.value);
 
         program_counter = resetVector();
+        idle_active = false;
+        idle_recording = false;
 
         addr_rel = 0x0000;
         addr_abs = 0x0000;
@@ -1807,10 +2230,12 @@ public class CPU_6502 {
             setFlag(Flags.B, false);
             setFlag(Flags.U, true);
             setFlag(Flags.I, true);
-            pushStack(status);
+            pushStack(packStatus());
 
             //Jump to the NMI Routine specified at 0xFFFA
             program_counter = irqVector();
+            idle_active = false;
+            idle_recording = false;
 
             // An Interrupt take 7 cycles
             cycles = 7;
@@ -1830,21 +2255,119 @@ public class CPU_6502 {
             setFlag(Flags.B, false);
             setFlag(Flags.U, true);
             setFlag(Flags.I, true);
-            pushStack(status);
+            pushStack(packStatus());
 
             //Jump to the NMI Routine specified at 0xFFFA
             program_counter = nmiVector();
+            idle_active = false;
+            idle_recording = false;
 
             //An NMI take 8 cycles
             cycles = 8;
         }
     }
 
+    /**
+     * Fetch the Operation Code and the operand of the Instruction pointed by the Program Counter
+     * and move the Program Counter to the next Instruction
+     * If the Instruction lies in Program ROM, the decoded Instruction is cached using its offset in the Program Memory
+     * and subsequent executions won't fetch it through the Bus again
+     */
+    private void decode() {
+        int pc = program_counter;
+        PageTable pages = nes.getCpuPages();
+        byte[] memory = pages.getMemory(pc);
+        //Only read-only pages (Program ROM) are cached, the Instruction must not cross a page
+        if (memory != null && !pages.isWritable(pc) && (pc & 0xFF) <= 0xFD) {
+            //The cache is bound to the Program Memory it has been built from
+            if (memory != decoded_memory) {
+                decoded_memory = memory;
+                decoded = new int[memory.length];
+            }
+            int offset = pages.getOffset(pc);
+            int entry = decoded[offset];
+            if (entry == 0) {
+                fetchInstruction(pc);
+                entry = DECODED | (operand << 8) | opcode;
+                decoded[offset] = entry;
+            } else {
+                opcode = entry & 0xFF;
+                operand = (entry >> 8) & 0xFFFF;
+                instruction = opcodes[opcode];
+            }
+        } else {
+            fetchInstruction(pc);
+        }
+        program_counter = (pc + instruction.length) & 0xFFFF;
+    }
+
+    /**
+     * Read the Operation Code and the operand of an Instruction through the Bus
+     *
+     * @param pc the address of the Instruction
+     */
+    private void fetchInstruction(int pc) {
+        opcode = read(pc);
+        instruction = opcodes[opcode];
+        operand = 0x0000;
+        if (instruction.operand_size >= 1)
+            operand = read((pc + 1) & 0xFFFF);
+        if (instruction.operand_size == 2)
+            operand |= read((pc + 2) & 0xFFFF) << 8;
+    }
+
+    /**
+     * Drop the decoded Instructions overlapping an address of the Program Memory
+     * Called when the Program Memory is written to
+     *
+     * @param addr the CPU address that has been written
+     */
+    public void invalidateDecoded(int addr) {
+        PageTable pages = nes.getCpuPages();
+        if (decoded == null || pages.getMemory(addr) != decoded_memory)
+            return;
+        //An Instruction is up to 3 bytes long, the written byte can be the operand of the 2 previous addresses
+        int offset = pages.getOffset(addr);
+        for (int i = Math.max(0, offset - 2); i <= offset; i++)
+            decoded[i] = 0;
+    }
+
+    /**
+     * Return the number of cycles the CPU has spent replaying idle loops instead of executing them
+     *
+     * @return the number of skipped cycles
+     */
+    public long getSkippedCycles() {
+        return skipped_cycles;
+    }
+
+    /**
+     * Enable or disable the lazy evaluation of the N, Z, C and V Flags
+     * When disabled, every Flag is written to the Status Register by the Instruction that sets it
+     * the current Flags are kept when switching
+     *
+     * @param enabled should the Flags be evaluated lazily
+     */
+    public void enableLazyFlags(boolean enabled) {
+        int packed = packStatus();
+        lazy_flags = enabled;
+        unpackStatus(packed);
+    }
+
+    /**
+     * Return whether or not the Flags are evaluated lazily
+     *
+     * @return are the lazy Flags enabled
+     */
+    public boolean isLazyFlagsEnabled() {
+        return lazy_flags;
+    }
+
     /**
      * Update the fetched data used according to the current Instruction addressing mode
      */
     private void fetch() {
-        if (opcodes.get(opcode).addr_mode != AddressingMode.IMP)
+        if (instruction.memory_fetch)
             fetched = read(addr_abs);
     }
 
@@ -1933,7 +2456,7 @@ public class CPU_6502 {
         String line = String.format("$%04X:" + separator, addr);
         int opcode = nes.cpuRead(addr, true);
         addr = (addr + 1) & 0x1FFFF;
-        Instruction instr = opcodes.get(opcode);
+        Instruction instr = opcodes[opcode];
         if (instr.assembly != OPCode.XXX)
             line += instr.assembly + separator;
         else
@@ -2061,7 +2584,7 @@ public class CPU_6502 {
      * @return the current Program Counter
      */
     public int getStatus() {
-        return status;
+        return packStatus();
     }
 
     /**
@@ -2072,4 +2595,15 @@ public class CPU_6502 {
     public int getProgramCounter() {
         return program_counter;
     }
+
+    /**
+     * Move the Program Counter and start fetching an Instruction there on the next clock
+     * used to start a test ROM in automation mode (nestest at 0xC000)
+     *
+     * @param addr the address of the next Instruction
+     */
+    public void setProgramCounter(int addr) {
+        program_counter = addr & 0xFFFF;
+        cycles = 0;
+    }
 }
\ No newline at end of file
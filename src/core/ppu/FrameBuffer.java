@@ -0,0 +1,144 @@
+package core.ppu;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class represent a lock-free triple buffer of frames shared between the PPU and a consumer (the screen, a recorder ...)
+ * the PPU draws into the back buffer and publishes it at the end of the frame by exchanging it with the pending buffer,
+ * the consumer acquires the pending buffer by exchanging it with the front buffer,
+ * neither of them ever waits and the consumer always sees the latest complete frame, never a torn one
+ * Depending on the OutputMode of the PPU, a frame is stored either as packed RGBA ints (0xRRGGBBAA)
+ * or as one NES color index per pixel and the emphasis bits of each scanline, in row major order
+ */
+public class FrameBuffer {
+
+    private static final int INDEX_MASK = 0x3;
+    private static final int FRESH = 0x4;
+
+    private final int[][] pixels;
+    private final byte[][] indexes;
+    private final byte[][] emphasis;
+    private final OutputMode[] modes;
+    private final long[] sequences;
+    private final AtomicInteger pending;
+
+    private int back;
+    private int front;
+    private long published_frames = 0;
+
+    /**
+     * Create a new FrameBuffer
+     *
+     * @param width  the width of a frame
+     * @param height the height of a frame
+     */
+    public FrameBuffer(int width, int height) {
+        pixels = new int[3][width * height];
+        indexes = new byte[3][width * height];
+        emphasis = new byte[3][height];
+        modes = new OutputMode[]{OutputMode.RGBA, OutputMode.RGBA, OutputMode.RGBA};
+        sequences = new long[3];
+        back = 0;
+        pending = new AtomicInteger(1);
+        front = 2;
+    }
+
+    // ===== Producer Methods ===== //
+
+    /**
+     * Return the RGBA buffer the PPU must draw the next frame into
+     *
+     * @return the RGBA pixels of the back buffer
+     */
+    int[] getBackPixels() {
+        return pixels[back];
+    }
+
+    /**
+     * Return the indexed buffer the PPU must draw the next frame into
+     *
+     * @return the color indexes of the back buffer
+     */
+    byte[] getBackIndexes() {
+        return indexes[back];
+    }
+
+    /**
+     * Return the emphasis bits of each scanline of the next frame
+     *
+     * @return the scanline emphasis of the back buffer
+     */
+    byte[] getBackEmphasis() {
+        return emphasis[back];
+    }
+
+    /**
+     * Publish the back buffer as the latest complete frame
+     * the previous pending buffer, if not acquired, becomes the new back buffer
+     *
+     * @param mode the format the frame has been drawn in
+     */
+    void publish(OutputMode mode) {
+        modes[back] = mode;
+        sequences[back] = ++published_frames;
+        //The exchange make the content of the frame and its sequence number visible to the consumer
+        back = pending.getAndSet(back | FRESH) & INDEX_MASK;
+    }
+
+    // ===== Consumer Methods ===== //
+
+    /**
+     * Make the latest complete frame the front buffer
+     * the front buffer is owned by the consumer until the next call
+     */
+    public void acquire() {
+        if ((pending.get() & FRESH) == FRESH)
+            front = pending.getAndSet(front) & INDEX_MASK;
+    }
+
+    /**
+     * Return the format of the front buffer
+     *
+     * @return RGBA if getPixels() contains the frame, INDEXED if getIndexes() and getEmphasis() do
+     */
+    public OutputMode getOutputMode() {
+        return modes[front];
+    }
+
+    /**
+     * Return the pixels of the front buffer
+     *
+     * @return the pixels as packed RGBA ints (0xRRGGBBAA)
+     */
+    public int[] getPixels() {
+        return pixels[front];
+    }
+
+    /**
+     * Return the color indexes of the front buffer
+     *
+     * @return one byte per pixel, containing the 6 bits NES color index
+     */
+    public byte[] getIndexes() {
+        return indexes[front];
+    }
+
+    /**
+     * Return the emphasis bits of each scanline of the front buffer
+     *
+     * @return one byte per scanline, containing the 3 emphasis bits of the Mask Register (red, green, blue)
+     */
+    public byte[] getEmphasis() {
+        return emphasis[front];
+    }
+
+    /**
+     * Return the sequence number of the front buffer
+     * the frames are numbered from 1 in publication order, 0 means no frame has been published yet
+     *
+     * @return the sequence number of the front buffer
+     */
+    public long getSequence() {
+        return sequences[front];
+    }
+}
@@ -0,0 +1,85 @@
+package core.ppu;
+
+/**
+ * This class converts INDEXED frames to packed colors
+ * the conversion uses the Vector API when the jdk.incubator.vector module is present (--add-modules jdk.incubator.vector)
+ * and falls back to a scalar loop otherwise
+ */
+public class FrameConverter {
+
+    private static final boolean VECTORIZED = isVectorApiAvailable();
+
+    /**
+     * Convert an INDEXED frame to packed RGBA colors (0xRRGGBBAA)
+     *
+     * @param indexes  the color index of each pixel
+     * @param emphasis the emphasis bits of each scanline
+     * @param palette  the Palette containing the system colors
+     * @param dest     the array where to store the colors, must be as large as indexes
+     */
+    public static void toRGBA(byte[] indexes, byte[] emphasis, Palette palette, int[] dest) {
+        int[] colors = new int[0x200];
+        for (int i = 0; i < colors.length; i++)
+            colors[i] = palette.getSystemColor(i);
+        convert(indexes, emphasis, colors, dest);
+    }
+
+    /**
+     * Convert an INDEXED frame to packed ARGB colors (0xAARRGGBB)
+     *
+     * @param indexes  the color index of each pixel
+     * @param emphasis the emphasis bits of each scanline
+     * @param palette  the Palette containing the system colors
+     * @param dest     the array where to store the colors, must be as large as indexes
+     */
+    public static void toARGB(byte[] indexes, byte[] emphasis, Palette palette, int[] dest) {
+        int[] colors = new int[0x200];
+        for (int i = 0; i < colors.length; i++)
+            colors[i] = Integer.rotateRight(palette.getSystemColor(i), 8);
+        convert(indexes, emphasis, colors, dest);
+    }
+
+    /**
+     * Return whether or not the conversion is vectorized
+     *
+     * @return is the Vector API used
+     */
+    public static boolean isVectorized() {
+        return VECTORIZED;
+    }
+
+    /**
+     * Convert an INDEXED frame using a table of the 512 system colors
+     *
+     * @param indexes  the color index of each pixel
+     * @param emphasis the emphasis bits of each scanline
+     * @param colors   the 512 colors, indexed by emphasis bits * 64 + color index
+     * @param dest     the array where to store the colors
+     */
+    private static void convert(byte[] indexes, byte[] emphasis, int[] colors, int[] dest) {
+        int width = indexes.length / emphasis.length;
+        if (VECTORIZED) {
+            VectorFrameConverter.convert(indexes, emphasis, colors, dest, width);
+            return;
+        }
+        for (int y = 0; y < emphasis.length; y++) {
+            int base = (emphasis[y] & 0x07) << 6;
+            for (int i = y * width; i < (y + 1) * width; i++)
+                dest[i] = colors[base | (indexes[i] & 0x3F)];
+        }
+    }
+
+    /**
+     * Check if the Vector API can be used
+     * the module is optional, if it's not present loading the vectorized converter fails and we use the scalar loop
+     *
+     * @return is the Vector API available and efficient on this platform
+     */
+    private static boolean isVectorApiAvailable() {
+        try {
+            return VectorFrameConverter.isSupported();
+        } catch (LinkageError e) {
+            return false;
+        }
+    }
+}
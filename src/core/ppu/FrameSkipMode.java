@@ -0,0 +1,15 @@
+package core.ppu;
+
+/**
+ * Represent the possible policies deciding which frames are rendered by the PPU
+ * NONE     : every frame is rendered
+ * FIXED    : N frames are skipped after each rendered frame
+ * AUTO     : frames are skipped while the emulation is behind real time, at most N in a row
+ * INTERVAL : only the frames whose number is a multiple of N are rendered
+ */
+public enum FrameSkipMode {
+    NONE,
+    FIXED,
+    AUTO,
+    INTERVAL,
+}
@@ -0,0 +1,86 @@
+package core.ppu;
+
+/**
+ * This class decides which frames the PPU renders, according to a FrameSkipMode
+ * the PPU asks it at the end of each frame whether or not the next frame will be displayed,
+ * a skipped frame is emulated normally but its pixels aren't composed (see PPU_2C02.setRenderSuppressed())
+ * the policy can be changed from any thread, it takes effect at the next frame
+ */
+public class FrameSkipper {
+
+    //Duration of an NTSC frame (60.0988 fps)
+    private static final long FRAME_DURATION = 16_639_267L;
+    //When the emulation is further behind than this, it has been paused or stalled and the real time reference is reset
+    private static final long MAX_LAG = 15 * FRAME_DURATION;
+
+    private volatile FrameSkipMode mode = FrameSkipMode.NONE;
+    private volatile int amount = 0;
+
+    private long frame = 0;
+    private int skipped = 0;
+    private long reference_time = -1;
+    private long reference_frame = 0;
+
+    /**
+     * Set the policy used to skip frames
+     *
+     * @param mode   the FrameSkipMode to use
+     * @param amount the number of frames of the mode (skipped frames for FIXED, maximum consecutive skips for AUTO, interval for INTERVAL)
+     */
+    public void setMode(FrameSkipMode mode, int amount) {
+        this.amount = Math.max(amount, 0);
+        this.mode = mode;
+    }
+
+    /**
+     * Return the current policy used to skip frames
+     *
+     * @return the current FrameSkipMode
+     */
+    public FrameSkipMode getMode() {
+        return mode;
+    }
+
+    /**
+     * Return the number of frames of the current policy
+     *
+     * @return the number of frames (skipped frames for FIXED, maximum consecutive skips for AUTO, interval for INTERVAL)
+     */
+    public int getAmount() {
+        return amount;
+    }
+
+    /**
+     * Decide whether or not the next frame will be skipped, must be called once at the end of each frame
+     *
+     * @return should the rendering of the next frame be suppressed
+     */
+    boolean skipNextFrame() {
+        frame++;
+        boolean skip = switch (mode) {
+            case FIXED -> skipped < amount;
+            case AUTO -> isBehind() && skipped < amount;
+            case INTERVAL -> amount > 1 && frame % amount != 0;
+            default -> false;
+        };
+        skipped = skip ? skipped + 1 : 0;
+        return skip;
+    }
+
+    /**
+     * Return whether or not the emulation is more than a frame behind real time
+     *
+     * @return is the emulation late
+     */
+    private boolean isBehind() {
+        long now = System.nanoTime();
+        long lag = now - (reference_time + (frame - reference_frame) * FRAME_DURATION);
+        //The first frame, or a pause, resets the reference
+        if (reference_time < 0 || lag > MAX_LAG || lag < -MAX_LAG) {
+            reference_time = now;
+            reference_frame = frame;
+            return false;
+        }
+        return lag > FRAME_DURATION;
+    }
+}
@@ -9,4 +9,5 @@ public enum Mirror {
     VERTICAL,
     ONE_SCREEN_LOW,
     ONE_SCREEN_HIGH,
+    FOUR_SCREEN,
 }
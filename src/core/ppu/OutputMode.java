@@ -0,0 +1,9 @@
+package core.ppu;
+
+/**
+ * Represent the possible formats of the frames rendered by the PPU
+ */
+public enum OutputMode {
+    RGBA,
+    INDEXED,
+}
@@ -1,15 +1,16 @@
 package core.ppu;
 
+import core.PageTable;
+import core.Scheduler;
 import core.cartridge.Cartridge;
+import core.cartridge.mappers.Mapper;
 import core.ppu.registers.*;
+import exceptions.InvalidFileException;
 import gui.lwjgui.windows.Tile;
 import javafx.scene.image.WritableImage;
 import javafx.scene.paint.Color;
-import org.lwjgl.BufferUtils;
-import utils.IntegerWrapper;
-import utils.NumberUtils;
 
-import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 /**
  * This class represent the PPU of the NES
@@ -20,13 +21,55 @@ public class PPU_2C02 {
     public static final int SCREEN_WIDTH = 256;
     public static final int SCREEN_HEIGHT = 240;
 
-    private final Color[] system_palette;
-    private final ByteBuffer screen_buffer;
-    private final ByteBuffer screen_buffer_tmp;
+    //The actions of a dot of the rendering scanlines
+    private static final int BG_SHIFT = 0x00001;
+    private static final int FETCH_NT = 0x00002;
+    private static final int FETCH_AT = 0x00004;
+    private static final int FETCH_LOW = 0x00008;
+    private static final int FETCH_HIGH = 0x00010;
+    private static final int INCREMENT_X = 0x00020;
+    private static final int INCREMENT_Y = 0x00040;
+    private static final int COPY_X = 0x00080;
+    private static final int COPY_Y = 0x00100;
+    private static final int FETCH_NT_DUMMY = 0x00200;
+    private static final int EVALUATE_SPRITES = 0x00400;
+    private static final int DRAW_SPRITES = 0x00800;
+    private static final int SPRITE_DELAY = 0x01000;
+    private static final int OAM_ADDR_RESET = 0x02000;
+    private static final int SCANLINE_COUNTER = 0x04000;
+    private static final int CLEAR_STATUS = 0x08000;
+    private static final int RENDER_LINE = 0x10000;
+    private static final int ODD_FRAME_SKIP = 0x20000;
+    private static final int PIXEL = 0x40000;
+    private static final int LINE_START_ACTIONS = ODD_FRAME_SKIP | OAM_ADDR_RESET | CLEAR_STATUS | RENDER_LINE | COPY_X;
+    private static final int LINE_END_ACTIONS = INCREMENT_Y | COPY_X | FETCH_NT_DUMMY | COPY_Y | EVALUATE_SPRITES | DRAW_SPRITES;
 
-    private final byte[][] nametable_memory;
-    private final byte[] palette_memory;
-    private final byte[][] patterntable_memory;
+    //The position of the dots that can be seen from outside of the PPU, counted from the first dot of the pre-render scanline
+    private static final int VERTICAL_BLANK_DOT = 242 * 341 + 1;
+    private static final int FRAME_END_DOT = 262 * 341 - 1;
+    private static final int SCANLINE_COUNTER_DOT = 260;
+    private static final int SPRITE_EVALUATION_DOT = 320;
+    //The position of the dot skipped on odd frames when the rendering is enabled, and of the dot clearing the Status Register
+    private static final int ODD_FRAME_SKIP_DOT = 341;
+    private static final int STATUS_CLEAR_DOT = 1;
+
+    private static final int[] PRE_RENDER_DOTS = buildDotActions(true);
+    private static final int[] VISIBLE_DOTS = buildDotActions(false);
+
+    private final Palette color_palette;
+    private final FrameBuffer frame_buffer;
+    private OutputMode output_mode = OutputMode.RGBA;
+    private OutputMode frame_output_mode = OutputMode.RGBA;
+    private final FrameSkipper frame_skipper;
+    private volatile boolean render_suppressed = false;
+    private boolean frame_suppressed = false;
+    private int[] screen_pixels;
+    private byte[] screen_indexes;
+    private byte[] screen_emphasis;
+
+    private final PageTable ppu_pages;
+    private final byte[] nametable_memory;
+    private TileCache tile_cache;
 
     private final MaskRegister mask_register;
     private final ControlRegister control_register;
@@ -34,14 +77,19 @@ public class PPU_2C02 {
     private final LoopyRegister vram_addr;
     private final LoopyRegister tram_addr;
 
+    private final byte[] oam;
+    private final byte[] secondary_oam;
     private final ObjectAttribute[] oams;
-    private final ObjectAttribute[] visible_oams;
 
-    private final int[] sprite_shift_pattern_low;
-    private final int[] sprite_shift_pattern_high;
+    private final byte[] sprite_line;
+    private final int[] scanline_sprite_count;
+    private final byte[] scanline_sprites;
+    private int indexed_sprite_height = 0;
+    private int sprite_delay = 0;
 
     public boolean frame_complete;
     private Cartridge cartridge;
+    private Scheduler scheduler;
 
     private int sprite_count;
     private int address_latch = 0x00;
@@ -59,8 +107,12 @@ public class PPU_2C02 {
     private int bg_shift_attrib_low = 0x0000;
     private int bg_shift_attrib_high = 0x0000;
 
+    private final byte[] line_background;
+    private final int[] line_start_state;
+    private boolean line_rendering = true;
+    private boolean line_rendered = false;
+
     private boolean spriteZeroHitPossible = false;
-    private boolean spriteZeroBeingRendered = false;
 
     private int scanline;
     private int cycle;
@@ -71,12 +123,15 @@ public class PPU_2C02 {
      * Create a new PPU, instantiate its components and fill up the palettes
      */
     public PPU_2C02() {
-        nametable_memory = new byte[2][1024];
-        patterntable_memory = new byte[2][4096];
-        palette_memory = new byte[32];
-        system_palette = new Color[0x40];
-        screen_buffer = BufferUtils.createByteBuffer(SCREEN_HEIGHT * SCREEN_WIDTH * 4);
-        screen_buffer_tmp = BufferUtils.createByteBuffer(SCREEN_HEIGHT * SCREEN_WIDTH * 4);
+        //The PPU Address space is split into 16 pages of 1Kb (8 pattern pages, 4 nametables and their mirror)
+        ppu_pages = new PageTable(16, 10);
+        nametable_memory = new byte[4096];
+        color_palette = new Palette();
+        frame_buffer = new FrameBuffer(SCREEN_WIDTH, SCREEN_HEIGHT);
+        frame_skipper = new FrameSkipper();
+        screen_pixels = frame_buffer.getBackPixels();
+        screen_indexes = frame_buffer.getBackIndexes();
+        screen_emphasis = frame_buffer.getBackEmphasis();
         frame_complete = false;
         scanline = 0;
         cycle = 0;
@@ -85,88 +140,104 @@ public class PPU_2C02 {
         status_register = new StatusRegister();
         vram_addr = new LoopyRegister();
         tram_addr = new LoopyRegister();
+        //The OAM contains 64 entries of 4 bytes, the secondary OAM the 8 entries visible on the next scanline
+        oam = new byte[256];
+        secondary_oam = new byte[32];
         oams = new ObjectAttribute[64];
         for (int i = 0; i < oams.length; i++)
-            oams[i] = new ObjectAttribute();
-        visible_oams = new ObjectAttribute[8];
-        for (int i = 0; i < visible_oams.length; i++)
-            visible_oams[i] = new ObjectAttribute();
-        sprite_shift_pattern_low = new int[8];
-        sprite_shift_pattern_high = new int[8];
-
-        system_palette[0x00] = new Color(84 / 255.0, 84 / 255.0, 84 / 255.0, 1);
-        system_palette[0x01] = new Color(0 / 255.0, 30 / 255.0, 116 / 255.0, 1);
-        system_palette[0x02] = new Color(8 / 255.0, 16 / 255.0, 144 / 255.0, 1);
-        system_palette[0x03] = new Color(48 / 255.0, 0 / 255.0, 136 / 255.0, 1);
-        system_palette[0x04] = new Color(68 / 255.0, 0 / 255.0, 100 / 255.0, 1);
-        system_palette[0x05] = new Color(92 / 255.0, 0 / 255.0, 48 / 255.0, 1);
-        system_palette[0x06] = new Color(84 / 255.0, 4 / 255.0, 0 / 255.0, 1);
-        system_palette[0x07] = new Color(60 / 255.0, 24 / 255.0, 0 / 255.0, 1);
-        system_palette[0x08] = new Color(32 / 255.0, 42 / 255.0, 0 / 255.0, 1);
-        system_palette[0x09] = new Color(8 / 255.0, 58 / 255.0, 0 / 255.0, 1);
-        system_palette[0x0A] = new Color(0 / 255.0, 64 / 255.0, 0 / 255.0, 1);
-        system_palette[0x0B] = new Color(0 / 255.0, 60 / 255.0, 0 / 255.0, 1);
-        system_palette[0x0C] = new Color(0 / 255.0, 50 / 255.0, 60 / 255.0, 1);
-        system_palette[0x0D] = new Color(0 / 255.0, 0 / 255.0, 0 / 255.0, 1);
-        system_palette[0x0E] = new Color(0 / 255.0, 0 / 255.0, 0 / 255.0, 1);
-        system_palette[0x0F] = new Color(0 / 255.0, 0 / 255.0, 0 / 255.0, 1);
-        system_palette[0x10] = new Color(152 / 255.0, 150 / 255.0, 152 / 255.0, 1);
-        system_palette[0x11] = new Color(8 / 255.0, 76 / 255.0, 196 / 255.0, 1);
-        system_palette[0x12] = new Color(48 / 255.0, 50 / 255.0, 236 / 255.0, 1);
-        system_palette[0x13] = new Color(92 / 255.0, 30 / 255.0, 228 / 255.0, 1);
-        system_palette[0x14] = new Color(136 / 255.0, 20 / 255.0, 176 / 255.0, 1);
-        system_palette[0x15] = new Color(160 / 255.0, 20 / 255.0, 100 / 255.0, 1);
-        system_palette[0x16] = new Color(152 / 255.0, 34 / 255.0, 32 / 255.0, 1);
-        system_palette[0x17] = new Color(120 / 255.0, 60 / 255.0, 0 / 255.0, 1);
-        system_palette[0x18] = new Color(84 / 255.0, 90 / 255.0, 0 / 255.0, 1);
-        system_palette[0x19] = new Color(40 / 255.0, 114 / 255.0, 0 / 255.0, 1);
-        system_palette[0x1A] = new Color(8 / 255.0, 124 / 255.0, 0 / 255.0, 1);
-        system_palette[0x1B] = new Color(0 / 255.0, 118 / 255.0, 40 / 255.0, 1);
-        system_palette[0x1C] = new Color(0 / 255.0, 102 / 255.0, 120 / 255.0, 1);
-        system_palette[0x1D] = new Color(0 / 255.0, 0 / 255.0, 0 / 255.0, 1);
-        system_palette[0x1E] = new Color(0 / 255.0, 0 / 255.0, 0 / 255.0, 1);
-        system_palette[0x1F] = new Color(0 / 255.0, 0 / 255.0, 0 / 255.0, 1);
-        system_palette[0x20] = new Color(236 / 255.0, 238 / 255.0, 236 / 255.0, 1);
-        system_palette[0x21] = new Color(76 / 255.0, 154 / 255.0, 236 / 255.0, 1);
-        system_palette[0x22] = new Color(120 / 255.0, 124 / 255.0, 236 / 255.0, 1);
-        system_palette[0x23] = new Color(176 / 255.0, 98 / 255.0, 236 / 255.0, 1);
-        system_palette[0x24] = new Color(228 / 255.0, 84 / 255.0, 236 / 255.0, 1);
-        system_palette[0x25] = new Color(236 / 255.0, 88 / 255.0, 180 / 255.0, 1);
-        system_palette[0x26] = new Color(236 / 255.0, 106 / 255.0, 100 / 255.0, 1);
-        system_palette[0x27] = new Color(212 / 255.0, 136 / 255.0, 32 / 255.0, 1);
-        system_palette[0x28] = new Color(160 / 255.0, 170 / 255.0, 0 / 255.0, 1);
-        system_palette[0x29] = new Color(116 / 255.0, 196 / 255.0, 0 / 255.0, 1);
-        system_palette[0x2A] = new Color(76 / 255.0, 208 / 255.0, 32 / 255.0, 1);
-        system_palette[0x2B] = new Color(56 / 255.0, 204 / 255.0, 108 / 255.0, 1);
-        system_palette[0x2C] = new Color(56 / 255.0, 180 / 255.0, 204 / 255.0, 1);
-        system_palette[0x2D] = new Color(60 / 255.0, 60 / 255.0, 60 / 255.0, 1);
-        system_palette[0x2E] = new Color(0 / 255.0, 0 / 255.0, 0 / 255.0, 1);
-        system_palette[0x2F] = new Color(0 / 255.0, 0 / 255.0, 0 / 255.0, 1);
-        system_palette[0x30] = new Color(236 / 255.0, 238 / 255.0, 236 / 255.0, 1);
-        system_palette[0x31] = new Color(168 / 255.0, 204 / 255.0, 236 / 255.0, 1);
-        system_palette[0x32] = new Color(188 / 255.0, 188 / 255.0, 236 / 255.0, 1);
-        system_palette[0x33] = new Color(212 / 255.0, 178 / 255.0, 236 / 255.0, 1);
-        system_palette[0x34] = new Color(236 / 255.0, 174 / 255.0, 236 / 255.0, 1);
-        system_palette[0x35] = new Color(236 / 255.0, 174 / 255.0, 212 / 255.0, 1);
-        system_palette[0x36] = new Color(236 / 255.0, 180 / 255.0, 176 / 255.0, 1);
-        system_palette[0x37] = new Color(228 / 255.0, 196 / 255.0, 144 / 255.0, 1);
-        system_palette[0x38] = new Color(204 / 255.0, 210 / 255.0, 120 / 255.0, 1);
-        system_palette[0x39] = new Color(180 / 255.0, 222 / 255.0, 120 / 255.0, 1);
-        system_palette[0x3A] = new Color(168 / 255.0, 226 / 255.0, 144 / 255.0, 1);
-        system_palette[0x3B] = new Color(152 / 255.0, 226 / 255.0, 180 / 255.0, 1);
-        system_palette[0x3C] = new Color(160 / 255.0, 214 / 255.0, 228 / 255.0, 1);
-        system_palette[0x3D] = new Color(160 / 255.0, 162 / 255.0, 160 / 255.0, 1);
-        system_palette[0x3E] = new Color(0 / 255.0, 0 / 255.0, 0 / 255.0, 1);
-        system_palette[0x3F] = new Color(0 / 255.0, 0 / 255.0, 0 / 255.0, 1);
+            oams[i] = new ObjectAttribute(oam, i);
+        //The last entry of the sprite line is the pixel of dot 257, where a sprite zero hit can still occur
+        sprite_line = new byte[SCREEN_WIDTH + 1];
+        scanline_sprite_count = new int[SCREEN_HEIGHT];
+        scanline_sprites = new byte[SCREEN_HEIGHT * 8];
+        line_background = new byte[SCREEN_WIDTH];
+        line_start_state = new int[9];
+    }
+
+    /**
+     * Return the triple buffer containing the frames rendered by the PPU
+     *
+     * @return the FrameBuffer the screen can acquire the latest frame from
+     */
+    public FrameBuffer getFrameBuffer() {
+        return frame_buffer;
+    }
+
+    /**
+     * Set the format of the frames rendered by the PPU, it will take effect at the next frame
+     * INDEXED frames take 4 times less memory and can be converted later using FrameConverter
+     *
+     * @param mode the new OutputMode
+     */
+    public void setOutputMode(OutputMode mode) {
+        output_mode = mode;
+    }
+
+    /**
+     * Return the format of the frames rendered by the PPU
+     *
+     * @return the current OutputMode
+     */
+    public OutputMode getOutputMode() {
+        return output_mode;
+    }
+
+    /**
+     * Suppress or restore the rendering of the frames, it will take effect at the next frame
+     * a suppressed frame is emulated normally (sprite zero hit, sprite overflow, vertical blank, Mapper notifications ...)
+     * but its pixels aren't composed and it isn't published to the FrameBuffer
+     *
+     * @param suppressed should the rendering of the frames be suppressed
+     */
+    public void setRenderSuppressed(boolean suppressed) {
+        render_suppressed = suppressed;
+    }
+
+    /**
+     * Return whether or not the rendering of the frames is suppressed
+     *
+     * @return is the rendering suppressed
+     */
+    public boolean isRenderSuppressed() {
+        return render_suppressed;
+    }
+
+    /**
+     * Return the policy deciding which frames are rendered, the other ones are suppressed
+     *
+     * @return the FrameSkipper of the PPU
+     */
+    public FrameSkipper getFrameSkipper() {
+        return frame_skipper;
+    }
+
+    /**
+     * Enable or disable the rendering of the background one scanline at a time
+     * when disabled, every scanline is rendered dot by dot
+     *
+     * @param enabled should the background be rendered one scanline at a time when possible
+     */
+    public void setScanlineRendering(boolean enabled) {
+        syncScanline();
+        line_rendering = enabled;
+    }
+
+    /**
+     * Return whether or not the background is rendered one scanline at a time when possible
+     *
+     * @return is the scanline rendering enabled
+     */
+    public boolean isScanlineRenderingEnabled() {
+        return line_rendering;
     }
 
     /**
-     * Return the screen buffer
+     * Return the Palette of the PPU, used to convert INDEXED frames
      *
-     * @return a ByteBuffer that can be loaded into a texture to be displayed on the screen
+     * @return the current Palette
      */
-    public ByteBuffer getScreenBuffer() {
-        return screen_buffer;
+    public Palette getPalette() {
+        return color_palette;
     }
 
     /**
@@ -176,6 +247,17 @@ public class PPU_2C02 {
      */
     public void connectCartridge(Cartridge cartridge) {
         this.cartridge = cartridge;
+        cartridge.connectPPU(ppu_pages, nametable_memory);
+        tile_cache = new TileCache(cartridge.getCHRMemory());
+    }
+
+    /**
+     * Connect the Scheduler used to signal the Mapper IRQs triggered by the CPU accesses
+     *
+     * @param scheduler the Scheduler to connect
+     */
+    public void connectScheduler(Scheduler scheduler) {
+        this.scheduler = scheduler;
     }
 
     /**
@@ -237,6 +319,8 @@ public class PPU_2C02 {
             case 0x0006: // PPU Address
                 break;
             case 0x0007: // PPU Data
+                //The read alters the VRAM address, the current scanline must be rendered dot by dot from now on
+                syncScanline();
                 //Nametable reads are delayed by one cycle
                 //When reading the last fetched data is returned and the next is fetched
                 int last_addr = vram_addr.get();
@@ -247,7 +331,7 @@ public class PPU_2C02 {
                 //The vram address is incremented (horizontally or vertically depending on the Control Register)
                 vram_addr.set(vram_addr.get() + (control_register.isIncrementModeSet() ? 32 : 1));
                 if ((vram_addr.get() & 0x1000) == 0x1000 && (last_addr & 0x1000) == 0)
-                    cartridge.getMapper().notifyScanline();
+                    notifyScanline();
                 break;
         }
         return data & 0xFF;
@@ -260,6 +344,8 @@ public class PPU_2C02 {
      * @param data the data to write
      */
     public void cpuWrite(int addr, int data) {
+        //Any write can affect the rendering, the current scanline must be rendered dot by dot from now on
+        syncScanline();
         switch (addr) {
             case 0x0000: // Control
                 control_register.set(data);
@@ -269,6 +355,7 @@ public class PPU_2C02 {
                 break;
             case 0x0001: // Mask
                 mask_register.set(data);
+                color_palette.setMask(data);
                 break;
             case 0x0002: // Status
                 break;
@@ -276,16 +363,7 @@ public class PPU_2C02 {
                 oam_addr = data;
                 break;
             case 0x0004: // OAM Data
-                switch (oam_addr & 0x03) {
-                    case 0x0:
-                        oams[oam_addr >> 2].setY(data);
-                    case 0x1:
-                        oams[oam_addr >> 2].setId(data);
-                    case 0x2:
-                        oams[oam_addr >> 2].setAttribute(data);
-                    case 0x3:
-                        oams[oam_addr >> 2].setX(data);
-                }
+                writeOAM(oam_addr, data);
                 oam_addr++;
                 oam_addr &= 0xFF;
                 break;
@@ -335,45 +413,17 @@ public class PPU_2C02 {
      */
     private int ppuRead(int addr, boolean readOnly) {
         addr &= 0x3FFF;
-        //A Wrapper used to store the data gathered by the Cartridge
-        IntegerWrapper data = new IntegerWrapper();
-        //If the address is mapped by the cartridge, let it handle and return read value
-        if (!cartridge.ppuRead(addr, data)) {
-            if (addr <= 0x1FFF) { //Read from pattern table
-                data.value = patterntable_memory[(addr & 0x1000) >> 12][addr & 0x0FFF];
-            } else if (addr <= 0x3EFF) { //Read from nametable
-                addr &= 0x0FFF;
-                if (cartridge.getMirror() == Mirror.VERTICAL) {
-                    if (addr <= 0x03FF)
-                        data.value = nametable_memory[0][addr & 0x03FF];
-                    if (addr >= 0x0400 && addr <= 0x07FF)
-                        data.value = nametable_memory[1][addr & 0x03FF];
-                    if (addr >= 0x0800 && addr <= 0x0BFF)
-                        data.value = nametable_memory[0][addr & 0x03FF];
-                    if (addr >= 0x0C00)
-                        data.value = nametable_memory[1][addr & 0x03FF];
-                } else if (cartridge.getMirror() == Mirror.HORIZONTAL) {
-                    if (addr <= 0x03FF)
-                        data.value = nametable_memory[0][addr & 0x03FF];
-                    if (addr >= 0x0400 && addr <= 0x07FF)
-                        data.value = nametable_memory[0][addr & 0x03FF];
-                    if (addr >= 0x0800 && addr <= 0x0BFF)
-                        data.value = nametable_memory[1][addr & 0x03FF];
-                    if (addr >= 0x0C00)
-                        data.value = nametable_memory[1][addr & 0x03FF];
-                }
-            } else { //Read from palette memory
-                addr &= 0x1F;
-                if (addr == 0x0010) addr = 0x0000;
-                if (addr == 0x0014) addr = 0x0004;
-                if (addr == 0x0018) addr = 0x0008;
-                if (addr == 0x001C) addr = 0x000C;
-                data.value = palette_memory[addr] & (mask_register.isGrayscaleSet() ? 0x30 : 0x3F);
-            }
+        int data;
+        if (addr <= 0x3EFF) { //Read from pattern tables or nametables, mapped by the Cartridge
+            data = ppu_pages.read(addr);
+            if (data == PageTable.UNMAPPED)
+                data = 0x00;
+        } else { //Read from palette memory
+            data = color_palette.read(addr);
         }
         if (!readOnly)
             cartridge.getMapper().updateLatch(addr);
-        return data.value & 0xFF;
+        return data & 0xFF;
     }
 
     /**
@@ -385,40 +435,12 @@ public class PPU_2C02 {
     private void ppuWrite(int addr, int data) {
         addr &= 0x3FFF;
         data &= 0xFF;
-        //If the address is mapped by the cartridge, let it handle and return
-        if (!cartridge.ppuWrite(addr, data)) {
-            if (addr <= 0x1FFF) { //Write to pattern table
-                patterntable_memory[(addr & 0x1000) >> 12][addr & 0x0FFF] = (byte) data;
-
-            } else if (addr <= 0x3EFF) { //Write to nametable
-                addr &= 0x0FFF;
-                if (cartridge.getMirror() == Mirror.VERTICAL) {
-                    if (addr <= 0x03FF)
-                        nametable_memory[0][addr & 0x03FF] = (byte) data;
-                    if (addr >= 0x0400 && addr <= 0x07FF)
-                        nametable_memory[1][addr & 0x03FF] = (byte) data;
-                    if (addr >= 0x0800 && addr <= 0x0BFF)
-                        nametable_memory[0][addr & 0x03FF] = (byte) data;
-                    if (addr >= 0x0C00)
-                        nametable_memory[1][addr & 0x03FF] = (byte) data;
-                } else if (cartridge.getMirror() == Mirror.HORIZONTAL) {
-                    if (addr <= 0x03FF)
-                        nametable_memory[0][addr & 0x03FF] = (byte) data;
-                    if (addr >= 0x0400 && addr <= 0x07FF)
-                        nametable_memory[0][addr & 0x03FF] = (byte) data;
-                    if (addr >= 0x0800 && addr <= 0x0BFF)
-                        nametable_memory[1][addr & 0x03FF] = (byte) data;
-                    if (addr >= 0x0C00)
-                        nametable_memory[1][addr & 0x03FF] = (byte) data;
-                }
-            } else { //Writting to palette memory
-                addr &= 0x001F;
-                if (addr == 0x0010) addr = 0x0000;
-                if (addr == 0x0014) addr = 0x0004;
-                if (addr == 0x0018) addr = 0x0008;
-                if (addr == 0x001C) addr = 0x000C;
-                palette_memory[addr] = (byte) data;
-            }
+        if (addr <= 0x3EFF) { //Write to pattern tables or nametables, writes to CHR ROM are ignored
+            //If the Character RAM has been written, the decoded tile is outdated
+            if (ppu_pages.write(addr, data) && addr <= 0x1FFF)
+                tile_cache.invalidate(ppu_pages.getOffset(addr));
+        } else { //Writing to palette memory, the color is resolved right away
+            color_palette.write(addr, data);
         }
     }
 
@@ -428,13 +450,7 @@ public class PPU_2C02 {
      * @return an 8bit unsigned value pointed by the current OAM address
      */
     private int getOamData() {
-        return switch (oam_addr & 0x03) {
-            case 0x0 -> oams[oam_addr >> 2].getY() & 0xFF;
-            case 0x1 -> oams[oam_addr >> 2].getId() & 0xFF;
-            case 0x2 -> oams[oam_addr >> 2].getAttribute() & 0xFF;
-            case 0x3 -> oams[oam_addr >> 2].getX() & 0xFF;
-            default -> 0x00;
-        };
+        return oam[oam_addr] & 0xFF;
     }
 
     /**
@@ -445,7 +461,18 @@ public class PPU_2C02 {
      * @return the corresponding Color
      */
     public Color getColorFromPalette(int paletteId, int pixel) {
-        return system_palette[ppuRead(0x3F00 + ((paletteId << 2) & 0x00FF) + (pixel & 0x00FF), false)];
+        int color = color_palette.getColor((paletteId << 2) + pixel);
+        return Color.rgb((color >>> 24) & 0xFF, (color >>> 16) & 0xFF, (color >>> 8) & 0xFF);
+    }
+
+    /**
+     * Load the system colors from a .pal file
+     *
+     * @param filename the path to the .pal file
+     * @throws InvalidFileException if the file isn't a valid palette file
+     */
+    public void loadPalette(String filename) throws InvalidFileException {
+        color_palette.load(filename);
     }
 
     /**
@@ -462,6 +489,17 @@ public class PPU_2C02 {
         return false;
     }
 
+    /**
+     * Notify the Mapper that a scanline has occurred outside of the rendering (A12 toggled by the CPU)
+     * and signal its IRQ right away if it has been triggered, as it couldn't have been predicted
+     */
+    private void notifyScanline() {
+        Mapper mapper = cartridge.getMapper();
+        mapper.notifyScanline();
+        if (mapper.irqState())
+            scheduler.raise(Scheduler.MAPPER_IRQ);
+    }
+
     /**
      * Reset the PPU to its default state
      */
@@ -479,360 +517,702 @@ public class PPU_2C02 {
         bg_shift_pattern_high = 0x0000;
         bg_shift_attrib_low = 0x0000;
         bg_shift_attrib_high = 0x0000;
+        line_rendered = false;
         status_register.set(0xA0);
         mask_register.set(0x00);
+        color_palette.setMask(0x00);
         control_register.set(0x00);
         vram_addr.set(0x0000);
         tram_addr.set(0x0000);
-        screen_buffer_tmp.clear();
     }
 
 
     /**
-     * Execute one tick of the PPU
+     * Build the table of the actions executed at each dot of a rendering scanline
+     *
+     * @param preRender is the table for the pre-render scanline or for the visible ones
+     * @return the actions of the 341 dots, as a combination of the action flags
      */
-    public void clock() {
-        //If we are in the visible screen (regarding scanlines and omitting horizontal blank)
-        if (scanline >= -1 && scanline < 240) {
-            if (cycle >= 257 && cycle <= 320)
-                oam_addr = 0;
-            if (scanline == -1 && cycle == 0)
-                screen_buffer_tmp.clear();
-            //If we are on the top left we increment the cycle count and clear the screen buffer
-            if (scanline == 0 && cycle == 0 && odd_frame && (mask_register.isRenderBackgroundSet() || mask_register.isRenderSpritesSet())) {
-                cycle = 1;
-            }
-            //If we are before the first scanline, we reset the Status Register and Shift Registers
-            if (scanline == -1 && cycle == 1) {
-                status_register.setVerticalBlank(false);
-                status_register.setSpriteOverflow(false);
-                status_register.setSpriteZeroHit(false);
-                for (int i = 0; i < 8; i++) {
-                    sprite_shift_pattern_low[i] = 0x00;
-                    sprite_shift_pattern_high[i] = 0x00;
-                }
-            }
-            //If we need to compute a pixel color
-            if ((cycle >= 2 && cycle < 258) || (cycle >= 321 && cycle < 338)) {
-                //We shift all the Shift Registers by 1
-                if (mask_register.isRenderBackgroundSet()) {
-                    bg_shift_pattern_low = (bg_shift_pattern_low << 1) & 0xFFFF;
-                    bg_shift_pattern_high = (bg_shift_pattern_high << 1) & 0xFFFF;
-                    bg_shift_attrib_low = (bg_shift_attrib_low << 1) & 0xFFFF;
-                    bg_shift_attrib_high = (bg_shift_attrib_high << 1) & 0xFFFF;
-                }
-                if (mask_register.isRenderSpritesSet() && cycle >= 1 && cycle < 258) {
-                    for (int i = 0; i < sprite_count; i++) {
-                        //for all visible sprites, we decrement the position by one until it is time to render it
-                        if (visible_oams[i].getX() > 0)
-                            visible_oams[i].setX(visible_oams[i].getX() - 1);
-                        else {
-                            sprite_shift_pattern_low[i] = (sprite_shift_pattern_low[i] << 1) & 0xFF;
-                            sprite_shift_pattern_high[i] = (sprite_shift_pattern_high[i] << 1) & 0xFF;
-                        }
-                    }
-                }
-                //All of the following action will be executed once and in order for each tile
-                //We are fetching the information required for the next tile (8 pixels)
-                //At the beginning of a tile we load the Background Shifters with the previously fetched tile ID and tile attribute
-                //We fetch the next tile ID
-                //We then fetch the next tile attribute
-                //We use the Coarses 2 lsb to get select the correct 2 bits of the attribute depending on the position of the tile in the 4*4 grid
-                //We only keep the 2 lsb of the attribute
-                //We use the next tile ID and row index (fineY) to fetch the next 8 pixels lsb
-                //Same but we fetch the msb
-                //We pass to next tile rendering
-                switch ((cycle - 1) % 8) {
-                    case 0 -> {
-                        bg_shift_pattern_low = ((bg_shift_pattern_low & 0xFF00) | bg_next_tile_lsb) & 0xFFFF;
-                        bg_shift_pattern_high = ((bg_shift_pattern_high & 0xFF00) | bg_next_tile_msb) & 0xFFFF;
-                        bg_shift_attrib_low = ((bg_shift_attrib_low & 0xFF00) | (((bg_next_tile_attrib & 0b01) == 0b01) ? 0xFF : 0x00)) & 0xFFFF;
-                        bg_shift_attrib_high = ((bg_shift_attrib_high & 0xFF00) | (((bg_next_tile_attrib & 0b10) == 0b10) ? 0xFF : 0x00)) & 0xFFFF;
-                        bg_next_tile_id = ppuRead(0x2000 | (vram_addr.get() & 0x0FFF), false);
-                    }
-                    case 2 -> {
-                        bg_next_tile_attrib = ppuRead(0x23C0 | (vram_addr.isNametableYSet() ? 0x1 << 11 : 0x0) | (vram_addr.isNametableXSet() ? 0x1 << 10 : 0x0) | ((vram_addr.getCoarseY() >> 2) << 3) | (vram_addr.getCoarseX() >> 2), false);
-                        if ((vram_addr.getCoarseY() & 0x02) == 0x02)
-                            bg_next_tile_attrib = (bg_next_tile_attrib >> 4) & 0xFF;
-                        if ((vram_addr.getCoarseX() & 0x02) == 0x02)
-                            bg_next_tile_attrib = (bg_next_tile_attrib >> 2) & 0xFF;
-                        bg_next_tile_attrib &= 0x03;
-                    }
-                    case 4 -> bg_next_tile_lsb = ppuRead((control_register.isPatternBackgroundSet() ? 0x1 << 12 : 0) + (bg_next_tile_id << 4) + vram_addr.getFineY(), false);
-                    case 6 -> bg_next_tile_msb = ppuRead((control_register.isPatternBackgroundSet() ? 0x1 << 12 : 0) + (bg_next_tile_id << 4) + vram_addr.getFineY() + 8, false);
-                    case 7 -> { // Increment Scroll X
-                        //If we are rendering sprites or background
-                        if (mask_register.isRenderBackgroundSet() || mask_register.isRenderSpritesSet()) {
-                            //If we cross a nametable boundary we invert the nametableX bit to fetch from the other nametable
-                            if (vram_addr.getCoarseX() == 31) {
-                                vram_addr.setCoarseX(0);
-                                vram_addr.setNametableX(!vram_addr.isNametableXSet());
-                                //Or we just continue in the same one
-                            } else {
-                                vram_addr.setCoarseX(vram_addr.getCoarseX() + 1);
-                            }
-                        }
-                    }
-                }
-            }
-            //If we are at the end of a visible scanline we pass to the next one
-            if (cycle == 256) { // Increment Scroll Y
-                //If we are rendering sprites or background
-                if (mask_register.isRenderBackgroundSet() || mask_register.isRenderSpritesSet()) {
-                    //If we are still in the same tile row
-                    if (vram_addr.getFineY() < 7) {
-                        vram_addr.setFineY(vram_addr.getFineY() + 1);
-                        //If we have passed to the next tile row
-                    } else {
-                        //reset the offset inside the row to 0
-                        vram_addr.setFineY(0);
-                        //If we are at le last tile row, we skip the OAM and switch to the next nametable
-                        if (vram_addr.getCoarseY() == 29) {
-                            vram_addr.setCoarseY(0);
-                            vram_addr.setNametableY(!vram_addr.isNametableYSet());
-                            //Just in case we've gone behond the nametable
-                        } else if (vram_addr.getCoarseY() == 31) {
-                            vram_addr.setCoarseY(0);
-                            //Or we simply switch to the next tile row
-                        } else {
-                            vram_addr.setCoarseY(vram_addr.getCoarseY() + 1);
-                        }
-                    }
-                }
+    private static int[] buildDotActions(boolean preRender) {
+        int[] actions = new int[341];
+        for (int dot = 0; dot < actions.length; dot++) {
+            int action = 0;
+            //The background fetches of the scanline and of the 2 first tiles of the next one
+            if ((dot >= 2 && dot <= 257) || (dot >= 321 && dot <= 337)) {
+                action |= BG_SHIFT;
+                action |= switch ((dot - 1) & 0x07) {
+                    case 0 -> FETCH_NT;
+                    case 2 -> FETCH_AT;
+                    case 4 -> FETCH_LOW;
+                    case 6 -> FETCH_HIGH;
+                    case 7 -> INCREMENT_X;
+                    default -> 0;
+                };
             }
-            //If we are at the first pixel of the horizontal blank we reset the X coordinates to the start of a line
-            if (cycle == 257) {
-                bg_shift_pattern_low = ((bg_shift_pattern_low & 0xFF00) | bg_next_tile_lsb) & 0xFFFF;
-                bg_shift_pattern_high = ((bg_shift_pattern_high & 0xFF00) | bg_next_tile_msb) & 0xFFFF;
-                bg_shift_attrib_low = ((bg_shift_attrib_low & 0xFF00) | (((bg_next_tile_attrib & 0b01) == 0b01) ? 0xFF : 0x00)) & 0xFFFF;
-                bg_shift_attrib_high = ((bg_shift_attrib_high & 0xFF00) | (((bg_next_tile_attrib & 0b10) == 0b10) ? 0xFF : 0x00)) & 0xFFFF;
-                if (mask_register.isRenderBackgroundSet() || mask_register.isRenderSpritesSet()) {
-                    vram_addr.setNametableX(tram_addr.isNametableXSet());
-                    vram_addr.setCoarseX(tram_addr.getCoarseX());
-                }
+            if (dot >= 2 && dot <= 257)
+                action |= SPRITE_DELAY;
+            if (dot == 256)
+                action |= INCREMENT_Y;
+            if (dot == 257)
+                action |= COPY_X;
+            if (dot >= 257 && dot <= 320)
+                action |= OAM_ADDR_RESET;
+            if (dot == SCANLINE_COUNTER_DOT)
+                action |= SCANLINE_COUNTER;
+            if (dot == SPRITE_EVALUATION_DOT)
+                action |= EVALUATE_SPRITES;
+            if (dot == 338 || dot == 340)
+                action |= FETCH_NT_DUMMY;
+            if (dot == 340)
+                action |= DRAW_SPRITES;
+            if (preRender) {
+                if (dot == 1)
+                    action |= CLEAR_STATUS;
+                if (dot >= 280 && dot <= 304)
+                    action |= COPY_Y;
+            } else {
+                if (dot == 0)
+                    action |= ODD_FRAME_SKIP;
+                if (dot == 1)
+                    action |= RENDER_LINE;
+                //The pixels are output on dots 1 - 256, a sprite zero hit can still occur on dot 257
+                if (dot >= 1 && dot <= 257)
+                    action |= PIXEL;
             }
+            actions[dot] = action;
+        }
+        return actions;
+    }
 
-            if (cycle == 338 || cycle == 340) {
-                bg_next_tile_id = ppuRead(0x2000 | (vram_addr.get() & 0x0FFF), false);
-            }
-            //At the start of a new frame we reset the Y coordinates to the top of the screen
-            if (scanline == -1 && cycle >= 280 && cycle < 305) {
-                if (mask_register.isRenderBackgroundSet() || mask_register.isRenderSpritesSet()) {
-                    vram_addr.setNametableY(tram_addr.isNametableYSet());
-                    vram_addr.setCoarseY(tram_addr.getCoarseY());
-                    vram_addr.setFineY(tram_addr.getFineY());
-                }
+    /**
+     * Execute a number of ticks of the PPU at once
+     * the dots of the post-render and vertical blank scanlines where nothing happens are skipped
+     *
+     * @param dots the number of ticks to execute
+     */
+    public void clock(int dots) {
+        while (dots > 0) {
+            if (scanline >= SCREEN_HEIGHT) {
+                //We jump to the next dot doing something (start of the vertical blank or end of the frame)
+                int position = (scanline + 1) * 341 + cycle;
+                int skipped = Math.min(dots, (position <= VERTICAL_BLANK_DOT ? VERTICAL_BLANK_DOT : FRAME_END_DOT) - position);
+                position += skipped;
+                scanline = position / 341 - 1;
+                cycle = position % 341;
+                dots -= skipped;
+                if (dots == 0)
+                    return;
             }
+            clock();
+            dots--;
+        }
+    }
 
-            //At the end of a scanline, we fetch the sprite that will be visible on the next scanline
-            if (cycle == 320 && scanline >= 0) {
-                //We clear all visible Object Attribute
-                for (ObjectAttribute visible_oam : visible_oams) visible_oam.clear(0xFF);
-                //And reset the sprite count
-                sprite_count = 0;
+    /**
+     * Execute one tick of the PPU
+     * the actions of the rendering scanlines are looked up in the dot action tables,
+     * the post-render and vertical blank scanlines only have to wait for the start of the vertical blank
+     */
+    public void clock() {
+        //Outside of the rendering scanlines, the only event is the start of the vertical blank
+        if (scanline >= SCREEN_HEIGHT) {
+            if (scanline == 241 && cycle == 1)
+                startVerticalBlank();
+            nextDot();
+            return;
+        }
 
-                for (int i = 0; i < 8; i++) {
-                    sprite_shift_pattern_low[i] = 0x00;
-                    sprite_shift_pattern_high[i] = 0x00;
-                }
+        int action = scanline < 0 ? PRE_RENDER_DOTS[cycle] : VISIBLE_DOTS[cycle];
+        //Most of the dots only fetch the background and output a pixel, the other actions are only looked at when needed
+        if ((action & LINE_START_ACTIONS) != 0)
+            action = startDot(action);
+        if ((action & BG_SHIFT) != 0) {
+            //If the background has been rendered at once, the fetches have already been done
+            if (!line_rendered)
+                updateBackground(action);
+            //While the sprites aren't rendered, they don't move forward, the rest of the sprite line is drawn later
+            if ((action & SPRITE_DELAY) != 0 && !mask_register.isRenderSpritesSet())
+                sprite_delay++;
+        }
+        if ((action & LINE_END_ACTIONS) != 0)
+            endDot(action);
+        if ((action & PIXEL) != 0) {
+            //When the frame isn't displayed, the only thing that matters is the sprite zero hit
+            if (!frame_suppressed)
+                renderPixel();
+            else if (spriteZeroHitPossible)
+                checkSpriteZeroHit();
+        }
+        //The scanline notification has been scheduled by the console, which relays the IRQ
+        if ((action & SCANLINE_COUNTER) != 0 && mask_register.isRenderingEnabled())
+            cartridge.getMapper().notifyScanline();
+        nextDot();
+    }
 
-                //We reset the oam entry index and sprite zero hit possible flag
-                int oam_entry = 0;
-                spriteZeroHitPossible = false;
-
-                //We read all OAM and break if we hit the max number of sprite for one scanline
-                while (oam_entry < 64 && sprite_count <= 8) {
-                    //We compute if the sprite is in the current scanline
-                    int diff = scanline - oams[oam_entry].getY();
-                    if (diff >= 0 && diff < (control_register.isSpriteSizeSet() ? 16 : 8)) {
-                        //If their is room left for another sprite, we add it to the rendered sprite
-                        if (sprite_count < 8) {
-                            //If this is the first sprite, a sprite zero hit is possible, we update the flag
-                            if (oam_entry == 0) {
-                                spriteZeroHitPossible = true;
-                            }
-                            //Instead of instantiating new OAM, we fill it with the data of the other one
-                            visible_oams[sprite_count].set(oams[oam_entry]);
-                        }
-                        sprite_count++;
-                    }
-                    oam_entry++;
-                }
-                //If we hit a 9th sprite on the scanline, we set the sprite overflow flag to 1
-                status_register.setSpriteOverflow(sprite_count >= 8);
-                if (sprite_count > 8) sprite_count = 8;
+    /**
+     * Return the number of dots before the start of the next vertical blank (NMI)
+     *
+     * @return the number of dots before the dot setting the vertical blank flag, it can be underestimated but never overestimated
+     */
+    public int getDotsUntilVerticalBlank() {
+        return getDotsUntil(VERTICAL_BLANK_DOT);
+    }
+
+    /**
+     * Return the number of dots before the end of the current frame
+     *
+     * @return the number of dots before the last dot of the frame, it can be underestimated but never overestimated
+     */
+    public int getDotsUntilFrameEnd() {
+        return getDotsUntil(FRAME_END_DOT);
+    }
+
+    /**
+     * Return the number of dots before the next scanline notified to the Mapper
+     * the Mapper is only notified during the rendering scanlines, when the rendering is enabled
+     *
+     * @return the number of dots before the next notification, it can be underestimated but never overestimated, -1 if there is none to come
+     */
+    public int getDotsUntilScanlineCounter() {
+        if (!mask_register.isRenderingEnabled() || !cartridge.getMapper().hasScanlineCounter())
+            return -1;
+        //The counter dot of the current scanline if it hasn't been reached yet, otherwise the one of the next rendering scanline
+        int line = cycle <= SCANLINE_COUNTER_DOT ? scanline : scanline + 1;
+        if (line >= SCREEN_HEIGHT)
+            line = -1;
+        return getDotsUntil((line + 1) * 341 + SCANLINE_COUNTER_DOT);
+    }
+
+    /**
+     * Return the number of dots before the flags of the Status Register can change on their own
+     * the vertical blank flag is set and the flags are cleared at fixed dots,
+     * the sprite overflow is updated by the sprite evaluation of each visible scanline, even when the rendering is disabled,
+     * and the sprite zero hit can be set on any dot of the visible scanlines until it is
+     *
+     * @return the number of dots during which the flags can't change, it can be underestimated but never overestimated
+     */
+    public int getDotsUntilStatusChange() {
+        int dots = Math.min(getDotsUntil(VERTICAL_BLANK_DOT), getDotsUntil(STATUS_CLEAR_DOT));
+        if (scanline < SCREEN_HEIGHT) {
+            if (mask_register.isRenderingEnabled() && (status_register.get() & 0x40) == 0) {
+                if (scanline >= 0)
+                    return 0;
+                //The sprite zero hit can't happen before the first visible scanline
+                dots = Math.min(dots, getDotsUntil(341));
             }
-            //At the end of the horizontal blank, we fetch all the relevant sprite data for the next scanline
-            //This is really done one multiple cycles, but it's easier to do it all in one go and doesn't change the overall behaviour of the rendering process
-            if (cycle == 340) {
-                //For each sprite
-                for (int i = 0; i < sprite_count; i++) {
-                    int sprite_pattern_low, sprite_pattern_high;
-                    int sprite_pattern_addr_low, sprite_pattern_addr_high;
-                    if (!control_register.isSpriteSizeSet()) { //If the sprites are 8x8
-                        if (!((visible_oams[i].getAttribute() & 0x80) == 0x80)) //If the sprite normally oriented
-                            sprite_pattern_addr_low = (control_register.isPatternSpriteSet() ? 0x1 << 12 : 0x0) | (visible_oams[i].getId() << 4) | (scanline - visible_oams[i].getY());
-                        else //If the sprite is flipped vertically
-                            sprite_pattern_addr_low = (control_register.isPatternSpriteSet() ? 0x1 << 12 : 0x0) | (visible_oams[i].getId() << 4) | (7 - (scanline - visible_oams[i].getY()));
-                    } else { //If the sprites are 8x16
-                        if (!((visible_oams[i].getAttribute() & 0x80) == 0x80)) { //If the sprite normally oriented
-                            if (scanline - visible_oams[i].getY() < 8) //Reading top half
-                                sprite_pattern_addr_low = ((visible_oams[i].getId() & 0x01) << 12) | ((visible_oams[i].getId() & 0xFE) << 4) | ((scanline - visible_oams[i].getY()) & 0x07);
-                            else //Reading bottom half
-                                sprite_pattern_addr_low = ((visible_oams[i].getId() & 0x01) << 12) | (((visible_oams[i].getId() & 0xFE) + 1) << 4) | ((scanline - visible_oams[i].getY()) & 0x07);
-                        } else {  //If the sprite is flipped vertically
-                            if (scanline - visible_oams[i].getY() < 8) //Reading top half
-                                sprite_pattern_addr_low = ((visible_oams[i].getId() & 0x01) << 12) | (((visible_oams[i].getId() & 0xFE) + 1) << 4) | (7 - (scanline - visible_oams[i].getY()) & 0x07);
-                            else //Reading bottom half
-                                sprite_pattern_addr_low = ((visible_oams[i].getId() & 0x01) << 12) | ((visible_oams[i].getId() & 0xFE) << 4) | (7 - (scanline - visible_oams[i].getY()) & 0x07);
-                        }
-                    }
-                    //We compute the complete address and fetch the the sprite's bitplane
-                    sprite_pattern_addr_high = (sprite_pattern_addr_low + 8) & 0xFFFF;
-                    sprite_pattern_low = ppuRead(sprite_pattern_addr_low, false);
-                    sprite_pattern_high = ppuRead(sprite_pattern_addr_high, false);
-
-                    //If the sprite is flipped horizontally, the sprite bitplane are flipped
-                    if ((visible_oams[i].getAttribute() & 0x40) == 0x40) {
-                        sprite_pattern_low = NumberUtils.byteFlip(sprite_pattern_low);
-                        sprite_pattern_high = NumberUtils.byteFlip(sprite_pattern_high);
-                    }
+            //The evaluation of the current scanline if it hasn't been reached yet, otherwise the one of the next visible scanline
+            int line = scanline >= 0 && cycle > SPRITE_EVALUATION_DOT ? scanline + 1 : Math.max(scanline, 0);
+            if (line < SCREEN_HEIGHT)
+                dots = Math.min(dots, getDotsUntil((line + 1) * 341 + SPRITE_EVALUATION_DOT));
+        }
+        return dots;
+    }
+
+    /**
+     * Return the number of dots before a given dot of the frame, which is in the next frame if it has already been passed
+     *
+     * @param dot the position of the dot in the frame (scanline + 1) * 341 + cycle
+     * @return the number of dots before that dot, the skippable dot of the odd frames being assumed skipped
+     */
+    private int getDotsUntil(int dot) {
+        int position = (scanline + 1) * 341 + cycle;
+        int dots = dot - position;
+        if (dots < 0)
+            dots += FRAME_END_DOT + 1;
+        //On odd frames, the first dot of the first visible scanline can be skipped
+        int skip = ODD_FRAME_SKIP_DOT - position;
+        if (skip < 0)
+            skip += FRAME_END_DOT + 1;
+        if (skip < dots)
+            dots--;
+        return dots;
+    }
 
-                    //We load the sprites to the Shift Registers
-                    sprite_shift_pattern_low[i] = sprite_pattern_low;
-                    sprite_shift_pattern_high[i] = sprite_pattern_high;
+    /**
+     * Set the vertical blank flag and eventually fire a Non Maskable Interrupt
+     */
+    private void startVerticalBlank() {
+        status_register.setVerticalBlank(true);
+        if (control_register.isEnableNmiSet())
+            nmi = true;
+    }
+
+    /**
+     * Execute the actions of a dot that must happen before the background fetches
+     *
+     * @param action the actions of the dot
+     * @return the actions of the dot, which are the ones of the next dot if the current one has been skipped
+     */
+    private int startDot(int action) {
+        //On odd frames, the first dot of the first visible scanline is skipped
+        if ((action & ODD_FRAME_SKIP) != 0 && scanline == 0 && odd_frame && mask_register.isRenderingEnabled()) {
+            cycle = 1;
+            action = VISIBLE_DOTS[cycle];
+        }
+        if ((action & OAM_ADDR_RESET) != 0)
+            oam_addr = 0;
+        //If we are before the first scanline, we reset the Status Register and the sprite line
+        if ((action & CLEAR_STATUS) != 0) {
+            status_register.setVerticalBlank(false);
+            status_register.setSpriteOverflow(false);
+            status_register.setSpriteZeroHit(false);
+            Arrays.fill(sprite_line, (byte) 0x00);
+        }
+        //At the start of a visible scanline, we render the whole background at once if nothing can interfere with it
+        if ((action & RENDER_LINE) != 0 && canRenderScanline())
+            renderBackgroundLine();
+        //The fetches of the scanline rendered at once stop at the end of the visible area
+        if ((action & COPY_X) != 0)
+            line_rendered = false;
+        return action;
+    }
+
+    /**
+     * Execute the actions of a dot that must happen after the background fetches
+     *
+     * @param action the actions of the dot
+     */
+    private void endDot(int action) {
+        boolean rendering = mask_register.isRenderingEnabled();
+        //At the end of the visible part of the scanline we move to the next row of pixels
+        if ((action & INCREMENT_Y) != 0 && rendering)
+            vram_addr.incrementY();
+        //At the first dot of the horizontal blank we reset the X coordinates to the start of a line
+        if ((action & COPY_X) != 0) {
+            loadBackgroundShifters();
+            if (rendering)
+                vram_addr.copyX(tram_addr);
+        }
+        if ((action & FETCH_NT_DUMMY) != 0)
+            bg_next_tile_id = ppuRead(0x2000 | (vram_addr.get() & 0x0FFF), false);
+        //At the start of a new frame we reset the Y coordinates to the top of the screen
+        if ((action & COPY_Y) != 0 && rendering)
+            vram_addr.copyY(tram_addr);
+        //At the end of a scanline, we fetch the sprite that will be visible on the next scanline
+        if ((action & EVALUATE_SPRITES) != 0)
+            evaluateSprites();
+        //At the end of the horizontal blank, we draw the sprites of the next scanline
+        //This is really done one multiple cycles, but it's easier to do it all in one go and doesn't change the overall behaviour of the rendering process
+        if ((action & DRAW_SPRITES) != 0)
+            drawSpriteLine();
+    }
+
+    /**
+     * Move to the next dot, and publish the frame when the last scanline is over
+     */
+    private void nextDot() {
+        cycle++;
+        //If we are at the end of a scanline
+        if (cycle >= 341) {
+            cycle = 0;
+            scanline++;
+            //If we are a the bottom of the screen
+            if (scanline >= 261) {
+                //We reset the scanline to the top, set the frameComplete flag and flip the screen buffer to prepare rendering
+                scanline = -1;
+                frame_complete = true;
+                odd_frame = !odd_frame;
+                //We publish the frame, it can now be acquired by the UI, and start drawing into a free buffer
+                //a suppressed frame hasn't been drawn, the back buffer is kept for the next one
+                if (!frame_suppressed) {
+                    frame_buffer.publish(frame_output_mode);
+                    screen_pixels = frame_buffer.getBackPixels();
+                    screen_indexes = frame_buffer.getBackIndexes();
+                    screen_emphasis = frame_buffer.getBackEmphasis();
                 }
+                frame_output_mode = output_mode;
+                frame_suppressed = frame_skipper.skipNextFrame() || render_suppressed;
             }
         }
+    }
 
-        //If we exit the visible screen, we set the vertical blank flag and eventually fire a Non Maskable Interrupt
-        if (scanline >= 241 && scanline < 261) {
-            if (scanline == 241 && cycle == 1) {
-                status_register.setVerticalBlank(true);
-                if (control_register.isEnableNmiSet())
-                    nmi = true;
+    /**
+     * Compute the pixel of the current dot by mixing the background and the sprites,
+     * detect the sprite zero hits and push the pixel into the screen buffer
+     */
+    private void renderPixel() {
+        int x = cycle - 1;
+        //The pixels are represented by their address in the Palette Memory (palette ID * 4 + pixel ID)
+        int background = 0x00;
+        //If background rendering is enabled, and the pixel isn't in the clipped left columns
+        if (cycle >= mask_register.getBackgroundStart())
+            background = getBackgroundPixel(x);
+
+        //If sprite rendering is enabled, the sprites have been drawn into the sprite line
+        //the first non transparent sprite in order of priority has been kept
+        int sprite = 0x00;
+        if (cycle >= mask_register.getSpriteStart())
+            sprite = sprite_line[x - sprite_delay];
+
+        int color;
+        //If the background pixel is transparent the final color is the foreground one (sprite palettes are the 4 last ones)
+        if ((background & 0x03) == 0) {
+            color = sprite == 0x00 ? 0x00 : 0x10 | (sprite & 0x0F);
+            //If the foreground color is transparent the final color is the background one
+        } else if (sprite == 0x00) {
+            color = background;
+            //If neither of the pixels are transparent
+        } else {
+            //If the foreground has priority over the background, the final color is the foreground one
+            //Otherwise the final color is the background one
+            color = (sprite & 0x20) == 0 ? 0x10 | (sprite & 0x0F) : background;
+            //If we are rendering the 0th sprite and a sprite zero hit is possible then a sprite zero hit occurs
+            //(both pixels are opaque, so background and sprites are rendered and the left columns aren't clipped)
+            if ((sprite & 0x40) == 0x40 && spriteZeroHitPossible)
+                status_register.setSpriteZeroHit(true);
+        }
+
+        //If we are in the visible area we push a pixel into the screen buffer
+        if (x < SCREEN_WIDTH) {
+            if (frame_output_mode == OutputMode.RGBA) {
+                screen_pixels[(scanline << 8) | x] = color_palette.getColor(color);
+            } else {
+                screen_indexes[(scanline << 8) | x] = color_palette.getIndex(color);
+                //The emphasis is stored once per scanline, using the state of the Mask Register at the first pixel
+                if (x == 0)
+                    screen_emphasis[scanline] = color_palette.getEmphasis();
             }
         }
+    }
+
+    /**
+     * Detect a sprite zero hit at the current dot without computing the pixel
+     * used when the frame isn't displayed
+     */
+    private void checkSpriteZeroHit() {
+        int x = cycle - 1;
+        //Both the first sprite and the background must be visible and opaque
+        if (cycle >= mask_register.getSpriteStart() && cycle >= mask_register.getBackgroundStart()) {
+            if ((sprite_line[x - sprite_delay] & 0x40) == 0x40 && (getBackgroundPixel(x) & 0x03) != 0)
+                status_register.setSpriteZeroHit(true);
+        }
+    }
 
-        int bg_pixel = 0x00;
-        int bg_palette = 0x00;
+    /**
+     * Return the background pixel of the current dot
+     *
+     * @param x the x coordinate of the pixel
+     * @return the address of the pixel in the Palette Memory (palette ID * 4 + pixel ID)
+     */
+    private int getBackgroundPixel(int x) {
+        //If the scanline has been rendered at once, the pixel is already known
+        if (line_rendered)
+            return line_background[x];
+        //We select the current pixels offset using the scroll information
+        int bit = 15 - fine_x;
+        //We compute the pixel ID by getting the right bit from the 2 shift registers, same for the palette ID
+        return (((bg_shift_attrib_high >> bit) & 0x1) << 3) | (((bg_shift_attrib_low >> bit) & 0x1) << 2)
+                | (((bg_shift_pattern_high >> bit) & 0x1) << 1) | ((bg_shift_pattern_low >> bit) & 0x1);
+    }
 
-        //If background rendering is enabled
+    /**
+     * Load the Background Shifters with the previously fetched tile ID and tile attribute
+     */
+    private void loadBackgroundShifters() {
+        bg_shift_pattern_low = (bg_shift_pattern_low & 0xFF00) | bg_next_tile_lsb;
+        bg_shift_pattern_high = (bg_shift_pattern_high & 0xFF00) | bg_next_tile_msb;
+        bg_shift_attrib_low = (bg_shift_attrib_low & 0xFF00) | (((bg_next_tile_attrib & 0b01) == 0b01) ? 0xFF : 0x00);
+        bg_shift_attrib_high = (bg_shift_attrib_high & 0xFF00) | (((bg_next_tile_attrib & 0b10) == 0b10) ? 0xFF : 0x00);
+    }
+
+    /**
+     * Execute the background fetches and shifts of one dot
+     *
+     * @param action the actions of the dot in the dot action tables (a dot between 2 - 257 or 321 - 337)
+     */
+    private void updateBackground(int action) {
+        //We shift all the Shift Registers by 1
         if (mask_register.isRenderBackgroundSet()) {
-            //We select the current pixels offset using the scroll information
-            if (mask_register.isRenderBackgroundLeftSet() || cycle >= 9) {
-                int bit_mux = (0x8000 >> fine_x) & 0xFFFF;
-                //We compute the pixel ID by getting the right bit from the 2 shift registers
-                int p0_pixel = (bg_shift_pattern_low & bit_mux) > 0 ? 0x1 : 0x0;
-                int p1_pixel = (bg_shift_pattern_high & bit_mux) > 0 ? 0x1 : 0x0;
-                bg_pixel = ((p1_pixel << 1) | p0_pixel) & 0x0F;
-                //Same for the palette ID
-                int bg_pal0 = (bg_shift_attrib_low & bit_mux) > 0 ? 0x1 : 0x0;
-                int bg_pal1 = (bg_shift_attrib_high & bit_mux) > 0 ? 0x1 : 0x0;
-                bg_palette = ((bg_pal1 << 1) | bg_pal0) & 0x0F;
-            }
+            bg_shift_pattern_low = (bg_shift_pattern_low << 1) & 0xFFFF;
+            bg_shift_pattern_high = (bg_shift_pattern_high << 1) & 0xFFFF;
+            bg_shift_attrib_low = (bg_shift_attrib_low << 1) & 0xFFFF;
+            bg_shift_attrib_high = (bg_shift_attrib_high << 1) & 0xFFFF;
         }
+        //All of the following action will be executed once and in order for each tile
+        //We are fetching the information required for the next tile (8 pixels)
+        //At the beginning of a tile we load the Background Shifters with the previously fetched tile ID and tile attribute
+        //We fetch the next tile ID
+        //We then fetch the next tile attribute
+        //We use the next tile ID and row index (fineY) to fetch the next 8 pixels lsb
+        //Same but we fetch the msb
+        //We pass to next tile rendering
+        if ((action & FETCH_NT) != 0) {
+            loadBackgroundShifters();
+            bg_next_tile_id = ppuRead(0x2000 | (vram_addr.get() & 0x0FFF), false);
+        } else if ((action & FETCH_AT) != 0) {
+            bg_next_tile_attrib = fetchTileAttribute(false);
+        } else if ((action & FETCH_LOW) != 0) {
+            bg_next_tile_lsb = ppuRead(control_register.getBackgroundPatternAddress() + (bg_next_tile_id << 4) + vram_addr.getFineY(), false);
+        } else if ((action & FETCH_HIGH) != 0) {
+            bg_next_tile_msb = ppuRead(control_register.getBackgroundPatternAddress() + (bg_next_tile_id << 4) + vram_addr.getFineY() + 8, false);
+        } else if ((action & INCREMENT_X) != 0) {
+            incrementScrollX();
+        }
+    }
 
-        int fg_pixel = 0x00;
-        int fg_palette = 0x00;
-        boolean fg_priority = false;
-
-        //If sprite rendering is enabled
-        if (mask_register.isRenderSpritesSet()) {
-            //The 0th sprite being rendered flag is reset
-            if (mask_register.isRenderSpriteLeftSet() || cycle >= 9) {
-                spriteZeroBeingRendered = false;
-                //For each sprite in order of priority
-                for (int i = 0; i < sprite_count; i++) {
-                    //If we are at the sprite X location
-                    if (visible_oams[i].getX() == 0) {
-                        //We get the foreground pixel lsb and msb
-                        int fg_pixel_low = (sprite_shift_pattern_low[i] & 0x80) == 0x80 ? 0x1 : 0x0;
-                        int fg_pixel_high = (sprite_shift_pattern_high[i] & 0x80) == 0x80 ? 0x1 : 0x0;
-                        //We combine them into a 2bit ID
-                        fg_pixel = ((fg_pixel_high << 1) | fg_pixel_low) & 0x03;
-                        //We get the sprite palette and if it has priority over the background
-                        fg_palette = (visible_oams[i].getAttribute() & 0x03) + 0x04;
-                        fg_priority = (visible_oams[i].getAttribute() & 0x20) == 0;
-
-                        //If the pixel isn't transparent and we are rendering sprite 0, we set the 0th sprite being rendered to true
-                        if (fg_pixel != 0) {
-                            if (i == 0)
-                                spriteZeroBeingRendered = true;
-                            break;
-                        }
-                    }
-                }
+    /**
+     * Fetch the attribute of the tile pointed by the VRAM address
+     *
+     * @param readOnly is the read allowed to update the latch of the Mapper
+     * @return the 2 bits palette ID of the tile
+     */
+    private int fetchTileAttribute(boolean readOnly) {
+        int attrib = ppuRead(0x23C0 | (vram_addr.isNametableYSet() ? 0x1 << 11 : 0x0) | (vram_addr.isNametableXSet() ? 0x1 << 10 : 0x0) | ((vram_addr.getCoarseY() >> 2) << 3) | (vram_addr.getCoarseX() >> 2), readOnly);
+        //We use the Coarses 2 lsb to get select the correct 2 bits of the attribute depending on the position of the tile in the 4*4 grid
+        if ((vram_addr.getCoarseY() & 0x02) == 0x02)
+            attrib = (attrib >> 4) & 0xFF;
+        if ((vram_addr.getCoarseX() & 0x02) == 0x02)
+            attrib = (attrib >> 2) & 0xFF;
+        //We only keep the 2 lsb of the attribute
+        return attrib & 0x03;
+    }
+
+    /**
+     * Move the VRAM address to the next tile of the scanline
+     */
+    private void incrementScrollX() {
+        //If we are rendering sprites or background
+        //when crossing a nametable boundary, the nametableX bit is inverted to fetch from the other nametable
+        if (mask_register.isRenderingEnabled())
+            vram_addr.incrementX();
+    }
+
+    // ===================================================== Scanline Rendering ===================================================== //
+
+    /**
+     * Return whether or not the background of the current scanline can be rendered at once
+     * the PPU reads can't have any side effect, which excludes the Mappers with a latch,
+     * a CPU access that could affect the scanline will make the PPU catch up using syncScanline()
+     *
+     * @return can the background be rendered at once
+     */
+    private boolean canRenderScanline() {
+        return line_rendering && mask_register.isRenderBackgroundSet() && !cartridge.getMapper().hasLatch();
+    }
+
+    /**
+     * Render the 256 background pixels of the current scanline at once, tile by tile
+     * the tiles are fetched in the same order as the dot-accurate path would,
+     * and the Shift Registers, fetched tile and VRAM address are left as they would be at the end of dot 256
+     * the state at the start of the scanline is saved, in case the PPU needs to catch up with the dot-accurate path
+     */
+    private void renderBackgroundLine() {
+        line_start_state[0] = vram_addr.get();
+        line_start_state[1] = bg_shift_pattern_low;
+        line_start_state[2] = bg_shift_pattern_high;
+        line_start_state[3] = bg_shift_attrib_low;
+        line_start_state[4] = bg_shift_attrib_high;
+        line_start_state[5] = bg_next_tile_id;
+        line_start_state[6] = bg_next_tile_attrib;
+        line_start_state[7] = bg_next_tile_lsb;
+        line_start_state[8] = bg_next_tile_msb;
+        line_rendered = true;
+        //When the frame isn't displayed, the pixels are only needed to detect a sprite zero hit
+        boolean compose = !frame_suppressed || spriteZeroHitPossible;
+
+        //The 16 first pixels are already loaded in the Shift Registers
+        for (int i = 0; i < 16; i++) {
+            int x = i - fine_x;
+            if (x >= 0 && compose) {
+                int bit_mux = 0x8000 >> i;
+                int pixel = ((bg_shift_pattern_high & bit_mux) != 0 ? 0x2 : 0x0) | ((bg_shift_pattern_low & bit_mux) != 0 ? 0x1 : 0x0);
+                int palette = ((bg_shift_attrib_high & bit_mux) != 0 ? 0x2 : 0x0) | ((bg_shift_attrib_low & bit_mux) != 0 ? 0x1 : 0x0);
+                line_background[x] = (byte) ((palette << 2) | pixel);
             }
         }
 
-        int pixel = 0x00;
-        int palette = 0x00;
-        //If the background pixel is transparent the final color is the foreground one
-        if (bg_pixel == 0 && fg_pixel > 0) {
-            pixel = fg_pixel;
-            palette = fg_palette;
-        }
-        //If the foreground color is transparent the final color is the background one
-        if (bg_pixel > 0 && fg_pixel == 0) {
-            pixel = bg_pixel;
-            palette = bg_palette;
-        }
-        //If neither of the pixels are transparent
-        if (bg_pixel > 0 && fg_pixel > 0) {
-            //If the foreground has priority over the background, the final color is the foreground one
-            if (fg_priority) {
-                pixel = fg_pixel;
-                palette = fg_palette;
-                //Otherwise the final color is the background one
-            } else {
-                pixel = bg_pixel;
-                palette = bg_palette;
+        int pattern_base = control_register.getBackgroundPatternAddress();
+        byte[] tile_pixels = tile_cache.getPixels();
+        //As the Mapper has no latch, the reads can't have any side effect and don't need to notify it
+        //The Shift Registers will end up containing the 2 tiles fetched before the last one, we keep track of them
+        int first_lsb = 0x00, first_msb = 0x00, first_attrib = 0x00;
+        int second_lsb = 0x00, second_msb = 0x00, second_attrib = 0x00;
+        int tile_id = bg_next_tile_id;
+        int tile_lsb = 0x00, tile_msb = 0x00, tile_attrib = 0x00;
+        //The 32 tiles fetched during the scanline, the ID of the first one has been fetched at the end of the previous scanline
+        //the last one is only fetched, its pixels belong to the next scanline
+        for (int tile = 0; tile < 32; tile++) {
+            first_lsb = second_lsb;
+            first_msb = second_msb;
+            first_attrib = second_attrib;
+            second_lsb = tile_lsb;
+            second_msb = tile_msb;
+            second_attrib = tile_attrib;
+            if (tile > 0)
+                tile_id = ppuRead(0x2000 | (vram_addr.get() & 0x0FFF), true);
+            tile_attrib = fetchTileAttribute(true);
+            //Only the bitplanes of the 3 last tiles are needed, to load the Shift Registers
+            if (tile >= 29) {
+                tile_lsb = ppuRead(pattern_base + (tile_id << 4) + vram_addr.getFineY(), true);
+                tile_msb = ppuRead(pattern_base + (tile_id << 4) + vram_addr.getFineY() + 8, true);
             }
-            //If we are rendering the 0th sprite and a sprite zero hit is possible then a sprite zero hit may have occur
-            if (spriteZeroBeingRendered && spriteZeroHitPossible) {
-                //If we are rendering background and sprites
-                if (mask_register.isRenderBackgroundSet() && mask_register.isRenderSpritesSet()) {
-                    //If we are in the valid test.state space (if we don't render the first columns we don't test.state for hit in it)
-                    if (!(mask_register.isRenderBackgroundLeftSet() || mask_register.isRenderSpriteLeftSet())) {
-                        if (cycle >= 9 && cycle < 258)
-                            status_register.setSpriteZeroHit(true);
-                    } else if (cycle >= 1 && cycle < 258)
-                        status_register.setSpriteZeroHit(true);
-                }
+            incrementScrollX();
+            if (!compose)
+                continue;
+            //We copy the decoded row of the tile, offset by the fine X scroll
+            int row = tile_cache.getTile(ppu_pages, pattern_base + (tile_id << 4)) + (vram_addr.getFineY() << 3);
+            int start = 16 + (tile << 3) - fine_x;
+            int palette = tile_attrib << 2;
+            for (int col = 0; col < 8 && start + col < SCREEN_WIDTH; col++)
+                line_background[start + col] = (byte) (palette | tile_pixels[row + col]);
+        }
+
+        //The last fetched tile is the next one to be loaded, the Shift Registers contain the 2 previous ones shifted by 7 pixels
+        bg_next_tile_id = tile_id;
+        bg_next_tile_attrib = tile_attrib;
+        bg_next_tile_lsb = tile_lsb;
+        bg_next_tile_msb = tile_msb;
+        bg_shift_pattern_low = (((first_lsb << 8) | second_lsb) << 7) & 0xFFFF;
+        bg_shift_pattern_high = (((first_msb << 8) | second_msb) << 7) & 0xFFFF;
+        bg_shift_attrib_low = ((((first_attrib & 0b01) == 0b01 ? 0xFF00 : 0x0000) | ((second_attrib & 0b01) == 0b01 ? 0xFF : 0x00)) << 7) & 0xFFFF;
+        bg_shift_attrib_high = ((((first_attrib & 0b10) == 0b10 ? 0xFF00 : 0x0000) | ((second_attrib & 0b10) == 0b10 ? 0xFF : 0x00)) << 7) & 0xFFFF;
+    }
+
+    /**
+     * Make the PPU catch up with the dot-accurate path if the background of the current scanline has been rendered at once
+     * must be called before anything that could affect the rest of the scanline (register accesses, bank switching ...)
+     * the state at the start of the scanline is restored and the fetches of the elapsed dots are replayed,
+     * the rest of the scanline is then rendered dot by dot
+     */
+    public void syncScanline() {
+        if (!line_rendered)
+            return;
+        line_rendered = false;
+        //If the visible area is over, the state is already the one of the dot-accurate path
+        if (cycle > 256)
+            return;
+        vram_addr.set(line_start_state[0]);
+        bg_shift_pattern_low = line_start_state[1];
+        bg_shift_pattern_high = line_start_state[2];
+        bg_shift_attrib_low = line_start_state[3];
+        bg_shift_attrib_high = line_start_state[4];
+        bg_next_tile_id = line_start_state[5];
+        bg_next_tile_attrib = line_start_state[6];
+        bg_next_tile_lsb = line_start_state[7];
+        bg_next_tile_msb = line_start_state[8];
+        for (int dot = 2; dot < cycle; dot++)
+            updateBackground(VISIBLE_DOTS[dot]);
+    }
+
+    // ===================================================== Sprite Rendering ===================================================== //
+
+    /**
+     * Write a byte of the Object Attribute Memory
+     * the sprites of each scanline will be indexed again at the next evaluation
+     *
+     * @param addr the address of the byte in the OAM (0x00 - 0xFF)
+     * @param data the data to write
+     */
+    public void writeOAM(int addr, int data) {
+        oam[addr & 0xFF] = (byte) data;
+        indexed_sprite_height = 0;
+    }
+
+    /**
+     * Replace the whole Object Attribute Memory by a 256 bytes page (OAM DMA from memory)
+     * the sprites of each scanline will be indexed again at the next evaluation
+     *
+     * @param src    the array containing the page
+     * @param offset the index of the first byte of the page in the array
+     */
+    public void writeOAM(byte[] src, int offset) {
+        System.arraycopy(src, offset, oam, 0, oam.length);
+        indexed_sprite_height = 0;
+    }
+
+    /**
+     * Index the sprites of each scanline, in order of priority
+     * only the 8 first sprites of a scanline are kept, the count goes up to 9 to detect the overflow
+     *
+     * @param height the height of the sprites (8 or 16)
+     */
+    private void indexSprites(int height) {
+        Arrays.fill(scanline_sprite_count, 0);
+        for (int oam_entry = 0; oam_entry < 64; oam_entry++) {
+            int y = oam[oam_entry << 2] & 0xFF;
+            for (int line = y; line < y + height && line < SCREEN_HEIGHT; line++) {
+                int count = scanline_sprite_count[line];
+                if (count < 8)
+                    scanline_sprites[(line << 3) | count] = (byte) oam_entry;
+                if (count <= 8)
+                    scanline_sprite_count[line] = count + 1;
             }
         }
+        indexed_sprite_height = height;
+    }
 
-        //If we are in the visible area we push a pixel into the screen buffer
-        if (cycle - 1 >= 0 && cycle - 1 < SCREEN_WIDTH && scanline >= 0 && scanline < SCREEN_HEIGHT) {
-            screen_buffer_tmp.put((byte) ((int) (getColorFromPalette(palette, pixel).getRed() * 255) & 0xFF));
-            screen_buffer_tmp.put((byte) ((int) (getColorFromPalette(palette, pixel).getGreen() * 255) & 0xFF));
-            screen_buffer_tmp.put((byte) ((int) (getColorFromPalette(palette, pixel).getBlue() * 255) & 0xFF));
-            screen_buffer_tmp.put((byte) ((int) (getColorFromPalette(palette, pixel).getOpacity() * 255) & 0xFF));
+    /**
+     * Select the sprites of the current scanline, they will be visible on the next one
+     * the sprites are read from the scanline index, which is only rebuilt when the OAM or the sprite size has changed
+     */
+    private void evaluateSprites() {
+        //The pre-render scanline doesn't evaluate any sprite
+        if (scanline < 0) {
+            sprite_count = 0;
+            spriteZeroHitPossible = false;
+            return;
         }
+        int height = control_register.isSpriteSizeSet() ? 16 : 8;
+        if (height != indexed_sprite_height)
+            indexSprites(height);
 
-        if (mask_register.isRenderBackgroundSet() || mask_register.isRenderSpritesSet()) {
-            if (cycle == 260 && scanline < 240) {
-                cartridge.getMapper().notifyScanline();
+        sprite_count = scanline_sprite_count[scanline];
+        //If we hit a 9th sprite on the scanline, we set the sprite overflow flag to 1
+        status_register.setSpriteOverflow(sprite_count >= 8);
+        if (sprite_count > 8) sprite_count = 8;
+        //The selected entries are copied to the secondary OAM
+        for (int i = 0; i < sprite_count; i++)
+            System.arraycopy(oam, scanline_sprites[(scanline << 3) | i] << 2, secondary_oam, i << 2, 4);
+        //If the first sprite is in the scanline, a sprite zero hit is possible
+        spriteZeroHitPossible = sprite_count > 0 && scanline_sprites[scanline << 3] == 0;
+    }
+
+    /**
+     * Draw the visible sprites into the sprite line, which will be read dot by dot during the next scanline
+     * each pixel contains the pixel ID (bits 0-1), the palette (bits 2-3), the background priority (bit 5)
+     * and whether or not it belongs to the first visible sprite (bit 6), 0 means no sprite
+     */
+    private void drawSpriteLine() {
+        Arrays.fill(sprite_line, (byte) 0x00);
+        sprite_delay = 0;
+        Mapper mapper = cartridge.getMapper();
+        for (int i = 0; i < sprite_count; i++) {
+            int y = secondary_oam[i << 2] & 0xFF;
+            int id = secondary_oam[(i << 2) + 1] & 0xFF;
+            int attrib = secondary_oam[(i << 2) + 2] & 0xFF;
+            int x = secondary_oam[(i << 2) + 3] & 0xFF;
+            int row = scanline - y;
+            int tile_addr;
+            if (!control_register.isSpriteSizeSet()) { //If the sprites are 8x8
+                tile_addr = control_register.getSpritePatternAddress() | (id << 4);
+                //If the sprite is flipped vertically
+                if ((attrib & 0x80) == 0x80)
+                    row = 7 - row;
+            } else { //If the sprites are 8x16, the 2 tiles are consecutive in the pattern table selected by the lsb of the ID
+                //If the sprite is flipped vertically, the bottom tile is read first
+                if ((attrib & 0x80) == 0x80)
+                    row = 15 - row;
+                tile_addr = ((id & 0x01) << 12) | (((id & 0xFE) + (row >> 3)) << 4);
+                row &= 0x07;
             }
-        }
+            //If the sprite is flipped horizontally, we use the flipped variant of the tile
+            byte[] tile_pixels = (attrib & 0x40) == 0x40 ? tile_cache.getFlippedPixels() : tile_cache.getPixels();
+            int tile_row = tile_cache.getTile(ppu_pages, tile_addr) + (row << 3);
+            //The bitplane fetches can flip the latch of the Mapper, switching the CHR Banks of the following sprites
+            if (mapper.hasLatch()) {
+                mapper.updateLatch(tile_addr | row);
+                mapper.updateLatch((tile_addr | row) + 8);
+            }
+            //When the frame isn't displayed, only the first sprite is needed to detect a sprite zero hit
+            if (frame_suppressed && (i != 0 || !spriteZeroHitPossible))
+                continue;
 
-        cycle++;
-        //If we are at the end of a scanline
-        if (cycle >= 341) {
-            cycle = 0;
-            scanline++;
-            //If we are a the bottom of the screen
-            if (scanline >= 261) {
-                //We reset the scanline to the top, set the frameComplete flag and flip the screen buffer to prepare rendering
-                scanline = -1;
-                frame_complete = true;
-                odd_frame = !odd_frame;
-                //We put the content if the tmp buffer to the screen buffer that will be fetched by the UI
-                screen_buffer_tmp.flip();
-                screen_buffer.clear();
-                screen_buffer.put(screen_buffer_tmp);
-                screen_buffer.flip();
+            int flags = ((attrib & 0x03) << 2) | (attrib & 0x20) | (i == 0 ? 0x40 : 0x00);
+            for (int col = 0; col < 8 && x + col < sprite_line.length; col++) {
+                int pixel = tile_pixels[tile_row + col];
+                //A sprite is hidden by the non transparent sprites with a higher priority
+                if (pixel != 0 && sprite_line[x + col] == 0x00)
+                    sprite_line[x + col] = (byte) (flags | pixel);
             }
         }
     }
@@ -841,6 +1221,7 @@ public class PPU_2C02 {
 
     /**
      * Return the Object Attribute Memory as an array of ObjectAttribute
+     * the entries are read only views of the OAM bytes
      *
      * @return an array of ObjectAttribute containing all the OAM
      */
@@ -856,28 +1237,19 @@ public class PPU_2C02 {
      * @param dest      the image where to store the patternTable
      */
     public void getPatternTable(int i, int paletteId, WritableImage dest) {
-        //Create a temporary buffer because the pixels are not calculated in screen order
+        byte[] tile_pixels = tile_cache.getPixels();
         //For each row of tiles starting at the top
-        for (int tileX = 0; tileX < 16; tileX++) {
+        for (int tileY = 0; tileY < 16; tileY++) {
             //For each tile starting at the left
-            for (int tileY = 0; tileY < 16; tileY++) {
-                //We compute the tile offset inside the Pattern Memory
-                int offset = tileX * 256 + tileY * 16;
-                //For each row of the tile
-                for (byte row = 0; row < 8; row++) {
-                    //We get the lsb of the pixels of the row
-                    int tile_lsb = ppuRead(i * 0x1000 + offset + row, true);
-                    //We get the msb of the pixels of the row
-                    int tile_msb = ppuRead(i * 0x1000 + offset + row + 8, true);
-                    //for each pixel of the row
+            for (int tileX = 0; tileX < 16; tileX++) {
+                //We get the decoded tile at its offset inside the Pattern Memory
+                int tile = tile_cache.getTile(ppu_pages, i * 0x1000 + tileY * 256 + tileX * 16);
+                //For each pixel of the tile
+                for (int row = 0; row < 8; row++) {
                     for (int col = 0; col < 8; col++) {
-                        //We compute the pixel id
-                        int pixel = ((tile_lsb & 0x01) << 1) | (tile_msb & 0x01);
-                        //We shift the tile registers to get the next pixel id
-                        tile_lsb >>= 1;
-                        tile_msb >>= 1;
                         //We populate the image by getting the right color from the palette using the palette and pixel IDs
-                        dest.getPixelWriter().setColor(((tileY << 3) | (7 - col)), ((tileX << 3) | row), getColorFromPalette(paletteId, pixel));
+                        int pixel = tile_pixels[tile + (row << 3) + col];
+                        dest.getPixelWriter().setColor((tileX << 3) | col, (tileY << 3) | row, getColorFromPalette(paletteId, pixel));
                     }
                 }
             }
@@ -891,43 +1263,24 @@ public class PPU_2C02 {
      * @param dest the image where to store the nametable
      */
     public void getNametable(int i, WritableImage dest) {
+        byte[] tile_pixels = tile_cache.getPixels();
         //For each row of tiles starting at the top
         for (int y = 0; y < 30; y++) {
             //For each tile starting at the left
             for (int x = 0; x < 32; x++) {
-                //For each row of the tile
                 //We read the tile ID by selecting the correct nametable using the mirroring mode
                 int offset = 0x0400 * (i & 0x3);
                 int tile_id = ppuRead(0x2000 | offset | (y << 5) | x, true);
-                //We read the tile attribute starting at offset 0x03C0 of the selected nametable, the attribute offset is calculated using the tile pos divided by 4
-                int tile_attrib = ppuRead(0x23C0 | offset | ((y >> 2) << 3) | (x >> 2), true);
-                //We select the right attribute depending on the tile pos inside the current 4x4 tile grid
-                if ((y & 0x02) == 0x02)
-                    tile_attrib = (tile_attrib >> 4) & 0x00FF;
-                if ((x & 0x02) == 0x02)
-                    tile_attrib = (tile_attrib >> 2) & 0x00FF;
-                //We only keep the 2 lsb of the attribute
-                tile_attrib &= 0x03;
                 //We use the attribute to determinate the tile palette
-                int palette = tile_attrib & 0b11;
-                int pid;
+                int palette = getNametableAttribute(offset, x, y);
+                //We get the decoded tile from the background pattern table
+                int tile = tile_cache.getTile(ppu_pages, control_register.getBackgroundPatternAddress() + (tile_id << 4));
+                //For each pixel of the tile
                 for (int row = 0; row < 8; row++) {
-                    //We use the tile id and the current row index to get the lsb of the 8 pixel IDs of the row (low bitplane)
-                    int tile_lsb = ppuRead((control_register.isPatternBackgroundSet() ? 0x1 << 12 : 0) + (tile_id << 4) + row, true);
-                    //We use the tile id and the current row index to get the msb of the 8 pixels of the row (high bitplane)
-                    int tile_msb = ppuRead((control_register.isPatternBackgroundSet() ? 0x1 << 12 : 0) + (tile_id << 4) + row + 8, true);
-                    //For each pixel of the row
                     for (int col = 0; col < 8; col++) {
-                        //We get the correct pixel ID by reading the 2 bitplanes
-                        int p0_pixel = (tile_lsb & 0x80) > 0 ? 0x1 : 0x0;
-                        int p1_pixel = (tile_msb & 0x80) > 0 ? 0x1 : 0x0;
-                        int pixel = ((p1_pixel << 1) | p0_pixel) & 0x000F;
-                        pid = palette;
+                        int pixel = tile_pixels[tile + (row << 3) + col];
                         //If the pixel ID is 0, then it's transparent so we use pixel 0 of palette 0
-                        if (pixel == 0x00) pid = 0x00;
-                        //We shift the tile registers to get the next pixel id
-                        tile_lsb = (tile_lsb << 1) & 0xFFFF;
-                        tile_msb = (tile_msb << 1) & 0xFFFF;
+                        int pid = pixel == 0x00 ? 0x00 : palette;
                         //We populate the image by getting the right color from the palette using the palette and pixel IDs
                         dest.getPixelWriter().setColor(((x << 3) | (col)), ((y << 3) | row), getColorFromPalette(pid, pixel));
                     }
@@ -944,36 +1297,17 @@ public class PPU_2C02 {
         dest.addr = 0x2000 | offset | (y << 5) | x;
         //We read the tile ID by selecting the correct nametable using the mirroring mode
         dest.tile = ppuRead(dest.addr, true);
-        //We read the tile attribute starting at offset 0x03C0 of the selected nametable, the attribute offset is calculated using the tile pos divided by 4
-        dest.attribute = ppuRead(0x23C0 | offset | ((y >> 2) << 3) | (x >> 2), true);
-        //We select the right attribute depending on the tile pos inside the current 4x4 tile grid
-        if ((y & 0x02) == 0x02)
-            dest.attribute = (dest.attribute >> 4) & 0x00FF;
-        if ((x & 0x02) == 0x02)
-            dest.attribute = (dest.attribute >> 2) & 0x00FF;
-        //We only keep the 2 lsb of the attribute
-        dest.attribute &= 0x03;
+        dest.attribute = getNametableAttribute(offset, x, y);
         dest.palette = dest.attribute & 0b11;
-        int pid;
-        //For each row of the tile
+        //We get the decoded tile from the background pattern table
+        byte[] tile_pixels = tile_cache.getPixels();
+        int tile = tile_cache.getTile(ppu_pages, control_register.getBackgroundPatternAddress() + (dest.tile << 4));
+        //For each pixel of the tile
         for (int row = 0; row < 8; row++) {
-            //We use the tile id and the current row index to get the lsb of the 8 pixel IDs of the row (low bitplane)
-            int tile_lsb = ppuRead((control_register.isPatternBackgroundSet() ? 0x1 << 12 : 0) + (dest.tile << 4) + row, true);
-            //We use the tile id and the current row index to get the msb of the 8 pixels of the row (high bitplane)
-            int tile_msb = ppuRead((control_register.isPatternBackgroundSet() ? 0x1 << 12 : 0) + (dest.tile << 4) + row + 8, true);
-            //We use the attribute to determinate the tile palette
-            //For each pixel of the row
             for (int col = 0; col < 8; col++) {
-                //We get the correct pixel ID by reading the 2 bitplanes
-                int p0_pixel = (tile_lsb & 0x80) > 0 ? 0x1 : 0x0;
-                int p1_pixel = (tile_msb & 0x80) > 0 ? 0x1 : 0x0;
-                int pixel = ((p1_pixel << 1) | p0_pixel) & 0x000F;
-                pid = dest.palette;
+                int pixel = tile_pixels[tile + (row << 3) + col];
                 //If the pixel ID is 0, then it's transparent so we use pixel 0 of palette 0
-                if (pixel == 0x00) pid = 0x00;
-                //We shift the tile registers to get the next pixel id
-                tile_lsb = (tile_lsb << 1) & 0xFFFF;
-                tile_msb = (tile_msb << 1) & 0xFFFF;
+                int pid = pixel == 0x00 ? 0x00 : dest.palette;
                 //We populate the image by getting the right color from the palette using the palette and pixel IDs
                 dest.colors[col | (row << 3)] = getColorFromPalette(pid, pixel);
             }
@@ -986,23 +1320,12 @@ public class PPU_2C02 {
         int offset = y * 256 + x * 16;
         dest.tile = y | (x << 4);
         dest.addr = patterntableId * 0x1000 + offset;
-        //For each row of the tile
-        for (byte row = 0; row < 8; row++) {
-            //We get the lsb of the pixels of the row
-            int tile_lsb = ppuRead(dest.addr + row, true);
-            //We get the msb of the pixels of the row
-            int tile_msb = ppuRead(dest.addr + row + 8, true);
-            //for each pixel of the row
-            for (int col = 0; col < 8; col++) {
-                //We compute the pixel id
-                int pixel = ((tile_lsb & 0x01) << 1) | (tile_msb & 0x01);
-                //We shift the tile registers to get the next pixel id
-                tile_lsb >>= 1;
-                tile_msb >>= 1;
-                //We populate the image by getting the right color from the palette using the palette and pixel IDs
-                dest.colors[(7 - col) | (row << 3)] = getColorFromPalette(paletteId, pixel);
-            }
-        }
+        byte[] tile_pixels = tile_cache.getPixels();
+        int tile = tile_cache.getTile(ppu_pages, dest.addr);
+        //For each pixel of the tile
+        for (int i = 0; i < TileCache.TILE_SIZE; i++)
+            //We populate the image by getting the right color from the palette using the palette and pixel IDs
+            dest.colors[i] = getColorFromPalette(paletteId, tile_pixels[tile + i]);
         return dest;
     }
 
@@ -1010,41 +1333,23 @@ public class PPU_2C02 {
         if (oamId < 64) {
             Tile tile = new Tile(false);
             ObjectAttribute entry = oams[oamId];
+            tile.addr = control_register.getSpritePatternAddress() | (entry.getId() << 4);
+            tile.x = entry.getX();
+            tile.y = entry.getY();
+            tile.tile = entry.getId() >> 1;
+            tile.palette = (entry.getAttribute() & 0x3) + 4;
+            tile.attribute = entry.getAttribute() & 0xE0;
+            //If the sprite is flipped horizontally, we use the flipped variant of the tile
+            byte[] tile_pixels = (entry.getAttribute() & 0x40) == 0x40 ? tile_cache.getFlippedPixels() : tile_cache.getPixels();
+            int decoded_tile = tile_cache.getTile(ppu_pages, tile.addr);
             for (int row = 0; row < 8; row++) {
-                tile.addr = (control_register.isPatternSpriteSet() ? 1 << 12 : 0) | (entry.getId() << 4);
-                tile.x = entry.getX();
-                tile.y = entry.getY();
-                tile.tile = entry.getId() >> 1;
-                tile.palette = (entry.getAttribute() & 0x3) + 4;
-                tile.attribute = entry.getAttribute() & 0xE0;
-                int sprite_pattern_low, sprite_pattern_high;
-                int sprite_pattern_addr_low, sprite_pattern_addr_high;
-                //We retrieve the low bit plane address of the current sprite row
-                if ((entry.getAttribute() & 0x80) != 0x80) // Sprite normally oriented
-                    sprite_pattern_addr_low = tile.addr | row;
-                else //Sprite flipped vertically
-                    sprite_pattern_addr_low = tile.addr | (7 - row);
-
-                //The high bit plane one is offset by 8 from the low bit plane
-                sprite_pattern_addr_high = (sprite_pattern_addr_low + 8) & 0xFFFF;
-                //We read the 2 bit planes
-                sprite_pattern_low = ppuRead(sprite_pattern_addr_low, true);
-                sprite_pattern_high = ppuRead(sprite_pattern_addr_high, true);
-
-                //If the sprite is flipped horizontally
-                if ((entry.getAttribute() & 0x40) == 0x40) {
-                    sprite_pattern_low = NumberUtils.byteFlip(sprite_pattern_low);
-                    sprite_pattern_high = NumberUtils.byteFlip(sprite_pattern_high);
-                }
+                //If the sprite is flipped vertically, we read the rows from the bottom
+                int tile_row = (entry.getAttribute() & 0x80) != 0x80 ? row : 7 - row;
                 //For each pixel of the row
                 for (int col = 0; col < 8; col++) {
-                    //We compute the pixel and palette id
-                    int px = ((sprite_pattern_low & 0x80) == 0x80 ? 0x1 : 0x0) | ((((sprite_pattern_high & 0x80) == 0x80 ? 0x1 : 0x0)) << 1);
+                    int px = tile_pixels[decoded_tile + (tile_row << 3) + col];
                     //We draw the pixel
                     tile.colors[col | (row << 3)] = getColorFromPalette(px == 0 ? 0 : tile.palette, px);
-                    //We shift the bit planes for the next pixel
-                    sprite_pattern_high <<= 1;
-                    sprite_pattern_low <<= 1;
                 }
             }
             return tile;
@@ -1055,42 +1360,45 @@ public class PPU_2C02 {
     public Tile getOamTile8x16(int oamId) {
         Tile tile = new Tile(true);
         ObjectAttribute entry = oams[oamId];
+        tile.addr = entry.getId();
+        tile.x = entry.getX();
+        tile.y = entry.getY();
+        tile.tile = entry.getId() >> 1;
+        tile.palette = (entry.getAttribute() & 0x3) + 4;
+        //If the sprite is flipped horizontally, we use the flipped variant of the tiles
+        byte[] tile_pixels = (entry.getAttribute() & 0x40) == 0x40 ? tile_cache.getFlippedPixels() : tile_cache.getPixels();
+        //The 2 tiles are consecutive in the pattern table selected by the lsb of the ID
+        int top_tile = tile_cache.getTile(ppu_pages, ((entry.getId() & 0x1) << 12) | ((entry.getId() & 0xFE) << 4));
+        int bottom_tile = tile_cache.getTile(ppu_pages, ((entry.getId() & 0x1) << 12) | (((entry.getId() & 0xFE) + 1) << 4));
         for (int row = 0; row < 16; row++) {
-            int sprite_pattern_low, sprite_pattern_high;
-            int sprite_pattern_addr_low, sprite_pattern_addr_high;
-            if ((entry.getAttribute() & 0x80) != 0x80) {
-                if (row < 8)
-                    sprite_pattern_addr_low = ((entry.getId() & 0x1) << 12) | ((entry.getId() & 0xFE) << 4) | row;
-                else
-                    sprite_pattern_addr_low = ((entry.getId() & 0x1) << 12) | (((entry.getId() & 0xFE) + 1) << 4) | (row - 8);
-            } else {
-                if (row < 8)
-                    sprite_pattern_addr_low = ((entry.getId() & 0x1) << 12) | (((entry.getId() & 0xFE) + 1) << 4) | (7 - row);
-                else
-                    sprite_pattern_addr_low = ((entry.getId() & 0x1) << 12) | ((entry.getId() & 0xFE) << 4) | (7 - row + 8);
-            }
-            sprite_pattern_addr_high = (sprite_pattern_addr_low + 8) & 0xFFFF;
-            sprite_pattern_low = ppuRead(sprite_pattern_addr_low, true);
-            sprite_pattern_high = ppuRead(sprite_pattern_addr_high, true);
-
-            if ((entry.getAttribute() & 0x40) == 0x40) {
-                sprite_pattern_low = NumberUtils.byteFlip(sprite_pattern_low);
-                sprite_pattern_high = NumberUtils.byteFlip(sprite_pattern_high);
-            }
-            tile.addr = entry.getId();
-            tile.x = entry.getX();
-            tile.y = entry.getY();
-            tile.tile = entry.getId() >> 1;
-            tile.palette = (entry.getAttribute() & 0x3) + 4;
+            //If the sprite is flipped vertically, the bottom tile is drawn first and the rows are read from the bottom
+            int tile_row = (entry.getAttribute() & 0x80) != 0x80 ? row : 15 - row;
+            int decoded_tile = tile_row < 8 ? top_tile : bottom_tile;
             for (int col = 0; col < 8; col++) {
-                int px = ((sprite_pattern_low & 0x80) == 0x80 ? 0x1 : 0x0) | ((((sprite_pattern_high & 0x80) == 0x80 ? 0x1 : 0x0)) << 1);
-
+                int px = tile_pixels[decoded_tile + ((tile_row & 0x7) << 3) + col];
                 tile.colors[col | (row << 3)] = getColorFromPalette(px == 0 ? 0 : tile.palette, px);
-
-                sprite_pattern_high <<= 1;
-                sprite_pattern_low <<= 1;
             }
         }
         return tile;
     }
+
+    /**
+     * Read the palette ID of a tile of a nametable from its attribute table
+     *
+     * @param offset the offset of the nametable (0x0000, 0x0400, 0x0800 or 0x0C00)
+     * @param x      the X coordinate of the tile
+     * @param y      the Y coordinate of the tile
+     * @return the 2 bits palette ID of the tile
+     */
+    private int getNametableAttribute(int offset, int x, int y) {
+        //We read the tile attribute starting at offset 0x03C0 of the selected nametable, the attribute offset is calculated using the tile pos divided by 4
+        int attribute = ppuRead(0x23C0 | offset | ((y >> 2) << 3) | (x >> 2), true);
+        //We select the right attribute depending on the tile pos inside the current 4x4 tile grid
+        if ((y & 0x02) == 0x02)
+            attribute = (attribute >> 4) & 0x00FF;
+        if ((x & 0x02) == 0x02)
+            attribute = (attribute >> 2) & 0x00FF;
+        //We only keep the 2 lsb of the attribute
+        return attribute & 0x03;
+    }
 }
@@ -0,0 +1,235 @@
+package core.ppu;
+
+import exceptions.InvalidFileException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * This class represent the Palette Memory of the PPU and the colors it can output
+ * The 512 system colors (64 colors for each of the 8 emphasis combinations) are stored as packed RGBA ints (0xRRGGBBAA),
+ * the 32 bytes of Palette Memory are kept resolved to packed colors, so a pixel only cost a single array access,
+ * the resolved colors are only recomputed when the Palette Memory or the Mask Register are written
+ */
+public class Palette {
+
+    private static final int NB_COLORS = 0x40;
+    private static final int NB_EMPHASIS = 8;
+    private static final double EMPHASIS_ATTENUATION = 0.816328;
+
+    private static final int[] DEFAULT_COLORS = {
+            0x545454, 0x001E74, 0x081090, 0x300088, 0x440064, 0x5C0030, 0x540400, 0x3C1800,
+            0x202A00, 0x083A00, 0x004000, 0x003C00, 0x00323C, 0x000000, 0x000000, 0x000000,
+            0x989698, 0x084CC4, 0x3032EC, 0x5C1EE4, 0x8814B0, 0xA01464, 0x982220, 0x783C00,
+            0x545A00, 0x287200, 0x087C00, 0x007628, 0x006678, 0x000000, 0x000000, 0x000000,
+            0xECEEEC, 0x4C9AEC, 0x787CEC, 0xB062EC, 0xE454EC, 0xEC58B4, 0xEC6A64, 0xD48820,
+            0xA0AA00, 0x74C400, 0x4CD020, 0x38CC6C, 0x38B4CC, 0x3C3C3C, 0x000000, 0x000000,
+            0xECEEEC, 0xA8CCEC, 0xBCBCEC, 0xD4B2EC, 0xECAEEC, 0xECAED4, 0xECB4B0, 0xE4C490,
+            0xCCD278, 0xB4DE78, 0xA8E290, 0x98E2B4, 0xA0D6E4, 0xA0A2A0, 0x000000, 0x000000,
+    };
+
+    private final int[] system_colors;
+    private final byte[] palette_memory;
+    private final int[] resolved_colors;
+    private final byte[] resolved_indexes;
+
+    private int color_mask = 0x3F;
+    private int emphasis = 0x000;
+
+    /**
+     * Create a new Palette using the default system colors
+     */
+    public Palette() {
+        system_colors = new int[NB_COLORS * NB_EMPHASIS];
+        palette_memory = new byte[32];
+        resolved_colors = new int[32];
+        resolved_indexes = new byte[32];
+        loadDefault();
+    }
+
+    /**
+     * Restore the default system colors
+     */
+    public void loadDefault() {
+        for (int i = 0; i < NB_COLORS; i++) {
+            int rgb = DEFAULT_COLORS[i];
+            system_colors[i] = pack((rgb >> 16) & 0xFF, (rgb >> 8) & 0xFF, rgb & 0xFF);
+        }
+        generateEmphasis();
+        resolveAll();
+    }
+
+    /**
+     * Load the system colors from a .pal file
+     * a file of 192 bytes contains the 64 base colors, the emphasized colors are then generated,
+     * a file of 1536 bytes contains the 64 colors of each of the 8 emphasis combinations
+     *
+     * @param filename the path to the .pal file
+     * @throws InvalidFileException if the file can't be read or doesn't have a valid size
+     */
+    public void load(String filename) throws InvalidFileException {
+        byte[] file;
+        try {
+            file = Files.readAllBytes(Paths.get(filename));
+        } catch (IOException e) {
+            throw new InvalidFileException("Unable to open file \"" + filename + "\"");
+        }
+        if (file.length != NB_COLORS * 3 && file.length != NB_COLORS * NB_EMPHASIS * 3)
+            throw new InvalidFileException("\"" + filename + "\" is not a valid palette file (" + file.length + " bytes)");
+        for (int i = 0; i < file.length / 3; i++)
+            system_colors[i] = pack(file[i * 3] & 0xFF, file[i * 3 + 1] & 0xFF, file[i * 3 + 2] & 0xFF);
+        if (file.length == NB_COLORS * 3)
+            generateEmphasis();
+        resolveAll();
+    }
+
+    /**
+     * Read a value from the Palette Memory
+     *
+     * @param addr the address to read from (only the 5 lsb are considered)
+     * @return the read color index, with the grayscale mask applied
+     */
+    public int read(int addr) {
+        return palette_memory[mirror(addr)] & color_mask;
+    }
+
+    /**
+     * Write a value to the Palette Memory and resolve its color
+     *
+     * @param addr the address to write to (only the 5 lsb are considered)
+     * @param data the color index to write
+     */
+    public void write(int addr, int data) {
+        addr = mirror(addr);
+        palette_memory[addr] = (byte) data;
+        resolve(addr);
+    }
+
+    /**
+     * Update the grayscale and emphasis bits from the Mask Register
+     *
+     * @param mask the value of the Mask Register
+     */
+    public void setMask(int mask) {
+        int new_color_mask = (mask & 0x01) == 0x01 ? 0x30 : 0x3F;
+        int new_emphasis = (mask & 0xE0) << 1;
+        if (new_color_mask != color_mask || new_emphasis != emphasis) {
+            color_mask = new_color_mask;
+            emphasis = new_emphasis;
+            resolveAll();
+        }
+    }
+
+    /**
+     * Return the packed color of an entry of the Palette Memory
+     *
+     * @param addr the address of the entry (palette ID * 4 + pixel ID)
+     * @return the color as a packed RGBA int (0xRRGGBBAA)
+     */
+    public int getColor(int addr) {
+        return resolved_colors[addr & 0x1F];
+    }
+
+    /**
+     * Return the color index of an entry of the Palette Memory
+     *
+     * @param addr the address of the entry (palette ID * 4 + pixel ID)
+     * @return the 6 bits color index, with the grayscale mask applied
+     */
+    public byte getIndex(int addr) {
+        return resolved_indexes[addr & 0x1F];
+    }
+
+    /**
+     * Return the current emphasis bits
+     *
+     * @return the 3 emphasis bits of the Mask Register (red, green, blue)
+     */
+    public byte getEmphasis() {
+        return (byte) (emphasis >> 6);
+    }
+
+    /**
+     * Return a system color
+     *
+     * @param index the color index, emphasis bits included (0x000 - 0x1FF)
+     * @return the color as a packed RGBA int (0xRRGGBBAA)
+     */
+    public int getSystemColor(int index) {
+        return system_colors[index & 0x1FF];
+    }
+
+    /**
+     * Return the Palette Memory address actually accessed
+     * 0x10, 0x14, 0x18 and 0x1C are mirrors of 0x00, 0x04, 0x08 and 0x0C
+     *
+     * @param addr the address to access
+     * @return the address with the mirroring applied
+     */
+    private int mirror(int addr) {
+        addr &= 0x1F;
+        if ((addr & 0x13) == 0x10)
+            addr &= 0x0F;
+        return addr;
+    }
+
+    /**
+     * Resolve an entry of the Palette Memory and its mirror to a color index and a packed color
+     *
+     * @param addr the address of the entry
+     */
+    private void resolve(int addr) {
+        int index = palette_memory[addr] & color_mask;
+        resolved_indexes[addr] = (byte) index;
+        resolved_colors[addr] = system_colors[emphasis | index];
+        //The mirrored entries share the same color
+        if ((addr & 0x03) == 0x00) {
+            resolved_indexes[addr | 0x10] = resolved_indexes[addr];
+            resolved_colors[addr | 0x10] = resolved_colors[addr];
+        }
+    }
+
+    /**
+     * Resolve every entry of the Palette Memory
+     */
+    private void resolveAll() {
+        for (int addr = 0x00; addr < 0x10; addr++)
+            resolve(addr);
+        for (int addr = 0x10; addr < 0x20; addr++)
+            if ((addr & 0x03) != 0x00)
+                resolve(addr);
+    }
+
+    /**
+     * Generate the 7 emphasized sets of colors from the 64 base colors
+     * each emphasis bit attenuates the two other color channels
+     */
+    private void generateEmphasis() {
+        for (int emphasis_bits = 1; emphasis_bits < NB_EMPHASIS; emphasis_bits++) {
+            double red = (emphasis_bits & 0x6) != 0 ? EMPHASIS_ATTENUATION : 1;
+            double green = (emphasis_bits & 0x5) != 0 ? EMPHASIS_ATTENUATION : 1;
+            double blue = (emphasis_bits & 0x3) != 0 ? EMPHASIS_ATTENUATION : 1;
+            for (int i = 0; i < NB_COLORS; i++) {
+                int color = system_colors[i];
+                system_colors[emphasis_bits << 6 | i] = pack(
+                        (int) (((color >>> 24) & 0xFF) * red),
+                        (int) (((color >>> 16) & 0xFF) * green),
+                        (int) (((color >>> 8) & 0xFF) * blue)
+                );
+            }
+        }
+    }
+
+    /**
+     * Pack a color to an RGBA int
+     *
+     * @param red   the red channel (0 - 255)
+     * @param green the green channel (0 - 255)
+     * @param blue  the blue channel (0 - 255)
+     * @return the packed opaque color (0xRRGGBBAA)
+     */
+    private static int pack(int red, int green, int blue) {
+        return red << 24 | green << 16 | blue << 8 | 0xFF;
+    }
+}
@@ -0,0 +1,99 @@
+package core.ppu;
+
+import core.PageTable;
+
+/**
+ * This class represent a cache of the decoded tiles of the Character Memory
+ * each tile is decoded from its 2 bitplanes to 64 pixel IDs (0 - 3) in row major order, along with its horizontally flipped variant
+ * the tiles are identified by their offset in the Character Memory, so a bank switch doesn't invalidate anything,
+ * only a write to Character RAM does
+ */
+public class TileCache {
+
+    public static final int TILE_SIZE = 64;
+
+    private final byte[] memory;
+    private final byte[] pixels;
+    private final byte[] flipped_pixels;
+    private final boolean[] decoded;
+    private final int blank_tile;
+
+    /**
+     * Create a new TileCache, no tile is decoded until requested
+     *
+     * @param memory the Character Memory of the Cartridge
+     */
+    public TileCache(byte[] memory) {
+        this.memory = memory;
+        //An extra blank tile is returned for pages that aren't backed by the Character Memory
+        blank_tile = memory.length >> 4;
+        pixels = new byte[(blank_tile + 1) * TILE_SIZE];
+        flipped_pixels = new byte[(blank_tile + 1) * TILE_SIZE];
+        decoded = new boolean[blank_tile + 1];
+        decoded[blank_tile] = true;
+    }
+
+    /**
+     * Return the position of a decoded tile in the pixel arrays, the tile is decoded if needed
+     *
+     * @param pages the PageTable of the PPU Address space
+     * @param addr  the address of the tile in the Pattern Memory (0x0000 - 0x1FFF)
+     * @return the index of the first pixel of the tile in getPixels() and getFlippedPixels()
+     */
+    public int getTile(PageTable pages, int addr) {
+        if (pages.getMemory(addr) != memory)
+            return blank_tile * TILE_SIZE;
+        int tile = pages.getOffset(addr) >> 4;
+        if (!decoded[tile])
+            decode(tile);
+        return tile * TILE_SIZE;
+    }
+
+    /**
+     * Return the pixel IDs of all the tiles
+     *
+     * @return the pixel IDs, 64 per tile in row major order
+     */
+    public byte[] getPixels() {
+        return pixels;
+    }
+
+    /**
+     * Return the pixel IDs of all the tiles, flipped horizontally
+     *
+     * @return the flipped pixel IDs, 64 per tile in row major order
+     */
+    public byte[] getFlippedPixels() {
+        return flipped_pixels;
+    }
+
+    /**
+     * Mark the tile containing a byte of the Character Memory as outdated
+     * must be called when the Character RAM is written
+     *
+     * @param offset the offset of the written byte in the Character Memory
+     */
+    public void invalidate(int offset) {
+        decoded[offset >> 4] = false;
+    }
+
+    /**
+     * Decode a tile and its flipped variant
+     *
+     * @param tile the index of the tile in the Character Memory
+     */
+    private void decode(int tile) {
+        int base = tile * TILE_SIZE;
+        for (int row = 0; row < 8; row++) {
+            //The 8 bits of the low bitplane are followed by the 8 bits of the high bitplane
+            int lsb = memory[(tile << 4) + row] & 0xFF;
+            int msb = memory[(tile << 4) + row + 8] & 0xFF;
+            for (int col = 0; col < 8; col++) {
+                int pixel = (((msb >> (7 - col)) & 0x1) << 1) | ((lsb >> (7 - col)) & 0x1);
+                pixels[base + (row << 3) + col] = (byte) pixel;
+                flipped_pixels[base + (row << 3) + (7 - col)] = (byte) pixel;
+            }
+        }
+        decoded[tile] = true;
+    }
+}
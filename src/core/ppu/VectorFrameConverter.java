@@ -0,0 +1,55 @@
+package core.ppu;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * This class is the vectorized implementation of FrameConverter
+ * it must only be loaded through FrameConverter, which falls back to a scalar loop if the Vector API isn't available
+ */
+class VectorFrameConverter {
+
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Byte> BYTES = VectorSpecies.of(byte.class, VectorShape.forBitSize(INTS.length() * Byte.SIZE));
+
+    /**
+     * Return whether or not the vectorized conversion is worth using
+     *
+     * @return can a full vector of bytes be widened to a full vector of ints
+     */
+    static boolean isSupported() {
+        return INTS.length() >= 4 && BYTES.length() == INTS.length();
+    }
+
+    /**
+     * Convert an INDEXED frame using a table of the 512 system colors
+     * each step widens a vector of color indexes to ints, offsets them by the emphasis of the scanline
+     * and gathers the corresponding colors from the table
+     *
+     * @param indexes  the color index of each pixel
+     * @param emphasis the emphasis bits of each scanline
+     * @param colors   the 512 colors, indexed by emphasis bits * 64 + color index
+     * @param dest     the array where to store the colors
+     * @param width    the number of pixels in a scanline
+     */
+    static void convert(byte[] indexes, byte[] emphasis, int[] colors, int[] dest, int width) {
+        int[] lookup = new int[INTS.length()];
+        int line_bound = INTS.loopBound(width);
+        for (int y = 0; y < emphasis.length; y++) {
+            int base = (emphasis[y] & 0x07) << 6;
+            int line = y * width;
+            int x = 0;
+            for (; x < line_bound; x += INTS.length()) {
+                IntVector index = (IntVector) ByteVector.fromArray(BYTES, indexes, line + x).convertShape(VectorOperators.B2I, INTS, 0);
+                index.and(0x3F).or(base).intoArray(lookup, 0);
+                IntVector.fromArray(INTS, colors, 0, lookup, 0).intoArray(dest, line + x);
+            }
+            //The end of the scanline if the width isn't a multiple of the vector length
+            for (; x < width; x++)
+                dest[line + x] = colors[base | (indexes[line + x] & 0x3F)];
+        }
+    }
+}
@@ -2,17 +2,11 @@ package core.ppu.registers;
 
 /**
  * This class represent the Control Register of the 2C02 PPU
+ * the value is stored as is, the bits are extracted when queried
  */
 public class ControlRegister {
 
-    private boolean nametable_x = false;
-    private boolean nametable_y = false;
-    private boolean increment_mode = false;
-    private boolean pattern_sprite = false;
-    private boolean pattern_background = false;
-    private boolean sprite_size = false;
-    private boolean slave_mode = false;
-    private boolean enable_nmi = false;
+    private int value = 0x00;
 
     /**
      * Load the Register with an 8bit value
@@ -20,14 +14,7 @@ public class ControlRegister {
      * @param val the value to set (only the 8lsb are considered)
      */
     public void set(int val) {
-        nametable_x = (val & 0x01) == 0x01;
-        nametable_y = (val & 0x02) == 0x02;
-        increment_mode = (val & 0x04) == 0x04;
-        pattern_sprite = (val & 0x08) == 0x08;
-        pattern_background = (val & 0x10) == 0x10;
-        sprite_size = (val & 0x20) == 0x20;
-        slave_mode = (val & 0x40) == 0x40;
-        enable_nmi = (val & 0x80) == 0x80;
+        value = val & 0xFF;
     }
 
     /**
@@ -36,16 +23,7 @@ public class ControlRegister {
      * @return an int with the 8 lsb set accordingly
      */
     public int get() {
-        int val = 0x00;
-        val |= nametable_x ? 0x01 : 0x00;
-        val |= nametable_y ? 0x02 : 0x00;
-        val |= increment_mode ? 0x04 : 0x00;
-        val |= pattern_sprite ? 0x08 : 0x00;
-        val |= pattern_background ? 0x10 : 0x00;
-        val |= sprite_size ? 0x20 : 0x00;
-        val |= slave_mode ? 0x40 : 0x00;
-        val |= enable_nmi ? 0x80 : 0x00;
-        return val & 0xFF;
+        return value;
     }
 
     /**
@@ -54,7 +32,7 @@ public class ControlRegister {
      * @return is the nametable_x bit set
      */
     public boolean isNametableXSet() {
-        return nametable_x;
+        return (value & 0x01) == 0x01;
     }
 
     /**
@@ -63,7 +41,7 @@ public class ControlRegister {
      * @return is the nametable_y bit set
      */
     public boolean isNametableYSet() {
-        return nametable_y;
+        return (value & 0x02) == 0x02;
     }
 
     /**
@@ -72,7 +50,7 @@ public class ControlRegister {
      * @return is the increment_mode bit set
      */
     public boolean isIncrementModeSet() {
-        return increment_mode;
+        return (value & 0x04) == 0x04;
     }
 
     /**
@@ -81,7 +59,7 @@ public class ControlRegister {
      * @return is the pattern_sprite bit set
      */
     public boolean isPatternSpriteSet() {
-        return pattern_sprite;
+        return (value & 0x08) == 0x08;
     }
 
     /**
@@ -90,15 +68,34 @@ public class ControlRegister {
      * @return is the pattern_background bit set
      */
     public boolean isPatternBackgroundSet() {
-        return pattern_background;
+        return (value & 0x10) == 0x10;
     }
+
+    /**
+     * Return the address of the pattern table used by the background
+     *
+     * @return 0x0000 or 0x1000 depending on the pattern_background bit
+     */
+    public int getBackgroundPatternAddress() {
+        return (value & 0x10) << 8;
+    }
+
+    /**
+     * Return the address of the pattern table used by the 8x8 sprites
+     *
+     * @return 0x0000 or 0x1000 depending on the pattern_sprite bit
+     */
+    public int getSpritePatternAddress() {
+        return (value & 0x08) << 9;
+    }
+
     /**
      * Return whether or not the sprite_size bit set
      *
      * @return is the sprite_size bit set
      */
     public boolean isSpriteSizeSet() {
-        return sprite_size;
+        return (value & 0x20) == 0x20;
     }
 
     /**
@@ -107,7 +104,7 @@ public class ControlRegister {
      * @return is the enable_nmi bit set
      */
     public boolean isEnableNmiSet() {
-        return enable_nmi;
+        return (value & 0x80) == 0x80;
     }
 
     @Override
@@ -3,27 +3,25 @@ package core.ppu.registers;
 /**
  * This class represent an abstraction of a PPU address used to render background
  * Credit for this goes to Loopy from the NESDev wiki
+ * the fields are packed in a 15bit value [yyy NN YYYYY XXXXX] (fine_y, nametable_y, nametable_x, coarse_y, coarse_x)
  */
 public class LoopyRegister {
 
-    private int coarse_x = 0x00;
-    private int coarse_y = 0x00;
-    private boolean nametable_x = false;
-    private boolean nametable_y = false;
-    private int fine_y = 0x00;
+    private static final int COARSE_X = 0b000000000011111;
+    private static final int COARSE_Y = 0b000001111100000;
+    private static final int NAMETABLE_X = 0b000010000000000;
+    private static final int NAMETABLE_Y = 0b000100000000000;
+    private static final int FINE_Y = 0b111000000000000;
+
+    private int value = 0x0000;
 
     /**
      * Load the Register with an 16bit value
      *
-     * @param val the value to set (only the 16lsb are considered)
+     * @param val the value to set (only the 15lsb are considered)
      */
     public void set(int val) {
-        coarse_x = val & 0b0000000000011111;
-        coarse_y = ((val & 0b0000001111100000) >> 5) & 0x1F;
-        nametable_x = (val & 0b0000010000000000) == 0b0000010000000000;
-        nametable_y = (val & 0b0000100000000000) == 0b0000100000000000;
-        fine_y = ((val & 0b0111000000000000) >> 12) & 0x07;
-
+        value = val & 0x7FFF;
     }
 
     /**
@@ -32,13 +30,7 @@ public class LoopyRegister {
      * @return an int with the 16 lsb set accordingly
      */
     public int get() {
-        int val = 0x0000;
-        val |= coarse_x & 0xFF;
-        val |= (coarse_y & 0xFF) << 5;
-        val |= nametable_x ? 0b0000010000000000 : 0x0000;
-        val |= nametable_y ? 0b0000100000000000 : 0x0000;
-        val |= (fine_y & 0x0F) << 12;
-        return val & 0xFFFF;
+        return value;
     }
 
     /**
@@ -47,7 +39,7 @@ public class LoopyRegister {
      * @return the coarse_x value (5 lsb)
      */
     public int getCoarseX() {
-        return coarse_x;
+        return value & COARSE_X;
     }
 
     /**
@@ -56,7 +48,7 @@ public class LoopyRegister {
      * @param coarse_x the coarse_x value (only the 5 lsb are considered)
      */
     public void setCoarseX(int coarse_x) {
-        this.coarse_x = coarse_x & 0xFF;
+        value = (value & ~COARSE_X) | (coarse_x & 0x1F);
     }
 
     /**
@@ -65,7 +57,7 @@ public class LoopyRegister {
      * @return the coarse_y value (5 lsb)
      */
     public int getCoarseY() {
-        return coarse_y;
+        return (value & COARSE_Y) >> 5;
     }
 
     /**
@@ -74,7 +66,7 @@ public class LoopyRegister {
      * @param coarse_y the coarse_y value (only the 5 lsb are considered)
      */
     public void setCoarseY(int coarse_y) {
-        this.coarse_y = coarse_y & 0xFF;
+        value = (value & ~COARSE_Y) | ((coarse_y & 0x1F) << 5);
     }
 
     /**
@@ -83,7 +75,7 @@ public class LoopyRegister {
      * @return is the nametable_x bit set
      */
     public boolean isNametableXSet() {
-        return nametable_x;
+        return (value & NAMETABLE_X) == NAMETABLE_X;
     }
 
     /**
@@ -92,7 +84,7 @@ public class LoopyRegister {
      * @param nametable_x is the nametable_x bit high
      */
     public void setNametableX(boolean nametable_x) {
-        this.nametable_x = nametable_x;
+        value = nametable_x ? value | NAMETABLE_X : value & ~NAMETABLE_X;
     }
 
     /**
@@ -101,7 +93,7 @@ public class LoopyRegister {
      * @return is the nametable_y bit set
      */
     public boolean isNametableYSet() {
-        return nametable_y;
+        return (value & NAMETABLE_Y) == NAMETABLE_Y;
     }
 
     /**
@@ -110,7 +102,7 @@ public class LoopyRegister {
      * @param nametable_y is the nametable_y bit high
      */
     public void setNametableY(boolean nametable_y) {
-        this.nametable_y = nametable_y;
+        value = nametable_y ? value | NAMETABLE_Y : value & ~NAMETABLE_Y;
     }
 
     /**
@@ -119,16 +111,67 @@ public class LoopyRegister {
      * @return the fine_y value (3 lsb)
      */
     public int getFineY() {
-        return fine_y;
+        return (value & FINE_Y) >> 12;
     }
 
     /**
      * Set the fine_y value of the register
      *
-     * @param fine_y the fine_y value
+     * @param fine_y the fine_y value (only the 3 lsb are considered)
      */
     public void setFineY(int fine_y) {
-        this.fine_y = fine_y & 0x0F;
+        value = (value & ~FINE_Y) | ((fine_y & 0x07) << 12);
+    }
+
+    /**
+     * Move the register to the next tile of the row
+     * when leaving the nametable horizontally, we wrap around to the next one
+     */
+    public void incrementX() {
+        if ((value & COARSE_X) == 31)
+            value = (value & ~COARSE_X) ^ NAMETABLE_X;
+        else
+            value++;
+    }
+
+    /**
+     * Move the register to the next row of pixels
+     * when leaving the 30 tile rows of the nametable vertically, we wrap around to the next one
+     * rows 30 and 31 (the attributes) wrap to the top of the same nametable
+     */
+    public void incrementY() {
+        //If we are still in the same tile row
+        if ((value & FINE_Y) != FINE_Y) {
+            value += 0x1000;
+            return;
+        }
+        value &= ~FINE_Y;
+        int coarse_y = (value & COARSE_Y) >> 5;
+        //If we are at le last tile row, we skip the attributes and switch to the next nametable
+        if (coarse_y == 29)
+            value = (value & ~COARSE_Y) ^ NAMETABLE_Y;
+        else if (coarse_y == 31)
+            value &= ~COARSE_Y;
+        else
+            value += 0x20;
+    }
+
+    /**
+     * Copy the horizontal position (coarse_x and nametable_x) of another register
+     *
+     * @param other the register to copy from
+     */
+    public void copyX(LoopyRegister other) {
+        value = (value & ~(COARSE_X | NAMETABLE_X)) | (other.value & (COARSE_X | NAMETABLE_X));
+    }
+
+    /**
+     * Copy the vertical position (fine_y, coarse_y and nametable_y) of another register
+     *
+     * @param other the register to copy from
+     */
+    public void copyY(LoopyRegister other) {
+        value = (value & ~(FINE_Y | COARSE_Y | NAMETABLE_Y)) | (other.value & (FINE_Y | COARSE_Y | NAMETABLE_Y));
     }
 
     @Override
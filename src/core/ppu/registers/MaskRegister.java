@@ -2,17 +2,16 @@ package core.ppu.registers;
 
 /**
  * This class represent the Mask Register of the 2C02 PPU
+ * the value is stored as is, the flags queried on every dot are cached when the Register is written
  */
 public class MaskRegister {
 
-    private boolean grayscale = false;
-    private boolean render_background_left = false;
-    private boolean render_sprite_left = false;
+    private int value = 0x00;
     private boolean render_background = false;
     private boolean render_sprites = false;
-    private boolean enhance_red = false;
-    private boolean enhance_green = false;
-    private boolean enhance_blue = false;
+    private boolean rendering = false;
+    private int background_start = Integer.MAX_VALUE;
+    private int sprite_start = Integer.MAX_VALUE;
 
     /**
      * Load the Register with an 8bit value
@@ -20,14 +19,13 @@ public class MaskRegister {
      * @param val the value to set (only the 8lsb are considered)
      */
     public void set(int val) {
-        grayscale = (val & 0x01) == 0x01;
-        render_background_left = (val & 0x02) == 0x02;
-        render_sprite_left = (val & 0x04) == 0x04;
+        value = val & 0xFF;
         render_background = (val & 0x08) == 0x08;
         render_sprites = (val & 0x10) == 0x10;
-        enhance_red = (val & 0x20) == 0x20;
-        enhance_green = (val & 0x40) == 0x40;
-        enhance_blue = (val & 0x80) == 0x80;
+        rendering = render_background || render_sprites;
+        //When the left 8 pixels are clipped, the layer is only visible from the 9th dot
+        background_start = render_background ? ((val & 0x02) == 0x02 ? 1 : 9) : Integer.MAX_VALUE;
+        sprite_start = render_sprites ? ((val & 0x04) == 0x04 ? 1 : 9) : Integer.MAX_VALUE;
     }
 
     /**
@@ -36,16 +34,7 @@ public class MaskRegister {
      * @return an int with the 8 lsb set accordingly
      */
     public int get() {
-        int val = 0x00;
-        val |= grayscale ? 0x01 : 0x00;
-        val |= render_background_left ? 0x02 : 0x00;
-        val |= render_sprite_left ? 0x04 : 0x00;
-        val |= render_background ? 0x08 : 0x00;
-        val |= render_sprites ? 0x10 : 0x00;
-        val |= enhance_red ? 0x20 : 0x00;
-        val |= enhance_green ? 0x40 : 0x00;
-        val |= enhance_blue ? 0x80 : 0x00;
-        return val & 0xFF;
+        return value;
     }
 
     /**
@@ -54,7 +43,7 @@ public class MaskRegister {
      * @return is the grayscale bit set
      */
     public boolean isGrayscaleSet() {
-        return grayscale;
+        return (value & 0x01) == 0x01;
     }
 
     /**
@@ -63,7 +52,7 @@ public class MaskRegister {
      * @return is the render_background_left bit set
      */
     public boolean isRenderBackgroundLeftSet() {
-        return render_background_left;
+        return (value & 0x02) == 0x02;
     }
 
     /**
@@ -72,7 +61,7 @@ public class MaskRegister {
      * @return is the render_sprite_left bit set
      */
     public boolean isRenderSpriteLeftSet() {
-        return render_sprite_left;
+        return (value & 0x04) == 0x04;
     }
 
     /**
@@ -93,6 +82,36 @@ public class MaskRegister {
         return render_sprites;
     }
 
+    /**
+     * Return whether or not the PPU is rendering (render_background or render_sprites bit set)
+     * which enables the fetches and the updates of the VRAM address
+     *
+     * @return is the background or the sprite rendering enabled
+     */
+    public boolean isRenderingEnabled() {
+        return rendering;
+    }
+
+    /**
+     * Return the first dot of a scanline where the background is visible
+     * taking the render_background and render_background_left bits into account
+     *
+     * @return the first dot with a visible background, Integer.MAX_VALUE if the background isn't rendered
+     */
+    public int getBackgroundStart() {
+        return background_start;
+    }
+
+    /**
+     * Return the first dot of a scanline where the sprites are visible
+     * taking the render_sprites and render_sprite_left bits into account
+     *
+     * @return the first dot with visible sprites, Integer.MAX_VALUE if the sprites aren't rendered
+     */
+    public int getSpriteStart() {
+        return sprite_start;
+    }
+
     @Override
     public String toString() {
         return String.format("%02X ", get()) + "[" + Integer.toBinaryString(get()) + "]";
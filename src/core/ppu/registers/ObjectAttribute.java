@@ -3,36 +3,22 @@ package core.ppu.registers;
 /**
  * This class represent on Object Attribute Entry
  * is basically represents a sprites
+ * it is a read only view over 4 bytes of the Object Attribute Memory [y, id, attribute, x]
  */
 public class ObjectAttribute {
 
-    private int y = 0x00;
-    private int id = 0x00;
-    private int attribute = 0x00;
-    private int x = 0x00;
+    private final byte[] oam;
+    private final int base;
 
     /**
-     * Set all field to a specified val
+     * Create a view of an entry of the Object Attribute Memory
      *
-     * @param val the val to fill with
+     * @param oam   the Object Attribute Memory (256 bytes)
+     * @param index the index of the entry (0 - 63)
      */
-    public void clear(int val) {
-        y = val;
-        id = val;
-        attribute = val;
-        x = val;
-    }
-
-    /**
-     * Copy the value of another ObjectAttribute
-     *
-     * @param o the ObjectAttribute to copy
-     */
-    public void set(ObjectAttribute o) {
-        y = o.y;
-        x = o.x;
-        attribute = o.attribute;
-        id = o.id;
+    public ObjectAttribute(byte[] oam, int index) {
+        this.oam = oam;
+        this.base = index << 2;
     }
 
     /**
@@ -42,17 +28,7 @@ public class ObjectAttribute {
      * @return the y coordinate of the ObjectAttribute
      */
     public int getY() {
-        return y & 0xFF;
-    }
-
-    /**
-     * Set the y coordinate of the ObjectAttribute
-     * which represent the y coordinate of the top-left corner of the sprite
-     *
-     * @param y the new y coordinate of the ObjectAttribute
-     */
-    public void setY(int y) {
-        this.y = y & 0xFF;
+        return oam[base] & 0xFF;
     }
 
     /**
@@ -62,17 +38,7 @@ public class ObjectAttribute {
      * @return the id of the ObjectAttribute
      */
     public int getId() {
-        return id & 0xFF;
-    }
-
-    /**
-     * Set the id the the ObjectAttribute
-     * which is basically the Tile ID used to index the Tile in the Pattern Tables
-     *
-     * @param id the new id of the ObjectAttribute
-     */
-    public void setId(int id) {
-        this.id = id & 0xFF;
+        return oam[base + 1] & 0xFF;
     }
 
     /**
@@ -82,17 +48,7 @@ public class ObjectAttribute {
      * @return the attribute of the ObjectAttribute
      */
     public int getAttribute() {
-        return attribute & 0xFF;
-    }
-
-    /**
-     * Return the attribute of the ObjectAttribute
-     * which indicate the palette and priority of the sprite and whether or not the sprite is flipped horizontally or vertically
-     *
-     * @param attribute the new attribute of the ObjectAttribute
-     */
-    public void setAttribute(int attribute) {
-        this.attribute = attribute & 0xFF;
+        return oam[base + 2] & 0xFF;
     }
 
     /**
@@ -102,16 +58,6 @@ public class ObjectAttribute {
      * @return the x coordinate of the ObjectAttribute
      */
     public int getX() {
-        return x & 0xFF;
-    }
-
-    /**
-     * Set the x coordinate of the ObjectAttribute
-     * which represent the x coordinate of the top-left corner of the sprite
-     *
-     * @param x the new x coordinate of the ObjectAttribute
-     */
-    public void setX(int x) {
-        this.x = x & 0xFF;
+        return oam[base + 3] & 0xFF;
     }
 }
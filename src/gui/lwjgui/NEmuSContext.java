@@ -2,8 +2,14 @@ package gui.lwjgui;
 
 import core.AudioEngine;
 import core.NES;
+import core.apu.ResamplerQuality;
+import core.apu.SynthesisMode;
 import core.cartridge.Cartridge;
+import core.ppu.FrameBuffer;
+import core.ppu.FrameSkipMode;
+import core.ppu.OutputMode;
 import core.ppu.PPU_2C02;
+import core.ppu.Palette;
 import exceptions.InvalidFileException;
 import exceptions.UnsupportedMapperException;
 import gui.inputs.InputMapper;
@@ -17,16 +23,19 @@ import net.beadsproject.beads.core.AudioContext;
 import net.beadsproject.beads.core.io.JavaSoundAudioIO;
 import net.beadsproject.beads.ugens.Function;
 import net.beadsproject.beads.ugens.WaveShaper;
+import org.lwjgl.BufferUtils;
 import openGL.Fbo;
 import openGL.Quad;
 import openGL.filters.Pipeline;
 import openGL.shader.ShaderProgram;
+import openGL.shader.uniform.UniformInteger;
 import openGL.Texture;
 import utils.Dialogs;
 
 import javax.sound.sampled.AudioSystem;
 import javax.sound.sampled.Mixer;
 import java.io.EOFException;
+import java.nio.ByteBuffer;
 
 import static org.lwjgl.opengl.GL11.*;
 
@@ -40,17 +49,30 @@ public class NEmuSContext implements Renderer {
     private final InputMapper inputMapper;
     private final Fbo fbo;
     private final Texture screen_texture;
+    private final Texture index_texture;
+    private final Texture emphasis_texture;
+    private final Texture palette_texture;
+    private final ByteBuffer index_upload;
+    private final ByteBuffer emphasis_upload;
+    private final int[] palette_upload;
+    private final UniformInteger emphasis_sampler;
+    private final UniformInteger palette_sampler;
     private final Quad screen_quad;
     private final AudioEngine audioEngine;
 
     private ShaderProgram default_shader;
+    private ShaderProgram indexed_shader;
     private Pipeline pipeline;
     private String requested_rom;
     private boolean load_rom_requested = false;
+    private String requested_palette;
+    private boolean load_palette_requested = false;
     private boolean reset_requested = false;
-    public boolean emulation_running = false;
+    public volatile boolean emulation_running = false;
     private boolean redraw = false;
     private boolean started = false;
+    private long displayed_frame = 0;
+    private OutputMode displayed_mode = OutputMode.RGBA;
 
     /**
      * Create a new emulator context
@@ -64,7 +86,16 @@ public class NEmuSContext implements Renderer {
 
         //We enable texture and create the quad, fbo and texture used to render
         glEnable(GL_TEXTURE_2D);
-        screen_texture = new Texture(PPU_2C02.SCREEN_WIDTH, PPU_2C02.SCREEN_HEIGHT, nes.getPpu().getScreenBuffer());
+        screen_texture = new Texture(PPU_2C02.SCREEN_WIDTH, PPU_2C02.SCREEN_HEIGHT, nes.getPpu().getFrameBuffer().getPixels());
+        //INDEXED frames are uploaded as is and expanded by a shader using the emphasis of each scanline and the 512 system colors
+        index_upload = BufferUtils.createByteBuffer(PPU_2C02.SCREEN_WIDTH * PPU_2C02.SCREEN_HEIGHT);
+        emphasis_upload = BufferUtils.createByteBuffer(PPU_2C02.SCREEN_HEIGHT);
+        palette_upload = new int[0x200];
+        index_texture = new Texture(PPU_2C02.SCREEN_WIDTH, PPU_2C02.SCREEN_HEIGHT, index_upload, GL_RED);
+        emphasis_texture = new Texture(PPU_2C02.SCREEN_HEIGHT, 1, emphasis_upload, GL_RED);
+        palette_texture = new Texture(0x40, 0x8, palette_upload);
+        emphasis_sampler = new UniformInteger("emphasis", 1);
+        palette_sampler = new UniformInteger("palette", 2);
         fbo = new Fbo(PPU_2C02.SCREEN_WIDTH, PPU_2C02.SCREEN_HEIGHT);
         screen_quad = new Quad();
 
@@ -72,6 +103,12 @@ public class NEmuSContext implements Renderer {
         try {
             pipeline = new Pipeline(screen_quad);
             default_shader = new ShaderProgram("shaders/vertex.glsl", "shaders/filters/no_filter.glsl");
+            indexed_shader = new ShaderProgram("shaders/vertex.glsl", "shaders/indexed.glsl");
+            indexed_shader.storeAllUniformLocations(emphasis_sampler, palette_sampler);
+            indexed_shader.bind();
+            emphasis_sampler.loadDefault();
+            palette_sampler.loadDefault();
+            indexed_shader.unbind();
         } catch (Exception e) {
             Platform.runLater(() -> Dialogs.showException("Shader Error", "An error occur during Shader Compilation", e));
             cleanUp();
@@ -83,14 +120,18 @@ public class NEmuSContext implements Renderer {
     }
 
     /**
-     * Clean up the memory, kill the windows and stop the audio context
+     * Clean up the memory, kill the windows, stop the emulation thread and the audio context
      */
     void cleanUp() {
         pipeline.cleanUp();
         default_shader.cleanUp();
+        indexed_shader.cleanUp();
         screen_texture.cleanUp();
+        index_texture.cleanUp();
+        emphasis_texture.cleanUp();
+        palette_texture.cleanUp();
         fbo.cleanUp();
-        audioEngine.stop();
+        audioEngine.shutdown();
     }
 
     /**
@@ -161,13 +202,25 @@ public class NEmuSContext implements Renderer {
             }
         }
 
+        //If a palette load has been requested
+        if (load_palette_requested) {
+            load_palette_requested = false;
+            //The emulation thread resolves every pixel through the palette, it must not run while the palette is rewritten
+            synchronized (nes) {
+                try {
+                    nes.getPpu().loadPalette(requested_palette);
+                } catch (InvalidFileException e) {
+                    Platform.runLater(() -> Dialogs.showException("Palette Loading Error", "An error occur during Palette Loading", e));
+                }
+            }
+        }
+
         //If a Reset has been requested
         if (reset_requested) {
             reset_requested = false;
-            boolean running = emulation_running;
-            emulation_running = false;
-            nes.reset();
-            emulation_running = running;
+            synchronized (nes) {
+                nes.reset();
+            }
         }
 
 
@@ -176,7 +229,13 @@ public class NEmuSContext implements Renderer {
             nes.getPpu().frame_complete = false;
             glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
             InputHandling();
-            screen_texture.load(nes.getPpu().getScreenBuffer());
+            //We only upload the frame if it hasn't been displayed yet
+            FrameBuffer frame_buffer = nes.getPpu().getFrameBuffer();
+            frame_buffer.acquire();
+            if (frame_buffer.getSequence() != displayed_frame || redraw) {
+                loadFrame(frame_buffer);
+                displayed_frame = frame_buffer.getSequence();
+            }
             if (redraw)
                 redraw = false;
         }
@@ -190,15 +249,49 @@ public class NEmuSContext implements Renderer {
      */
     private void renderGameScreen() {
         fbo.bindFrameBuffer();
-        default_shader.bind();
-        screen_texture.bind();
-        screen_quad.render(PPU_2C02.SCREEN_WIDTH, PPU_2C02.SCREEN_HEIGHT);
-        screen_texture.unbind();
-        default_shader.unbind();
+        if (displayed_mode == OutputMode.INDEXED) {
+            indexed_shader.bind();
+            emphasis_texture.bind(1);
+            palette_texture.bind(2);
+            index_texture.bind(0);
+            screen_quad.render(PPU_2C02.SCREEN_WIDTH, PPU_2C02.SCREEN_HEIGHT);
+            index_texture.unbind();
+            indexed_shader.unbind();
+        } else {
+            default_shader.bind();
+            screen_texture.bind();
+            screen_quad.render(PPU_2C02.SCREEN_WIDTH, PPU_2C02.SCREEN_HEIGHT);
+            screen_texture.unbind();
+            default_shader.unbind();
+        }
         fbo.unbindFrameBuffer();
         pipeline.postProcess(fbo.getTexture());
     }
 
+    /**
+     * Upload the front buffer of the PPU to the textures used to render the Game Window
+     * RGBA frames are uploaded directly, INDEXED frames are uploaded with their scanline emphasis and the system colors
+     *
+     * @param frameBuffer the FrameBuffer of the PPU, already acquired
+     */
+    private void loadFrame(FrameBuffer frameBuffer) {
+        displayed_mode = frameBuffer.getOutputMode();
+        if (displayed_mode == OutputMode.INDEXED) {
+            index_upload.clear();
+            index_upload.put(frameBuffer.getIndexes()).flip();
+            index_texture.load(index_upload);
+            emphasis_upload.clear();
+            emphasis_upload.put(frameBuffer.getEmphasis()).flip();
+            emphasis_texture.load(emphasis_upload);
+            Palette palette = nes.getPpu().getPalette();
+            for (int i = 0; i < palette_upload.length; i++)
+                palette_upload[i] = palette.getSystemColor(i);
+            palette_texture.load(palette_upload);
+        } else {
+            screen_texture.load(frameBuffer.getPixels());
+        }
+    }
+
     /**
      * Notify the emulator that it needs to load a ROM on the next game loop
      *
@@ -209,6 +302,16 @@ public class NEmuSContext implements Renderer {
         load_rom_requested = true;
     }
 
+    /**
+     * Notify the emulator that it needs to load a palette on the next game loop
+     *
+     * @param filename the .pal file to load
+     */
+    void fireLoadPaletteEvent(String filename) {
+        requested_palette = filename;
+        load_palette_requested = true;
+    }
+
     /**
      * Notify the emulator that it needs to reset on the next game loop
      */
@@ -217,6 +320,15 @@ public class NEmuSContext implements Renderer {
             reset_requested = true;
     }
 
+    /**
+     * Return the Audio Engine, which runs the emulation and feeds the audio output
+     *
+     * @return the Audio Engine
+     */
+    public AudioEngine getAudioEngine() {
+        return audioEngine;
+    }
+
     /**
      * Return the current post processing pipeline
      *
@@ -241,13 +353,15 @@ public class NEmuSContext implements Renderer {
      */
     public void frameStepEvent() {
         if (!emulation_running && started) {
-            do {
-                nes.clock(false);
-            } while (!nes.getPpu().frame_complete);
-            do {
-                nes.clock(false);
-            } while (nes.getCpu().complete());
-            nes.getPpu().frame_complete = false;
+            synchronized (nes) {
+                do {
+                    nes.clock(false);
+                } while (!nes.getPpu().frame_complete);
+                do {
+                    nes.clock(false);
+                } while (nes.getCpu().complete());
+                nes.getPpu().frame_complete = false;
+            }
             redraw = true;
         }
     }
@@ -257,14 +371,16 @@ public class NEmuSContext implements Renderer {
      */
     public void cpuStepEvent() {
         if (!emulation_running && started) {
-            do {
-                nes.clock(false);
-            } while (!nes.getCpu().complete());
-            do {
-                nes.clock(false);
-            } while (nes.getCpu().complete());
-            if (nes.getPpu().frame_complete) {
-                nes.getPpu().frame_complete = false;
+            synchronized (nes) {
+                do {
+                    nes.clock(false);
+                } while (!nes.getCpu().complete());
+                do {
+                    nes.clock(false);
+                } while (nes.getCpu().complete());
+                if (nes.getPpu().frame_complete) {
+                    nes.getPpu().frame_complete = false;
+                }
             }
         }
         redraw = true;
@@ -297,6 +413,28 @@ public class NEmuSContext implements Renderer {
         nes.toggleRawAudio(raw);
     }
 
+    /**
+     * Set the way the APU channels are turned into audio samples
+     *
+     * @param mode the SynthesisMode to use
+     */
+    public void setSynthesisMode(SynthesisMode mode) {
+        synchronized (nes) {
+            nes.getApu().setSynthesisMode(mode);
+        }
+    }
+
+    /**
+     * Set the quality tier of the resampler used by the SINC synthesis mode
+     *
+     * @param quality the ResamplerQuality to use
+     */
+    public void setResamplerQuality(ResamplerQuality quality) {
+        synchronized (nes) {
+            nes.getApu().setResamplerQuality(quality);
+        }
+    }
+
     /**
      * Return the current InputMapper
      *
@@ -365,6 +503,35 @@ public class NEmuSContext implements Renderer {
         nes.getApu().setLinear(linear);
     }
 
+    /**
+     * Set the frame skipping policy of the PPU
+     * the skipped frames are emulated normally but aren't drawn
+     *
+     * @param mode   the frame skipping mode
+     * @param amount the maximum number of consecutive frames to skip, or the interval between 2 rendered frames
+     */
+    public void setFrameSkip(FrameSkipMode mode, int amount) {
+        nes.getPpu().getFrameSkipper().setMode(mode, amount);
+    }
+
+    /**
+     * Return the current frame skipping mode of the PPU
+     *
+     * @return the current frame skipping mode
+     */
+    public FrameSkipMode getFrameSkipMode() {
+        return nes.getPpu().getFrameSkipper().getMode();
+    }
+
+    /**
+     * Return the current frame skipping amount of the PPU
+     *
+     * @return the current frame skipping amount
+     */
+    public int getFrameSkipAmount() {
+        return nes.getPpu().getFrameSkipper().getAmount();
+    }
+
     /**
      * Return the current NES of the emulator
      *
@@ -402,6 +569,24 @@ public class NEmuSContext implements Renderer {
         return nes.getApu().isRAWAudioEnabled();
     }
 
+    /**
+     * Return the way the APU channels are turned into audio samples
+     *
+     * @return the current SynthesisMode
+     */
+    public SynthesisMode getSynthesisMode() {
+        return nes.getApu().getSynthesisMode();
+    }
+
+    /**
+     * Return the quality tier of the resampler used by the SINC synthesis mode
+     *
+     * @return the current ResamplerQuality
+     */
+    public ResamplerQuality getResamplerQuality() {
+        return nes.getApu().getResamplerQuality();
+    }
+
     /**
      * Return whether or not Pulse 1 is enabled
      *
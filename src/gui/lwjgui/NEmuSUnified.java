@@ -69,6 +69,18 @@ public class NEmuSUnified extends LWJGUIApplication {
             }
         }));
 
+        MenuItem palette = new MenuItem("Load Palette");
+        palette.setOnAction(actionEvent -> Platform.runLater( () -> {
+            FileChooser paletteLoader = new FileChooser();
+            paletteLoader.setInitialDirectory(new File(currentDirectory));
+            paletteLoader.getExtensionFilters().add(new FileChooser.ExtensionFilter("Palette file", "*.pal"));
+            File file = paletteLoader.showOpenDialog(null);
+            if (file != null) {
+                currentDirectory = file.getAbsolutePath().replace(file.getName(), "");
+                emulator.fireLoadPaletteEvent(file.getAbsolutePath());
+            }
+        }));
+
         MenuItem pause = new MenuItem("Pause/Resume");
         pause.setOnAction(actionEvent -> emulator.pause());
 
@@ -167,6 +179,7 @@ public class NEmuSUnified extends LWJGUIApplication {
 
         Menu file = new Menu("File");
         file.getItems().add(load);
+        file.getItems().add(palette);
         menu.getItems().add(file);
 
         Menu emulation = new Menu("Emulation");
@@ -1,5 +1,6 @@
 package gui.lwjgui.windows;
 
+import core.apu.APU_2A03;
 import gui.lwjgui.NEmuSUnified;
 import gui.lwjgui.NEmuSContext;
 import javafx.application.Application;
@@ -16,7 +17,6 @@ import utils.AudioSampleCollection;
 import utils.Dialogs;
 
 import java.net.URL;
-import java.util.Queue;
 import java.util.ResourceBundle;
 
 /**
@@ -27,6 +27,7 @@ public class APUViewer extends Application implements Initializable {
     private static APUViewer instance;
 
     private final NEmuSContext emulator;
+    private final AudioSampleCollection[] samples;
     private Stage stage;
 
     @FXML
@@ -47,6 +48,9 @@ public class APUViewer extends Application implements Initializable {
      */
     public APUViewer() {
         this.emulator = NEmuSUnified.getInstance().getEmulator();
+        samples = new AudioSampleCollection[APU_2A03.VISUALIZER_SAMPLE_SIZE];
+        for (int i = 0; i < samples.length; i++)
+            samples[i] = new AudioSampleCollection();
     }
 
     /**
@@ -101,7 +105,7 @@ public class APUViewer extends Application implements Initializable {
         while(instance != null) {
             if (emulator.isEmulationRunning()) {
                 Platform.runLater(() -> {
-                    Queue<AudioSampleCollection> samples = emulator.getNes().getApu().getAudioVisualizerQueue();
+                    int count = emulator.getNes().getApu().getAudioVisualizerSamples(samples);
                     pulse_1_canvas.getGraphicsContext2D().fillRect(0, 0, 512, 100);
                     pulse_2_canvas.getGraphicsContext2D().fillRect(0, 0, 512, 100);
                     triangle_canvas.getGraphicsContext2D().fillRect(0, 0, 512, 100);
@@ -115,18 +119,16 @@ public class APUViewer extends Application implements Initializable {
                     dmc_canvas.getGraphicsContext2D().setStroke(Color.WHITE);
                     mixer_canvas.getGraphicsContext2D().setStroke(Color.WHITE);
                     int index = 0;
-                    AudioSampleCollection last = samples.poll();
-                    for (AudioSampleCollection sample : samples) {
-                        if (last != null) {
-                            pulse_1_canvas.getGraphicsContext2D().strokeLine(index, 90 - last.pulse1 * 110, index + 2, 90 - sample.pulse1 * 110);
-                            pulse_2_canvas.getGraphicsContext2D().strokeLine(index, 90 - last.pulse2 * 110, index + 2, 90 - sample.pulse2 * 110);
-                            triangle_canvas.getGraphicsContext2D().strokeLine(index, 90 - last.triangle * 110, index + 2, 90 - sample.triangle * 110);
-                            noise_canvas.getGraphicsContext2D().strokeLine(index, 90 - last.noise * 110, index + 2, 90 - sample.noise * 110);
-                            dmc_canvas.getGraphicsContext2D().strokeLine(index, 90 - last.dmc * 110, index + 2, 90 - sample.dmc * 110);
-                            mixer_canvas.getGraphicsContext2D().strokeLine(index, 90 - last.mixer * 110, index + 2, 90 - sample.mixer * 110);
-                        }
+                    for (int i = 1; i < count; i++) {
+                        AudioSampleCollection last = samples[i - 1];
+                        AudioSampleCollection sample = samples[i];
+                        pulse_1_canvas.getGraphicsContext2D().strokeLine(index, 90 - last.pulse1 * 110, index + 2, 90 - sample.pulse1 * 110);
+                        pulse_2_canvas.getGraphicsContext2D().strokeLine(index, 90 - last.pulse2 * 110, index + 2, 90 - sample.pulse2 * 110);
+                        triangle_canvas.getGraphicsContext2D().strokeLine(index, 90 - last.triangle * 110, index + 2, 90 - sample.triangle * 110);
+                        noise_canvas.getGraphicsContext2D().strokeLine(index, 90 - last.noise * 110, index + 2, 90 - sample.noise * 110);
+                        dmc_canvas.getGraphicsContext2D().strokeLine(index, 90 - last.dmc * 110, index + 2, 90 - sample.dmc * 110);
+                        mixer_canvas.getGraphicsContext2D().strokeLine(index, 90 - last.mixer * 110, index + 2, 90 - sample.mixer * 110);
                         index += 2;
-                        last = sample;
                     }
                 });
             }
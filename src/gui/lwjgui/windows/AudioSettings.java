@@ -2,6 +2,8 @@ package gui.lwjgui.windows;
 
 import core.AudioEngine;
 import core.apu.APU_2A03;
+import core.apu.ResamplerQuality;
+import core.apu.SynthesisMode;
 import core.apu.channels.components.pulse.Oscillator;
 import gui.lwjgui.NEmuSUnified;
 import gui.lwjgui.NEmuSContext;
@@ -62,6 +64,10 @@ public class AudioSettings extends Application implements Initializable {
     private CheckBox linearCheck;
     @FXML
     private ComboBox<AudioOutput> audioOutCombo;
+    @FXML
+    private ComboBox<SynthesisMode> synthesisCombo;
+    @FXML
+    private ComboBox<ResamplerQuality> resamplerQualityCombo;
 
 
     /**
@@ -113,6 +119,10 @@ public class AudioSettings extends Application implements Initializable {
         linearCheck.setSelected(emulator.isLinear());
         audioOutCombo.getItems().addAll(audioEngine.getValidOutputs());
         audioOutCombo.getSelectionModel().select(audioEngine.getSelectedOutput());
+        synthesisCombo.getItems().addAll(SynthesisMode.values());
+        synthesisCombo.getSelectionModel().select(emulator.getSynthesisMode());
+        resamplerQualityCombo.getItems().addAll(ResamplerQuality.values());
+        resamplerQualityCombo.getSelectionModel().select(emulator.getResamplerQuality());
     }
 
     @Override
@@ -143,6 +153,27 @@ public class AudioSettings extends Application implements Initializable {
     @FXML
     public void fireRawAudioEvent() {
         emulator.fireRawAudioEvent(rawAudioCheck.isSelected());
+        synthesisCombo.getSelectionModel().select(emulator.getSynthesisMode());
+    }
+
+    /**
+     * Will change the way the APU channels are turned into audio samples
+     */
+    @FXML
+    public void synthesisEvent() {
+        if (synthesisCombo.getSelectionModel().getSelectedItem() != null) {
+            emulator.setSynthesisMode(synthesisCombo.getSelectionModel().getSelectedItem());
+            rawAudioCheck.setSelected(emulator.isRAWAudioEnabled());
+        }
+    }
+
+    /**
+     * Will change the quality tier of the resampler used by the SINC synthesis mode
+     */
+    @FXML
+    public void resamplerQualityEvent() {
+        if (resamplerQualityCombo.getSelectionModel().getSelectedItem() != null)
+            emulator.setResamplerQuality(resamplerQualityCombo.getSelectionModel().getSelectedItem());
     }
 
     /**
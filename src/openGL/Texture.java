@@ -2,6 +2,8 @@ package openGL;
 
 import org.lwjgl.opengl.GL11;
 import org.lwjgl.opengl.GL12;
+import org.lwjgl.opengl.GL13;
+import org.lwjgl.opengl.GL30;
 
 import java.nio.ByteBuffer;
 
@@ -15,6 +17,7 @@ public class Texture {
     private final int id;
     private final int width;
     private final int height;
+    private final int format;
 
     /**
      * Create a Texture of specified size and fill it using a ByteBuffer
@@ -24,8 +27,21 @@ public class Texture {
      * @param buf    the buffer containing the pixel values
      */
     public Texture(int width, int height, ByteBuffer buf) {
+        this(width, height, buf, GL_RGBA);
+    }
+
+    /**
+     * Create a Texture of specified size and format and fill it using a ByteBuffer
+     *
+     * @param width  the width of the Texture
+     * @param height the height of the Texture
+     * @param buf    the buffer containing the pixel values
+     * @param format the format of the pixels (GL_RGBA, or GL_RED for 8bit single channel textures)
+     */
+    public Texture(int width, int height, ByteBuffer buf, int format) {
         this.width = width;
         this.height = height;
+        this.format = format;
         //Generate the texture
         id = glGenTextures();
         bind();
@@ -35,7 +51,19 @@ public class Texture {
         GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_S, GL12.GL_CLAMP_TO_EDGE);
         GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_T, GL12.GL_CLAMP_TO_EDGE);
         //Load the buffer in VRAM
-        glTexImage2D(GL_TEXTURE_2D, 0, GL_RGBA, width, height, 0, GL_RGBA, GL_UNSIGNED_BYTE, buf);
+        load(buf);
+    }
+
+    /**
+     * Create a Texture of specified size and fill it using packed RGBA pixels
+     *
+     * @param width  the width of the Texture
+     * @param height the height of the Texture
+     * @param pixels the pixels as packed RGBA ints (0xRRGGBBAA)
+     */
+    public Texture(int width, int height, int[] pixels) {
+        this(width, height, (ByteBuffer) null);
+        load(pixels);
     }
 
     /**
@@ -45,6 +73,16 @@ public class Texture {
         glBindTexture(GL_TEXTURE_2D, id);
     }
 
+    /**
+     * Bind the texture to a texture unit, the active unit is left to the selected one
+     *
+     * @param unit the texture unit to bind to (0 for GL_TEXTURE0)
+     */
+    public void bind(int unit) {
+        GL13.glActiveTexture(GL13.GL_TEXTURE0 + unit);
+        glBindTexture(GL_TEXTURE_2D, id);
+    }
+
     /**
      * Get the width of the texture
      *
@@ -70,7 +108,18 @@ public class Texture {
      */
     public void load(ByteBuffer buf) {
         bind();
-        glTexImage2D(GL_TEXTURE_2D, 0, GL_RGBA, width, height, 0, GL_RGBA, GL_UNSIGNED_BYTE, buf);
+        glTexImage2D(GL_TEXTURE_2D, 0, format == GL_RED ? GL30.GL_R8 : format, width, height, 0, format, GL_UNSIGNED_BYTE, buf);
+    }
+
+    /**
+     * Load packed RGBA pixels in the texture
+     * each int is read as a whole, the channel order doesn't depend on the platform endianness
+     *
+     * @param pixels the pixels as packed RGBA ints (0xRRGGBBAA)
+     */
+    public void load(int[] pixels) {
+        bind();
+        glTexImage2D(GL_TEXTURE_2D, 0, GL_RGBA, width, height, 0, GL_RGBA, GL12.GL_UNSIGNED_INT_8_8_8_8, pixels);
     }
 
     /**
@@ -8,4 +8,18 @@ public class AudioSampleCollection {
     public double noise;
     public double dmc;
     public double mixer;
+
+    /**
+     * Copy the samples of another collection
+     *
+     * @param other the collection to copy from
+     */
+    public void copy(AudioSampleCollection other) {
+        pulse1 = other.pulse1;
+        pulse2 = other.pulse2;
+        triangle = other.triangle;
+        noise = other.noise;
+        dmc = other.dmc;
+        mixer = other.mixer;
+    }
 }
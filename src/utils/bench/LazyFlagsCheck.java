@@ -0,0 +1,200 @@
+package utils.bench;
+
+import core.NES;
+import core.cartridge.Cartridge;
+import core.cpu.CPU_6502;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class checks the lazily evaluated Flags of the CPU against the eager ones
+ * each ROM is run on two consoles in lockstep, one with CPU_6502.enableLazyFlags(true), the other with (false),
+ * and the registers and the packed Status Register of both CPUs are compared after every Instruction
+ * a ROM is run until the blargg test reports its result at 0x6000, or for a maximum number of frames
+ * Usage : LazyFlagsCheck [frames] [rom or directory...]
+ * by default, every ROM of roms/test/cpu/instr_test-v3 is checked for at most 2500 frames
+ */
+public class LazyFlagsCheck {
+
+    private static final int RUNNING = 0x80;
+    //A frame lasts 89342 PPU ticks, no Instruction lasts that long unless the CPU is halted
+    private static final int MAX_STEP_TICKS = 89342;
+
+    public static void main(String[] args) throws Exception {
+        int frames = args.length > 0 ? Integer.parseInt(args[0]) : 2500;
+        List<File> roms = new ArrayList<>();
+        if (args.length > 1) {
+            for (int i = 1; i < args.length; i++)
+                roms.add(new File(args[i]));
+        } else {
+            roms.add(new File("roms/test/cpu/instr_test-v3"));
+        }
+        List<File> files = new ArrayList<>();
+        for (File rom : roms) {
+            File[] children = rom.listFiles((dir, name) -> name.toLowerCase().endsWith(".nes"));
+            if (children == null) {
+                files.add(rom);
+            } else {
+                Arrays.sort(children);
+                files.addAll(Arrays.asList(children));
+            }
+        }
+
+        int failures = 0;
+        for (File rom : files)
+            if (!check(rom.getPath(), frames))
+                failures++;
+        System.out.printf("%d ROMs, %d failed%n", files.size(), failures);
+        if (failures > 0)
+            System.exit(1);
+    }
+
+    /**
+     * Run a ROM with the lazy and the eager Flags in lockstep and compare the CPUs after every Instruction
+     * the save file of the Cartridge is restored afterward, so every run starts from the same state
+     *
+     * @param rom    the path of the ROM
+     * @param frames the maximum number of frames to run
+     * @return have both CPUs stayed identical
+     * @throws Exception if the ROM can't be loaded or the save file can't be restored
+     */
+    private static boolean check(String rom, int frames) throws Exception {
+        Path save_file = Paths.get(rom + ".sav");
+        byte[] previous_save = Files.exists(save_file) ? Files.readAllBytes(save_file) : null;
+        try {
+            NES lazy = start(rom, true);
+            NES eager = start(rom, false);
+            long instructions = 0;
+            int frame = 0;
+            int status = -1;
+            boolean halted = false;
+            while (frame < frames && (status < 0 || status >= RUNNING) && !halted) {
+                halted = !step(lazy);
+                boolean eager_halted = !step(eager);
+                if (halted != eager_halted) {
+                    System.out.printf("FAIL %s : instruction %d halts only one CPU%n", rom, instructions + 1);
+                    return false;
+                }
+                instructions++;
+                String difference = compare(lazy.getCpu(), eager.getCpu());
+                if (difference != null) {
+                    System.out.printf("FAIL %s : instruction %d differs, %s%n", rom, instructions, difference);
+                    return false;
+                }
+                if (lazy.getPpu().frame_complete) {
+                    lazy.getPpu().frame_complete = false;
+                    eager.getPpu().frame_complete = false;
+                    frame++;
+                    status = getTestStatus(lazy);
+                }
+            }
+            String result;
+            if (halted)
+                result = String.format("CPU halted at %04X", lazy.getCpu().getProgramCounter());
+            else if (status < 0)
+                result = "no test status";
+            else if (status >= RUNNING)
+                result = "test still running after " + frames + " frames";
+            else
+                result = String.format("test status %02X", status);
+            System.out.printf("OK   %s : %d instructions identical, %s (%s)%n", rom, instructions, result, getTestText(lazy).trim().replace('\n', ' '));
+            return true;
+        } finally {
+            if (previous_save == null)
+                Files.deleteIfExists(save_file);
+            else
+                Files.write(save_file, previous_save);
+        }
+    }
+
+    /**
+     * Create a console, insert a ROM and start it
+     *
+     * @param rom  the path of the ROM
+     * @param lazy should the CPU evaluate the Flags lazily
+     * @return the started console
+     * @throws Exception if the ROM can't be loaded
+     */
+    private static NES start(String rom, boolean lazy) throws Exception {
+        NES nes = new NES();
+        nes.setSampleFreq(44100);
+        nes.insertCartridge(new Cartridge(rom));
+        nes.startup();
+        nes.getCpu().enableLazyFlags(lazy);
+        return nes;
+    }
+
+    /**
+     * Clock a console until its CPU has completed the next Instruction
+     *
+     * @param nes the console to clock
+     * @return has the Instruction completed, false if the CPU is halted
+     */
+    private static boolean step(NES nes) {
+        CPU_6502 cpu = nes.getCpu();
+        int ticks = 0;
+        while (cpu.complete() && ticks++ < MAX_STEP_TICKS)
+            nes.clock(false);
+        while (!cpu.complete() && ticks++ < MAX_STEP_TICKS)
+            nes.clock(false);
+        return cpu.complete() && ticks < MAX_STEP_TICKS;
+    }
+
+    /**
+     * Compare the registers of two CPUs
+     *
+     * @param lazy  the CPU with the lazy Flags
+     * @param eager the CPU with the eager Flags
+     * @return a description of the first difference, null if the CPUs are identical
+     */
+    private static String compare(CPU_6502 lazy, CPU_6502 eager) {
+        if (lazy.getProgramCounter() != eager.getProgramCounter())
+            return String.format("PC %04X / %04X", lazy.getProgramCounter(), eager.getProgramCounter());
+        if (lazy.getStatus() != eager.getStatus())
+            return String.format("P %02X / %02X at %04X", lazy.getStatus(), eager.getStatus(), lazy.getProgramCounter());
+        if (lazy.getAccumulator() != eager.getAccumulator())
+            return String.format("A %02X / %02X at %04X", lazy.getAccumulator(), eager.getAccumulator(), lazy.getProgramCounter());
+        if (lazy.getXRegister() != eager.getXRegister())
+            return String.format("X %02X / %02X at %04X", lazy.getXRegister(), eager.getXRegister(), lazy.getProgramCounter());
+        if (lazy.getYRegister() != eager.getYRegister())
+            return String.format("Y %02X / %02X at %04X", lazy.getYRegister(), eager.getYRegister(), lazy.getProgramCounter());
+        if (lazy.getStackPointer() != eager.getStackPointer())
+            return String.format("SP %02X / %02X at %04X", lazy.getStackPointer(), eager.getStackPointer(), lazy.getProgramCounter());
+        return null;
+    }
+
+    /**
+     * Return the status of a blargg test ROM, written at 0x6000 behind the 0xDE 0xB0 0x61 signature
+     *
+     * @param nes the console running the test ROM
+     * @return the status (0x80 while running, 0 on success, the failure code otherwise), -1 if the signature isn't there
+     */
+    private static int getTestStatus(NES nes) {
+        if (nes.cpuRead(0x6001, true) != 0xDE || nes.cpuRead(0x6002, true) != 0xB0 || nes.cpuRead(0x6003, true) != 0x61)
+            return -1;
+        return nes.cpuRead(0x6000, true);
+    }
+
+    /**
+     * Return the text output of a blargg test ROM, written from 0x6004
+     *
+     * @param nes the console running the test ROM
+     * @return the text printed by the test ROM
+     */
+    private static String getTestText(NES nes) {
+        StringBuilder text = new StringBuilder();
+        for (int addr = 0x6004; addr < 0x7000; addr++) {
+            int c = nes.cpuRead(addr, true);
+            if (c == 0)
+                break;
+            text.append((char) c);
+        }
+        return text.toString();
+    }
+}
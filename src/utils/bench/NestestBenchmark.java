@@ -0,0 +1,47 @@
+package utils.bench;
+
+import core.NES;
+import core.cartridge.Cartridge;
+import core.cpu.CPU_6502;
+
+/**
+ * This class benchmarks the CPU on nestest in automation mode
+ * the ROM is started at 0xC000 and run until it returns to 0xC66E, the CPU being clocked on its own
+ * Usage : NestestBenchmark [rom] [runs]
+ */
+public class NestestBenchmark {
+
+    private static final int ENTRY = 0xC000;
+    private static final int EXIT = 0xC66E;
+    private static final int PASSES = 5;
+
+    public static void main(String[] args) throws Exception {
+        String rom = args.length > 0 ? args[0] : "roms/test/cpu/nestest.nes";
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+
+        NES nes = new NES();
+        nes.insertCartridge(new Cartridge(rom));
+        nes.startup();
+        CPU_6502 cpu = nes.getCpu();
+
+        //The first passes are also used to warm up the JIT, every pass is printed
+        for (int pass = 0; pass < PASSES; pass++) {
+            long instructions = 0;
+            long cycles = 0;
+            long start = System.nanoTime();
+            for (int run = 0; run < runs; run++) {
+                cpu.startup();
+                cpu.setProgramCounter(ENTRY);
+                while (cpu.getProgramCounter() != EXIT) {
+                    cpu.clock();
+                    cycles++;
+                    if (cpu.complete())
+                        instructions++;
+                }
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            //nestest stores its result codes at 0x02 (official opcodes) and 0x03 (unofficial opcodes), 0 meaning success
+            System.out.printf("Pass %d : %d runs, %.2fM instr/s, %.2fM cycles/s, result %02X%02X%n", pass + 1, runs, instructions / seconds / 1e6, cycles / seconds / 1e6, nes.cpuRead(0x02, true), nes.cpuRead(0x03, true));
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package utils.bench;
+
+import core.NES;
+import core.cartridge.Cartridge;
+import core.ppu.FrameBuffer;
+import core.ppu.FrameConverter;
+import core.ppu.OutputMode;
+import exceptions.InvalidFileException;
+import exceptions.UnsupportedMapperException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.zip.CRC32;
+
+/**
+ * This class runs a ROM without any window, frame by frame, for the checkers and benchmarks
+ * the save file of the Cartridge is restored when the runner is closed, so consecutive runs start from the same state
+ */
+class RomRunner implements AutoCloseable {
+
+    private final NES nes;
+    private final Path save_file;
+    private final byte[] previous_save;
+    private final CRC32 crc = new CRC32();
+    private ByteBuffer frame_bytes;
+    private int[] converted;
+
+    /**
+     * Create a new RomRunner and start the console
+     *
+     * @param rom the path of the ROM to run
+     * @throws InvalidFileException       if the ROM isn't a valid iNES file
+     * @throws UnsupportedMapperException if the Mapper of the ROM isn't implemented
+     * @throws IOException                if the ROM or its save file can't be read
+     */
+    RomRunner(String rom) throws InvalidFileException, UnsupportedMapperException, IOException {
+        save_file = Paths.get(rom + ".sav");
+        previous_save = Files.exists(save_file) ? Files.readAllBytes(save_file) : null;
+        nes = new NES();
+        nes.setSampleFreq(44100);
+        nes.insertCartridge(new Cartridge(rom));
+        nes.startup();
+    }
+
+    /**
+     * Return the emulated console
+     *
+     * @return the NES being run
+     */
+    NES getNES() {
+        return nes;
+    }
+
+    /**
+     * Run the console until the PPU has completed a frame
+     *
+     * @return the CRC32 of the completed frame
+     */
+    int runFrame() {
+        nes.runFrame();
+        nes.getPpu().frame_complete = false;
+        return frameCRC();
+    }
+
+    /**
+     * Compute the CRC32 of the latest frame, as RGBA bytes
+     *
+     * @return the CRC32 of the frame
+     */
+    int frameCRC() {
+        FrameBuffer frame = nes.getPpu().getFrameBuffer();
+        frame.acquire();
+        int[] pixels = frame.getPixels();
+        if (frame.getOutputMode() == OutputMode.INDEXED) {
+            if (converted == null)
+                converted = new int[frame.getIndexes().length];
+            FrameConverter.toRGBA(frame.getIndexes(), frame.getEmphasis(), nes.getPpu().getPalette(), converted);
+            pixels = converted;
+        }
+        if (frame_bytes == null)
+            frame_bytes = ByteBuffer.allocate(pixels.length * 4);
+        frame_bytes.clear();
+        frame_bytes.asIntBuffer().put(pixels);
+        crc.reset();
+        crc.update(frame_bytes.array());
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Return the status of a blargg test ROM, written at 0x6000 behind the 0xDE 0xB0 0x61 signature
+     *
+     * @return the status (0x80 while running, 0 on success, the failure code otherwise), -1 if the signature isn't there
+     */
+    int getTestStatus() {
+        if (nes.cpuRead(0x6001, true) != 0xDE || nes.cpuRead(0x6002, true) != 0xB0 || nes.cpuRead(0x6003, true) != 0x61)
+            return -1;
+        return nes.cpuRead(0x6000, true);
+    }
+
+    /**
+     * Return the text output of a blargg test ROM, written from 0x6004
+     *
+     * @return the text printed by the test ROM
+     */
+    String getTestText() {
+        StringBuilder text = new StringBuilder();
+        for (int addr = 0x6004; addr < 0x7000; addr++) {
+            int c = nes.cpuRead(addr, true);
+            if (c == 0)
+                break;
+            text.append((char) c);
+        }
+        return text.toString();
+    }
+
+    /**
+     * Restore the save file of the Cartridge as it was before the run
+     *
+     * @throws IOException if the save file can't be restored
+     */
+    @Override
+    public void close() throws IOException {
+        if (previous_save == null)
+            Files.deleteIfExists(save_file);
+        else
+            Files.write(save_file, previous_save);
+    }
+}
@@ -0,0 +1,88 @@
+package utils.bench;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class checks the scanline background renderer of the PPU against the dot renderer
+ * each ROM is run twice for the same number of frames, with PPU_2C02.setScanlineRendering(false) then (true),
+ * and the CRCs of every frame are compared
+ * Usage : ScanlineRendererCheck [frames] [rom or directory...]
+ * by default, the ROMs of roms/test/ppu and the Raster ROMs of roms/test/others are checked for 300 frames
+ */
+public class ScanlineRendererCheck {
+
+    public static void main(String[] args) throws Exception {
+        int frames = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+        List<File> roms = new ArrayList<>();
+        if (args.length > 1) {
+            for (int i = 1; i < args.length; i++)
+                collectROMs(new File(args[i]), roms);
+        } else {
+            collectROMs(new File("roms/test/ppu"), roms);
+            File[] others = new File("roms/test/others").listFiles((dir, name) -> name.startsWith("Raster"));
+            if (others != null) {
+                Arrays.sort(others);
+                roms.addAll(Arrays.asList(others));
+            }
+        }
+
+        int failures = 0;
+        for (File rom : roms) {
+            int[] dot = run(rom.getPath(), frames, false);
+            int[] line = run(rom.getPath(), frames, true);
+            int mismatch = -1;
+            for (int frame = 0; frame < frames && mismatch < 0; frame++)
+                if (dot[frame] != line[frame])
+                    mismatch = frame;
+            if (mismatch < 0) {
+                System.out.println("OK   " + rom.getPath());
+            } else {
+                System.out.printf("FAIL %s : frame %d differs (dot %08X, scanline %08X)%n", rom.getPath(), mismatch + 1, dot[mismatch], line[mismatch]);
+                failures++;
+            }
+        }
+        System.out.printf("%d ROMs, %d frames each, %d failed%n", roms.size(), frames, failures);
+        if (failures > 0)
+            System.exit(1);
+    }
+
+    /**
+     * Run a ROM and record the CRC of each frame
+     *
+     * @param rom      the path of the ROM
+     * @param frames   the number of frames to run
+     * @param scanline should the background be rendered one scanline at a time
+     * @return the CRC of each frame
+     * @throws Exception if the ROM can't be loaded
+     */
+    private static int[] run(String rom, int frames, boolean scanline) throws Exception {
+        int[] crcs = new int[frames];
+        try (RomRunner runner = new RomRunner(rom)) {
+            runner.getNES().getPpu().setScanlineRendering(scanline);
+            for (int frame = 0; frame < frames; frame++)
+                crcs[frame] = runner.runFrame();
+        }
+        return crcs;
+    }
+
+    /**
+     * Add a ROM, or the ROMs of a directory and its subdirectories, to a list
+     *
+     * @param file the ROM or the directory
+     * @param roms the list to add the ROMs to
+     */
+    private static void collectROMs(File file, List<File> roms) {
+        File[] children = file.listFiles();
+        if (children == null) {
+            if (file.getName().toLowerCase().endsWith(".nes"))
+                roms.add(file);
+            return;
+        }
+        Arrays.sort(children);
+        for (File child : children)
+            collectROMs(child, roms);
+    }
+}